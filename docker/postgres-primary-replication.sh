@@ -0,0 +1,4 @@
+#!/bin/sh
+# Allows the replica container to stream WAL from the primary (docker-compose.replica.yml)
+set -e
+echo "host replication ${POSTGRES_USER} all scram-sha-256" >> "$PGDATA/pg_hba.conf"
@@ -0,0 +1,152 @@
+package ru.polukhin.learningplatform.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.polukhin.learningplatform.LearningPlatformApplication;
+import ru.polukhin.learningplatform.dto.CourseOutlineView;
+import ru.polukhin.learningplatform.entity.*;
+import ru.polukhin.learningplatform.entity.Module;
+import ru.polukhin.learningplatform.repository.CategoryRepository;
+import ru.polukhin.learningplatform.repository.CourseRepository;
+import ru.polukhin.learningplatform.repository.UserRepository;
+import ru.polukhin.learningplatform.service.CourseService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code CourseRepository.findByIdWithFullStructure} (JOIN FETCH of modules and lessons) against
+ * the embedded H2 database of the test profile, next to the projection-based
+ * {@code CourseService.getCourseWithFullStructure} that serves {@code GET /api/courses/{id}/full}.
+ * Each invocation reads a random course out of {@link #COURSES}; after warmup the service answers
+ * from {@code CourseOutlineCache}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CourseFullStructureQueryBenchmark {
+
+    private static final int COURSES = 500;
+    private static final int CATEGORIES = 10;
+    private static final int MODULES_PER_COURSE = 8;
+    private static final int LESSONS_PER_MODULE = 6;
+
+    private ConfigurableApplicationContext context;
+    private CourseRepository courseRepository;
+    private CourseService courseService;
+    private TransactionTemplate readOnly;
+    private long[] courseIds;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(LearningPlatformApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .properties(
+                        "logging.level.root=WARN",
+                        "logging.level.ru.polukhin=WARN",
+                        "logging.level.org.hibernate.SQL=WARN",
+                        "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                        "spring.jpa.properties.hibernate.generate_statistics=false")
+                .run();
+        courseRepository = context.getBean(CourseRepository.class);
+        courseService = context.getBean(CourseService.class);
+        PlatformTransactionManager transactionManager = context.getBean(PlatformTransactionManager.class);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        courseIds = new TransactionTemplate(transactionManager).execute(status -> seed());
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int findByIdWithFullStructure() {
+        long id = randomCourseId();
+        return readOnly.execute(status -> {
+            Course course = courseRepository.findByIdWithFullStructure(id);
+            int lessons = 0;
+            for (Module module : course.getModules()) {
+                lessons += module.getLessons().size();
+            }
+            return lessons;
+        });
+    }
+
+    @Benchmark
+    public CourseOutlineView getCourseWithFullStructure() {
+        return courseService.getCourseWithFullStructure(randomCourseId());
+    }
+
+    private long randomCourseId() {
+        return courseIds[ThreadLocalRandom.current().nextInt(courseIds.length)];
+    }
+
+    private long[] seed() {
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        CategoryRepository categoryRepository = context.getBean(CategoryRepository.class);
+
+        User instructor = userRepository.save(User.builder()
+                .username("jmh_instructor")
+                .email("jmh_instructor@test.com")
+                .password("password")
+                .firstName("Bench")
+                .lastName("Instructor")
+                .role(RoleType.INSTRUCTOR)
+                .active(true)
+                .build());
+        List<Category> categories = new ArrayList<>(CATEGORIES);
+        for (int i = 0; i < CATEGORIES; i++) {
+            categories.add(categoryRepository.save(Category.builder()
+                    .name("JMH Category " + i)
+                    .description("Benchmark category")
+                    .build()));
+        }
+
+        String content = "Lesson text. ".repeat(80);
+        long[] ids = new long[COURSES];
+        for (int c = 0; c < COURSES; c++) {
+            Course course = Course.builder()
+                    .title("Course " + c)
+                    .description("Description of course " + c)
+                    .durationHours(10 + c % 50)
+                    .difficultyLevel(DifficultyLevel.values()[c % DifficultyLevel.values().length])
+                    .instructor(instructor)
+                    .category(categories.get(c % CATEGORIES))
+                    .published(true)
+                    .build();
+            for (int m = 0; m < MODULES_PER_COURSE; m++) {
+                Module module = Module.builder()
+                        .title("Module " + m)
+                        .description("Module description")
+                        .orderIndex(m)
+                        .course(course)
+                        .build();
+                for (int l = 0; l < LESSONS_PER_MODULE; l++) {
+                    module.getLessons().add(Lesson.builder()
+                            .title("Lesson " + m + "." + l)
+                            .content(content)
+                            .orderIndex(l)
+                            .durationMinutes(15)
+                            .module(module)
+                            .build());
+                }
+                course.getModules().add(module);
+            }
+            ids[c] = courseRepository.save(course).getId();
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,73 @@
+package ru.polukhin.learningplatform.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.polukhin.learningplatform.config.JacksonConfig;
+import ru.polukhin.learningplatform.dto.CourseOutlineView;
+import ru.polukhin.learningplatform.dto.CourseView;
+import ru.polukhin.learningplatform.dto.LessonView;
+import ru.polukhin.learningplatform.dto.ModuleOutlineView;
+import ru.polukhin.learningplatform.entity.DifficultyLevel;
+import ru.polukhin.learningplatform.entity.LessonType;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of the {@code GET /api/courses/{id}/full} body with the application's
+ * ObjectMapper setup (Hibernate6Module, ISO dates). Lesson content is about 1 KB of text.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CourseStructureSerializationBenchmark {
+
+    @Param({"5", "20"})
+    private int modules;
+
+    @Param({"5", "20"})
+    private int lessonsPerModule;
+
+    private ObjectMapper objectMapper;
+    private CourseOutlineView course;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .modulesToInstall(new JacksonConfig().hibernate6Module())
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+
+        LocalDateTime now = LocalDateTime.now();
+        String content = "Lesson text. ".repeat(80);
+        List<ModuleOutlineView> structure = new ArrayList<>(modules);
+        long lessonId = 1;
+        for (int m = 0; m < modules; m++) {
+            long moduleId = m + 1;
+            List<LessonView> lessons = new ArrayList<>(lessonsPerModule);
+            for (int l = 0; l < lessonsPerModule; l++) {
+                boolean video = l % 3 == 0;
+                lessons.add(new LessonView(lessonId++, moduleId, "Lesson " + m + "." + l, content, l,
+                        video ? LessonType.VIDEO : LessonType.TEXT,
+                        video ? "https://videos.example.com/" + lessonId : null, 15));
+            }
+            structure.add(new ModuleOutlineView(moduleId, "Module " + m, "Module description", m)
+                    .withLessons(lessons));
+        }
+        course = new CourseOutlineView(new CourseView(1L, "Java Programming", "Course description", null,
+                1L, "Programming", 1L, "John", "Smith", true, 40, DifficultyLevel.INTERMEDIATE, now, now),
+                structure);
+    }
+
+    @Benchmark
+    public byte[] serializeFullStructure() throws Exception {
+        return objectMapper.writeValueAsBytes(course);
+    }
+}
@@ -0,0 +1,96 @@
+package ru.polukhin.learningplatform.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import ru.polukhin.learningplatform.dto.AnswerKeyOptionRow;
+import ru.polukhin.learningplatform.dto.AnswerKeyQuestionRow;
+import ru.polukhin.learningplatform.entity.QuestionType;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scoring path of {@code QuizService.takeQuiz}: per-question {@link QuizAnswerKey#checkAnswer},
+ * grading a whole submission against a compiled key, and compile + grade as on an answer-key cache miss.
+ * Quizzes mix single choice, multiple choice (two correct of four) and true/false questions;
+ * roughly a third of the answers are wrong.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QuizGradingBenchmark {
+
+    private static final int OPTIONS_PER_QUESTION = 4;
+    private static final QuestionType[] TYPES = {
+            QuestionType.SINGLE_CHOICE, QuestionType.MULTIPLE_CHOICE, QuestionType.TRUE_FALSE};
+
+    @Param({"10", "50", "100", "500"})
+    private int questions;
+
+    private List<AnswerKeyQuestionRow> questionRows;
+    private List<AnswerKeyOptionRow> correctOptionRows;
+    private QuizAnswerKey answerKey;
+    private Map<Long, List<Long>> answers;
+
+    private QuestionType[] types;
+    private List<Long>[] studentAnswers;
+    private long[][] correctOptionIds;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        Random random = new Random(42);
+        questionRows = new ArrayList<>(questions);
+        correctOptionRows = new ArrayList<>();
+        answers = new HashMap<>();
+        types = new QuestionType[questions];
+        studentAnswers = new List[questions];
+        correctOptionIds = new long[questions][];
+
+        long optionId = 1_000;
+        for (int i = 0; i < questions; i++) {
+            long questionId = i + 1;
+            QuestionType type = TYPES[i % TYPES.length];
+            questionRows.add(new AnswerKeyQuestionRow(questionId, type, 1 + i % 5));
+
+            long firstOption = optionId;
+            optionId += OPTIONS_PER_QUESTION;
+            List<Long> correct = type == QuestionType.MULTIPLE_CHOICE
+                    ? List.of(firstOption + 2, firstOption)
+                    : List.of(firstOption);
+            correct.forEach(id -> correctOptionRows.add(new AnswerKeyOptionRow(questionId, id)));
+
+            List<Long> given = random.nextInt(3) == 0 ? List.of(firstOption + 1) : correct;
+            answers.put(questionId, given);
+            types[i] = type;
+            studentAnswers[i] = given;
+            correctOptionIds[i] = correct.stream().mapToLong(Long::longValue).sorted().toArray();
+        }
+
+        answerKey = QuizAnswerKey.compile(1L, 70, questionRows, correctOptionRows);
+    }
+
+    @Benchmark
+    public void checkAnswer(Blackhole blackhole) {
+        for (int i = 0; i < types.length; i++) {
+            blackhole.consume(QuizAnswerKey.checkAnswer(types[i], studentAnswers[i], correctOptionIds[i]));
+        }
+    }
+
+    @Benchmark
+    public QuizAnswerKey.GradingResult grade() {
+        return answerKey.grade(answers);
+    }
+
+    @Benchmark
+    public QuizAnswerKey.GradingResult compileAndGrade() {
+        return QuizAnswerKey.compile(1L, 70, questionRows, correctOptionRows).grade(answers);
+    }
+}
@@ -0,0 +1,78 @@
+package ru.polukhin.learningplatform.service;
+
+import org.openjdk.jmh.annotations.*;
+import ru.polukhin.learningplatform.dto.CourseSearchRow;
+import ru.polukhin.learningplatform.dto.LessonSearchRow;
+import ru.polukhin.learningplatform.entity.DifficultyLevel;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code GET /api/search} lookups against {@link SearchIndex} without loading highlight texts:
+ * 1,000 courses and 100,000 lessons of about 150 words drawn from a 20,000-word Zipf-like vocabulary.
+ * Queries combine a frequent word (in about a third of the lessons), a mid-frequency and a rare word.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchIndexBenchmark {
+
+    private static final int COURSES = 1_000;
+    private static final int VOCABULARY = 20_000;
+    private static final int WORDS_PER_LESSON = 150;
+
+    @Param({"100000"})
+    private int lessons;
+
+    private SearchIndex index;
+    private String[] words;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        words = new String[VOCABULARY];
+        for (int i = 0; i < VOCABULARY; i++) {
+            words[i] = "w" + Integer.toString(i, 36) + "x";
+        }
+        DifficultyLevel[] levels = DifficultyLevel.values();
+        index = new SearchIndex();
+        for (long id = 1; id <= COURSES; id++) {
+            index.putCourse(new CourseSearchRow(id, text(random, 4), text(random, 60), id % 20, "Category " + id % 20,
+                    levels[(int) (id % levels.length)], true));
+        }
+        for (long id = 1; id <= lessons; id++) {
+            index.putLesson(new LessonSearchRow(id, 1 + id % COURSES, text(random, 5), text(random, WORDS_PER_LESSON)));
+        }
+    }
+
+    @Benchmark
+    public SearchIndex.Result frequentWord() {
+        return index.search(new SearchIndex.Query(List.of(words[0]), null, null, null, 20));
+    }
+
+    @Benchmark
+    public SearchIndex.Result threeWords() {
+        return index.search(new SearchIndex.Query(List.of(words[1], words[300], words[15_000]), null, null, null, 20));
+    }
+
+    @Benchmark
+    public SearchIndex.Result threeWordsFiltered() {
+        return index.search(new SearchIndex.Query(List.of(words[1], words[300], words[15_000]), null, 3L,
+                DifficultyLevel.BEGINNER, 20));
+    }
+
+    // Rank r is drawn with probability roughly proportional to 1 / r
+    private String text(Random random, int length) {
+        StringBuilder text = new StringBuilder(length * 6);
+        for (int i = 0; i < length; i++) {
+            int rank = (int) Math.pow(VOCABULARY, random.nextDouble()) - 1;
+            text.append(words[rank]).append(' ');
+        }
+        return text.toString();
+    }
+}
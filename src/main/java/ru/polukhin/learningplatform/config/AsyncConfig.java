@@ -0,0 +1,11 @@
+package ru.polukhin.learningplatform.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+
+// @Async runs on Spring Boot's applicationTaskExecutor: a platform thread pool (spring.task.execution.*)
+// or one virtual thread per task with spring.threads.virtual.enabled=true (Java 21+)
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+}
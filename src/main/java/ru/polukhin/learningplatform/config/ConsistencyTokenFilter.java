@@ -0,0 +1,99 @@
+package ru.polukhin.learningplatform.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Binds {@link ReadConsistency} to the request thread from the client's {@code X-Consistency-Token}
+ * and, when the request committed a write, returns the new token in the same header.
+ * <p>
+ * A client that sends back the last token it received reads its own writes: read-only transactions
+ * skip replicas that have not replayed that position yet. Requests without a token (or with one that
+ * does not parse) read from any healthy replica.
+ */
+public class ConsistencyTokenFilter extends OncePerRequestFilter {
+
+    public static final String TOKEN_HEADER = "X-Consistency-Token";
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ReadConsistency consistency = ReadConsistency.begin(parseToken(request.getHeader(TOKEN_HEADER)));
+        TokenHeaderResponse wrapped = new TokenHeaderResponse(response, consistency);
+        try {
+            chain.doFilter(request, wrapped);
+        } finally {
+            ReadConsistency.end();
+            wrapped.writeHeader();
+        }
+    }
+
+    private static long parseToken(String token) {
+        if (token == null || token.isBlank()) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Long.parseLong(token.trim()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    // Sets the token header once, just before the response body starts
+    private static final class TokenHeaderResponse extends HttpServletResponseWrapper {
+
+        private final ReadConsistency consistency;
+        private boolean headerWritten;
+
+        TokenHeaderResponse(HttpServletResponse response, ReadConsistency consistency) {
+            super(response);
+            this.consistency = consistency;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            writeHeader();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeHeader();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeHeader();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            writeHeader();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            writeHeader();
+            super.sendError(sc);
+        }
+
+        void writeHeader() {
+            if (headerWritten || isCommitted() || !consistency.hasWritten()) {
+                return;
+            }
+            headerWritten = true;
+            setHeader(TOKEN_HEADER, String.valueOf(consistency.getRequiredPosition()));
+        }
+    }
+}
@@ -5,6 +5,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.polukhin.learningplatform.entity.AnswerOption;
 import ru.polukhin.learningplatform.entity.Assignment;
 import ru.polukhin.learningplatform.entity.Category;
@@ -38,9 +40,16 @@ public class DataInitializer {
             AssignmentRepository assignmentRepository,
             QuizRepository quizRepository,
             QuestionRepository questionRepository,
-            AnswerOptionRepository answerOptionRepository) {
+            AnswerOptionRepository answerOptionRepository,
+            PlatformTransactionManager transactionManager) {
 
-        return args -> {
+        // Single transaction: inserts are flushed together as JDBC batches
+        return args -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            // The migrated schema outlives restarts: seed only an empty database
+            if (userRepository.count() > 0) {
+                log.info("Demo data already present, skipping initialization");
+                return;
+            }
             log.info("Initializing demo data...");
 
             // Create users
@@ -250,6 +259,6 @@ public class DataInitializer {
             log.info("Instructor: username={}, password=password123", instructor.getUsername());
             log.info("Student 1: username={}, password=password123", student1.getUsername());
             log.info("Student 2: username={}, password=password123", student2.getUsername());
-        };
+        });
     }
 }
@@ -0,0 +1,114 @@
+package ru.polukhin.learningplatform.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Map;
+
+// Limits the number of threads working with JDBC at once (see JdbcAdmissionDataSource), per connection pool;
+// defaults to the HikariCP pool size
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "app.jdbc.admission.enabled", havingValue = "true", matchIfMissing = true)
+public class JdbcAdmissionConfig {
+
+    @Bean
+    public static BeanPostProcessor jdbcAdmissionPostProcessor(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                // ReadReplicaConfig admits to each pool behind the router on its own. Checked through
+                // unwrap: other post-processors may have wrapped the data source already
+                if (!(bean instanceof DataSource dataSource) || isWrapperFor(dataSource, JdbcAdmissionDataSource.class)
+                        || isWrapperFor(dataSource, ReplicaRoutingDataSource.class)) {
+                    return bean;
+                }
+                return admit(dataSource, environment);
+            }
+        };
+    }
+
+    /**
+     * @return {@code pool} behind its own admission limit, or {@code pool} itself when admission is disabled
+     */
+    static DataSource admit(DataSource pool, Environment environment) {
+        if (!environment.getProperty("app.jdbc.admission.enabled", Boolean.class, true)) {
+            return pool;
+        }
+        int maxConcurrent = environment.getProperty("app.jdbc.admission.max-concurrent", Integer.class, 0);
+        if (maxConcurrent <= 0) {
+            maxConcurrent = poolSize(pool);
+        }
+        Duration timeout = DurationStyle.detectAndParse(environment.getProperty("app.jdbc.admission.timeout", "30s"));
+        return new JdbcAdmissionDataSource(pool, maxConcurrent, timeout);
+    }
+
+    private static boolean isWrapperFor(DataSource dataSource, Class<?> type) {
+        try {
+            return dataSource.isWrapperFor(type);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    // HikariCP resolves an unset maximum-pool-size (-1) to minimum-idle, or 10, only when the pool starts
+    private static int poolSize(DataSource dataSource) {
+        if (!(dataSource instanceof HikariDataSource)) {
+            try {
+                dataSource = dataSource.unwrap(HikariDataSource.class);
+            } catch (SQLException e) {
+                return 10;
+            }
+        }
+        if (dataSource instanceof HikariDataSource hikari) {
+            if (hikari.getMaximumPoolSize() > 0) {
+                return hikari.getMaximumPoolSize();
+            }
+            return hikari.getMinimumIdle() > 0 ? hikari.getMinimumIdle() : 10;
+        }
+        return 10;
+    }
+
+    @Bean
+    public MeterBinder jdbcAdmissionMetrics(DataSource dataSource) {
+        return registry -> {
+            Map<String, DataSource> pools;
+            try {
+                pools = dataSource.isWrapperFor(ReplicaRoutingDataSource.class)
+                        ? dataSource.unwrap(ReplicaRoutingDataSource.class).getPools()
+                        : Map.of("primary", dataSource);
+            } catch (SQLException e) {
+                return;
+            }
+            pools.forEach((pool, target) -> {
+                if (!isWrapperFor(target, JdbcAdmissionDataSource.class)) {
+                    return;
+                }
+                JdbcAdmissionDataSource admission;
+                try {
+                    admission = target.unwrap(JdbcAdmissionDataSource.class);
+                } catch (SQLException e) {
+                    return;
+                }
+                Gauge.builder("jdbc.admission.waiting", admission, JdbcAdmissionDataSource::getQueueLength)
+                        .description("Threads waiting for JDBC admission")
+                        .tag("pool", pool)
+                        .register(registry);
+                Gauge.builder("jdbc.admission.active", admission,
+                                a -> a.getMaxConcurrent() - a.getAvailablePermits())
+                        .description("Threads admitted to JDBC")
+                        .tag("pool", pool)
+                        .register(registry);
+            });
+        };
+    }
+}
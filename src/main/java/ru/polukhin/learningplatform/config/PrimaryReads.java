@@ -0,0 +1,34 @@
+package ru.polukhin.learningplatform.config;
+
+import java.util.function.Supplier;
+
+/**
+ * Sends the connections taken inside {@link #call(Supplier)} to the primary, read-only transactions included.
+ * <p>
+ * For reads whose result outlives the request, such as the shared caches: an entry loaded from a lagging
+ * replica would still be served after the replica has caught up. A read-only transaction that already holds
+ * a replica connection keeps it, so callers start a new transaction inside the call.
+ */
+public final class PrimaryReads {
+
+    private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+
+    private PrimaryReads() {
+    }
+
+    public static <T> T call(Supplier<T> action) {
+        if (isPinned()) {
+            return action.get();
+        }
+        PINNED.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            PINNED.remove();
+        }
+    }
+
+    public static boolean isPinned() {
+        return PINNED.get() != null;
+    }
+}
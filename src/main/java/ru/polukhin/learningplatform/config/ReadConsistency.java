@@ -0,0 +1,51 @@
+package ru.polukhin.learningplatform.config;
+
+/**
+ * Read-your-writes state of the HTTP request being served: the primary's replication position that
+ * read-only transactions must see on a replica. It starts at the client's {@code X-Consistency-Token}
+ * and is raised after each read-write transaction of the request commits.
+ * Bound to the thread by {@link ConsistencyTokenFilter}; outside a request any healthy replica will do.
+ */
+public final class ReadConsistency {
+
+    private static final ThreadLocal<ReadConsistency> CURRENT = new ThreadLocal<>();
+
+    private long requiredPosition;
+    private boolean written;
+
+    private ReadConsistency(long requiredPosition) {
+        this.requiredPosition = requiredPosition;
+    }
+
+    static ReadConsistency begin(long requiredPosition) {
+        ReadConsistency consistency = new ReadConsistency(requiredPosition);
+        CURRENT.set(consistency);
+        return consistency;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    static ReadConsistency current() {
+        return CURRENT.get();
+    }
+
+    static long currentRequiredPosition() {
+        ReadConsistency consistency = CURRENT.get();
+        return consistency != null ? consistency.requiredPosition : 0;
+    }
+
+    void written(long position) {
+        requiredPosition = Math.max(requiredPosition, position);
+        written = true;
+    }
+
+    public long getRequiredPosition() {
+        return requiredPosition;
+    }
+
+    public boolean hasWritten() {
+        return written;
+    }
+}
@@ -0,0 +1,114 @@
+package ru.polukhin.learningplatform.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.util.unit.DataSize;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+// Чтение с реплик: read-only транзакции уходят в пулы app.read-replicas.urls, остальное — в основной пул
+// spring.datasource.*; read-your-writes через X-Consistency-Token (см. ReplicaRoutingDataSource)
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "app.read-replicas.enabled", havingValue = "true")
+public class ReadReplicaConfig {
+
+    static final String DEFAULT_PRIMARY_POSITION_SQL = "SELECT pg_current_wal_lsn() - '0/0'::pg_lsn";
+    static final String DEFAULT_REPLICA_POSITION_SQL = "SELECT pg_last_wal_replay_lsn() - '0/0'::pg_lsn";
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties properties, Environment environment) {
+        Binder binder = Binder.get(environment);
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        if (primary.getPoolName() == null) {
+            primary.setPoolName("primary");
+        }
+
+        Duration checkTimeout = DurationStyle.detectAndParse(
+                environment.getProperty("app.read-replicas.health-check-timeout", "2s"));
+        String username = environment.getProperty("app.read-replicas.username", properties.determineUsername());
+        String password = environment.getProperty("app.read-replicas.password", properties.determinePassword());
+        List<DataSource> replicas = new ArrayList<>();
+        for (String url : environment.getProperty("app.read-replicas.urls", String[].class, new String[0])) {
+            HikariDataSource replica = properties.initializeDataSourceBuilder().type(HikariDataSource.class)
+                    .url(url.trim())
+                    .username(username)
+                    .password(password)
+                    .build();
+            binder.bind("spring.datasource.hikari", Bindable.ofInstance(replica));
+            replica.setPoolName("replica-" + (replicas.size() + 1));
+            // A replica that is down should send reads to the primary quickly, not after the pool's usual 30s
+            replica.setConnectionTimeout(checkTimeout.toMillis());
+            replicas.add(JdbcAdmissionConfig.admit(replica, environment));
+        }
+
+        // Admission per pool: a read waits for a permit of the pool that serves it
+        return new ReplicaRoutingDataSource(JdbcAdmissionConfig.admit(primary, environment), replicas,
+                environment.getProperty("app.read-replicas.primary-position-sql", DEFAULT_PRIMARY_POSITION_SQL),
+                environment.getProperty("app.read-replicas.replica-position-sql", DEFAULT_REPLICA_POSITION_SQL),
+                DataSize.parse(environment.getProperty("app.read-replicas.max-lag", "16MB")).toBytes(),
+                checkTimeout);
+    }
+
+    // Entity, collection and query regions would be filled by whichever pool served the read, so a lagging replica
+    // could leave stale rows there for read-write transactions too
+    @Bean
+    public HibernatePropertiesCustomizer replicaCacheHibernateCustomizer() {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, false);
+            properties.put(AvailableSettings.USE_QUERY_CACHE, false);
+        };
+    }
+
+    @Bean
+    public ReplicaHealthCheck replicaHealthCheck(DataSource dataSource) throws SQLException {
+        return new ReplicaHealthCheck(dataSource.unwrap(ReplicaRoutingDataSource.class));
+    }
+
+    @Bean
+    public MeterBinder readReplicaMetrics(DataSource dataSource) {
+        return registry -> {
+            ReplicaRoutingDataSource routing;
+            try {
+                routing = dataSource.unwrap(ReplicaRoutingDataSource.class);
+            } catch (SQLException e) {
+                return;
+            }
+            for (ReplicaRoutingDataSource.Replica replica : routing.getReplicas()) {
+                Gauge.builder("jdbc.replica.healthy", replica, r -> r.isHealthy() ? 1 : 0)
+                        .description("Whether the replica serves read-only transactions")
+                        .tag("replica", replica.getName())
+                        .register(registry);
+                Gauge.builder("jdbc.replica.position", replica, ReplicaRoutingDataSource.Replica::getPosition)
+                        .description("Replication position replayed by the replica at the last health check")
+                        .tag("replica", replica.getName())
+                        .register(registry);
+            }
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<ConsistencyTokenFilter> consistencyTokenFilter() {
+        FilterRegistrationBean<ConsistencyTokenFilter> registration =
+                new FilterRegistrationBean<>(new ConsistencyTokenFilter());
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 20);
+        return registration;
+    }
+}
@@ -0,0 +1,25 @@
+package ru.polukhin.learningplatform.config;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Re-reads replica positions every {@code app.read-replicas.health-check-interval}: brings replicas
+ * that caught up or came back into rotation and takes lagging or unreachable ones out.
+ */
+public class ReplicaHealthCheck {
+
+    private final ReplicaRoutingDataSource routingDataSource;
+
+    public ReplicaHealthCheck(ReplicaRoutingDataSource routingDataSource) {
+        this.routingDataSource = routingDataSource;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.read-replicas.health-check-interval:5s}",
+            initialDelayString = "${app.read-replicas.health-check-interval:5s}")
+    public void check() {
+        routingDataSource.checkReplicas();
+    }
+}
@@ -0,0 +1,241 @@
+package ru.polukhin.learningplatform.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends read-only transactions to a replica and everything else (read-write transactions, work outside
+ * a transaction) to the primary.
+ * <p>
+ * Extends the lazy proxy because transaction managers take the connection before the transaction's
+ * read-only flag is published; the pool is chosen when the first statement needs the physical connection.
+ * A replica serves a read when its last health check succeeded, it is at most {@code maxLag} behind the
+ * primary and it has replayed the position the request requires ({@link ReadConsistency}); otherwise the
+ * primary does. Reads inside {@link PrimaryReads#call} always go to the primary. A replica whose pool fails to give out a connection is taken out until the next check.
+ * <p>
+ * Positions come from {@code primaryPositionSql} / {@code replicaPositionSql}, by default the WAL LSNs
+ * of PostgreSQL streaming replication. After a read-write transaction of a request commits, the primary
+ * position is read once more and becomes the request's consistency token.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final String primaryPositionSql;
+    private final String replicaPositionSql;
+    private final long maxLag;
+    private final int checkTimeoutSeconds;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Object writeTrackingKey = new Object();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, String primaryPositionSql,
+                                    String replicaPositionSql, long maxLag, Duration checkTimeout) {
+        this.primary = primary;
+        this.replicas = new ArrayList<>(replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            this.replicas.add(new Replica("replica-" + (i + 1), replicas.get(i)));
+        }
+        this.primaryPositionSql = primaryPositionSql;
+        this.replicaPositionSql = replicaPositionSql;
+        this.maxLag = maxLag;
+        this.checkTimeoutSeconds = (int) Math.max(1, checkTimeout.toSeconds());
+        setTargetDataSource(new Router());
+        afterPropertiesSet();
+    }
+
+    // Replicas start as down: reads go to the primary until the first check has read their positions
+    public void checkReplicas() {
+        long primaryPosition;
+        try {
+            primaryPosition = readPosition(primary, primaryPositionSql);
+        } catch (SQLException e) {
+            log.warn("Cannot read primary replication position: {}", e.getMessage());
+            return;
+        }
+        for (Replica replica : replicas) {
+            try {
+                long position = readPosition(replica.dataSource, replicaPositionSql);
+                boolean healthy = maxLag <= 0 || primaryPosition - position <= maxLag;
+                if (healthy != replica.healthy) {
+                    log.info("Replica {} is {} (position {}, primary {})", replica.name,
+                            healthy ? "up" : "lagging", position, primaryPosition);
+                }
+                replica.position = position;
+                replica.healthy = healthy;
+            } catch (SQLException e) {
+                markDown(replica, e);
+            }
+        }
+    }
+
+    public List<Replica> getReplicas() {
+        return List.copyOf(replicas);
+    }
+
+    /**
+     * @return the pools behind the router by name: {@code primary} first, then the replicas
+     */
+    public Map<String, DataSource> getPools() {
+        Map<String, DataSource> pools = new LinkedHashMap<>();
+        pools.put("primary", primary);
+        replicas.forEach(replica -> pools.put(replica.name, replica.dataSource));
+        return pools;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (DataSource dataSource : getPools().values()) {
+            closePool(dataSource);
+        }
+    }
+
+    // Pools may be wrapped (JdbcAdmissionDataSource): close the pool underneath
+    private static void closePool(DataSource dataSource) throws IOException {
+        if (dataSource instanceof Closeable closeable) {
+            closeable.close();
+            return;
+        }
+        try {
+            if (dataSource.isWrapperFor(Closeable.class)) {
+                dataSource.unwrap(Closeable.class).close();
+            }
+        } catch (SQLException e) {
+            throw new IOException("Cannot close " + dataSource, e);
+        }
+    }
+
+    private Connection route() throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            trackWrite();
+            return primary.getConnection();
+        }
+        if (PrimaryReads.isPinned()) {
+            return primary.getConnection();
+        }
+        long required = ReadConsistency.currentRequiredPosition();
+        for (int attempt = 0; attempt < replicas.size(); attempt++) {
+            Replica replica = replicas.get(Math.floorMod(next.getAndIncrement(), replicas.size()));
+            if (!replica.healthy || replica.position < required) {
+                continue;
+            }
+            try {
+                return replica.dataSource.getConnection();
+            } catch (SQLException e) {
+                markDown(replica, e);
+            }
+        }
+        return primary.getConnection();
+    }
+
+    // Once per read-write transaction of a request: the token returned to the client covers its commit
+    private void trackWrite() {
+        ReadConsistency consistency = ReadConsistency.current();
+        if (consistency == null || !TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(writeTrackingKey)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(writeTrackingKey, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(writeTrackingKey);
+                if (status != STATUS_COMMITTED) {
+                    return;
+                }
+                try {
+                    consistency.written(readPosition(primary, primaryPositionSql));
+                } catch (SQLException e) {
+                    log.warn("Cannot read primary replication position after commit: {}", e.getMessage());
+                }
+            }
+        });
+    }
+
+    private void markDown(Replica replica, SQLException e) {
+        if (replica.healthy) {
+            log.warn("Replica {} is down: {}", replica.name, e.getMessage());
+        }
+        replica.healthy = false;
+    }
+
+    private long readPosition(DataSource dataSource, String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout(checkTimeoutSeconds);
+            try (ResultSet rs = statement.executeQuery(sql)) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+
+    public static final class Replica {
+
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean healthy;
+        private volatile long position;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isHealthy() {
+            return healthy;
+        }
+
+        public long getPosition() {
+            return position;
+        }
+    }
+
+    // Target of the lazy proxy; unwrap reaches the primary pool
+    private final class Router extends AbstractDataSource {
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return route();
+        }
+
+        // Explicit credentials are the primary's: replicas are only reached with their pools' own
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+                trackWrite();
+            }
+            return primary.getConnection(username, password);
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> iface) throws SQLException {
+            return primary.unwrap(iface);
+        }
+
+        @Override
+        public boolean isWrapperFor(Class<?> iface) throws SQLException {
+            return primary.isWrapperFor(iface);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package ru.polukhin.learningplatform.config;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.jpa.boot.spi.JpaSettings;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.polukhin.learningplatform.service.AutocompleteService;
+import ru.polukhin.learningplatform.service.SearchService;
+
+import java.util.List;
+
+// Поиск и автодополнение: после коммита Hibernate сообщает об изменённых курсах, уроках и пользователях
+// в SearchService и AutocompleteService
+@Configuration(proxyBeanMethods = false)
+public class SearchConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer searchIndexHibernateCustomizer(
+            ObjectProvider<SearchService> searchService, ObjectProvider<AutocompleteService> autocompleteService) {
+        SearchIndexEventListener listener = new SearchIndexEventListener(searchService, autocompleteService);
+        Integrator integrator = new Integrator() {
+            @Override
+            public void integrate(Metadata metadata, BootstrapContext bootstrapContext,
+                                  SessionFactoryImplementor sessionFactory) {
+                EventListenerRegistry registry = sessionFactory.getServiceRegistry()
+                        .getService(EventListenerRegistry.class);
+                registry.appendListeners(EventType.POST_COMMIT_INSERT, listener);
+                registry.appendListeners(EventType.POST_COMMIT_UPDATE, listener);
+                registry.appendListeners(EventType.POST_COMMIT_DELETE, listener);
+            }
+
+            @Override
+            public void disintegrate(SessionFactoryImplementor sessionFactory,
+                                     SessionFactoryServiceRegistry serviceRegistry) {
+            }
+        };
+        return properties -> properties.put(JpaSettings.INTEGRATOR_PROVIDER, (IntegratorProvider) () -> List.of(integrator));
+    }
+}
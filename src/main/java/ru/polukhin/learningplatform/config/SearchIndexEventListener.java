@@ -0,0 +1,81 @@
+package ru.polukhin.learningplatform.config;
+
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.ObjectProvider;
+import ru.polukhin.learningplatform.entity.Course;
+import ru.polukhin.learningplatform.entity.Lesson;
+import ru.polukhin.learningplatform.entity.User;
+import ru.polukhin.learningplatform.service.AutocompleteService;
+import ru.polukhin.learningplatform.service.SearchService;
+
+// Called by Hibernate after the transaction commits; only records the id, the services' refresh() reloads the row
+public class SearchIndexEventListener implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+        PostCommitDeleteEventListener {
+
+    private final ObjectProvider<SearchService> searchService;
+    private final ObjectProvider<AutocompleteService> autocompleteService;
+
+    public SearchIndexEventListener(ObjectProvider<SearchService> searchService,
+                                    ObjectProvider<AutocompleteService> autocompleteService) {
+        this.searchService = searchService;
+        this.autocompleteService = autocompleteService;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        changed(event.getEntity(), event.getId());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        changed(event.getEntity(), event.getId());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        changed(event.getEntity(), event.getId());
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        Class<?> type = persister.getMappedClass();
+        return type == Course.class || type == Lesson.class || type == User.class;
+    }
+
+    private void changed(Object entity, Object id) {
+        SearchService search = searchService.getIfAvailable();
+        AutocompleteService autocomplete = autocompleteService.getIfAvailable();
+        if (entity instanceof Course) {
+            if (search != null) {
+                search.courseChanged((Long) id);
+            }
+            if (autocomplete != null) {
+                autocomplete.courseChanged((Long) id);
+            }
+        } else if (entity instanceof Lesson) {
+            if (search != null) {
+                search.lessonChanged((Long) id);
+            }
+        } else if (entity instanceof User && autocomplete != null) {
+            autocomplete.userChanged((Long) id);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package ru.polukhin.learningplatform.config;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * SQL issued by Hibernate on the current thread while an HTTP request is being served:
+ * statement count, rows read from result sets, JDBC execution time, and how many
+ * times each statement shape (SQL with literals and IN lists normalized) was executed.
+ * Bound to the thread by {@link SqlStatsFilter}; recording is a no-op outside a request.
+ */
+public final class SqlRequestStats {
+
+    private static final ThreadLocal<SqlRequestStats> CURRENT = new ThreadLocal<>();
+
+    private static final Pattern COMMENTS = Pattern.compile("/\\*.*?\\*/", Pattern.DOTALL);
+    private static final Pattern STRING_LITERALS = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERALS = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern IN_LISTS = Pattern.compile("(?i)\\bin\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final Map<String, Integer> shapes = new HashMap<>();
+    private int statements;
+    private long rows;
+    private long jdbcNanos;
+
+    static SqlRequestStats begin() {
+        SqlRequestStats stats = new SqlRequestStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    static void recordStatement(String sql) {
+        SqlRequestStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.statements++;
+            stats.shapes.merge(shape(sql), 1, Integer::sum);
+        }
+    }
+
+    static void recordRows(long count) {
+        SqlRequestStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.rows += count;
+        }
+    }
+
+    static void recordJdbcTime(long nanos) {
+        SqlRequestStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.jdbcNanos += nanos;
+        }
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getJdbcNanos() {
+        return jdbcNanos;
+    }
+
+    // Shapes executed at least threshold times, most frequent first: probable N+1 (a query per parent row)
+    public List<RepeatedStatement> getRepeatedStatements(int threshold) {
+        List<RepeatedStatement> repeated = new ArrayList<>();
+        shapes.forEach((shape, count) -> {
+            if (count >= threshold) {
+                repeated.add(new RepeatedStatement(shape, count));
+            }
+        });
+        repeated.sort(Comparator.comparingInt(RepeatedStatement::count).reversed());
+        return repeated;
+    }
+
+    static String shape(String sql) {
+        String shape = COMMENTS.matcher(sql).replaceAll("");
+        shape = STRING_LITERALS.matcher(shape).replaceAll("?");
+        shape = NUMBER_LITERALS.matcher(shape).replaceAll("?");
+        shape = IN_LISTS.matcher(shape).replaceAll("in (...)");
+        return WHITESPACE.matcher(shape).replaceAll(" ").trim().toLowerCase();
+    }
+
+    public record RepeatedStatement(String shape, int count) {
+    }
+}
@@ -0,0 +1,30 @@
+package ru.polukhin.learningplatform.config;
+
+import org.springframework.context.ApplicationEvent;
+
+// Published by SqlStatsFilter when a request completes; uri is the matched handler pattern
+public class SqlRequestStatsEvent extends ApplicationEvent {
+
+    private final String method;
+    private final String uri;
+    private final SqlRequestStats stats;
+
+    public SqlRequestStatsEvent(Object source, String method, String uri, SqlRequestStats stats) {
+        super(source);
+        this.method = method;
+        this.uri = uri;
+        this.stats = stats;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getUri() {
+        return uri;
+    }
+
+    public SqlRequestStats getStats() {
+        return stats;
+    }
+}
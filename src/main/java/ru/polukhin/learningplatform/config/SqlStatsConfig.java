@@ -0,0 +1,52 @@
+package ru.polukhin.learningplatform.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+
+// Учёт SQL на HTTP-запрос: StatementInspector, таймеры JDBC сессии и строки result set -> SqlStatsFilter
+@Configuration
+@ConditionalOnProperty(name = "app.sql-stats.enabled", havingValue = "true", matchIfMissing = true)
+public class SqlStatsConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer sqlStatsHibernateCustomizer() {
+        return properties -> {
+            properties.put(AvailableSettings.STATEMENT_INSPECTOR, new SqlStatsStatementInspector());
+            properties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, SqlStatsSessionListener.class.getName());
+        };
+    }
+
+    @Bean
+    public static BeanPostProcessor sqlStatsDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource && !(bean instanceof SqlStatsDataSource)
+                        ? new SqlStatsDataSource(dataSource) : bean;
+            }
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<SqlStatsFilter> sqlStatsFilter(
+            MeterRegistry meterRegistry,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${app.sql-stats.n-plus-one-threshold:5}") int nPlusOneThreshold,
+            @Value("${app.sql-stats.response-headers:true}") boolean responseHeaders) {
+        FilterRegistrationBean<SqlStatsFilter> registration = new FilterRegistrationBean<>(
+                new SqlStatsFilter(meterRegistry, eventPublisher, nPlusOneThreshold, responseHeaders));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+}
@@ -0,0 +1,85 @@
+package ru.polukhin.learningplatform.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// Counts the rows read from every result set of a connection taken while a request is tracked
+// (SqlRequestStats); connections taken outside a request are returned as they are
+class SqlStatsDataSource extends DelegatingDataSource {
+
+    SqlStatsDataSource(DataSource target) {
+        super(target);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return counted(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return counted(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private static Connection counted(Connection connection) {
+        if (!SqlRequestStats.isActive()) {
+            return connection;
+        }
+        return proxy(Connection.class, connection, (proxy, method, args) -> {
+            Object result = invoke(connection, method, args);
+            return switch (method.getName()) {
+                case "createStatement" -> statement(Statement.class, (Statement) result);
+                case "prepareStatement" -> statement(PreparedStatement.class, (PreparedStatement) result);
+                case "prepareCall" -> statement(CallableStatement.class, (CallableStatement) result);
+                default -> result;
+            };
+        });
+    }
+
+    private static <T extends Statement> T statement(Class<T> type, T statement) {
+        return proxy(type, statement, (proxy, method, args) -> {
+            Object result = invoke(statement, method, args);
+            return result instanceof ResultSet resultSet && !"getGeneratedKeys".equals(method.getName())
+                    ? resultSet(resultSet) : result;
+        });
+    }
+
+    private static ResultSet resultSet(ResultSet resultSet) {
+        return proxy(ResultSet.class, resultSet, (proxy, method, args) -> {
+            Object result = invoke(resultSet, method, args);
+            if ("next".equals(method.getName()) && Boolean.TRUE.equals(result)) {
+                SqlRequestStats.recordRows(1);
+            }
+            return result;
+        });
+    }
+
+    // equals and hashCode by identity; unwrap and isWrapperFor reach the driver's object
+    private static <T> T proxy(Class<T> type, T target, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(SqlStatsDataSource.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    default -> handler.invoke(proxy, method, args);
+                }));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package ru.polukhin.learningplatform.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Binds {@link SqlRequestStats} to the request thread, reports the totals in {@code X-SQL-*}
+ * response headers and {@code sql.request.*} metrics, and logs statement shapes repeated at least
+ * {@code app.sql-stats.n-plus-one-threshold} times as probable N+1.
+ * <p>
+ * Headers are written when the body is first written (after the handler returns, so they cover
+ * the service call); for streamed responses they cover only the statements issued up to that point.
+ */
+@Slf4j
+public class SqlStatsFilter extends OncePerRequestFilter {
+
+    public static final String STATEMENTS_HEADER = "X-SQL-Statements";
+    public static final String ROWS_HEADER = "X-SQL-Rows";
+    public static final String JDBC_TIME_HEADER = "X-SQL-Time-Ms";
+    public static final String N_PLUS_ONE_HEADER = "X-SQL-N-Plus-One";
+
+    private final MeterRegistry meterRegistry;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int nPlusOneThreshold;
+    private final boolean responseHeaders;
+
+    public SqlStatsFilter(MeterRegistry meterRegistry, ApplicationEventPublisher eventPublisher,
+                          int nPlusOneThreshold, boolean responseHeaders) {
+        this.meterRegistry = meterRegistry;
+        this.eventPublisher = eventPublisher;
+        this.nPlusOneThreshold = nPlusOneThreshold;
+        this.responseHeaders = responseHeaders;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        SqlRequestStats stats = SqlRequestStats.begin();
+        StatsHeaderResponse wrapped = responseHeaders ? new StatsHeaderResponse(response, stats) : null;
+        try {
+            chain.doFilter(request, wrapped != null ? wrapped : response);
+        } finally {
+            SqlRequestStats.end();
+            if (wrapped != null) {
+                wrapped.writeHeaders();
+            }
+            report(request, stats);
+        }
+    }
+
+    private void report(HttpServletRequest request, SqlRequestStats stats) {
+        if (stats.getStatements() == 0) {
+            return;
+        }
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        String method = request.getMethod();
+
+        DistributionSummary.builder("sql.request.statements")
+                .tags("method", method, "uri", uri)
+                .register(meterRegistry)
+                .record(stats.getStatements());
+        DistributionSummary.builder("sql.request.rows")
+                .tags("method", method, "uri", uri)
+                .register(meterRegistry)
+                .record(stats.getRows());
+        Timer.builder("sql.request.jdbc.time")
+                .tags("method", method, "uri", uri)
+                .register(meterRegistry)
+                .record(stats.getJdbcNanos(), TimeUnit.NANOSECONDS);
+
+        List<SqlRequestStats.RepeatedStatement> repeated = stats.getRepeatedStatements(nPlusOneThreshold);
+        if (!repeated.isEmpty()) {
+            Counter.builder("sql.request.n-plus-one")
+                    .tags("method", method, "uri", uri)
+                    .register(meterRegistry)
+                    .increment();
+            for (SqlRequestStats.RepeatedStatement statement : repeated) {
+                log.warn("Probable N+1 in {} {}: {} executions of [{}]", method, uri, statement.count(), statement.shape());
+            }
+        }
+
+        eventPublisher.publishEvent(new SqlRequestStatsEvent(this, method, uri, stats));
+    }
+
+    // Sets the X-SQL-* headers once, just before the response body starts
+    private final class StatsHeaderResponse extends HttpServletResponseWrapper {
+
+        private final SqlRequestStats stats;
+        private boolean headersWritten;
+
+        StatsHeaderResponse(HttpServletResponse response, SqlRequestStats stats) {
+            super(response);
+            this.stats = stats;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            writeHeaders();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeHeaders();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeHeaders();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            writeHeaders();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            writeHeaders();
+            super.sendError(sc);
+        }
+
+        void writeHeaders() {
+            if (headersWritten || isCommitted()) {
+                return;
+            }
+            headersWritten = true;
+            setHeader(STATEMENTS_HEADER, String.valueOf(stats.getStatements()));
+            setHeader(ROWS_HEADER, String.valueOf(stats.getRows()));
+            setHeader(JDBC_TIME_HEADER, String.format(Locale.ROOT, "%.3f", stats.getJdbcNanos() / 1_000_000.0));
+            int repeated = stats.getRepeatedStatements(nPlusOneThreshold).size();
+            if (repeated > 0) {
+                setHeader(N_PLUS_ONE_HEADER, String.valueOf(repeated));
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package ru.polukhin.learningplatform.config;
+
+import org.hibernate.SessionEventListener;
+
+// Instantiated by Hibernate for each session (hibernate.session.events.auto); times JDBC executions
+public class SqlStatsSessionListener implements SessionEventListener {
+
+    private long statementStart;
+    private long batchStart;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        statementStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        SqlRequestStats.recordJdbcTime(System.nanoTime() - statementStart);
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        batchStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        SqlRequestStats.recordJdbcTime(System.nanoTime() - batchStart);
+    }
+}
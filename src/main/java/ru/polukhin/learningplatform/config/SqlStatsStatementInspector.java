@@ -0,0 +1,13 @@
+package ru.polukhin.learningplatform.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+// Sees every SQL string Hibernate prepares (queries, fetches, batched DML) before it reaches JDBC
+class SqlStatsStatementInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        SqlRequestStats.recordStatement(sql);
+        return sql;
+    }
+}
@@ -7,12 +7,15 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.polukhin.learningplatform.dto.AssignmentView;
+import ru.polukhin.learningplatform.dto.BulkGradeRequest;
+import ru.polukhin.learningplatform.dto.BulkGradeResponse;
+import ru.polukhin.learningplatform.dto.CursorPage;
+import ru.polukhin.learningplatform.dto.SubmissionView;
 import ru.polukhin.learningplatform.entity.Assignment;
 import ru.polukhin.learningplatform.entity.Submission;
 import ru.polukhin.learningplatform.service.AssignmentService;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/api/assignments")
 @RequiredArgsConstructor
@@ -23,26 +26,34 @@ public class AssignmentController {
 
     @GetMapping
     @Operation(summary = "Get all assignments")
-    public ResponseEntity<List<Assignment>> getAllAssignments() {
-        return ResponseEntity.ok(assignmentService.getAllAssignments());
+    public ResponseEntity<CursorPage<AssignmentView>> getAllAssignments(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(assignmentService.getAllAssignments(cursor, size));
     }
 
     @GetMapping("/{id}")
     @Operation(summary = "Get assignment by ID")
-    public ResponseEntity<Assignment> getAssignmentById(@PathVariable Long id) {
+    public ResponseEntity<AssignmentView> getAssignmentById(@PathVariable Long id) {
         return ResponseEntity.ok(assignmentService.getAssignmentById(id));
     }
 
     @GetMapping("/lesson/{lessonId}")
     @Operation(summary = "Get assignments by lesson")
-    public ResponseEntity<List<Assignment>> getAssignmentsByLesson(@PathVariable Long lessonId) {
-        return ResponseEntity.ok(assignmentService.getAssignmentsByLesson(lessonId));
+    public ResponseEntity<CursorPage<AssignmentView>> getAssignmentsByLesson(
+            @PathVariable Long lessonId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(assignmentService.getAssignmentsByLesson(lessonId, cursor, size));
     }
 
     @GetMapping("/course/{courseId}")
     @Operation(summary = "Get assignments by course")
-    public ResponseEntity<List<Assignment>> getAssignmentsByCourse(@PathVariable Long courseId) {
-        return ResponseEntity.ok(assignmentService.getAssignmentsByCourse(courseId));
+    public ResponseEntity<CursorPage<AssignmentView>> getAssignmentsByCourse(
+            @PathVariable Long courseId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(assignmentService.getAssignmentsByCourse(courseId, cursor, size));
     }
 
     @PostMapping
@@ -87,15 +98,27 @@ public class AssignmentController {
         return ResponseEntity.ok(assignmentService.gradeSubmission(submissionId, score, feedback));
     }
 
+    @PutMapping("/submissions/grade/bulk")
+    @Operation(summary = "Grade many submissions at once")
+    public ResponseEntity<BulkGradeResponse> gradeSubmissions(@Valid @RequestBody BulkGradeRequest request) {
+        return ResponseEntity.ok(assignmentService.gradeSubmissions(request.grades()));
+    }
+
     @GetMapping("/submissions/student/{studentId}")
     @Operation(summary = "Get submissions by student")
-    public ResponseEntity<List<Submission>> getSubmissionsByStudent(@PathVariable Long studentId) {
-        return ResponseEntity.ok(assignmentService.getSubmissionsByStudent(studentId));
+    public ResponseEntity<CursorPage<SubmissionView>> getSubmissionsByStudent(
+            @PathVariable Long studentId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(assignmentService.getSubmissionsByStudent(studentId, cursor, size));
     }
 
     @GetMapping("/{id}/submissions")
     @Operation(summary = "Get submissions for assignment")
-    public ResponseEntity<List<Submission>> getSubmissionsByAssignment(@PathVariable Long id) {
-        return ResponseEntity.ok(assignmentService.getSubmissionsByAssignment(id));
+    public ResponseEntity<CursorPage<SubmissionView>> getSubmissionsByAssignment(
+            @PathVariable Long id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(assignmentService.getSubmissionsByAssignment(id, cursor, size));
     }
 }
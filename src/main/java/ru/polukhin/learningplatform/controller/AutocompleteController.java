@@ -0,0 +1,39 @@
+package ru.polukhin.learningplatform.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import ru.polukhin.learningplatform.dto.AutocompleteSuggestion;
+import ru.polukhin.learningplatform.service.AutocompleteService;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/autocomplete")
+@RequiredArgsConstructor
+@Tag(name = "Autocomplete", description = "Type-ahead suggestions for courses and users")
+public class AutocompleteController {
+
+    private final AutocompleteService autocompleteService;
+
+    @GetMapping("/courses")
+    @Operation(summary = "Suggest courses whose title has a word starting with the prefix, most enrolled first")
+    public ResponseEntity<List<AutocompleteSuggestion>> suggestCourses(
+            @RequestParam String q,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(autocompleteService.suggestCourses(q, limit));
+    }
+
+    @GetMapping("/users")
+    @Operation(summary = "Suggest users whose username or name has a word starting with the prefix, most active first")
+    public ResponseEntity<List<AutocompleteSuggestion>> suggestUsers(
+            @RequestParam String q,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(autocompleteService.suggestUsers(q, limit));
+    }
+}
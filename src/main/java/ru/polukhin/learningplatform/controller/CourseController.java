@@ -1,15 +1,32 @@
 package ru.polukhin.learningplatform.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.polukhin.learningplatform.dto.CourseOutlineView;
+import ru.polukhin.learningplatform.dto.CourseStatisticsView;
+import ru.polukhin.learningplatform.dto.CourseView;
+import ru.polukhin.learningplatform.dto.CursorPage;
+import ru.polukhin.learningplatform.dto.GradebookEntryView;
+import ru.polukhin.learningplatform.dto.GradebookSort;
+import ru.polukhin.learningplatform.dto.RelatedCourseView;
 import ru.polukhin.learningplatform.entity.Course;
 import ru.polukhin.learningplatform.entity.Module;
+import ru.polukhin.learningplatform.service.CourseRecommendationService;
 import ru.polukhin.learningplatform.service.CourseService;
+import ru.polukhin.learningplatform.service.CourseStatisticsService;
+import ru.polukhin.learningplatform.service.GradebookService;
+import ru.polukhin.learningplatform.service.RenderedJson;
+import ru.polukhin.learningplatform.service.RenderedJsonCache;
 
 import java.util.List;
 
@@ -20,47 +37,91 @@ import java.util.List;
 public class CourseController {
 
     private final CourseService courseService;
+    private final CourseStatisticsService courseStatisticsService;
+    private final CourseRecommendationService recommendationService;
+    private final GradebookService gradebookService;
+    private final RenderedJsonCache renderedJsonCache;
 
     @GetMapping
     @Operation(summary = "Get all courses")
-    public ResponseEntity<List<Course>> getAllCourses() {
-        return ResponseEntity.ok(courseService.getAllCourses());
+    public ResponseEntity<CursorPage<CourseView>> getAllCourses(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(courseService.getAllCourses(cursor, size));
     }
 
     @GetMapping("/{id}")
     @Operation(summary = "Get course by ID")
-    public ResponseEntity<Course> getCourseById(@PathVariable Long id) {
+    public ResponseEntity<CourseView> getCourseById(@PathVariable Long id) {
         return ResponseEntity.ok(courseService.getCourseById(id));
     }
 
     @GetMapping("/{id}/with-modules")
     @Operation(summary = "Get course with modules")
-    public ResponseEntity<Course> getCourseWithModules(@PathVariable Long id) {
+    public ResponseEntity<CourseOutlineView> getCourseWithModules(@PathVariable Long id) {
         return ResponseEntity.ok(courseService.getCourseWithModules(id));
     }
 
     @GetMapping("/{id}/full")
     @Operation(summary = "Get course with full structure")
-    public ResponseEntity<Course> getCourseWithFullStructure(@PathVariable Long id) {
-        return ResponseEntity.ok(courseService.getCourseWithFullStructure(id));
+    @ApiResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = CourseOutlineView.class)))
+    public ResponseEntity<byte[]> getCourseWithFullStructure(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        RenderedJson rendered = renderedJsonCache.get(RenderedJsonCache.Resource.COURSE_OUTLINE, id,
+                () -> courseService.getCourseWithFullStructure(id));
+        return RenderedJsonResponses.of(rendered, acceptEncoding);
+    }
+
+    @GetMapping("/{id}/statistics")
+    @Operation(summary = "Get course enrollment and rating statistics")
+    public ResponseEntity<CourseStatisticsView> getCourseStatistics(@PathVariable Long id) {
+        return ResponseEntity.ok(courseStatisticsService.getStatistics(id));
+    }
+
+    @GetMapping("/{id}/gradebook")
+    @Operation(summary = "Get assignment and quiz totals of every enrolled student, sorted by student or percentage")
+    public ResponseEntity<CursorPage<GradebookEntryView>> getGradebook(
+            @PathVariable Long id,
+            @RequestParam(required = false) GradebookSort sort,
+            @RequestParam(required = false) Sort.Direction direction,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(gradebookService.getGradebook(id, sort, direction, cursor, size));
+    }
+
+    @GetMapping("/{id}/related")
+    @Operation(summary = "Get courses most often taken together with this one")
+    public ResponseEntity<List<RelatedCourseView>> getRelatedCourses(
+            @PathVariable Long id,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(recommendationService.getRelatedCourses(id, limit));
     }
 
     @GetMapping("/published")
     @Operation(summary = "Get all published courses")
-    public ResponseEntity<List<Course>> getPublishedCourses() {
-        return ResponseEntity.ok(courseService.getPublishedCourses());
+    public ResponseEntity<CursorPage<CourseView>> getPublishedCourses(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(courseService.getPublishedCourses(cursor, size));
     }
 
     @GetMapping("/category/{categoryId}")
     @Operation(summary = "Get courses by category")
-    public ResponseEntity<List<Course>> getCoursesByCategory(@PathVariable Long categoryId) {
-        return ResponseEntity.ok(courseService.getCoursesByCategory(categoryId));
+    public ResponseEntity<CursorPage<CourseView>> getCoursesByCategory(
+            @PathVariable Long categoryId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(courseService.getCoursesByCategory(categoryId, cursor, size));
     }
 
     @GetMapping("/instructor/{instructorId}")
     @Operation(summary = "Get courses by instructor")
-    public ResponseEntity<List<Course>> getCoursesByInstructor(@PathVariable Long instructorId) {
-        return ResponseEntity.ok(courseService.getCoursesByInstructor(instructorId));
+    public ResponseEntity<CursorPage<CourseView>> getCoursesByInstructor(
+            @PathVariable Long instructorId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(courseService.getCoursesByInstructor(instructorId, cursor, size));
     }
 
     @PostMapping
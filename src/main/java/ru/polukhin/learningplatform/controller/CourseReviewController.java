@@ -0,0 +1,56 @@
+package ru.polukhin.learningplatform.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import ru.polukhin.learningplatform.dto.CourseReviewRequest;
+import ru.polukhin.learningplatform.dto.CourseReviewView;
+import ru.polukhin.learningplatform.dto.CursorPage;
+import ru.polukhin.learningplatform.service.CourseReviewService;
+
+@RestController
+@RequestMapping("/api/reviews")
+@RequiredArgsConstructor
+@Tag(name = "Reviews", description = "Course review management APIs")
+public class CourseReviewController {
+
+    private final CourseReviewService courseReviewService;
+
+    @GetMapping("/course/{courseId}")
+    @Operation(summary = "Get reviews by course")
+    public ResponseEntity<CursorPage<CourseReviewView>> getReviewsByCourse(
+            @PathVariable Long courseId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(courseReviewService.getReviewsByCourse(courseId, cursor, size));
+    }
+
+    @PostMapping
+    @Operation(summary = "Review a course")
+    public ResponseEntity<CourseReviewView> addReview(
+            @RequestParam Long studentId,
+            @RequestParam Long courseId,
+            @Valid @RequestBody CourseReviewRequest review) {
+        CourseReviewView created = courseReviewService.addReview(studentId, courseId, review);
+        return ResponseEntity.status(HttpStatus.CREATED).body(created);
+    }
+
+    @PutMapping("/{id}")
+    @Operation(summary = "Update review")
+    public ResponseEntity<CourseReviewView> updateReview(
+            @PathVariable Long id,
+            @Valid @RequestBody CourseReviewRequest review) {
+        return ResponseEntity.ok(courseReviewService.updateReview(id, review));
+    }
+
+    @DeleteMapping("/{id}")
+    @Operation(summary = "Delete review")
+    public ResponseEntity<Void> deleteReview(@PathVariable Long id) {
+        courseReviewService.deleteReview(id);
+        return ResponseEntity.noContent().build();
+    }
+}
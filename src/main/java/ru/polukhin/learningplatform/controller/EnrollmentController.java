@@ -2,15 +2,19 @@ package ru.polukhin.learningplatform.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.polukhin.learningplatform.dto.BulkEnrollmentRequest;
+import ru.polukhin.learningplatform.dto.BulkEnrollmentResponse;
+import ru.polukhin.learningplatform.dto.CursorPage;
+import ru.polukhin.learningplatform.dto.EnrollmentProgressView;
+import ru.polukhin.learningplatform.dto.EnrollmentView;
 import ru.polukhin.learningplatform.entity.Enrollment;
 import ru.polukhin.learningplatform.service.EnrollmentService;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/api/enrollments")
 @RequiredArgsConstructor
@@ -21,26 +25,34 @@ public class EnrollmentController {
 
     @GetMapping
     @Operation(summary = "Get all enrollments")
-    public ResponseEntity<List<Enrollment>> getAllEnrollments() {
-        return ResponseEntity.ok(enrollmentService.getAllEnrollments());
+    public ResponseEntity<CursorPage<EnrollmentView>> getAllEnrollments(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(enrollmentService.getAllEnrollments(cursor, size));
     }
 
     @GetMapping("/{id}")
     @Operation(summary = "Get enrollment by ID")
-    public ResponseEntity<Enrollment> getEnrollmentById(@PathVariable Long id) {
+    public ResponseEntity<EnrollmentView> getEnrollmentById(@PathVariable Long id) {
         return ResponseEntity.ok(enrollmentService.getEnrollmentById(id));
     }
 
     @GetMapping("/student/{studentId}")
     @Operation(summary = "Get enrollments by student")
-    public ResponseEntity<List<Enrollment>> getEnrollmentsByStudent(@PathVariable Long studentId) {
-        return ResponseEntity.ok(enrollmentService.getEnrollmentsByStudent(studentId));
+    public ResponseEntity<CursorPage<EnrollmentView>> getEnrollmentsByStudent(
+            @PathVariable Long studentId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(enrollmentService.getEnrollmentsByStudent(studentId, cursor, size));
     }
 
     @GetMapping("/course/{courseId}")
     @Operation(summary = "Get enrollments by course")
-    public ResponseEntity<List<Enrollment>> getEnrollmentsByCourse(@PathVariable Long courseId) {
-        return ResponseEntity.ok(enrollmentService.getEnrollmentsByCourse(courseId));
+    public ResponseEntity<CursorPage<EnrollmentView>> getEnrollmentsByCourse(
+            @PathVariable Long courseId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(enrollmentService.getEnrollmentsByCourse(courseId, cursor, size));
     }
 
     @GetMapping("/course/{courseId}/count")
@@ -58,6 +70,12 @@ public class EnrollmentController {
         return ResponseEntity.status(HttpStatus.CREATED).body(enrollment);
     }
 
+    @PostMapping("/bulk")
+    @Operation(summary = "Enroll a cohort of students to course")
+    public ResponseEntity<BulkEnrollmentResponse> enrollStudents(@Valid @RequestBody BulkEnrollmentRequest request) {
+        return ResponseEntity.ok(enrollmentService.enrollStudents(request.courseId(), request.studentIds()));
+    }
+
     @PutMapping("/{id}/unenroll")
     @Operation(summary = "Unenroll student from course")
     public ResponseEntity<Void> unenrollStudent(@PathVariable Long id) {
@@ -67,10 +85,10 @@ public class EnrollmentController {
 
     @PutMapping("/{id}/progress")
     @Operation(summary = "Update enrollment progress")
-    public ResponseEntity<Enrollment> updateProgress(
+    public ResponseEntity<EnrollmentProgressView> updateProgress(
             @PathVariable Long id,
             @RequestParam Double progressPercentage) {
-        return ResponseEntity.ok(enrollmentService.updateProgress(id, progressPercentage));
+        return ResponseEntity.ok(enrollmentService.recordProgress(id, progressPercentage));
     }
 
     @PutMapping("/{id}/grade")
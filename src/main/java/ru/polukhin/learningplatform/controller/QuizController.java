@@ -1,17 +1,32 @@
 package ru.polukhin.learningplatform.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.polukhin.learningplatform.dto.CursorPage;
+import ru.polukhin.learningplatform.dto.ExportFormat;
+import ru.polukhin.learningplatform.dto.QuizAnswers;
+import ru.polukhin.learningplatform.dto.QuizGradingStatus;
+import ru.polukhin.learningplatform.dto.QuizSubmissionView;
+import ru.polukhin.learningplatform.dto.QuizView;
+import ru.polukhin.learningplatform.dto.QuizWithQuestionsView;
 import ru.polukhin.learningplatform.entity.*;
 import ru.polukhin.learningplatform.service.QuizService;
+import ru.polukhin.learningplatform.service.RenderedJson;
+import ru.polukhin.learningplatform.service.RenderedJsonCache;
 
-import java.util.List;
-import java.util.Map;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
 
 @RestController
 @RequestMapping("/api/quizzes")
@@ -20,23 +35,31 @@ import java.util.Map;
 public class QuizController {
 
     private final QuizService quizService;
+    private final RenderedJsonCache renderedJsonCache;
 
     @GetMapping
     @Operation(summary = "Get all quizzes")
-    public ResponseEntity<List<Quiz>> getAllQuizzes() {
-        return ResponseEntity.ok(quizService.getAllQuizzes());
+    public ResponseEntity<CursorPage<QuizView>> getAllQuizzes(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(quizService.getAllQuizzes(cursor, size));
     }
 
     @GetMapping("/{id}")
     @Operation(summary = "Get quiz by ID")
-    public ResponseEntity<Quiz> getQuizById(@PathVariable Long id) {
+    public ResponseEntity<QuizView> getQuizById(@PathVariable Long id) {
         return ResponseEntity.ok(quizService.getQuizById(id));
     }
 
     @GetMapping("/{id}/with-questions")
     @Operation(summary = "Get quiz with questions and answers")
-    public ResponseEntity<Quiz> getQuizWithQuestions(@PathVariable Long id) {
-        return ResponseEntity.ok(quizService.getQuizWithQuestions(id));
+    @ApiResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = QuizWithQuestionsView.class)))
+    public ResponseEntity<byte[]> getQuizWithQuestions(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        RenderedJson rendered = renderedJsonCache.get(RenderedJsonCache.Resource.QUIZ_WITH_QUESTIONS, id,
+                () -> quizService.getQuizWithQuestions(id));
+        return RenderedJsonResponses.of(rendered, acceptEncoding);
     }
 
     @PostMapping
@@ -84,21 +107,61 @@ public class QuizController {
     public ResponseEntity<QuizSubmission> takeQuiz(
             @PathVariable Long quizId,
             @RequestParam Long studentId,
-            @RequestBody Map<Long, List<Long>> answers,
+            @RequestBody QuizAnswers answers,
             @RequestParam(required = false) Integer timeTaken) {
         QuizSubmission submission = quizService.takeQuiz(quizId, studentId, answers, timeTaken);
         return ResponseEntity.status(HttpStatus.CREATED).body(submission);
     }
 
+    @PostMapping("/{quizId}/take-async")
+    @Operation(summary = "Take quiz with deferred grading (202, poll the Location for the score)")
+    public ResponseEntity<QuizGradingStatus> takeQuizAsync(
+            @PathVariable Long quizId,
+            @RequestParam Long studentId,
+            @RequestBody QuizAnswers answers,
+            @RequestParam(required = false) Integer timeTaken) {
+        QuizGradingStatus status = quizService.takeQuizAsync(quizId, studentId, answers, timeTaken);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/quizzes/" + quizId + "/grading-status?studentId=" + studentId))
+                .body(status);
+    }
+
+    @GetMapping("/{quizId}/grading-status")
+    @Operation(summary = "Get grading status of a quiz submission")
+    public ResponseEntity<QuizGradingStatus> getGradingStatus(
+            @PathVariable Long quizId,
+            @RequestParam Long studentId) {
+        return ResponseEntity.ok(quizService.getGradingStatus(quizId, studentId));
+    }
+
     @GetMapping("/submissions/student/{studentId}")
     @Operation(summary = "Get quiz submissions by student")
-    public ResponseEntity<List<QuizSubmission>> getSubmissionsByStudent(@PathVariable Long studentId) {
-        return ResponseEntity.ok(quizService.getSubmissionsByStudent(studentId));
+    public ResponseEntity<CursorPage<QuizSubmissionView>> getSubmissionsByStudent(
+            @PathVariable Long studentId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(quizService.getSubmissionsByStudent(studentId, cursor, size));
+    }
+
+    @GetMapping("/{quizId}/submissions/export")
+    @Operation(summary = "Stream all quiz submissions as NDJSON or CSV")
+    public void exportSubmissionsByQuiz(
+            @PathVariable Long quizId,
+            @RequestParam(defaultValue = "NDJSON") ExportFormat format,
+            HttpServletResponse response) throws IOException {
+        response.setContentType(format.getContentType());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=quiz-" + quizId + "-submissions." + format.getExtension());
+        quizService.exportSubmissionsByQuiz(quizId, format, response.getOutputStream());
     }
 
     @GetMapping("/{quizId}/submissions")
     @Operation(summary = "Get quiz submissions for quiz")
-    public ResponseEntity<List<QuizSubmission>> getSubmissionsByQuiz(@PathVariable Long quizId) {
-        return ResponseEntity.ok(quizService.getSubmissionsByQuiz(quizId));
+    public ResponseEntity<CursorPage<QuizSubmissionView>> getSubmissionsByQuiz(
+            @PathVariable Long quizId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(quizService.getSubmissionsByQuiz(quizId, cursor, size));
     }
 }
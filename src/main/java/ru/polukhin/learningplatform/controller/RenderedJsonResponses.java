@@ -0,0 +1,30 @@
+package ru.polukhin.learningplatform.controller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import ru.polukhin.learningplatform.service.RenderedJson;
+
+// The gzip body gets its own strong ETag, as a different content coding is a different representation.
+// Spring answers a matching If-None-Match with 304 for a ResponseEntity that carries an ETag.
+final class RenderedJsonResponses {
+
+    private static final String GZIP = "gzip";
+
+    private RenderedJsonResponses() {
+    }
+
+    static ResponseEntity<byte[]> of(RenderedJson rendered, String acceptEncoding) {
+        boolean gzip = rendered.gzip() != null && acceptEncoding != null && acceptEncoding.contains(GZIP);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            return response.eTag("\"" + rendered.digest() + "-" + GZIP + "\"")
+                    .header(HttpHeaders.CONTENT_ENCODING, GZIP)
+                    .body(rendered.gzip());
+        }
+        return response.eTag("\"" + rendered.digest() + "\"")
+                .body(rendered.json());
+    }
+}
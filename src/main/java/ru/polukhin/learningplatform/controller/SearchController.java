@@ -0,0 +1,35 @@
+package ru.polukhin.learningplatform.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import ru.polukhin.learningplatform.dto.SearchHit;
+import ru.polukhin.learningplatform.dto.SearchResults;
+import ru.polukhin.learningplatform.entity.DifficultyLevel;
+import ru.polukhin.learningplatform.service.SearchService;
+
+@RestController
+@RequestMapping("/api/search")
+@RequiredArgsConstructor
+@Tag(name = "Search", description = "Full-text course and lesson search")
+public class SearchController {
+
+    private final SearchService searchService;
+
+    @GetMapping
+    @Operation(summary = "Search published courses and lessons, ranked by relevance, with category and difficulty facets")
+    public ResponseEntity<SearchResults> search(
+            @RequestParam String q,
+            @RequestParam(required = false) SearchHit.Type type,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) DifficultyLevel difficultyLevel,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(searchService.search(q, type, categoryId, difficultyLevel, page, size));
+    }
+}
@@ -7,8 +7,14 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.polukhin.learningplatform.dto.CursorPage;
+import ru.polukhin.learningplatform.dto.RelatedCourseView;
+import ru.polukhin.learningplatform.dto.TranscriptView;
+import ru.polukhin.learningplatform.dto.UserView;
 import ru.polukhin.learningplatform.entity.User;
 import ru.polukhin.learningplatform.entity.RoleType;
+import ru.polukhin.learningplatform.service.CourseRecommendationService;
+import ru.polukhin.learningplatform.service.TranscriptService;
 import ru.polukhin.learningplatform.service.UserService;
 
 import java.util.List;
@@ -20,35 +26,58 @@ import java.util.List;
 public class UserController {
 
     private final UserService userService;
+    private final CourseRecommendationService recommendationService;
+    private final TranscriptService transcriptService;
 
     @GetMapping
     @Operation(summary = "Get all users")
-    public ResponseEntity<List<User>> getAllUsers() {
-        return ResponseEntity.ok(userService.getAllUsers());
+    public ResponseEntity<CursorPage<UserView>> getAllUsers(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(userService.getAllUsers(cursor, size));
     }
 
     @GetMapping("/{id}")
     @Operation(summary = "Get user by ID")
-    public ResponseEntity<User> getUserById(@PathVariable Long id) {
+    public ResponseEntity<UserView> getUserById(@PathVariable Long id) {
         return ResponseEntity.ok(userService.getUserById(id));
     }
 
+    @GetMapping("/{id}/recommendations")
+    @Operation(summary = "Get courses taken by students who share the user's courses")
+    public ResponseEntity<List<RelatedCourseView>> getRecommendations(
+            @PathVariable Long id,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(recommendationService.getRecommendations(id, limit));
+    }
+
+    @GetMapping("/{id}/transcript")
+    @Operation(summary = "Get all submissions and quiz submissions of a student, including archived terms")
+    public ResponseEntity<TranscriptView> getTranscript(@PathVariable Long id) {
+        return ResponseEntity.ok(transcriptService.getTranscript(id));
+    }
+
     @GetMapping("/username/{username}")
     @Operation(summary = "Get user by username")
-    public ResponseEntity<User> getUserByUsername(@PathVariable String username) {
+    public ResponseEntity<UserView> getUserByUsername(@PathVariable String username) {
         return ResponseEntity.ok(userService.getUserByUsername(username));
     }
 
     @GetMapping("/role/{role}")
     @Operation(summary = "Get users by role")
-    public ResponseEntity<List<User>> getUsersByRole(@PathVariable RoleType role) {
-        return ResponseEntity.ok(userService.getUsersByRole(role));
+    public ResponseEntity<CursorPage<UserView>> getUsersByRole(
+            @PathVariable RoleType role,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(userService.getUsersByRole(role, cursor, size));
     }
 
     @GetMapping("/active")
     @Operation(summary = "Get all active users")
-    public ResponseEntity<List<User>> getActiveUsers() {
-        return ResponseEntity.ok(userService.getActiveUsers());
+    public ResponseEntity<CursorPage<UserView>> getActiveUsers(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(userService.getActiveUsers(cursor, size));
     }
 
     @PostMapping
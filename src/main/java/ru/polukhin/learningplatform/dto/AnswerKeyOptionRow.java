@@ -0,0 +1,4 @@
+package ru.polukhin.learningplatform.dto;
+
+public record AnswerKeyOptionRow(Long questionId, Long optionId) {
+}
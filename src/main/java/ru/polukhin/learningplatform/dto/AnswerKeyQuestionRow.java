@@ -0,0 +1,6 @@
+package ru.polukhin.learningplatform.dto;
+
+import ru.polukhin.learningplatform.entity.QuestionType;
+
+public record AnswerKeyQuestionRow(Long questionId, QuestionType type, Integer points) {
+}
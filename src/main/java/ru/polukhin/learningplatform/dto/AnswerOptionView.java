@@ -0,0 +1,9 @@
+package ru.polukhin.learningplatform.dto;
+
+public record AnswerOptionView(
+        Long id,
+        Long questionId,
+        String optionText,
+        Boolean isCorrect,
+        Integer orderIndex) {
+}
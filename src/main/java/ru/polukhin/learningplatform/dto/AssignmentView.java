@@ -0,0 +1,12 @@
+package ru.polukhin.learningplatform.dto;
+
+import java.time.LocalDateTime;
+
+public record AssignmentView(
+        Long id,
+        Long lessonId,
+        String title,
+        String description,
+        Integer maxScore,
+        LocalDateTime deadline) {
+}
@@ -0,0 +1,5 @@
+package ru.polukhin.learningplatform.dto;
+
+// Course: label is the title. User: label is the full name, detail the username
+public record AutocompleteSuggestion(Long id, String label, String detail, long popularity) {
+}
@@ -0,0 +1,12 @@
+package ru.polukhin.learningplatform.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record BulkEnrollmentRequest(
+        @NotNull Long courseId,
+        @NotEmpty @Size(max = 10000) List<@NotNull Long> studentIds) {
+}
@@ -0,0 +1,6 @@
+package ru.polukhin.learningplatform.dto;
+
+import java.util.List;
+
+public record BulkEnrollmentResponse(Long courseId, int enrolled, int skipped, List<BulkEnrollmentResult> results) {
+}
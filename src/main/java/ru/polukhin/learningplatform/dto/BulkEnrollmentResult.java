@@ -0,0 +1,12 @@
+package ru.polukhin.learningplatform.dto;
+
+public record BulkEnrollmentResult(Long studentId, Status status, Long enrollmentId) {
+
+    public enum Status {
+        ENROLLED,
+        ALREADY_ENROLLED,
+        DUPLICATE_IN_REQUEST,
+        USER_NOT_FOUND,
+        NOT_A_STUDENT
+    }
+}
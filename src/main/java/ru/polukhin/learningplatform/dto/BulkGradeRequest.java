@@ -0,0 +1,10 @@
+package ru.polukhin.learningplatform.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record BulkGradeRequest(@NotEmpty @Size(max = 5000) List<@NotNull GradeSubmissionRequest> grades) {
+}
@@ -0,0 +1,6 @@
+package ru.polukhin.learningplatform.dto;
+
+import java.util.List;
+
+public record BulkGradeResponse(int graded, int failed, List<BulkGradeResult> results) {
+}
@@ -0,0 +1,11 @@
+package ru.polukhin.learningplatform.dto;
+
+public record BulkGradeResult(Long submissionId, Status status, String message) {
+
+    public enum Status {
+        GRADED,
+        NOT_FOUND,
+        INVALID,
+        DUPLICATE_IN_REQUEST
+    }
+}
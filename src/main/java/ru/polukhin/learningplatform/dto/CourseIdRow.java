@@ -0,0 +1,5 @@
+package ru.polukhin.learningplatform.dto;
+
+// An assignment or quiz id with the id of the course it belongs to
+public record CourseIdRow(Long id, Long courseId) {
+}
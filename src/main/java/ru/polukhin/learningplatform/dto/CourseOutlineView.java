@@ -0,0 +1,6 @@
+package ru.polukhin.learningplatform.dto;
+
+import java.util.List;
+
+public record CourseOutlineView(CourseView course, List<ModuleOutlineView> modules) {
+}
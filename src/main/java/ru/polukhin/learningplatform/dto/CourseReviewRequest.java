@@ -0,0 +1,11 @@
+package ru.polukhin.learningplatform.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+public record CourseReviewRequest(
+        @NotNull @Min(1) @Max(5) Integer rating,
+        @Size(max = 2000) String comment) {
+}
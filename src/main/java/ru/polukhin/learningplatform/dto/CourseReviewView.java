@@ -0,0 +1,12 @@
+package ru.polukhin.learningplatform.dto;
+
+import java.time.LocalDateTime;
+
+public record CourseReviewView(
+        Long id,
+        Long studentId,
+        Long courseId,
+        Integer rating,
+        String comment,
+        LocalDateTime reviewedAt) {
+}
@@ -0,0 +1,13 @@
+package ru.polukhin.learningplatform.dto;
+
+import ru.polukhin.learningplatform.entity.DifficultyLevel;
+
+public record CourseSearchRow(
+        Long id,
+        String title,
+        String description,
+        Long categoryId,
+        String categoryName,
+        DifficultyLevel difficultyLevel,
+        Boolean published) {
+}
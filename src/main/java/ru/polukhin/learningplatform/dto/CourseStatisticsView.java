@@ -0,0 +1,9 @@
+package ru.polukhin.learningplatform.dto;
+
+public record CourseStatisticsView(Long courseId, long activeEnrollments, long reviewCount, Double averageRating) {
+
+    public static CourseStatisticsView of(Long courseId, long activeEnrollments, long reviewCount, long ratingSum) {
+        Double averageRating = reviewCount > 0 ? (double) ratingSum / reviewCount : null;
+        return new CourseStatisticsView(courseId, activeEnrollments, reviewCount, averageRating);
+    }
+}
@@ -0,0 +1,4 @@
+package ru.polukhin.learningplatform.dto;
+
+public record CourseSuggestionRow(Long id, String title, Long instructorId, Long activeEnrollments) {
+}
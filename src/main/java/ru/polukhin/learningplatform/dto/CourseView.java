@@ -0,0 +1,22 @@
+package ru.polukhin.learningplatform.dto;
+
+import ru.polukhin.learningplatform.entity.DifficultyLevel;
+
+import java.time.LocalDateTime;
+
+public record CourseView(
+        Long id,
+        String title,
+        String description,
+        String imageUrl,
+        Long categoryId,
+        String categoryName,
+        Long instructorId,
+        String instructorFirstName,
+        String instructorLastName,
+        Boolean published,
+        Integer durationHours,
+        DifficultyLevel difficultyLevel,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt) {
+}
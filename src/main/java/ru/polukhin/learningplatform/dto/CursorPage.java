@@ -0,0 +1,6 @@
+package ru.polukhin.learningplatform.dto;
+
+import java.util.List;
+
+public record CursorPage<T>(List<T> items, String nextCursor, boolean hasMore) {
+}
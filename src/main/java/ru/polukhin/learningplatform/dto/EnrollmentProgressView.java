@@ -0,0 +1,14 @@
+package ru.polukhin.learningplatform.dto;
+
+import ru.polukhin.learningplatform.entity.EnrollmentStatus;
+
+public record EnrollmentProgressView(
+        Long id,
+        Long courseId,
+        EnrollmentStatus status,
+        Double progressPercentage) {
+
+    public EnrollmentProgressView withProgressPercentage(Double progressPercentage) {
+        return new EnrollmentProgressView(id, courseId, status, progressPercentage);
+    }
+}
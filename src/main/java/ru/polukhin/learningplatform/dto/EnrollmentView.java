@@ -0,0 +1,17 @@
+package ru.polukhin.learningplatform.dto;
+
+import ru.polukhin.learningplatform.entity.EnrollmentStatus;
+
+import java.time.LocalDateTime;
+
+public record EnrollmentView(
+        Long id,
+        Long studentId,
+        Long courseId,
+        String courseTitle,
+        LocalDateTime enrolledAt,
+        EnrollmentStatus status,
+        Double progressPercentage,
+        LocalDateTime completedAt,
+        Double finalGrade) {
+}
@@ -0,0 +1,4 @@
+package ru.polukhin.learningplatform.dto;
+
+public record GradeSubmissionRequest(Long submissionId, Integer score, String feedback) {
+}
@@ -0,0 +1,22 @@
+package ru.polukhin.learningplatform.dto;
+
+import java.time.LocalDateTime;
+
+public record GradebookEntryView(
+        Long studentId,
+        String username,
+        String firstName,
+        String lastName,
+        int gradedAssignments,
+        int assignmentScore,
+        int assignmentMaxScore,
+        double assignmentPercentage,
+        int quizzesTaken,
+        int quizzesPassed,
+        int quizScore,
+        int quizMaxScore,
+        double quizPercentage,
+        double overallPercentage,
+        LocalDateTime updatedAt
+) {
+}
@@ -0,0 +1,8 @@
+package ru.polukhin.learningplatform.dto;
+
+public enum GradebookSort {
+    STUDENT,
+    OVERALL,
+    ASSIGNMENTS,
+    QUIZZES
+}
@@ -0,0 +1,4 @@
+package ru.polukhin.learningplatform.dto;
+
+public record LessonSearchRow(Long id, Long courseId, String title, String content) {
+}
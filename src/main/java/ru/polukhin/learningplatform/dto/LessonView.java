@@ -0,0 +1,28 @@
+package ru.polukhin.learningplatform.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import ru.polukhin.learningplatform.entity.LessonType;
+
+import java.util.List;
+
+public record LessonView(
+        Long id,
+        Long moduleId,
+        String title,
+        String content,
+        Integer orderIndex,
+        LessonType type,
+        String videoUrl,
+        Integer durationMinutes,
+        @JsonInclude(JsonInclude.Include.NON_NULL) List<AssignmentView> assignments) {
+
+    public LessonView(Long id, Long moduleId, String title, String content, Integer orderIndex, LessonType type,
+                      String videoUrl, Integer durationMinutes) {
+        this(id, moduleId, title, content, orderIndex, type, videoUrl, durationMinutes, null);
+    }
+
+    public LessonView withAssignments(List<AssignmentView> assignments) {
+        return new LessonView(id, moduleId, title, content, orderIndex, type, videoUrl, durationMinutes,
+                List.copyOf(assignments));
+    }
+}
@@ -0,0 +1,27 @@
+package ru.polukhin.learningplatform.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ModuleOutlineView(
+        Long id,
+        String title,
+        String description,
+        Integer orderIndex,
+        List<LessonView> lessons,
+        QuizView quiz) {
+
+    public ModuleOutlineView(Long id, String title, String description, Integer orderIndex) {
+        this(id, title, description, orderIndex, null, null);
+    }
+
+    public ModuleOutlineView withLessons(List<LessonView> lessons) {
+        return new ModuleOutlineView(id, title, description, orderIndex, List.copyOf(lessons), quiz);
+    }
+
+    public ModuleOutlineView withQuiz(QuizView quiz) {
+        return new ModuleOutlineView(id, title, description, orderIndex, lessons, quiz);
+    }
+}
@@ -0,0 +1,24 @@
+package ru.polukhin.learningplatform.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import ru.polukhin.learningplatform.entity.QuestionType;
+
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record QuestionView(
+        Long id,
+        String questionText,
+        QuestionType type,
+        Integer orderIndex,
+        Integer points,
+        List<AnswerOptionView> answerOptions) {
+
+    public QuestionView(Long id, String questionText, QuestionType type, Integer orderIndex, Integer points) {
+        this(id, questionText, type, orderIndex, points, null);
+    }
+
+    public QuestionView withAnswerOptions(List<AnswerOptionView> answerOptions) {
+        return new QuestionView(id, questionText, type, orderIndex, points, List.copyOf(answerOptions));
+    }
+}
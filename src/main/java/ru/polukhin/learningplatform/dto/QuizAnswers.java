@@ -0,0 +1,9 @@
+package ru.polukhin.learningplatform.dto;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+
+// Question id -> selected answer option ids. A named type rather than Map<Long, List<Long>> in the
+// controller signature: Spring 6.1.1 resolves the nested List<Long> to List<?> and Jackson then yields Integers
+public class QuizAnswers extends LinkedHashMap<Long, List<Long>> {
+}
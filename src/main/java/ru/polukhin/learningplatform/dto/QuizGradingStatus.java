@@ -0,0 +1,27 @@
+package ru.polukhin.learningplatform.dto;
+
+public record QuizGradingStatus(
+        Long quizId,
+        Long studentId,
+        Status status,
+        QuizSubmissionView submission,
+        String error) {
+
+    public enum Status {
+        QUEUED,
+        GRADED,
+        FAILED
+    }
+
+    public static QuizGradingStatus queued(Long quizId, Long studentId) {
+        return new QuizGradingStatus(quizId, studentId, Status.QUEUED, null, null);
+    }
+
+    public static QuizGradingStatus graded(QuizSubmissionView submission) {
+        return new QuizGradingStatus(submission.quizId(), submission.studentId(), Status.GRADED, submission, null);
+    }
+
+    public static QuizGradingStatus failed(Long quizId, Long studentId, String error) {
+        return new QuizGradingStatus(quizId, studentId, Status.FAILED, null, error);
+    }
+}
@@ -0,0 +1,15 @@
+package ru.polukhin.learningplatform.dto;
+
+import java.time.LocalDateTime;
+
+public record QuizSubmissionView(
+        Long id,
+        Long studentId,
+        Long quizId,
+        Integer score,
+        Integer maxScore,
+        Double percentageScore,
+        Boolean passed,
+        LocalDateTime submittedAt,
+        Integer timeTakenMinutes) {
+}
@@ -0,0 +1,10 @@
+package ru.polukhin.learningplatform.dto;
+
+public record QuizView(
+        Long id,
+        Long moduleId,
+        String title,
+        String description,
+        Integer passingScore,
+        Integer timeLimitMinutes) {
+}
@@ -0,0 +1,6 @@
+package ru.polukhin.learningplatform.dto;
+
+import java.util.List;
+
+public record QuizWithQuestionsView(QuizView quiz, List<QuestionView> questions) {
+}
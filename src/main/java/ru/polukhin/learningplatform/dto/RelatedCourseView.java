@@ -0,0 +1,5 @@
+package ru.polukhin.learningplatform.dto;
+
+// score: students enrolled in both courses, or summed over the user's courses for recommendations
+public record RelatedCourseView(Long courseId, String title, long score) {
+}
@@ -0,0 +1,4 @@
+package ru.polukhin.learningplatform.dto;
+
+public record SearchFacet(String value, String label, int count) {
+}
@@ -0,0 +1,21 @@
+package ru.polukhin.learningplatform.dto;
+
+import ru.polukhin.learningplatform.entity.DifficultyLevel;
+
+// title and snippet are HTML-escaped, matched words are wrapped in <em>
+public record SearchHit(
+        Type type,
+        Long id,
+        Long courseId,
+        String courseTitle,
+        String title,
+        String snippet,
+        Long categoryId,
+        DifficultyLevel difficultyLevel,
+        double score) {
+
+    public enum Type {
+        COURSE,
+        LESSON
+    }
+}
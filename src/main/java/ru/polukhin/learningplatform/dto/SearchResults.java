@@ -0,0 +1,13 @@
+package ru.polukhin.learningplatform.dto;
+
+import java.util.List;
+
+public record SearchResults(
+        String query,
+        int total,
+        int page,
+        int size,
+        List<SearchHit> hits,
+        List<SearchFacet> categories,
+        List<SearchFacet> difficultyLevels) {
+}
@@ -0,0 +1,4 @@
+package ru.polukhin.learningplatform.dto;
+
+public record StudentCourseRow(Long studentId, Long courseId) {
+}
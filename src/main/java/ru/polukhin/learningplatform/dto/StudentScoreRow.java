@@ -0,0 +1,4 @@
+package ru.polukhin.learningplatform.dto;
+
+public record StudentScoreRow(Long studentId, Long count, Long score, Long maxScore, Long passed) {
+}
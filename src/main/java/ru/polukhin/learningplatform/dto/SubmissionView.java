@@ -0,0 +1,18 @@
+package ru.polukhin.learningplatform.dto;
+
+import ru.polukhin.learningplatform.entity.SubmissionStatus;
+
+import java.time.LocalDateTime;
+
+public record SubmissionView(
+        Long id,
+        Long studentId,
+        Long assignmentId,
+        String content,
+        String fileUrl,
+        LocalDateTime submittedAt,
+        SubmissionStatus status,
+        Integer score,
+        String feedback,
+        LocalDateTime gradedAt) {
+}
@@ -0,0 +1,9 @@
+package ru.polukhin.learningplatform.dto;
+
+import java.util.List;
+
+public record TranscriptView(
+        Long studentId,
+        List<SubmissionView> submissions,
+        List<QuizSubmissionView> quizSubmissions) {
+}
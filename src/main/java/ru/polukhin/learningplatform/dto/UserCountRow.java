@@ -0,0 +1,4 @@
+package ru.polukhin.learningplatform.dto;
+
+public record UserCountRow(Long userId, Long count) {
+}
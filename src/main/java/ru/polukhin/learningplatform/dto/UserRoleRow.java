@@ -0,0 +1,6 @@
+package ru.polukhin.learningplatform.dto;
+
+import ru.polukhin.learningplatform.entity.RoleType;
+
+public record UserRoleRow(Long id, RoleType role) {
+}
@@ -0,0 +1,4 @@
+package ru.polukhin.learningplatform.dto;
+
+public record UserSuggestionRow(Long id, String username, String firstName, String lastName) {
+}
@@ -0,0 +1,18 @@
+package ru.polukhin.learningplatform.dto;
+
+import ru.polukhin.learningplatform.entity.RoleType;
+
+import java.time.LocalDateTime;
+
+public record UserView(
+        Long id,
+        String username,
+        String email,
+        String firstName,
+        String lastName,
+        RoleType role,
+        String bio,
+        String profileImageUrl,
+        Boolean active,
+        LocalDateTime createdAt) {
+}
@@ -5,9 +5,12 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
 @Table(name = "answer_options")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "answer-options")
 @Getter
 @Setter
 @NoArgsConstructor
@@ -0,0 +1,66 @@
+package ru.polukhin.learningplatform.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Per-(course, student) grade totals of submissions and quiz submissions moved to the file archive;
+// written by SubmissionArchiveService, added to the hot tables' totals by the gradebook repair.
+@Entity
+@Table(name = "archived_scores")
+@IdClass(GradebookEntryId.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ArchivedScore {
+
+    @Id
+    @Column(name = "course_id")
+    private Long courseId;
+
+    @Id
+    @Column(name = "student_id")
+    private Long studentId;
+
+    @Column(name = "graded_assignments", nullable = false)
+    @Builder.Default
+    private Integer gradedAssignments = 0;
+
+    @Column(name = "assignment_score", nullable = false)
+    @Builder.Default
+    private Integer assignmentScore = 0;
+
+    @Column(name = "assignment_max_score", nullable = false)
+    @Builder.Default
+    private Integer assignmentMaxScore = 0;
+
+    @Column(name = "quizzes_taken", nullable = false)
+    @Builder.Default
+    private Integer quizzesTaken = 0;
+
+    @Column(name = "quizzes_passed", nullable = false)
+    @Builder.Default
+    private Integer quizzesPassed = 0;
+
+    @Column(name = "quiz_score", nullable = false)
+    @Builder.Default
+    private Integer quizScore = 0;
+
+    @Column(name = "quiz_max_score", nullable = false)
+    @Builder.Default
+    private Integer quizMaxScore = 0;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Override
+    public String toString() {
+        return "ArchivedScore{" +
+                "courseId=" + courseId +
+                ", studentId=" + studentId +
+                '}';
+    }
+}
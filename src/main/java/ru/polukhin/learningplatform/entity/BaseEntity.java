@@ -2,6 +2,7 @@ package ru.polukhin.learningplatform.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.GenericGenerator;
 
 import java.time.LocalDateTime;
 
@@ -13,7 +14,8 @@ import java.time.LocalDateTime;
 public abstract class BaseEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pooled_sequence")
+    @GenericGenerator(name = "pooled_sequence", type = PooledSequenceIdGenerator.class)
     private Long id;
 
     @Column(name = "created_at", nullable = false, updatable = false)
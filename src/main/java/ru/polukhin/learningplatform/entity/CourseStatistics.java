@@ -0,0 +1,45 @@
+package ru.polukhin.learningplatform.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Denormalized per-course counters, keyed by course id; maintained by CourseStatisticsService
+@Entity
+@Table(name = "course_statistics")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CourseStatistics {
+
+    @Id
+    @Column(name = "course_id")
+    private Long courseId;
+
+    @Column(name = "active_enrollments", nullable = false)
+    @Builder.Default
+    private Long activeEnrollments = 0L;
+
+    @Column(name = "review_count", nullable = false)
+    @Builder.Default
+    private Long reviewCount = 0L;
+
+    @Column(name = "rating_sum", nullable = false)
+    @Builder.Default
+    private Long ratingSum = 0L;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Override
+    public String toString() {
+        return "CourseStatistics{" +
+                "courseId=" + courseId +
+                ", activeEnrollments=" + activeEnrollments +
+                ", reviewCount=" + reviewCount +
+                '}';
+    }
+}
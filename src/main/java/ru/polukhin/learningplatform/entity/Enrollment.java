@@ -8,7 +8,7 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "enrollments", uniqueConstraints = {
-    @UniqueConstraint(columnNames = {"student_id", "course_id"})
+    @UniqueConstraint(name = Enrollment.STUDENT_COURSE_CONSTRAINT, columnNames = {"student_id", "course_id"})
 })
 @Getter
 @Setter
@@ -17,6 +17,8 @@ import java.time.LocalDateTime;
 @Builder
 public class Enrollment extends BaseEntity {
 
+    public static final String STUDENT_COURSE_CONSTRAINT = "uk_enrollments_student_course";
+
     @NotNull
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "student_id", nullable = false)
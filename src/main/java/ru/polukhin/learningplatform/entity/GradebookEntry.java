@@ -0,0 +1,83 @@
+package ru.polukhin.learningplatform.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Materialized per-(course, student) grade totals; maintained by GradebookService.
+// Percentages are stored so that every gradebook sort is served by its own index.
+@Entity
+@Table(name = "gradebook_entries", indexes = {
+    @Index(name = "ix_gradebook_course_overall", columnList = "course_id, overall_percentage, student_id"),
+    @Index(name = "ix_gradebook_course_assignments", columnList = "course_id, assignment_percentage, student_id"),
+    @Index(name = "ix_gradebook_course_quizzes", columnList = "course_id, quiz_percentage, student_id")
+})
+@IdClass(GradebookEntryId.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class GradebookEntry {
+
+    @Id
+    @Column(name = "course_id")
+    private Long courseId;
+
+    @Id
+    @Column(name = "student_id")
+    private Long studentId;
+
+    @Column(name = "graded_assignments", nullable = false)
+    @Builder.Default
+    private Integer gradedAssignments = 0;
+
+    @Column(name = "assignment_score", nullable = false)
+    @Builder.Default
+    private Integer assignmentScore = 0;
+
+    @Column(name = "assignment_max_score", nullable = false)
+    @Builder.Default
+    private Integer assignmentMaxScore = 0;
+
+    @Column(name = "assignment_percentage", nullable = false)
+    @Builder.Default
+    private Double assignmentPercentage = 0.0;
+
+    @Column(name = "quizzes_taken", nullable = false)
+    @Builder.Default
+    private Integer quizzesTaken = 0;
+
+    @Column(name = "quizzes_passed", nullable = false)
+    @Builder.Default
+    private Integer quizzesPassed = 0;
+
+    @Column(name = "quiz_score", nullable = false)
+    @Builder.Default
+    private Integer quizScore = 0;
+
+    @Column(name = "quiz_max_score", nullable = false)
+    @Builder.Default
+    private Integer quizMaxScore = 0;
+
+    @Column(name = "quiz_percentage", nullable = false)
+    @Builder.Default
+    private Double quizPercentage = 0.0;
+
+    @Column(name = "overall_percentage", nullable = false)
+    @Builder.Default
+    private Double overallPercentage = 0.0;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Override
+    public String toString() {
+        return "GradebookEntry{" +
+                "courseId=" + courseId +
+                ", studentId=" + studentId +
+                ", overallPercentage=" + overallPercentage +
+                '}';
+    }
+}
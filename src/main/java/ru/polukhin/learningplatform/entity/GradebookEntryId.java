@@ -0,0 +1,20 @@
+package ru.polukhin.learningplatform.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+public class GradebookEntryId implements Serializable {
+
+    private Long courseId;
+    private Long studentId;
+}
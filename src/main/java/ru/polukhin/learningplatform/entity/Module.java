@@ -7,11 +7,14 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.ArrayList;
 
 @Entity
 @Table(name = "modules")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "modules")
 @Getter
 @Setter
 @NoArgsConstructor
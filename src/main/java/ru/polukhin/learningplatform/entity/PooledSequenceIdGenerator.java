@@ -0,0 +1,35 @@
+package ru.polukhin.learningplatform.entity;
+
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.config.spi.StandardConverters;
+import org.hibernate.id.PersistentIdentifierGenerator;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+// Per-table pooled sequence ("<table>_seq") with allocation size taken from configuration:
+// app.id.allocation-size for all tables, app.id.allocation-size.<table> for a single table
+public class PooledSequenceIdGenerator extends SequenceStyleGenerator {
+
+    public static final String ALLOCATION_SIZE_SETTING = "app.id.allocation-size";
+    public static final int DEFAULT_ALLOCATION_SIZE = 50;
+
+    @Override
+    public void configure(Type type, Properties parameters, ServiceRegistry serviceRegistry) {
+        ConfigurationService configuration = serviceRegistry.requireService(ConfigurationService.class);
+        String table = parameters.getProperty(PersistentIdentifierGenerator.TABLE);
+
+        int allocationSize = configuration.getSetting(
+                ALLOCATION_SIZE_SETTING, StandardConverters.INTEGER, DEFAULT_ALLOCATION_SIZE);
+        allocationSize = configuration.getSetting(
+                ALLOCATION_SIZE_SETTING + "." + table, StandardConverters.INTEGER, allocationSize);
+
+        parameters.setProperty(SEQUENCE_PARAM, table + "_seq");
+        parameters.setProperty(INCREMENT_PARAM, String.valueOf(allocationSize));
+        parameters.putIfAbsent(OPT_PARAM, "pooled");
+
+        super.configure(type, parameters, serviceRegistry);
+    }
+}
@@ -5,12 +5,15 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
 @Table(name = "questions")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "questions")
 @Getter
 @Setter
 @NoArgsConstructor
@@ -44,6 +47,7 @@ public class Question extends BaseEntity {
 
     @OneToMany(mappedBy = "question", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     @Builder.Default
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "question-answer-options")
     private List<AnswerOption> answerOptions = new ArrayList<>();
 
     @Override
@@ -8,7 +8,7 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "quiz_submissions", uniqueConstraints = {
-    @UniqueConstraint(columnNames = {"student_id", "quiz_id"})
+    @UniqueConstraint(name = QuizSubmission.STUDENT_QUIZ_CONSTRAINT, columnNames = {"student_id", "quiz_id"})
 })
 @Getter
 @Setter
@@ -17,6 +17,8 @@ import java.time.LocalDateTime;
 @Builder
 public class QuizSubmission extends BaseEntity {
 
+    public static final String STUDENT_QUIZ_CONSTRAINT = "uk_quiz_submissions_student_quiz";
+
     @NotNull
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "student_id", nullable = false)
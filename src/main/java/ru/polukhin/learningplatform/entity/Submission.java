@@ -8,7 +8,7 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "submissions", uniqueConstraints = {
-    @UniqueConstraint(columnNames = {"student_id", "assignment_id"})
+    @UniqueConstraint(name = Submission.STUDENT_ASSIGNMENT_CONSTRAINT, columnNames = {"student_id", "assignment_id"})
 })
 @Getter
 @Setter
@@ -17,6 +17,8 @@ import java.time.LocalDateTime;
 @Builder
 public class Submission extends BaseEntity {
 
+    public static final String STUDENT_ASSIGNMENT_CONSTRAINT = "uk_submissions_student_assignment";
+
     @NotNull
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "student_id", nullable = false)
@@ -0,0 +1,53 @@
+package ru.polukhin.learningplatform.exception;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
+import ru.polukhin.learningplatform.entity.Enrollment;
+import ru.polukhin.learningplatform.entity.QuizSubmission;
+import ru.polukhin.learningplatform.entity.Submission;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Write paths insert without checking for an existing row first: a check-then-insert races with a concurrent
+// insert anyway and costs a round trip, so the unique constraint decides and its violation becomes a 409 here
+public final class UniqueConstraintTranslator {
+
+    private static final Map<String, String> MESSAGES = Map.of(
+            Enrollment.STUDENT_COURSE_CONSTRAINT, "Student is already enrolled in this course",
+            Submission.STUDENT_ASSIGNMENT_CONSTRAINT, "Assignment already submitted by this student",
+            QuizSubmission.STUDENT_QUIZ_CONSTRAINT, "Quiz already taken by this student");
+
+    // H2 reports the constraint's backing index with its schema, a suffix and the key:
+    // "PUBLIC.UK_ENROLLMENTS_STUDENT_COURSE_INDEX_5 ON PUBLIC.ENROLLMENTS(...) VALUES (...)"
+    private static final Pattern H2_INDEX = Pattern.compile("(?:^|\")(?:\\w+\\.)?(\\w+?)(?:_INDEX_[0-9A-F]+)? ON ");
+
+    private UniqueConstraintTranslator() {
+    }
+
+    public static RuntimeException translate(DataIntegrityViolationException ex) {
+        String violated = constraintName(ex);
+        String message = violated != null ? MESSAGES.get(violated) : null;
+        return message != null ? new DuplicateResourceException(message) : ex;
+    }
+
+    static String constraintName(DataIntegrityViolationException ex) {
+        String reported = null;
+        for (Throwable cause = ex; cause != null && reported == null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                reported = violation.getConstraintName();
+            }
+        }
+        if (reported == null) {
+            reported = NestedExceptionUtils.getMostSpecificCause(ex).getMessage();
+        }
+        if (reported == null) {
+            return null;
+        }
+        Matcher h2 = H2_INDEX.matcher(reported);
+        return (h2.find() ? h2.group(1) : reported).toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,9 +1,14 @@
 package ru.polukhin.learningplatform.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import ru.polukhin.learningplatform.dto.AnswerKeyOptionRow;
+import ru.polukhin.learningplatform.dto.AnswerOptionView;
 import ru.polukhin.learningplatform.entity.AnswerOption;
 import ru.polukhin.learningplatform.entity.Question;
 
@@ -19,4 +24,13 @@ public interface AnswerOptionRepository extends JpaRepository<AnswerOption, Long
     
     @Query("SELECT a FROM AnswerOption a WHERE a.question.id = :questionId AND a.isCorrect = true")
     List<AnswerOption> findCorrectAnswersByQuestionId(@Param("questionId") Long questionId);
+    
+    @Query("SELECT new ru.polukhin.learningplatform.dto.AnswerKeyOptionRow(a.question.id, a.id) " +
+           "FROM AnswerOption a WHERE a.question.quiz.id = :quizId AND a.isCorrect = true")
+    List<AnswerKeyOptionRow> findCorrectAnswerKeyRowsByQuizId(@Param("quizId") Long quizId);
+    
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query("SELECT new ru.polukhin.learningplatform.dto.AnswerOptionView(a.id, qu.id, a.optionText, a.isCorrect, a.orderIndex) " +
+           "FROM AnswerOption a JOIN a.question qu WHERE qu.quiz.id = :quizId ORDER BY a.orderIndex ASC, a.id ASC")
+    List<AnswerOptionView> findViewsByQuizId(@Param("quizId") Long quizId);
 }
@@ -0,0 +1,17 @@
+package ru.polukhin.learningplatform.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import ru.polukhin.learningplatform.entity.ArchivedScore;
+import ru.polukhin.learningplatform.entity.GradebookEntryId;
+
+import java.util.List;
+
+@Repository
+public interface ArchivedScoreRepository extends JpaRepository<ArchivedScore, GradebookEntryId> {
+    
+    @Query("SELECT a FROM ArchivedScore a WHERE a.courseId = :courseId")
+    List<ArchivedScore> findByCourseId(@Param("courseId") Long courseId);
+}
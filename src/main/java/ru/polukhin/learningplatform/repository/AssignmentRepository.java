@@ -1,17 +1,25 @@
 package ru.polukhin.learningplatform.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import ru.polukhin.learningplatform.dto.AssignmentView;
+import ru.polukhin.learningplatform.dto.CourseIdRow;
 import ru.polukhin.learningplatform.entity.Assignment;
 import ru.polukhin.learningplatform.entity.Lesson;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface AssignmentRepository extends JpaRepository<Assignment, Long> {
+
+    String ASSIGNMENT_VIEW = "SELECT new ru.polukhin.learningplatform.dto.AssignmentView(a.id, a.lesson.id, a.title, " +
+            "a.description, a.maxScore, a.deadline) FROM Assignment a ";
     
     List<Assignment> findByLesson(Lesson lesson);
     
@@ -27,4 +35,23 @@ public interface AssignmentRepository extends JpaRepository<Assignment, Long> {
     
     @Query("SELECT a FROM Assignment a LEFT JOIN FETCH a.submissions WHERE a.id = :id")
     Assignment findByIdWithSubmissions(@Param("id") Long id);
+    
+    @Query("SELECT new ru.polukhin.learningplatform.dto.CourseIdRow(a.id, m.course.id) " +
+           "FROM Assignment a JOIN a.lesson l JOIN l.module m WHERE a.id IN :ids")
+    List<CourseIdRow> findCourseIdRowsByIds(@Param("ids") Collection<Long> ids);
+    
+    @Query(ASSIGNMENT_VIEW + "WHERE a.id = :id")
+    Optional<AssignmentView> findViewById(@Param("id") Long id);
+    
+    @Query(ASSIGNMENT_VIEW + "WHERE a.lesson.id IN :lessonIds ORDER BY a.id")
+    List<AssignmentView> findViewsByLessonIds(@Param("lessonIds") Collection<Long> lessonIds);
+    
+    @Query(ASSIGNMENT_VIEW + "WHERE a.id > :afterId ORDER BY a.id")
+    List<AssignmentView> findPageAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    @Query(ASSIGNMENT_VIEW + "WHERE a.lesson.id = :lessonId AND a.id > :afterId ORDER BY a.id")
+    List<AssignmentView> findPageByLessonIdAfter(@Param("lessonId") Long lessonId, @Param("afterId") Long afterId, Pageable pageable);
+    
+    @Query(ASSIGNMENT_VIEW + "WHERE a.lesson.module.course.id = :courseId AND a.id > :afterId ORDER BY a.id")
+    List<AssignmentView> findPageByCourseIdAfter(@Param("courseId") Long courseId, @Param("afterId") Long afterId, Pageable pageable);
 }
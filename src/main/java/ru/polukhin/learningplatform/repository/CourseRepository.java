@@ -1,18 +1,41 @@
 package ru.polukhin.learningplatform.repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import ru.polukhin.learningplatform.dto.CourseSearchRow;
+import ru.polukhin.learningplatform.dto.CourseSuggestionRow;
+import ru.polukhin.learningplatform.dto.CourseTitleRow;
+import ru.polukhin.learningplatform.dto.CourseView;
 import ru.polukhin.learningplatform.entity.Category;
 import ru.polukhin.learningplatform.entity.Course;
 import ru.polukhin.learningplatform.entity.DifficultyLevel;
 import ru.polukhin.learningplatform.entity.User;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface CourseRepository extends JpaRepository<Course, Long> {
+
+    String COURSE_VIEW = "SELECT new ru.polukhin.learningplatform.dto.CourseView(c.id, c.title, c.description, " +
+            "c.imageUrl, cat.id, cat.name, i.id, i.firstName, i.lastName, c.published, c.durationHours, " +
+            "c.difficultyLevel, c.createdAt, c.updatedAt) FROM Course c JOIN c.category cat JOIN c.instructor i ";
+    
+    String COURSE_SEARCH_ROW = "SELECT new ru.polukhin.learningplatform.dto.CourseSearchRow(c.id, c.title, " +
+            "c.description, cat.id, cat.name, c.difficultyLevel, c.published) FROM Course c JOIN c.category cat ";
+    
+    String COURSE_SUGGESTION_ROW = "SELECT new ru.polukhin.learningplatform.dto.CourseSuggestionRow(c.id, c.title, " +
+            "c.instructor.id, COALESCE(s.activeEnrollments, 0L)) " +
+            "FROM Course c LEFT JOIN CourseStatistics s ON s.courseId = c.id ";
     
     List<Course> findByCategory(Category category);
     
@@ -33,4 +56,44 @@ public interface CourseRepository extends JpaRepository<Course, Long> {
            "LEFT JOIN FETCH m.lessons " +
            "WHERE c.id = :id")
     Course findByIdWithFullStructure(@Param("id") Long id);
+    
+    @Query("SELECT c.id FROM Course c")
+    List<Long> findAllIds();
+    
+    @Query("SELECT new ru.polukhin.learningplatform.dto.CourseTitleRow(c.id, c.title) FROM Course c " +
+           "WHERE c.id IN :ids AND c.published = true")
+    List<CourseTitleRow> findPublishedTitleRowsByIds(@Param("ids") Collection<Long> ids);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Course c WHERE c.id = :id")
+    Optional<Course> findByIdForUpdate(@Param("id") Long id);
+    
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query(COURSE_VIEW + "WHERE c.id = :id")
+    Optional<CourseView> findViewById(@Param("id") Long id);
+    
+    @Query(COURSE_VIEW + "WHERE c.id > :afterId ORDER BY c.id")
+    List<CourseView> findPageAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query(COURSE_VIEW + "WHERE c.published = true AND c.id > :afterId ORDER BY c.id")
+    List<CourseView> findPublishedPageAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    @Query(COURSE_VIEW + "WHERE cat.id = :categoryId AND c.id > :afterId ORDER BY c.id")
+    List<CourseView> findPageByCategoryIdAfter(@Param("categoryId") Long categoryId, @Param("afterId") Long afterId, Pageable pageable);
+    
+    @Query(COURSE_VIEW + "WHERE i.id = :instructorId AND c.id > :afterId ORDER BY c.id")
+    List<CourseView> findPageByInstructorIdAfter(@Param("instructorId") Long instructorId, @Param("afterId") Long afterId, Pageable pageable);
+    
+    @Query(COURSE_SEARCH_ROW + "WHERE c.id > :afterId ORDER BY c.id")
+    List<CourseSearchRow> findSearchRowsAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    @Query(COURSE_SEARCH_ROW + "WHERE c.id IN :ids")
+    List<CourseSearchRow> findSearchRowsByIds(@Param("ids") Collection<Long> ids);
+    
+    @Query(COURSE_SUGGESTION_ROW + "WHERE c.id > :afterId ORDER BY c.id")
+    List<CourseSuggestionRow> findSuggestionRowsAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    @Query(COURSE_SUGGESTION_ROW + "WHERE c.id IN :ids")
+    List<CourseSuggestionRow> findSuggestionRowsByIds(@Param("ids") Collection<Long> ids);
 }
@@ -1,9 +1,11 @@
 package ru.polukhin.learningplatform.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import ru.polukhin.learningplatform.dto.CourseReviewView;
 import ru.polukhin.learningplatform.entity.Course;
 import ru.polukhin.learningplatform.entity.CourseReview;
 import ru.polukhin.learningplatform.entity.User;
@@ -30,4 +32,14 @@ public interface CourseReviewRepository extends JpaRepository<CourseReview, Long
     long countByCourseId(@Param("courseId") Long courseId);
     
     boolean existsByStudentAndCourse(User student, Course course);
+    
+    @Query("SELECT COALESCE(SUM(cr.rating), 0) FROM CourseReview cr WHERE cr.course.id = :courseId")
+    long sumRatingByCourseId(@Param("courseId") Long courseId);
+    
+    boolean existsByStudentIdAndCourseId(Long studentId, Long courseId);
+    
+    @Query("SELECT new ru.polukhin.learningplatform.dto.CourseReviewView(cr.id, cr.student.id, cr.course.id, " +
+           "cr.rating, cr.comment, cr.reviewedAt) " +
+           "FROM CourseReview cr WHERE cr.course.id = :courseId AND cr.id > :afterId ORDER BY cr.id")
+    List<CourseReviewView> findPageByCourseIdAfter(@Param("courseId") Long courseId, @Param("afterId") Long afterId, Pageable pageable);
 }
@@ -0,0 +1,27 @@
+package ru.polukhin.learningplatform.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import ru.polukhin.learningplatform.entity.CourseStatistics;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface CourseStatisticsRepository extends JpaRepository<CourseStatistics, Long> {
+    
+    @Modifying
+    @Query("UPDATE CourseStatistics s SET " +
+           "s.activeEnrollments = s.activeEnrollments + :activeEnrollments, " +
+           "s.reviewCount = s.reviewCount + :reviewCount, " +
+           "s.ratingSum = s.ratingSum + :ratingSum, " +
+           "s.updatedAt = :updatedAt " +
+           "WHERE s.courseId = :courseId")
+    int applyDeltas(@Param("courseId") Long courseId,
+                    @Param("activeEnrollments") long activeEnrollments,
+                    @Param("reviewCount") long reviewCount,
+                    @Param("ratingSum") long ratingSum,
+                    @Param("updatedAt") LocalDateTime updatedAt);
+}
@@ -1,19 +1,29 @@
 package ru.polukhin.learningplatform.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import ru.polukhin.learningplatform.dto.EnrollmentProgressView;
+import ru.polukhin.learningplatform.dto.EnrollmentView;
+import ru.polukhin.learningplatform.dto.StudentCourseRow;
+import ru.polukhin.learningplatform.dto.UserCountRow;
 import ru.polukhin.learningplatform.entity.Course;
 import ru.polukhin.learningplatform.entity.Enrollment;
 import ru.polukhin.learningplatform.entity.EnrollmentStatus;
 import ru.polukhin.learningplatform.entity.User;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface EnrollmentRepository extends JpaRepository<Enrollment, Long> {
+
+    String ENROLLMENT_VIEW = "SELECT new ru.polukhin.learningplatform.dto.EnrollmentView(e.id, e.student.id, c.id, " +
+            "c.title, e.enrolledAt, e.status, e.progressPercentage, e.completedAt, e.finalGrade) " +
+            "FROM Enrollment e JOIN e.course c ";
     
     Optional<Enrollment> findByStudentAndCourse(User student, Course course);
     
@@ -36,4 +46,46 @@ public interface EnrollmentRepository extends JpaRepository<Enrollment, Long> {
     
     @Query("SELECT COUNT(e) FROM Enrollment e WHERE e.course.id = :courseId AND e.status = 'ACTIVE'")
     long countActiveEnrollmentsByCourseId(@Param("courseId") Long courseId);
+    
+    @Query("SELECT new ru.polukhin.learningplatform.dto.UserCountRow(e.student.id, COUNT(e)) " +
+           "FROM Enrollment e GROUP BY e.student.id")
+    List<UserCountRow> countEnrollmentsGroupedByStudent();
+    
+    @Query("SELECT e.student.id FROM Enrollment e WHERE e.course.id = :courseId")
+    List<Long> findStudentIdsByCourseId(@Param("courseId") Long courseId);
+    
+    @Query("SELECT e.student.id FROM Enrollment e WHERE e.course.id = :courseId AND e.student.id IN :studentIds")
+    List<Long> findEnrolledStudentIds(@Param("courseId") Long courseId, @Param("studentIds") Collection<Long> studentIds);
+    
+    @Query("SELECT e.course.id FROM Enrollment e WHERE e.student.id = :studentId AND e.status <> 'DROPPED'")
+    List<Long> findCurrentCourseIdsByStudentId(@Param("studentId") Long studentId);
+    
+    @Query("SELECT e.course.id FROM Enrollment e WHERE e.student.id = :studentId")
+    List<Long> findCourseIdsByStudentId(@Param("studentId") Long studentId);
+    
+    @Query("SELECT new ru.polukhin.learningplatform.dto.StudentCourseRow(e.student.id, e.course.id) " +
+           "FROM Enrollment e WHERE e.student.id IN :studentIds AND e.status <> 'DROPPED'")
+    List<StudentCourseRow> findCurrentCoursesByStudentIds(@Param("studentIds") Collection<Long> studentIds);
+    
+    @Query("SELECT new ru.polukhin.learningplatform.dto.StudentCourseRow(e.student.id, e.course.id) " +
+           "FROM Enrollment e WHERE e.status <> 'DROPPED' AND (e.student.id > :afterStudentId " +
+           "OR (e.student.id = :afterStudentId AND e.course.id > :afterCourseId)) ORDER BY e.student.id, e.course.id")
+    List<StudentCourseRow> findCurrentCoursesAfter(@Param("afterStudentId") Long afterStudentId,
+                                                   @Param("afterCourseId") Long afterCourseId, Pageable pageable);
+    
+    @Query("SELECT new ru.polukhin.learningplatform.dto.EnrollmentProgressView(e.id, e.course.id, e.status, e.progressPercentage) " +
+           "FROM Enrollment e WHERE e.id = :id")
+    Optional<EnrollmentProgressView> findProgressById(@Param("id") Long id);
+
+    @Query(ENROLLMENT_VIEW + "WHERE e.id = :id")
+    Optional<EnrollmentView> findViewById(@Param("id") Long id);
+    
+    @Query(ENROLLMENT_VIEW + "WHERE e.id > :afterId ORDER BY e.id")
+    List<EnrollmentView> findPageAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    @Query(ENROLLMENT_VIEW + "WHERE e.student.id = :studentId AND e.id > :afterId ORDER BY e.id")
+    List<EnrollmentView> findPageByStudentIdAfter(@Param("studentId") Long studentId, @Param("afterId") Long afterId, Pageable pageable);
+    
+    @Query(ENROLLMENT_VIEW + "WHERE c.id = :courseId AND e.id > :afterId ORDER BY e.id")
+    List<EnrollmentView> findPageByCourseIdAfter(@Param("courseId") Long courseId, @Param("afterId") Long afterId, Pageable pageable);
 }
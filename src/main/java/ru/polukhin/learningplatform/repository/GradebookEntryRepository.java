@@ -0,0 +1,27 @@
+package ru.polukhin.learningplatform.repository;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import ru.polukhin.learningplatform.entity.GradebookEntry;
+import ru.polukhin.learningplatform.entity.GradebookEntryId;
+
+import java.util.List;
+
+// Page reads and incremental updates go through GradebookService's JDBC statements
+@Repository
+public interface GradebookEntryRepository extends JpaRepository<GradebookEntry, GradebookEntryId> {
+    
+    // Repair locks the rows before reading the source tables: a grade applied after that waits for the repair
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT g FROM GradebookEntry g WHERE g.courseId = :courseId ORDER BY g.studentId")
+    List<GradebookEntry> findByCourseIdForUpdate(@Param("courseId") Long courseId);
+    
+    @Modifying
+    @Query("DELETE FROM GradebookEntry g WHERE g.courseId = :courseId")
+    int deleteByCourseId(@Param("courseId") Long courseId);
+}
@@ -1,13 +1,20 @@
 package ru.polukhin.learningplatform.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import ru.polukhin.learningplatform.dto.LessonSearchRow;
+import ru.polukhin.learningplatform.dto.LessonView;
 import ru.polukhin.learningplatform.entity.Lesson;
 import ru.polukhin.learningplatform.entity.LessonType;
 import ru.polukhin.learningplatform.entity.Module;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -22,4 +29,18 @@ public interface LessonRepository extends JpaRepository<Lesson, Long> {
     
     @Query("SELECT l FROM Lesson l LEFT JOIN FETCH l.assignments WHERE l.id = :id")
     Lesson findByIdWithAssignments(@Param("id") Long id);
+    
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query("SELECT new ru.polukhin.learningplatform.dto.LessonView(l.id, m.id, l.title, l.content, l.orderIndex, " +
+           "l.type, l.videoUrl, l.durationMinutes) " +
+           "FROM Lesson l JOIN l.module m WHERE m.course.id = :courseId ORDER BY l.orderIndex ASC, l.id ASC")
+    List<LessonView> findViewsByCourseId(@Param("courseId") Long courseId);
+    
+    @Query("SELECT new ru.polukhin.learningplatform.dto.LessonSearchRow(l.id, m.course.id, l.title, l.content) " +
+           "FROM Lesson l JOIN l.module m WHERE l.id > :afterId ORDER BY l.id")
+    List<LessonSearchRow> findSearchRowsAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    @Query("SELECT new ru.polukhin.learningplatform.dto.LessonSearchRow(l.id, m.course.id, l.title, l.content) " +
+           "FROM Lesson l JOIN l.module m WHERE l.id IN :ids")
+    List<LessonSearchRow> findSearchRowsByIds(@Param("ids") Collection<Long> ids);
 }
@@ -1,9 +1,13 @@
 package ru.polukhin.learningplatform.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import ru.polukhin.learningplatform.dto.ModuleOutlineView;
 import ru.polukhin.learningplatform.entity.Course;
 import ru.polukhin.learningplatform.entity.Module;
 
@@ -19,4 +23,9 @@ public interface ModuleRepository extends JpaRepository<Module, Long> {
     
     @Query("SELECT m FROM Module m LEFT JOIN FETCH m.lessons WHERE m.id = :id")
     Module findByIdWithLessons(@Param("id") Long id);
+    
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query("SELECT new ru.polukhin.learningplatform.dto.ModuleOutlineView(m.id, m.title, m.description, m.orderIndex) " +
+           "FROM Module m WHERE m.course.id = :courseId ORDER BY m.orderIndex ASC, m.id ASC")
+    List<ModuleOutlineView> findOutlineByCourseId(@Param("courseId") Long courseId);
 }
@@ -1,13 +1,19 @@
 package ru.polukhin.learningplatform.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import ru.polukhin.learningplatform.dto.AnswerKeyQuestionRow;
+import ru.polukhin.learningplatform.dto.QuestionView;
 import ru.polukhin.learningplatform.entity.Question;
 import ru.polukhin.learningplatform.entity.Quiz;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface QuestionRepository extends JpaRepository<Question, Long> {
@@ -19,4 +25,16 @@ public interface QuestionRepository extends JpaRepository<Question, Long> {
     
     @Query("SELECT q FROM Question q LEFT JOIN FETCH q.answerOptions WHERE q.id = :id")
     Question findByIdWithAnswers(@Param("id") Long id);
+    
+    @Query("SELECT new ru.polukhin.learningplatform.dto.AnswerKeyQuestionRow(q.id, q.type, q.points) " +
+           "FROM Question q WHERE q.quiz.id = :quizId ORDER BY q.orderIndex ASC")
+    List<AnswerKeyQuestionRow> findAnswerKeyRowsByQuizId(@Param("quizId") Long quizId);
+    
+    @Query("SELECT q.quiz.id FROM Question q WHERE q.id = :id")
+    Optional<Long> findQuizIdById(@Param("id") Long id);
+    
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query("SELECT new ru.polukhin.learningplatform.dto.QuestionView(q.id, q.questionText, q.type, q.orderIndex, q.points) " +
+           "FROM Question q WHERE q.quiz.id = :quizId ORDER BY q.orderIndex ASC, q.id ASC")
+    List<QuestionView> findViewsByQuizId(@Param("quizId") Long quizId);
 }
@@ -1,16 +1,27 @@
 package ru.polukhin.learningplatform.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import ru.polukhin.learningplatform.dto.CourseIdRow;
+import ru.polukhin.learningplatform.dto.QuizView;
 import ru.polukhin.learningplatform.entity.Module;
 import ru.polukhin.learningplatform.entity.Quiz;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface QuizRepository extends JpaRepository<Quiz, Long> {
+
+    String QUIZ_VIEW = "SELECT new ru.polukhin.learningplatform.dto.QuizView(q.id, q.module.id, q.title, " +
+            "q.description, q.passingScore, q.timeLimitMinutes) FROM Quiz q ";
     
     Optional<Quiz> findByModule(Module module);
     
@@ -25,4 +36,20 @@ public interface QuizRepository extends JpaRepository<Quiz, Long> {
            "LEFT JOIN FETCH qu.answerOptions " +
            "WHERE q.id = :id")
     Quiz findByIdWithFullStructure(@Param("id") Long id);
+    
+    @Query("SELECT q.passingScore FROM Quiz q WHERE q.id = :id")
+    Optional<Integer> findPassingScoreById(@Param("id") Long id);
+    
+    @Query("SELECT new ru.polukhin.learningplatform.dto.CourseIdRow(q.id, q.module.course.id) FROM Quiz q WHERE q.id IN :ids")
+    List<CourseIdRow> findCourseIdRowsByIds(@Param("ids") Collection<Long> ids);
+    
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query(QUIZ_VIEW + "WHERE q.id = :id")
+    Optional<QuizView> findViewById(@Param("id") Long id);
+    
+    @Query(QUIZ_VIEW + "WHERE q.module.id IN :moduleIds")
+    List<QuizView> findViewsByModuleIds(@Param("moduleIds") Collection<Long> moduleIds);
+    
+    @Query(QUIZ_VIEW + "WHERE q.id > :afterId ORDER BY q.id")
+    List<QuizView> findPageAfter(@Param("afterId") Long afterId, Pageable pageable);
 }
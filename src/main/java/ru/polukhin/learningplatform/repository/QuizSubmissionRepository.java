@@ -1,18 +1,31 @@
 package ru.polukhin.learningplatform.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import ru.polukhin.learningplatform.dto.QuizSubmissionExportRow;
+import ru.polukhin.learningplatform.dto.QuizSubmissionView;
+import ru.polukhin.learningplatform.dto.StudentScoreRow;
 import ru.polukhin.learningplatform.entity.Quiz;
 import ru.polukhin.learningplatform.entity.QuizSubmission;
 import ru.polukhin.learningplatform.entity.User;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface QuizSubmissionRepository extends JpaRepository<QuizSubmission, Long> {
+
+    String QUIZ_SUBMISSION_VIEW = "SELECT new ru.polukhin.learningplatform.dto.QuizSubmissionView(qs.id, qs.student.id, " +
+            "qs.quiz.id, qs.score, qs.maxScore, qs.percentageScore, qs.passed, qs.submittedAt, qs.timeTakenMinutes) " +
+            "FROM QuizSubmission qs ";
     
     Optional<QuizSubmission> findByStudentAndQuiz(User student, Quiz quiz);
     
@@ -32,4 +45,34 @@ public interface QuizSubmissionRepository extends JpaRepository<QuizSubmission,
     List<QuizSubmission> findByStudentIdAndCourseId(@Param("studentId") Long studentId, @Param("courseId") Long courseId);
     
     boolean existsByStudentAndQuiz(User student, Quiz quiz);
+    
+    @Query("SELECT COUNT(qs) > 0 FROM QuizSubmission qs WHERE qs.quiz.id = :quizId AND qs.student.id = :studentId")
+    boolean existsByQuizIdAndStudentId(@Param("quizId") Long quizId, @Param("studentId") Long studentId);
+    
+    @Query("SELECT qs.student.id FROM QuizSubmission qs WHERE qs.quiz.id = :quizId AND qs.student.id IN :studentIds")
+    List<Long> findStudentIdsByQuizIdAndStudentIdIn(@Param("quizId") Long quizId, @Param("studentIds") Collection<Long> studentIds);
+    
+    @Query("SELECT new ru.polukhin.learningplatform.dto.StudentScoreRow(qs.student.id, COUNT(qs), SUM(qs.score), " +
+           "SUM(qs.maxScore), SUM(CASE WHEN qs.passed = true THEN 1L ELSE 0L END)) " +
+           "FROM QuizSubmission qs JOIN qs.quiz q JOIN q.module m WHERE m.course.id = :courseId GROUP BY qs.student.id")
+    List<StudentScoreRow> summarizeByCourseIdGroupedByStudent(@Param("courseId") Long courseId);
+    
+    @Query(QUIZ_SUBMISSION_VIEW + "WHERE qs.quiz.id = :quizId AND qs.student.id = :studentId")
+    Optional<QuizSubmissionView> findViewByQuizIdAndStudentId(@Param("quizId") Long quizId, @Param("studentId") Long studentId);
+    
+    // Forward-only cursor: rows are fetched from the database in chunks of fetch size, no entities are created
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new ru.polukhin.learningplatform.dto.QuizSubmissionExportRow(" +
+           "qs.id, s.id, s.username, qs.score, qs.maxScore, qs.percentageScore, qs.passed, qs.submittedAt, qs.timeTakenMinutes) " +
+           "FROM QuizSubmission qs JOIN qs.student s WHERE qs.quiz.id = :quizId ORDER BY qs.id")
+    Stream<QuizSubmissionExportRow> streamExportRowsByQuizId(@Param("quizId") Long quizId);
+    
+    @Query(QUIZ_SUBMISSION_VIEW + "WHERE qs.student.id = :studentId ORDER BY qs.id")
+    List<QuizSubmissionView> findViewsByStudentId(@Param("studentId") Long studentId);
+    
+    @Query(QUIZ_SUBMISSION_VIEW + "WHERE qs.student.id = :studentId AND qs.id > :afterId ORDER BY qs.id")
+    List<QuizSubmissionView> findPageByStudentIdAfter(@Param("studentId") Long studentId, @Param("afterId") Long afterId, Pageable pageable);
+    
+    @Query(QUIZ_SUBMISSION_VIEW + "WHERE qs.quiz.id = :quizId AND qs.id > :afterId ORDER BY qs.id")
+    List<QuizSubmissionView> findPageByQuizIdAfter(@Param("quizId") Long quizId, @Param("afterId") Long afterId, Pageable pageable);
 }
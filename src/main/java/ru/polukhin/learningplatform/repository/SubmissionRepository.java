@@ -1,19 +1,29 @@
 package ru.polukhin.learningplatform.repository;
 
+import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import ru.polukhin.learningplatform.dto.StudentScoreRow;
+import ru.polukhin.learningplatform.dto.SubmissionView;
 import ru.polukhin.learningplatform.entity.Assignment;
 import ru.polukhin.learningplatform.entity.Submission;
 import ru.polukhin.learningplatform.entity.SubmissionStatus;
 import ru.polukhin.learningplatform.entity.User;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface SubmissionRepository extends JpaRepository<Submission, Long> {
+
+    String SUBMISSION_VIEW = "SELECT new ru.polukhin.learningplatform.dto.SubmissionView(s.id, s.student.id, " +
+            "s.assignment.id, s.content, s.fileUrl, s.submittedAt, s.status, s.score, s.feedback, s.gradedAt) " +
+            "FROM Submission s ";
     
     Optional<Submission> findByStudentAndAssignment(User student, Assignment assignment);
     
@@ -33,4 +43,31 @@ public interface SubmissionRepository extends JpaRepository<Submission, Long> {
     List<Submission> findByStudentIdAndCourseId(@Param("studentId") Long studentId, @Param("courseId") Long courseId);
     
     boolean existsByStudentAndAssignment(User student, Assignment assignment);
+    
+    @Query("SELECT s FROM Submission s JOIN FETCH s.assignment WHERE s.id = :id")
+    Optional<Submission> findByIdWithAssignment(@Param("id") Long id);
+    
+    // Grading locks the submission so the previous score a regrade replaces is the committed one
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM Submission s JOIN FETCH s.assignment WHERE s.id = :id")
+    Optional<Submission> findByIdWithAssignmentForUpdate(@Param("id") Long id);
+    
+    // In id order, so two bulk grades of overlapping submissions take their locks in the same order
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM Submission s JOIN FETCH s.assignment WHERE s.id IN :ids ORDER BY s.id")
+    List<Submission> findAllWithAssignmentByIdInForUpdate(@Param("ids") Collection<Long> ids);
+    
+    @Query("SELECT new ru.polukhin.learningplatform.dto.StudentScoreRow(s.student.id, COUNT(s), SUM(s.score), " +
+           "SUM(a.maxScore), 0L) FROM Submission s JOIN s.assignment a JOIN a.lesson l JOIN l.module m " +
+           "WHERE m.course.id = :courseId AND s.status = 'GRADED' GROUP BY s.student.id")
+    List<StudentScoreRow> summarizeGradedByCourseIdGroupedByStudent(@Param("courseId") Long courseId);
+    
+    @Query(SUBMISSION_VIEW + "WHERE s.student.id = :studentId ORDER BY s.id")
+    List<SubmissionView> findViewsByStudentId(@Param("studentId") Long studentId);
+    
+    @Query(SUBMISSION_VIEW + "WHERE s.student.id = :studentId AND s.id > :afterId ORDER BY s.id")
+    List<SubmissionView> findPageByStudentIdAfter(@Param("studentId") Long studentId, @Param("afterId") Long afterId, Pageable pageable);
+    
+    @Query(SUBMISSION_VIEW + "WHERE s.assignment.id = :assignmentId AND s.id > :afterId ORDER BY s.id")
+    List<SubmissionView> findPageByAssignmentIdAfter(@Param("assignmentId") Long assignmentId, @Param("afterId") Long afterId, Pageable pageable);
 }
@@ -1,17 +1,25 @@
 package ru.polukhin.learningplatform.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import ru.polukhin.learningplatform.dto.UserRoleRow;
+import ru.polukhin.learningplatform.dto.UserSuggestionRow;
+import ru.polukhin.learningplatform.dto.UserView;
 import ru.polukhin.learningplatform.entity.RoleType;
 import ru.polukhin.learningplatform.entity.User;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
+
+    String USER_VIEW = "SELECT new ru.polukhin.learningplatform.dto.UserView(u.id, u.username, u.email, " +
+            "u.firstName, u.lastName, u.role, u.bio, u.profileImageUrl, u.active, u.createdAt) FROM User u ";
     
     Optional<User> findByUsername(String username);
     
@@ -27,4 +35,33 @@ public interface UserRepository extends JpaRepository<User, Long> {
     
     @Query("SELECT u FROM User u WHERE u.role = :role AND u.active = true")
     List<User> findActiveUsersByRole(@Param("role") RoleType role);
+    
+    @Query("SELECT new ru.polukhin.learningplatform.dto.UserRoleRow(u.id, u.role) FROM User u WHERE u.id IN :ids")
+    List<UserRoleRow> findRolesByIds(@Param("ids") Collection<Long> ids);
+    
+    @Query("SELECT u.role FROM User u WHERE u.id = :id")
+    Optional<RoleType> findRoleById(@Param("id") Long id);
+    
+    @Query(USER_VIEW + "WHERE u.id = :id")
+    Optional<UserView> findViewById(@Param("id") Long id);
+    
+    @Query(USER_VIEW + "WHERE u.username = :username")
+    Optional<UserView> findViewByUsername(@Param("username") String username);
+    
+    @Query(USER_VIEW + "WHERE u.id > :afterId ORDER BY u.id")
+    List<UserView> findPageAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    @Query(USER_VIEW + "WHERE u.role = :role AND u.id > :afterId ORDER BY u.id")
+    List<UserView> findPageByRoleAfter(@Param("role") RoleType role, @Param("afterId") Long afterId, Pageable pageable);
+    
+    @Query(USER_VIEW + "WHERE u.active = true AND u.id > :afterId ORDER BY u.id")
+    List<UserView> findActivePageAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    @Query("SELECT new ru.polukhin.learningplatform.dto.UserSuggestionRow(u.id, u.username, u.firstName, u.lastName) " +
+           "FROM User u WHERE u.id > :afterId ORDER BY u.id")
+    List<UserSuggestionRow> findSuggestionRowsAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    @Query("SELECT new ru.polukhin.learningplatform.dto.UserSuggestionRow(u.id, u.username, u.firstName, u.lastName) " +
+           "FROM User u WHERE u.id IN :ids")
+    List<UserSuggestionRow> findSuggestionRowsByIds(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,255 @@
+package ru.polukhin.learningplatform.service;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Immutable file of deflate-compressed blocks, one per {@code long} key, followed by the sorted key index.
+ * <p>
+ * Read through a read-only memory mapping: a lookup binary-searches the mapped index and inflates a single
+ * block straight from the mapping, so only the touched pages are read from disk and nothing stays on the heap.
+ * Layout: magic, blocks, index entries (key, offset, compressed length, raw length), index offset,
+ * entry count, magic. {@link Writer} appends blocks in ascending key order and publishes the file with an
+ * atomic rename, so a reader never sees a partial file. Thread-safe once opened.
+ */
+final class ArchiveFile {
+
+    static final String TEMP_SUFFIX = ".tmp";
+
+    // "LPARC" and format version 1
+    private static final long MAGIC = 0x4C50415243000001L;
+    private static final int HEADER_SIZE = Long.BYTES;
+    private static final int ENTRY_SIZE = 2 * Long.BYTES + 2 * Integer.BYTES;
+    private static final int FOOTER_SIZE = Long.BYTES + Integer.BYTES + Long.BYTES;
+
+    private final Path path;
+    // Absolute reads only, so concurrent lookups never share a position
+    private final ByteBuffer mapping;
+    private final int indexOffset;
+    private final int entries;
+
+    private ArchiveFile(Path path, ByteBuffer mapping) {
+        this.path = path;
+        this.mapping = mapping;
+        int footer = mapping.capacity() - FOOTER_SIZE;
+        if (mapping.getLong(0) != MAGIC || mapping.getLong(footer + Long.BYTES + Integer.BYTES) != MAGIC) {
+            throw new IllegalStateException("Not an archive file: " + path);
+        }
+        this.indexOffset = Math.toIntExact(mapping.getLong(footer));
+        this.entries = mapping.getInt(footer + Long.BYTES);
+        if (indexOffset < HEADER_SIZE || (long) indexOffset + (long) entries * ENTRY_SIZE != footer) {
+            throw new IllegalStateException("Corrupt archive index in " + path);
+        }
+    }
+
+    static ArchiveFile open(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE + FOOTER_SIZE) {
+                throw new IllegalStateException("Not an archive file: " + path);
+            }
+            if (size > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Archive file larger than 2 GB: " + path);
+            }
+            // The mapping stays valid after the channel is closed
+            return new ArchiveFile(path, channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open archive file " + path, e);
+        }
+    }
+
+    int size() {
+        return entries;
+    }
+
+    /**
+     * @return the block stored under {@code key}, or {@code null} when there is none
+     */
+    byte[] read(long key) {
+        int low = 0;
+        int high = entries - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int entry = indexOffset + mid * ENTRY_SIZE;
+            long midKey = mapping.getLong(entry);
+            if (midKey < key) {
+                low = mid + 1;
+            } else if (midKey > key) {
+                high = mid - 1;
+            } else {
+                return inflate(Math.toIntExact(mapping.getLong(entry + Long.BYTES)),
+                        mapping.getInt(entry + 2 * Long.BYTES),
+                        mapping.getInt(entry + 2 * Long.BYTES + Integer.BYTES));
+            }
+        }
+        return null;
+    }
+
+    private byte[] inflate(int offset, int compressedLength, int rawLength) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(mapping.slice(offset, compressedLength));
+            byte[] raw = new byte[rawLength];
+            int inflated = 0;
+            while (inflated < rawLength) {
+                int count = inflater.inflate(raw, inflated, rawLength - inflated);
+                if (count == 0 && (inflater.finished() || inflater.needsInput())) {
+                    break;
+                }
+                inflated += count;
+            }
+            if (inflated != rawLength) {
+                throw new IllegalStateException("Corrupt archive block at " + offset + " in " + path);
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt archive block at " + offset + " in " + path, e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    // Temporary files left by a stopped process are published or deleted by SubmissionArchive
+    static Path temp(Path target) {
+        return target.resolveSibling(target.getFileName() + TEMP_SUFFIX);
+    }
+
+    static void publish(Path temp, Path target) {
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot publish archive file " + target, e);
+        }
+    }
+
+    static void delete(Path temp) {
+        try {
+            Files.deleteIfExists(temp);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot delete " + temp, e);
+        }
+    }
+
+    /**
+     * Writes {@code <target>.tmp}, completes and syncs it on {@link #prepare()} and renames it to the target
+     * on {@link #commit()}. Closing a writer that was not prepared deletes the temporary file; a prepared one
+     * is left to {@link #commit()} or {@link #discard()}. Not thread-safe.
+     */
+    static final class Writer implements Closeable {
+
+        private final Path target;
+        private final Path temp;
+        private final FileChannel channel;
+        private final DataOutputStream out;
+        private final ByteArrayOutputStream indexBytes = new ByteArrayOutputStream();
+        private final DataOutputStream index = new DataOutputStream(indexBytes);
+        private final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        private final byte[] chunk = new byte[8192];
+
+        private long position = HEADER_SIZE;
+        private long lastKey;
+        private int entries;
+        private boolean prepared;
+
+        Writer(Path target) {
+            this.target = target;
+            this.temp = temp(target);
+            try {
+                Files.createDirectories(target.getParent());
+                this.channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING);
+                this.out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+                out.writeLong(MAGIC);
+            } catch (IOException e) {
+                deflater.end();
+                throw new UncheckedIOException("Cannot create archive file " + temp, e);
+            }
+        }
+
+        Path target() {
+            return target;
+        }
+
+        void append(long key, byte[] raw) {
+            if (entries > 0 && key <= lastKey) {
+                throw new IllegalArgumentException("Keys must be ascending: " + key + " after " + lastKey);
+            }
+            try {
+                deflater.reset();
+                deflater.setInput(raw);
+                deflater.finish();
+                int compressed = 0;
+                while (!deflater.finished()) {
+                    int count = deflater.deflate(chunk);
+                    out.write(chunk, 0, count);
+                    compressed += count;
+                }
+                index.writeLong(key);
+                index.writeLong(position);
+                index.writeInt(compressed);
+                index.writeInt(raw.length);
+                position += compressed;
+                lastKey = key;
+                entries++;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot write archive file " + temp, e);
+            }
+        }
+
+        // Synced to disk before the rename, so a published file survives a crash
+        void prepare() {
+            try {
+                index.flush();
+                indexBytes.writeTo(out);
+                out.writeLong(position);
+                out.writeInt(entries);
+                out.writeLong(MAGIC);
+                out.flush();
+                channel.force(true);
+                channel.close();
+                prepared = true;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot write archive file " + temp, e);
+            }
+        }
+
+        void commit() {
+            if (!prepared) {
+                throw new IllegalStateException("Archive file not prepared: " + temp);
+            }
+            publish(temp, target);
+        }
+
+        void discard() {
+            delete(temp);
+        }
+
+        @Override
+        public void close() {
+            deflater.end();
+            if (prepared) {
+                return;
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot close " + temp, e);
+            }
+            delete(temp);
+        }
+    }
+}
@@ -2,18 +2,25 @@ package ru.polukhin.learningplatform.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.polukhin.learningplatform.dto.AssignmentView;
+import ru.polukhin.learningplatform.dto.BulkGradeResponse;
+import ru.polukhin.learningplatform.dto.BulkGradeResult;
+import ru.polukhin.learningplatform.dto.CursorPage;
+import ru.polukhin.learningplatform.dto.GradeSubmissionRequest;
+import ru.polukhin.learningplatform.dto.SubmissionView;
 import ru.polukhin.learningplatform.entity.*;
 import ru.polukhin.learningplatform.exception.BusinessException;
-import ru.polukhin.learningplatform.exception.DuplicateResourceException;
 import ru.polukhin.learningplatform.exception.ResourceNotFoundException;
+import ru.polukhin.learningplatform.exception.UniqueConstraintTranslator;
 import ru.polukhin.learningplatform.repository.AssignmentRepository;
 import ru.polukhin.learningplatform.repository.SubmissionRepository;
 import ru.polukhin.learningplatform.repository.UserRepository;
 
 import java.time.LocalDateTime;
-import java.util.List;
+import java.util.*;
 
 @Service
 @RequiredArgsConstructor
@@ -21,46 +28,60 @@ import java.util.List;
 @Transactional(readOnly = true)
 public class AssignmentService {
 
+    private static final int MAX_FEEDBACK_LENGTH = 2000;
+
     private final AssignmentRepository assignmentRepository;
     private final SubmissionRepository submissionRepository;
     private final UserRepository userRepository;
+    private final UserLookup userLookup;
+    private final GradebookService gradebookService;
+    private final CourseOutlineCache courseOutlineCache;
+    private final SubmissionArchiveService submissionArchiveService;
 
-    public List<Assignment> getAllAssignments() {
-        log.debug("Fetching all assignments");
-        return assignmentRepository.findAll();
+    public CursorPage<AssignmentView> getAllAssignments(String cursor, Integer size) {
+        log.debug("Fetching assignments page after cursor: {}", cursor);
+        PageCursor page = PageCursor.of(cursor, size);
+        return page.toPage(assignmentRepository.findPageAfter(page.afterId(), page.limit()), AssignmentView::id);
     }
 
-    public Assignment getAssignmentById(Long id) {
+    public AssignmentView getAssignmentById(Long id) {
         log.debug("Fetching assignment by id: {}", id);
-        return assignmentRepository.findById(id)
+        return assignmentRepository.findViewById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Assignment", id));
     }
 
-    public List<Assignment> getAssignmentsByLesson(Long lessonId) {
+    public CursorPage<AssignmentView> getAssignmentsByLesson(Long lessonId, String cursor, Integer size) {
         log.debug("Fetching assignments for lesson id: {}", lessonId);
-        return assignmentRepository.findByLessonId(lessonId);
+        PageCursor page = PageCursor.of(cursor, size);
+        return page.toPage(assignmentRepository.findPageByLessonIdAfter(lessonId, page.afterId(), page.limit()),
+                AssignmentView::id);
     }
 
-    public List<Assignment> getAssignmentsByCourse(Long courseId) {
+    public CursorPage<AssignmentView> getAssignmentsByCourse(Long courseId, String cursor, Integer size) {
         log.debug("Fetching assignments for course id: {}", courseId);
-        return assignmentRepository.findByCourseId(courseId);
+        PageCursor page = PageCursor.of(cursor, size);
+        return page.toPage(assignmentRepository.findPageByCourseIdAfter(courseId, page.afterId(), page.limit()),
+                AssignmentView::id);
     }
 
     @Transactional
     public Assignment createAssignment(Assignment assignment) {
         log.info("Creating new assignment: {}", assignment.getTitle());
-        return assignmentRepository.save(assignment);
+        Assignment saved = assignmentRepository.save(assignment);
+        evictCourseOutline(saved.getId());
+        return saved;
     }
 
     @Transactional
     public Assignment updateAssignment(Long id, Assignment assignmentDetails) {
         log.info("Updating assignment with id: {}", id);
         
-        Assignment assignment = getAssignmentById(id);
+        Assignment assignment = findAssignment(id);
         assignment.setTitle(assignmentDetails.getTitle());
         assignment.setDescription(assignmentDetails.getDescription());
         assignment.setMaxScore(assignmentDetails.getMaxScore());
         assignment.setDeadline(assignmentDetails.getDeadline());
+        evictCourseOutline(id);
         
         return assignmentRepository.save(assignment);
     }
@@ -68,7 +89,8 @@ public class AssignmentService {
     @Transactional
     public void deleteAssignment(Long id) {
         log.info("Deleting assignment with id: {}", id);
-        Assignment assignment = getAssignmentById(id);
+        Assignment assignment = findAssignment(id);
+        evictCourseOutline(id);
         assignmentRepository.delete(assignment);
     }
 
@@ -76,24 +98,16 @@ public class AssignmentService {
     public Submission submitAssignment(Long assignmentId, Long studentId, String content, String fileUrl) {
         log.info("Submitting assignment {} by student {}", assignmentId, studentId);
         
-        Assignment assignment = getAssignmentById(assignmentId);
-        User student = userRepository.findById(studentId)
-                .orElseThrow(() -> new ResourceNotFoundException("User", studentId));
-        
-        if (student.getRole() != RoleType.STUDENT) {
-            throw new BusinessException("User is not a student");
-        }
-        
-        if (submissionRepository.existsByStudentAndAssignment(student, assignment)) {
-            throw new DuplicateResourceException("Assignment already submitted by this student");
-        }
+        Assignment assignment = findAssignment(assignmentId);
+        userLookup.requireStudent(studentId);
         
         if (assignment.getDeadline() != null && LocalDateTime.now().isAfter(assignment.getDeadline())) {
             throw new BusinessException("Assignment deadline has passed");
         }
+        submissionArchiveService.rejectArchivedSubmission(assignmentId, studentId);
         
         Submission submission = Submission.builder()
-                .student(student)
+                .student(userRepository.getReferenceById(studentId))
                 .assignment(assignment)
                 .content(content)
                 .fileUrl(fileUrl)
@@ -101,20 +115,26 @@ public class AssignmentService {
                 .status(SubmissionStatus.SUBMITTED)
                 .build();
         
-        return submissionRepository.save(submission);
+        try {
+            return submissionRepository.saveAndFlush(submission);
+        } catch (DataIntegrityViolationException e) {
+            throw UniqueConstraintTranslator.translate(e);
+        }
     }
 
     @Transactional
     public Submission gradeSubmission(Long submissionId, Integer score, String feedback) {
         log.info("Grading submission id: {}", submissionId);
         
-        Submission submission = submissionRepository.findById(submissionId)
+        Submission submission = submissionRepository.findByIdWithAssignmentForUpdate(submissionId)
                 .orElseThrow(() -> new ResourceNotFoundException("Submission", submissionId));
         
-        if (score > submission.getAssignment().getMaxScore()) {
-            throw new BusinessException("Score cannot exceed maximum score");
+        String error = gradeError(submission, score, feedback);
+        if (error != null) {
+            throw new BusinessException(error);
         }
         
+        gradebookService.assignmentsGraded(List.of(toGrade(submission, score)));
         submission.setScore(score);
         submission.setFeedback(feedback);
         submission.setStatus(SubmissionStatus.GRADED);
@@ -123,13 +143,109 @@ public class AssignmentService {
         return submissionRepository.save(submission);
     }
 
-    public List<Submission> getSubmissionsByStudent(Long studentId) {
+    @Transactional
+    public BulkGradeResponse gradeSubmissions(List<GradeSubmissionRequest> grades) {
+        log.info("Bulk grading {} submissions", grades.size());
+        
+        List<Long> ids = grades.stream()
+                .map(GradeSubmissionRequest::submissionId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .sorted()
+                .toList();
+        Map<Long, Submission> submissions = new HashMap<>();
+        for (List<Long> batch : Batches.partition(ids, Batches.DEFAULT_SIZE)) {
+            submissionRepository.findAllWithAssignmentByIdInForUpdate(batch)
+                    .forEach(submission -> submissions.put(submission.getId(), submission));
+        }
+        
+        LocalDateTime now = LocalDateTime.now();
+        List<BulkGradeResult> results = new ArrayList<>(grades.size());
+        List<GradebookService.AssignmentGrade> gradebookChanges = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        int graded = 0;
+        
+        for (GradeSubmissionRequest grade : grades) {
+            Long id = grade.submissionId();
+            Submission submission = id != null ? submissions.get(id) : null;
+            String error = null;
+            BulkGradeResult.Status status = BulkGradeResult.Status.INVALID;
+            
+            if (id == null) {
+                error = "Submission id is required";
+            } else if (!seen.add(id)) {
+                status = BulkGradeResult.Status.DUPLICATE_IN_REQUEST;
+                error = "Submission is graded more than once in this request";
+            } else if (submission == null) {
+                status = BulkGradeResult.Status.NOT_FOUND;
+                error = "Submission not found";
+            } else {
+                error = gradeError(submission, grade.score(), grade.feedback());
+            }
+            
+            if (error != null) {
+                results.add(new BulkGradeResult(id, status, error));
+                continue;
+            }
+            
+            gradebookChanges.add(toGrade(submission, grade.score()));
+            submission.setScore(grade.score());
+            submission.setFeedback(grade.feedback());
+            submission.setStatus(SubmissionStatus.GRADED);
+            submission.setGradedAt(now);
+            results.add(new BulkGradeResult(id, BulkGradeResult.Status.GRADED, null));
+            graded++;
+        }
+        
+        // Dirty submissions are written as one batched UPDATE statement group
+        submissionRepository.flush();
+        gradebookService.assignmentsGraded(gradebookChanges);
+        return new BulkGradeResponse(graded, grades.size() - graded, results);
+    }
+
+    public CursorPage<SubmissionView> getSubmissionsByStudent(Long studentId, String cursor, Integer size) {
         log.debug("Fetching submissions for student id: {}", studentId);
-        return submissionRepository.findByStudentId(studentId);
+        PageCursor page = PageCursor.of(cursor, size);
+        return page.toPage(submissionRepository.findPageByStudentIdAfter(studentId, page.afterId(), page.limit()),
+                SubmissionView::id);
     }
 
-    public List<Submission> getSubmissionsByAssignment(Long assignmentId) {
+    public CursorPage<SubmissionView> getSubmissionsByAssignment(Long assignmentId, String cursor, Integer size) {
         log.debug("Fetching submissions for assignment id: {}", assignmentId);
-        return submissionRepository.findByAssignmentId(assignmentId);
+        PageCursor page = PageCursor.of(cursor, size);
+        return page.toPage(submissionRepository.findPageByAssignmentIdAfter(assignmentId, page.afterId(), page.limit()),
+                SubmissionView::id);
+    }
+
+    // Shared by single and bulk grading; null when the grade can be applied
+    private static String gradeError(Submission submission, Integer score, String feedback) {
+        if (score == null || score < 0) {
+            return "Score is required and cannot be negative";
+        }
+        if (score > submission.getAssignment().getMaxScore()) {
+            return "Score cannot exceed maximum score";
+        }
+        if (feedback != null && feedback.length() > MAX_FEEDBACK_LENGTH) {
+            return "Feedback is too long";
+        }
+        return null;
+    }
+
+    // Taken from the locked row before it is updated: a regrade only changes the score in the gradebook
+    private static GradebookService.AssignmentGrade toGrade(Submission submission, int score) {
+        Integer previousScore = submission.getStatus() == SubmissionStatus.GRADED ? submission.getScore() : null;
+        return new GradebookService.AssignmentGrade(submission.getAssignment().getId(), submission.getStudent().getId(),
+                previousScore, score, submission.getAssignment().getMaxScore());
+    }
+
+    // By id: the lesson of a new assignment may be a bare reference without its module
+    private void evictCourseOutline(Long assignmentId) {
+        assignmentRepository.findCourseIdRowsByIds(List.of(assignmentId))
+                .forEach(row -> courseOutlineCache.evict(row.courseId()));
+    }
+
+    private Assignment findAssignment(Long id) {
+        return assignmentRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Assignment", id));
     }
 }
@@ -0,0 +1,260 @@
+package ru.polukhin.learningplatform.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.polukhin.learningplatform.dto.AutocompleteSuggestion;
+import ru.polukhin.learningplatform.dto.CourseSuggestionRow;
+import ru.polukhin.learningplatform.dto.UserCountRow;
+import ru.polukhin.learningplatform.dto.UserSuggestionRow;
+import ru.polukhin.learningplatform.exception.BusinessException;
+import ru.polukhin.learningplatform.repository.CourseRepository;
+import ru.polukhin.learningplatform.repository.EnrollmentRepository;
+import ru.polukhin.learningplatform.repository.UserRepository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Type-ahead over course titles and user names, ranked by popularity.
+ * <p>
+ * Each dictionary is an immutable {@link PrefixIndex} plus a small overlay of entries written since it was
+ * built. Committed course and user writes are reported by {@code SearchIndexEventListener}; {@link #refresh()}
+ * reloads those rows into the overlay, and {@link #rebuild()} periodically folds it into a new index with
+ * recomputed popularity. A course weighs its active enrollments; a user weighs their own enrollments plus
+ * the active enrollments of the courses they teach.
+ */
+@Service
+@Slf4j
+public class AutocompleteService {
+
+    public static final int DEFAULT_LIMIT = 10;
+    public static final int MAX_LIMIT = 50;
+
+    private static final int REBUILD_BATCH_SIZE = 1000;
+    private static final int MAX_OVERLAY_SIZE = 10_000;
+
+    private final CourseRepository courseRepository;
+    private final UserRepository userRepository;
+    private final EnrollmentRepository enrollmentRepository;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final PrimaryReadTemplate primaryReads;
+
+    private final Dictionary courses = new Dictionary();
+    private final Dictionary users = new Dictionary();
+    private final Set<Long> changedCourses = ConcurrentHashMap.newKeySet();
+    private final Set<Long> changedUsers = ConcurrentHashMap.newKeySet();
+
+    public AutocompleteService(CourseRepository courseRepository,
+                               UserRepository userRepository,
+                               EnrollmentRepository enrollmentRepository,
+                               PlatformTransactionManager transactionManager,
+                               PrimaryReadTemplate primaryReads) {
+        this.courseRepository = courseRepository;
+        this.userRepository = userRepository;
+        this.enrollmentRepository = enrollmentRepository;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.primaryReads = primaryReads;
+    }
+
+    public List<AutocompleteSuggestion> suggestCourses(String prefix, Integer limit) {
+        return courses.suggest(PrefixIndex.normalize(prefix), normalizeLimit(limit));
+    }
+
+    public List<AutocompleteSuggestion> suggestUsers(String prefix, Integer limit) {
+        return users.suggest(PrefixIndex.normalize(prefix), normalizeLimit(limit));
+    }
+
+    public void courseChanged(Long courseId) {
+        changedCourses.add(courseId);
+    }
+
+    public void userChanged(Long userId) {
+        changedUsers.add(userId);
+    }
+
+    // Changes reported while the rebuild runs stay queued and reach the overlay on the next refresh()
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.autocomplete.rebuild-interval:10m}",
+            initialDelayString = "${app.autocomplete.rebuild-interval:10m}")
+    public synchronized void rebuild() {
+        long startedAt = System.nanoTime();
+        Map<Long, PrefixIndex.Entry> courseOverlay = Map.copyOf(courses.overlay);
+        Set<Long> removedCourses = Set.copyOf(courses.removed);
+        Map<Long, PrefixIndex.Entry> userOverlay = Map.copyOf(users.overlay);
+        Set<Long> removedUsers = Set.copyOf(users.removed);
+
+        List<PrefixIndex.Entry> courseEntries = new ArrayList<>();
+        Map<Long, Long> weights = new HashMap<>();
+        long afterId = 0;
+        List<CourseSuggestionRow> courseRows;
+        do {
+            long after = afterId;
+            courseRows = readOnlyTransactionTemplate.execute(status ->
+                    courseRepository.findSuggestionRowsAfter(after, PageRequest.ofSize(REBUILD_BATCH_SIZE)));
+            for (CourseSuggestionRow row : courseRows) {
+                courseEntries.add(courseEntry(row));
+                weights.merge(row.instructorId(), row.activeEnrollments(), Long::sum);
+            }
+            afterId = courseRows.isEmpty() ? afterId : courseRows.get(courseRows.size() - 1).id();
+        } while (courseRows.size() == REBUILD_BATCH_SIZE);
+
+        readOnlyTransactionTemplate.executeWithoutResult(status -> {
+            for (UserCountRow row : enrollmentRepository.countEnrollmentsGroupedByStudent()) {
+                weights.merge(row.userId(), row.count(), Long::sum);
+            }
+        });
+        List<PrefixIndex.Entry> userEntries = new ArrayList<>();
+        afterId = 0;
+        List<UserSuggestionRow> userRows;
+        do {
+            long after = afterId;
+            userRows = readOnlyTransactionTemplate.execute(status ->
+                    userRepository.findSuggestionRowsAfter(after, PageRequest.ofSize(REBUILD_BATCH_SIZE)));
+            for (UserSuggestionRow row : userRows) {
+                userEntries.add(userEntry(row, weights.getOrDefault(row.id(), 0L)));
+            }
+            afterId = userRows.isEmpty() ? afterId : userRows.get(userRows.size() - 1).id();
+        } while (userRows.size() == REBUILD_BATCH_SIZE);
+
+        courses.replace(PrefixIndex.build(courseEntries), courseOverlay, removedCourses);
+        users.replace(PrefixIndex.build(userEntries), userOverlay, removedUsers);
+        log.info("Autocomplete rebuilt with {} courses and {} users in {} ms", courseEntries.size(), userEntries.size(),
+                (System.nanoTime() - startedAt) / 1_000_000);
+    }
+
+    @Scheduled(fixedDelayString = "${app.autocomplete.refresh-interval:1s}",
+            initialDelayString = "${app.autocomplete.refresh-interval:1s}")
+    public synchronized void refresh() {
+        List<Long> courseIds = drain(changedCourses);
+        List<Long> userIds = drain(changedUsers);
+        if (courseIds.isEmpty() && userIds.isEmpty()) {
+            return;
+        }
+        try {
+            // From the primary: a row a lagging replica does not have yet would be removed, and its id is drained
+            for (List<Long> chunk : Batches.partition(courseIds, Batches.DEFAULT_SIZE)) {
+                List<CourseSuggestionRow> rows = primaryReads.execute(() -> readOnlyTransactionTemplate.execute(
+                        status -> courseRepository.findSuggestionRowsByIds(chunk)));
+                apply(courses, chunk, rows, CourseSuggestionRow::id, this::courseEntry);
+            }
+            for (List<Long> chunk : Batches.partition(userIds, Batches.DEFAULT_SIZE)) {
+                List<UserSuggestionRow> rows = primaryReads.execute(() -> readOnlyTransactionTemplate.execute(
+                        status -> userRepository.findSuggestionRowsByIds(chunk)));
+                // Popularity is kept until the next rebuild recomputes it
+                apply(users, chunk, rows, UserSuggestionRow::id, row -> userEntry(row, users.weightOf(row.id())));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to refresh autocomplete, will retry", e);
+            changedCourses.addAll(courseIds);
+            changedUsers.addAll(userIds);
+            return;
+        }
+        if (courses.overlay.size() + users.overlay.size() > MAX_OVERLAY_SIZE) {
+            rebuild();
+        }
+    }
+
+    private <R> void apply(Dictionary dictionary, List<Long> ids, List<R> rows, Function<R, Long> idOf,
+                           Function<R, PrefixIndex.Entry> entryOf) {
+        Set<Long> removed = new HashSet<>(ids);
+        for (R row : rows) {
+            dictionary.put(entryOf.apply(row));
+            removed.remove(idOf.apply(row));
+        }
+        removed.forEach(dictionary::remove);
+    }
+
+    private PrefixIndex.Entry courseEntry(CourseSuggestionRow row) {
+        return new PrefixIndex.Entry(row.id(), row.title(), null, PrefixIndex.normalize(row.title()),
+                row.activeEnrollments() != null ? row.activeEnrollments() : 0L);
+    }
+
+    private PrefixIndex.Entry userEntry(UserSuggestionRow row, long weight) {
+        String name = row.firstName() + " " + row.lastName();
+        return new PrefixIndex.Entry(row.id(), name, row.username(),
+                PrefixIndex.normalize(row.username() + " " + name), weight);
+    }
+
+    private static int normalizeLimit(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_LIMIT;
+        }
+        if (limit < 1) {
+            throw new BusinessException("Limit must be positive");
+        }
+        return Math.min(limit, MAX_LIMIT);
+    }
+
+    private static List<Long> drain(Set<Long> changed) {
+        List<Long> ids = new ArrayList<>(changed);
+        ids.forEach(changed::remove);
+        return ids;
+    }
+
+    private static final class Dictionary {
+
+        private static final Comparator<AutocompleteSuggestion> MOST_POPULAR_FIRST =
+                Comparator.comparingLong(AutocompleteSuggestion::popularity).reversed()
+                        .thenComparing(AutocompleteSuggestion::id);
+
+        private volatile PrefixIndex index = PrefixIndex.empty();
+        private final Map<Long, PrefixIndex.Entry> overlay = new ConcurrentHashMap<>();
+        private final Set<Long> removed = ConcurrentHashMap.newKeySet();
+
+        List<AutocompleteSuggestion> suggest(String prefix, int limit) {
+            if (prefix.isEmpty()) {
+                return List.of();
+            }
+            List<AutocompleteSuggestion> suggestions = new ArrayList<>(
+                    index.top(prefix, limit, id -> overlay.containsKey(id) || removed.contains(id)));
+            boolean merged = false;
+            for (PrefixIndex.Entry entry : overlay.values()) {
+                if (PrefixIndex.matches(entry.text(), prefix)) {
+                    suggestions.add(entry.toSuggestion());
+                    merged = true;
+                }
+            }
+            if (!merged) {
+                return suggestions;
+            }
+            suggestions.sort(MOST_POPULAR_FIRST);
+            return List.copyOf(suggestions.subList(0, Math.min(limit, suggestions.size())));
+        }
+
+        long weightOf(Long id) {
+            PrefixIndex.Entry entry = overlay.get(id);
+            return entry != null ? entry.weight() : index.weightOf(id);
+        }
+
+        void put(PrefixIndex.Entry entry) {
+            overlay.put(entry.id(), entry);
+            removed.remove(entry.id());
+        }
+
+        void remove(Long id) {
+            removed.add(id);
+            overlay.remove(id);
+        }
+
+        // The new index already contains what the folded overlay held when the rebuild started
+        void replace(PrefixIndex rebuilt, Map<Long, PrefixIndex.Entry> folded, Set<Long> foldedRemovals) {
+            index = rebuilt;
+            folded.forEach(overlay::remove);
+            foldedRemovals.forEach(removed::remove);
+        }
+    }
+}
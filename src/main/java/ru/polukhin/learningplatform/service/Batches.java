@@ -0,0 +1,20 @@
+package ru.polukhin.learningplatform.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+final class Batches {
+
+    static final int DEFAULT_SIZE = 500;
+
+    private Batches() {
+    }
+
+    static <T> List<List<T>> partition(List<T> items, int size) {
+        List<List<T>> batches = new ArrayList<>();
+        for (int from = 0; from < items.size(); from += size) {
+            batches.add(items.subList(from, Math.min(from + size, items.size())));
+        }
+        return batches;
+    }
+}
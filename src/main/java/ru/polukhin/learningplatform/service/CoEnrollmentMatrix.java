@@ -0,0 +1,217 @@
+package ru.polukhin.learningplatform.service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Sparse course-by-course matrix: for every pair of courses, the number of students enrolled in both.
+ * <p>
+ * Each course row is a {@link LongIntHashMap} of neighbour counts together with its top
+ * {@link #TOP_SIZE} neighbours, computed at build time and again on the first read after the row changes.
+ * Rows are guarded by their own monitor, so enrollments into different courses update it concurrently.
+ */
+final class CoEnrollmentMatrix {
+
+    static final int TOP_SIZE = 50;
+
+    private static final int BASKETS_PER_TASK = 1024;
+
+    private final Map<Long, Row> rows = new ConcurrentHashMap<>();
+
+    // baskets: the course ids of one student each, without duplicates
+    static CoEnrollmentMatrix build(List<long[]> baskets) {
+        Map<Long, LongIntHashMap> counts = ForkJoinPool.commonPool().invoke(new CountTask(baskets, 0, baskets.size()));
+        CoEnrollmentMatrix matrix = new CoEnrollmentMatrix();
+        counts.forEach((courseId, neighbours) -> matrix.rows.put(courseId, new Row(neighbours)));
+        matrix.rows.values().parallelStream().forEach(Row::top);
+        return matrix;
+    }
+
+    int size() {
+        return rows.size();
+    }
+
+    // delta is +1 when the student enrolls into courseId and -1 when they drop it
+    void update(long courseId, long[] otherCourseIds, int delta) {
+        for (long otherId : otherCourseIds) {
+            if (otherId != courseId) {
+                row(courseId).add(otherId, delta);
+                row(otherId).add(courseId, delta);
+            }
+        }
+    }
+
+    Neighbours neighbours(long courseId) {
+        Row row = rows.get(courseId);
+        return row != null ? row.top() : Neighbours.EMPTY;
+    }
+
+    private Row row(long courseId) {
+        return rows.computeIfAbsent(courseId, id -> new Row(new LongIntHashMap()));
+    }
+
+    // Heaviest first, ties by lower course id
+    record Neighbours(long[] courseIds, int[] counts) {
+
+        static final Neighbours EMPTY = new Neighbours(new long[0], new int[0]);
+
+        int size() {
+            return courseIds.length;
+        }
+
+        static Neighbours of(LongIntHashMap counts) {
+            long[] heapIds = new long[TOP_SIZE];
+            int[] heapCounts = new int[TOP_SIZE];
+            int[] heapSize = new int[1];
+            counts.forEach((courseId, count) -> {
+                if (count <= 0) {
+                    return;
+                }
+                if (heapSize[0] < TOP_SIZE) {
+                    heapIds[heapSize[0]] = courseId;
+                    heapCounts[heapSize[0]] = count;
+                    siftUp(heapIds, heapCounts, heapSize[0]++);
+                } else if (lighter(heapIds[0], heapCounts[0], courseId, count)) {
+                    heapIds[0] = courseId;
+                    heapCounts[0] = count;
+                    siftDown(heapIds, heapCounts, heapSize[0]);
+                }
+            });
+
+            // Popping the min-heap yields the lightest first, so fill the result from the end
+            int size = heapSize[0];
+            long[] courseIds = new long[size];
+            int[] result = new int[size];
+            for (int i = size - 1; i >= 0; i--) {
+                courseIds[i] = heapIds[0];
+                result[i] = heapCounts[0];
+                heapIds[0] = heapIds[i];
+                heapCounts[0] = heapCounts[i];
+                siftDown(heapIds, heapCounts, i);
+            }
+            return new Neighbours(courseIds, result);
+        }
+
+        private static boolean lighter(long idA, int countA, long idB, int countB) {
+            return countA != countB ? countA < countB : idA > idB;
+        }
+
+        private static void siftUp(long[] ids, int[] counts, int index) {
+            while (index > 0) {
+                int parent = (index - 1) / 2;
+                if (!lighter(ids[index], counts[index], ids[parent], counts[parent])) {
+                    return;
+                }
+                swap(ids, counts, index, parent);
+                index = parent;
+            }
+        }
+
+        private static void siftDown(long[] ids, int[] counts, int size) {
+            int index = 0;
+            while (true) {
+                int lightest = index;
+                for (int child = 2 * index + 1; child <= 2 * index + 2 && child < size; child++) {
+                    if (lighter(ids[child], counts[child], ids[lightest], counts[lightest])) {
+                        lightest = child;
+                    }
+                }
+                if (lightest == index) {
+                    return;
+                }
+                swap(ids, counts, index, lightest);
+                index = lightest;
+            }
+        }
+
+        private static void swap(long[] ids, int[] counts, int a, int b) {
+            long id = ids[a];
+            ids[a] = ids[b];
+            ids[b] = id;
+            int count = counts[a];
+            counts[a] = counts[b];
+            counts[b] = count;
+        }
+    }
+
+    private static final class Row {
+
+        private final LongIntHashMap counts;
+        private volatile Neighbours top;
+
+        Row(LongIntHashMap counts) {
+            this.counts = counts;
+        }
+
+        synchronized void add(long courseId, int delta) {
+            counts.addTo(courseId, delta);
+            top = null;
+        }
+
+        Neighbours top() {
+            Neighbours current = top;
+            if (current != null) {
+                return current;
+            }
+            synchronized (this) {
+                if (top == null) {
+                    top = Neighbours.of(counts);
+                }
+                return top;
+            }
+        }
+    }
+
+    // Splits the baskets in halves; each leaf counts its pairs into its own rows, which are then merged
+    private static final class CountTask extends RecursiveTask<Map<Long, LongIntHashMap>> {
+
+        private final List<long[]> baskets;
+        private final int from;
+        private final int to;
+
+        CountTask(List<long[]> baskets, int from, int to) {
+            this.baskets = baskets;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Map<Long, LongIntHashMap> compute() {
+            if (to - from <= BASKETS_PER_TASK) {
+                Map<Long, LongIntHashMap> counts = new HashMap<>();
+                for (long[] basket : baskets.subList(from, to)) {
+                    for (long courseId : basket) {
+                        LongIntHashMap row = counts.computeIfAbsent(courseId, id -> new LongIntHashMap());
+                        for (long otherId : basket) {
+                            if (otherId != courseId) {
+                                row.addTo(otherId, 1);
+                            }
+                        }
+                    }
+                }
+                return counts;
+            }
+            int middle = (from + to) >>> 1;
+            CountTask left = new CountTask(baskets, from, middle);
+            left.fork();
+            Map<Long, LongIntHashMap> right = new CountTask(baskets, middle, to).compute();
+            Map<Long, LongIntHashMap> merged = left.join();
+            if (merged.size() < right.size()) {
+                Map<Long, LongIntHashMap> smaller = merged;
+                merged = right;
+                right = smaller;
+            }
+            for (Map.Entry<Long, LongIntHashMap> entry : right.entrySet()) {
+                LongIntHashMap existing = merged.putIfAbsent(entry.getKey(), entry.getValue());
+                if (existing != null) {
+                    existing.addAll(entry.getValue());
+                }
+            }
+            return merged;
+        }
+    }
+}
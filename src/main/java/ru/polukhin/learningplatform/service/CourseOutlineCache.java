@@ -0,0 +1,135 @@
+package ru.polukhin.learningplatform.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.polukhin.learningplatform.dto.AssignmentView;
+import ru.polukhin.learningplatform.dto.LessonView;
+import ru.polukhin.learningplatform.dto.ModuleOutlineView;
+import ru.polukhin.learningplatform.dto.QuizView;
+import ru.polukhin.learningplatform.repository.AssignmentRepository;
+import ru.polukhin.learningplatform.repository.LessonRepository;
+import ru.polukhin.learningplatform.repository.ModuleRepository;
+import ru.polukhin.learningplatform.repository.QuizRepository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Immutable module → lesson → assignment outline of a course, with each module's quiz.
+ * <p>
+ * Built from one query per level (quizzes and assignments by {@code IN} over the ids of the level above),
+ * so the number of statements does not depend on the size of the course. Services that write modules,
+ * quizzes or assignments call {@link #evict(Long)}; lessons have no write API. Loaded from the primary
+ * ({@link PrimaryReadTemplate}), so a lagging replica never fills the cache with an old outline.
+ * <p>
+ * Bounded like the {@code courses} region of the second-level cache: at most
+ * {@code app.course-outline-cache.maximum-size} outlines, each dropped
+ * {@code app.course-outline-cache.expire-after-write} after loading. Eviction is local to the instance,
+ * so the expiry also bounds how long another instance serves an outline changed elsewhere.
+ */
+@Component
+@Slf4j
+public class CourseOutlineCache {
+
+    private final ModuleRepository moduleRepository;
+    private final LessonRepository lessonRepository;
+    private final QuizRepository quizRepository;
+    private final AssignmentRepository assignmentRepository;
+    private final RenderedJsonCache renderedJsonCache;
+    private final PrimaryReadTemplate primaryReads;
+
+    private final Cache<Long, List<ModuleOutlineView>> outlines;
+    private final AtomicLong generation = new AtomicLong();
+
+    public CourseOutlineCache(ModuleRepository moduleRepository,
+                              LessonRepository lessonRepository,
+                              QuizRepository quizRepository,
+                              AssignmentRepository assignmentRepository,
+                              RenderedJsonCache renderedJsonCache,
+                              PrimaryReadTemplate primaryReads,
+                              @Value("${app.course-outline-cache.maximum-size:5000}") long maximumSize,
+                              @Value("${app.course-outline-cache.expire-after-write:10m}") Duration expireAfterWrite) {
+        this.moduleRepository = moduleRepository;
+        this.lessonRepository = lessonRepository;
+        this.quizRepository = quizRepository;
+        this.assignmentRepository = assignmentRepository;
+        this.renderedJsonCache = renderedJsonCache;
+        this.primaryReads = primaryReads;
+        this.outlines = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .build();
+    }
+
+    public List<ModuleOutlineView> get(Long courseId) {
+        List<ModuleOutlineView> outline = outlines.getIfPresent(courseId);
+        if (outline != null) {
+            return outline;
+        }
+
+        long startedAt = generation.get();
+        outline = primaryReads.execute(() -> load(courseId));
+        // Do not cache an outline that may have been loaded from data invalidated meanwhile
+        if (generation.get() == startedAt) {
+            List<ModuleOutlineView> existing = outlines.asMap().putIfAbsent(courseId, outline);
+            if (existing != null) {
+                return existing;
+            }
+        }
+        return outline;
+    }
+
+    // Also drops the rendered GET /api/courses/{id}/full body built from the outline
+    public void evict(Long courseId) {
+        renderedJsonCache.evict(RenderedJsonCache.Resource.COURSE_OUTLINE, courseId);
+        generation.incrementAndGet();
+        outlines.invalidate(courseId);
+        // Evict once more after commit: a concurrent reader could have reloaded the outline from old data
+        AfterCommit.run(() -> {
+            generation.incrementAndGet();
+            outlines.invalidate(courseId);
+        });
+    }
+
+    private List<ModuleOutlineView> load(Long courseId) {
+        log.debug("Loading outline of course id: {}", courseId);
+        List<ModuleOutlineView> modules = moduleRepository.findOutlineByCourseId(courseId);
+        if (modules.isEmpty()) {
+            return List.of();
+        }
+        List<LessonView> lessons = lessonRepository.findViewsByCourseId(courseId);
+
+        Map<Long, QuizView> quizByModule = new HashMap<>();
+        for (List<Long> chunk : Batches.partition(modules.stream().map(ModuleOutlineView::id).toList(),
+                Batches.DEFAULT_SIZE)) {
+            quizRepository.findViewsByModuleIds(chunk).forEach(quiz -> quizByModule.put(quiz.moduleId(), quiz));
+        }
+        Map<Long, List<AssignmentView>> assignmentsByLesson = new HashMap<>();
+        for (List<Long> chunk : Batches.partition(lessons.stream().map(LessonView::id).toList(),
+                Batches.DEFAULT_SIZE)) {
+            for (AssignmentView assignment : assignmentRepository.findViewsByLessonIds(chunk)) {
+                assignmentsByLesson.computeIfAbsent(assignment.lessonId(), lessonId -> new ArrayList<>())
+                        .add(assignment);
+            }
+        }
+
+        Map<Long, List<LessonView>> lessonsByModule = new HashMap<>();
+        for (LessonView lesson : lessons) {
+            lessonsByModule.computeIfAbsent(lesson.moduleId(), moduleId -> new ArrayList<>())
+                    .add(lesson.withAssignments(assignmentsByLesson.getOrDefault(lesson.id(), List.of())));
+        }
+        List<ModuleOutlineView> outline = new ArrayList<>(modules.size());
+        for (ModuleOutlineView module : modules) {
+            outline.add(module.withLessons(lessonsByModule.getOrDefault(module.id(), List.of()))
+                    .withQuiz(quizByModule.get(module.id())));
+        }
+        return List.copyOf(outline);
+    }
+}
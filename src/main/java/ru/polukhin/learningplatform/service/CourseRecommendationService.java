@@ -0,0 +1,197 @@
+package ru.polukhin.learningplatform.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.polukhin.learningplatform.dto.CourseTitleRow;
+import ru.polukhin.learningplatform.dto.RelatedCourseView;
+import ru.polukhin.learningplatform.dto.StudentCourseRow;
+import ru.polukhin.learningplatform.exception.BusinessException;
+import ru.polukhin.learningplatform.exception.ResourceNotFoundException;
+import ru.polukhin.learningplatform.repository.CourseRepository;
+import ru.polukhin.learningplatform.repository.EnrollmentRepository;
+import ru.polukhin.learningplatform.repository.UserRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * "Students also enrolled in" recommendations from a {@link CoEnrollmentMatrix} kept in memory.
+ * <p>
+ * {@link EnrollmentService} reports every enrollment and drop; the matrix is updated after the transaction
+ * commits, using the student's other current courses read inside it. Dropped enrollments do not count.
+ * {@link #rebuild()} recomputes the matrix from the enrollments table at startup and nightly to correct drift.
+ */
+@Service
+@Slf4j
+public class CourseRecommendationService {
+
+    public static final int DEFAULT_LIMIT = 10;
+
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    private final EnrollmentRepository enrollmentRepository;
+    private final CourseRepository courseRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+
+    private volatile CoEnrollmentMatrix matrix = new CoEnrollmentMatrix();
+
+    public CourseRecommendationService(EnrollmentRepository enrollmentRepository,
+                                       CourseRepository courseRepository,
+                                       UserRepository userRepository,
+                                       PlatformTransactionManager transactionManager) {
+        this.enrollmentRepository = enrollmentRepository;
+        this.courseRepository = courseRepository;
+        this.userRepository = userRepository;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+    }
+
+    public List<RelatedCourseView> getRelatedCourses(Long courseId, Integer limit) {
+        int maxResults = normalizeLimit(limit);
+        return readOnlyTransactionTemplate.execute(status -> {
+            if (!courseRepository.existsById(courseId)) {
+                throw new ResourceNotFoundException("Course", courseId);
+            }
+            CoEnrollmentMatrix.Neighbours neighbours = matrix.neighbours(courseId);
+            Map<Long, Long> scores = new LinkedHashMap<>();
+            for (int i = 0; i < neighbours.size(); i++) {
+                scores.put(neighbours.courseIds()[i], (long) neighbours.counts()[i]);
+            }
+            return withTitles(scores, maxResults);
+        });
+    }
+
+    // Sums the neighbour lists of the user's current courses, leaving out every course they ever enrolled in
+    public List<RelatedCourseView> getRecommendations(Long userId, Integer limit) {
+        int maxResults = normalizeLimit(limit);
+        return readOnlyTransactionTemplate.execute(status -> {
+            if (!userRepository.existsById(userId)) {
+                throw new ResourceNotFoundException("User", userId);
+            }
+            Set<Long> taken = new HashSet<>(enrollmentRepository.findCourseIdsByStudentId(userId));
+            Map<Long, Long> scores = new HashMap<>();
+            for (Long courseId : enrollmentRepository.findCurrentCourseIdsByStudentId(userId)) {
+                CoEnrollmentMatrix.Neighbours neighbours = matrix.neighbours(courseId);
+                for (int i = 0; i < neighbours.size(); i++) {
+                    long candidate = neighbours.courseIds()[i];
+                    if (!taken.contains(candidate)) {
+                        scores.merge(candidate, (long) neighbours.counts()[i], Long::sum);
+                    }
+                }
+            }
+            Map<Long, Long> ranked = scores.entrySet().stream()
+                    .sorted(Map.Entry.<Long, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                    .limit(CoEnrollmentMatrix.TOP_SIZE)
+                    .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a, LinkedHashMap::new));
+            return withTitles(ranked, maxResults);
+        });
+    }
+
+    public void enrolled(Long studentId, Long courseId) {
+        long[] otherCourseIds = toArray(enrollmentRepository.findCurrentCourseIdsByStudentId(studentId));
+        AfterCommit.run(() -> matrix.update(courseId, otherCourseIds, 1));
+    }
+
+    public void enrolled(Collection<Long> studentIds, Long courseId) {
+        List<long[]> otherCourseIds = new ArrayList<>(studentIds.size());
+        for (List<Long> chunk : Batches.partition(List.copyOf(studentIds), Batches.DEFAULT_SIZE)) {
+            enrollmentRepository.findCurrentCoursesByStudentIds(chunk).stream()
+                    .collect(Collectors.groupingBy(StudentCourseRow::studentId,
+                            Collectors.mapping(StudentCourseRow::courseId, Collectors.toList())))
+                    .values()
+                    .forEach(courseIds -> otherCourseIds.add(toArray(courseIds)));
+        }
+        AfterCommit.run(() -> otherCourseIds.forEach(courseIds -> matrix.update(courseId, courseIds, 1)));
+    }
+
+    // Call before the enrollment is marked as dropped
+    public void dropped(Long studentId, Long courseId) {
+        long[] otherCourseIds = toArray(enrollmentRepository.findCurrentCourseIdsByStudentId(studentId));
+        AfterCommit.run(() -> matrix.update(courseId, otherCourseIds, -1));
+    }
+
+    // Updates committed while the enrollments are read go to the old matrix and may be missed
+    // until the next rebuild
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${app.recommendations.rebuild-cron:0 0 4 * * *}")
+    public synchronized void rebuild() {
+        long startedAt = System.nanoTime();
+        // Rows come ordered by student, so each student's courses are consecutive; a single course pairs with nothing
+        List<long[]> baskets = new ArrayList<>();
+        List<Long> basket = new ArrayList<>();
+        Long studentId = null;
+        long afterStudentId = 0;
+        long afterCourseId = 0;
+        List<StudentCourseRow> rows;
+        do {
+            long afterStudent = afterStudentId;
+            long afterCourse = afterCourseId;
+            rows = readOnlyTransactionTemplate.execute(status -> enrollmentRepository.findCurrentCoursesAfter(
+                    afterStudent, afterCourse, PageRequest.ofSize(REBUILD_BATCH_SIZE)));
+            for (StudentCourseRow row : rows) {
+                if (!row.studentId().equals(studentId)) {
+                    if (basket.size() > 1) {
+                        baskets.add(toArray(basket));
+                    }
+                    basket.clear();
+                    studentId = row.studentId();
+                }
+                basket.add(row.courseId());
+            }
+            if (!rows.isEmpty()) {
+                afterStudentId = rows.get(rows.size() - 1).studentId();
+                afterCourseId = rows.get(rows.size() - 1).courseId();
+            }
+        } while (rows.size() == REBUILD_BATCH_SIZE);
+        if (basket.size() > 1) {
+            baskets.add(toArray(basket));
+        }
+
+        CoEnrollmentMatrix fresh = CoEnrollmentMatrix.build(baskets);
+        matrix = fresh;
+        log.info("Co-enrollment matrix built for {} courses from {} students in {} ms", fresh.size(), baskets.size(),
+                (System.nanoTime() - startedAt) / 1_000_000);
+    }
+
+    private List<RelatedCourseView> withTitles(Map<Long, Long> scores, int limit) {
+        if (scores.isEmpty()) {
+            return List.of();
+        }
+        // Unpublished and deleted courses drop out here
+        Map<Long, String> titles = courseRepository.findPublishedTitleRowsByIds(scores.keySet()).stream()
+                .collect(Collectors.toMap(CourseTitleRow::id, CourseTitleRow::title));
+        return scores.entrySet().stream()
+                .filter(entry -> titles.containsKey(entry.getKey()))
+                .limit(limit)
+                .map(entry -> new RelatedCourseView(entry.getKey(), titles.get(entry.getKey()), entry.getValue()))
+                .toList();
+    }
+
+    private static int normalizeLimit(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_LIMIT;
+        }
+        if (limit < 1) {
+            throw new BusinessException("Limit must be positive");
+        }
+        return Math.min(limit, CoEnrollmentMatrix.TOP_SIZE);
+    }
+
+    private static long[] toArray(List<Long> ids) {
+        return ids.stream().mapToLong(Long::longValue).toArray();
+    }
+}
@@ -0,0 +1,103 @@
+package ru.polukhin.learningplatform.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.polukhin.learningplatform.dto.CourseReviewRequest;
+import ru.polukhin.learningplatform.dto.CourseReviewView;
+import ru.polukhin.learningplatform.dto.CursorPage;
+import ru.polukhin.learningplatform.entity.Course;
+import ru.polukhin.learningplatform.entity.CourseReview;
+import ru.polukhin.learningplatform.entity.RoleType;
+import ru.polukhin.learningplatform.entity.User;
+import ru.polukhin.learningplatform.exception.BusinessException;
+import ru.polukhin.learningplatform.exception.DuplicateResourceException;
+import ru.polukhin.learningplatform.exception.ResourceNotFoundException;
+import ru.polukhin.learningplatform.repository.CourseRepository;
+import ru.polukhin.learningplatform.repository.CourseReviewRepository;
+import ru.polukhin.learningplatform.repository.UserRepository;
+
+import java.time.LocalDateTime;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(readOnly = true)
+public class CourseReviewService {
+
+    private final CourseReviewRepository courseReviewRepository;
+    private final UserRepository userRepository;
+    private final CourseRepository courseRepository;
+    private final CourseStatisticsService courseStatisticsService;
+
+    public CursorPage<CourseReviewView> getReviewsByCourse(Long courseId, String cursor, Integer size) {
+        log.debug("Fetching reviews for course id: {}", courseId);
+        PageCursor page = PageCursor.of(cursor, size);
+        return page.toPage(courseReviewRepository.findPageByCourseIdAfter(courseId, page.afterId(), page.limit()),
+                CourseReviewView::id);
+    }
+
+    @Transactional
+    public CourseReviewView addReview(Long studentId, Long courseId, CourseReviewRequest request) {
+        log.info("Adding review by student {} to course {}", studentId, courseId);
+        
+        User student = userRepository.findById(studentId)
+                .orElseThrow(() -> new ResourceNotFoundException("User", studentId));
+        
+        if (student.getRole() != RoleType.STUDENT) {
+            throw new BusinessException("User is not a student");
+        }
+        
+        Course course = courseRepository.findById(courseId)
+                .orElseThrow(() -> new ResourceNotFoundException("Course", courseId));
+        
+        if (courseReviewRepository.existsByStudentIdAndCourseId(studentId, courseId)) {
+            throw new DuplicateResourceException("Student has already reviewed this course");
+        }
+        
+        CourseReview saved = courseReviewRepository.save(CourseReview.builder()
+                .student(student)
+                .course(course)
+                .rating(request.rating())
+                .comment(request.comment())
+                .reviewedAt(LocalDateTime.now())
+                .build());
+        courseStatisticsService.reviewAdded(courseId, saved.getRating());
+        return toView(saved);
+    }
+
+    @Transactional
+    public CourseReviewView updateReview(Long id, CourseReviewRequest request) {
+        log.info("Updating review with id: {}", id);
+        
+        CourseReview review = findReview(id);
+        int oldRating = review.getRating();
+        review.setRating(request.rating());
+        review.setComment(request.comment());
+        review.setReviewedAt(LocalDateTime.now());
+        
+        CourseReview saved = courseReviewRepository.save(review);
+        courseStatisticsService.reviewChanged(saved.getCourse().getId(), oldRating, saved.getRating());
+        return toView(saved);
+    }
+
+    @Transactional
+    public void deleteReview(Long id) {
+        log.info("Deleting review with id: {}", id);
+        
+        CourseReview review = findReview(id);
+        courseReviewRepository.delete(review);
+        courseStatisticsService.reviewRemoved(review.getCourse().getId(), review.getRating());
+    }
+
+    private CourseReview findReview(Long id) {
+        return courseReviewRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Review", id));
+    }
+
+    private static CourseReviewView toView(CourseReview review) {
+        return new CourseReviewView(review.getId(), review.getStudent().getId(), review.getCourse().getId(),
+                review.getRating(), review.getComment(), review.getReviewedAt());
+    }
+}
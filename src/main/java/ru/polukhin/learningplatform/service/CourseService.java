@@ -4,6 +4,9 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.polukhin.learningplatform.dto.CourseOutlineView;
+import ru.polukhin.learningplatform.dto.CourseView;
+import ru.polukhin.learningplatform.dto.CursorPage;
 import ru.polukhin.learningplatform.entity.Category;
 import ru.polukhin.learningplatform.entity.Course;
 import ru.polukhin.learningplatform.entity.Module;
@@ -13,9 +16,9 @@ import ru.polukhin.learningplatform.exception.BusinessException;
 import ru.polukhin.learningplatform.exception.ResourceNotFoundException;
 import ru.polukhin.learningplatform.repository.CategoryRepository;
 import ru.polukhin.learningplatform.repository.CourseRepository;
+import ru.polukhin.learningplatform.repository.ModuleRepository;
 import ru.polukhin.learningplatform.repository.UserRepository;
 
-import java.util.List;
 
 @Service
 @RequiredArgsConstructor
@@ -26,62 +29,64 @@ public class CourseService {
     private final CourseRepository courseRepository;
     private final UserRepository userRepository;
     private final CategoryRepository categoryRepository;
-
-    public List<Course> getAllCourses() {
-        log.debug("Fetching all courses");
-        return courseRepository.findAll();
+    private final ModuleRepository moduleRepository;
+    private final CourseStatisticsService courseStatisticsService;
+    private final GradebookService gradebookService;
+    private final CourseOutlineCache courseOutlineCache;
+    private final RenderedJsonCache renderedJsonCache;
+
+    public CursorPage<CourseView> getAllCourses(String cursor, Integer size) {
+        log.debug("Fetching courses page after cursor: {}", cursor);
+        PageCursor page = PageCursor.of(cursor, size);
+        return page.toPage(courseRepository.findPageAfter(page.afterId(), page.limit()), CourseView::id);
     }
 
-    public Course getCourseById(Long id) {
+    public CourseView getCourseById(Long id) {
         log.debug("Fetching course by id: {}", id);
-        return courseRepository.findById(id)
+        return courseRepository.findViewById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Course", id));
     }
 
-    @Transactional
-    public Course getCourseWithModules(Long id) {
+    public CourseOutlineView getCourseWithModules(Long id) {
         log.debug("Fetching course with modules by id: {}", id);
-        Course course = courseRepository.findByIdWithModules(id);
-        if (course == null) {
-            throw new ResourceNotFoundException("Course", id);
-        }
-        // Initialize lazy collections
-        course.getModules().size();
-        return course;
+        CourseView course = getCourseById(id);
+        return new CourseOutlineView(course, moduleRepository.findOutlineByCourseId(id));
     }
 
-    @Transactional
-    public Course getCourseWithFullStructure(Long id) {
+    public CourseOutlineView getCourseWithFullStructure(Long id) {
         log.debug("Fetching course with full structure by id: {}", id);
-        Course course = courseRepository.findByIdWithFullStructure(id);
-        if (course == null) {
-            throw new ResourceNotFoundException("Course", id);
-        }
-        return course;
+        CourseView course = getCourseById(id);
+        return new CourseOutlineView(course, courseOutlineCache.get(id));
     }
 
-    public List<Course> getPublishedCourses() {
-        log.debug("Fetching all published courses");
-        return courseRepository.findByPublishedTrue();
+    public CursorPage<CourseView> getPublishedCourses(String cursor, Integer size) {
+        log.debug("Fetching published courses page after cursor: {}", cursor);
+        PageCursor page = PageCursor.of(cursor, size);
+        return page.toPage(courseRepository.findPublishedPageAfter(page.afterId(), page.limit()), CourseView::id);
     }
 
-    public List<Course> getCoursesByCategory(Long categoryId) {
+    public CursorPage<CourseView> getCoursesByCategory(Long categoryId, String cursor, Integer size) {
         log.debug("Fetching courses by category id: {}", categoryId);
-        Category category = categoryRepository.findById(categoryId)
-                .orElseThrow(() -> new ResourceNotFoundException("Category", categoryId));
-        return courseRepository.findByCategory(category);
+        if (!categoryRepository.existsById(categoryId)) {
+            throw new ResourceNotFoundException("Category", categoryId);
+        }
+        PageCursor page = PageCursor.of(cursor, size);
+        return page.toPage(courseRepository.findPageByCategoryIdAfter(categoryId, page.afterId(), page.limit()),
+                CourseView::id);
     }
 
-    public List<Course> getCoursesByInstructor(Long instructorId) {
+    public CursorPage<CourseView> getCoursesByInstructor(Long instructorId, String cursor, Integer size) {
         log.debug("Fetching courses by instructor id: {}", instructorId);
-        User instructor = userRepository.findById(instructorId)
+        RoleType role = userRepository.findRoleById(instructorId)
                 .orElseThrow(() -> new ResourceNotFoundException("User", instructorId));
         
-        if (instructor.getRole() != RoleType.INSTRUCTOR) {
+        if (role != RoleType.INSTRUCTOR) {
             throw new BusinessException("User is not an instructor");
         }
         
-        return courseRepository.findByInstructor(instructor);
+        PageCursor page = PageCursor.of(cursor, size);
+        return page.toPage(courseRepository.findPageByInstructorIdAfter(instructorId, page.afterId(), page.limit()),
+                CourseView::id);
     }
 
     @Transactional
@@ -102,20 +107,23 @@ public class CourseService {
         course.setCategory(category);
         course.setPublished(false);
         
-        return courseRepository.save(course);
+        Course saved = courseRepository.save(course);
+        courseStatisticsService.courseCreated(saved.getId());
+        return saved;
     }
 
     @Transactional
     public Course updateCourse(Long id, Course courseDetails) {
         log.info("Updating course with id: {}", id);
         
-        Course course = getCourseById(id);
+        Course course = findCourse(id);
         
         course.setTitle(courseDetails.getTitle());
         course.setDescription(courseDetails.getDescription());
         course.setImageUrl(courseDetails.getImageUrl());
         course.setDurationHours(courseDetails.getDurationHours());
         course.setDifficultyLevel(courseDetails.getDifficultyLevel());
+        renderedJsonCache.evict(RenderedJsonCache.Resource.COURSE_OUTLINE, id);
         
         return courseRepository.save(course);
     }
@@ -124,8 +132,9 @@ public class CourseService {
     public Course publishCourse(Long id) {
         log.info("Publishing course with id: {}", id);
         
-        Course course = getCourseById(id);
+        Course course = findCourse(id);
         course.setPublished(true);
+        renderedJsonCache.evict(RenderedJsonCache.Resource.COURSE_OUTLINE, id);
         
         return courseRepository.save(course);
     }
@@ -133,15 +142,20 @@ public class CourseService {
     @Transactional
     public void deleteCourse(Long id) {
         log.info("Deleting course with id: {}", id);
-        Course course = getCourseById(id);
+        Course course = findCourse(id);
         courseRepository.delete(course);
+        courseStatisticsService.courseDeleted(id);
+        gradebookService.courseDeleted(id);
+        courseOutlineCache.evict(id);
+        // The course's quizzes are deleted with it
+        renderedJsonCache.evictAll(RenderedJsonCache.Resource.QUIZ_WITH_QUESTIONS);
     }
 
     @Transactional
     public Module addModuleToCourse(Long courseId, Module module) {
         log.info("Adding module to course id: {}", courseId);
         
-        Course course = getCourseById(courseId);
+        Course course = findCourse(courseId);
         module.setCourse(course);
         
         if (module.getOrderIndex() == null) {
@@ -150,7 +164,13 @@ public class CourseService {
         
         course.getModules().add(module);
         courseRepository.save(course);
+        courseOutlineCache.evict(courseId);
         
         return module;
     }
+
+    private Course findCourse(Long id) {
+        return courseRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Course", id));
+    }
 }
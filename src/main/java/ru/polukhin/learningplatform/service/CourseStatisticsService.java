@@ -0,0 +1,325 @@
+package ru.polukhin.learningplatform.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.polukhin.learningplatform.dto.CourseStatisticsView;
+import ru.polukhin.learningplatform.entity.CourseStatistics;
+import ru.polukhin.learningplatform.exception.ResourceNotFoundException;
+import ru.polukhin.learningplatform.repository.CourseRepository;
+import ru.polukhin.learningplatform.repository.CourseReviewRepository;
+import ru.polukhin.learningplatform.repository.CourseStatisticsRepository;
+import ru.polukhin.learningplatform.repository.EnrollmentRepository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Per-course enrollment and rating figures without aggregate scans.
+ * <p>
+ * Writers add deltas to striped in-memory counters (no row lock on the hot course) once their transaction
+ * has committed. {@link #flush()} periodically adds the accumulated deltas to the {@code course_statistics}
+ * row with a single relative UPDATE, so several application instances can flush independently. Reads return
+ * the stored row plus this instance's pending deltas.
+ * <p>
+ * {@link #repair()} recomputes every row from the source tables to correct drift. It locks the rows and
+ * holds the commit barrier while it recounts: every transaction that recorded a delta has then either
+ * committed with its delta pending (counted by the recount, so discarded) or waits to commit until the
+ * recount is done (not counted, so kept). Deltas still pending on other instances are not visible here
+ * and are counted twice until the next repair; they amount to at most one flush interval.
+ */
+@Service
+@Slf4j
+public class CourseStatisticsService {
+
+    private static final String INSERT_MISSING_SQL =
+            "INSERT INTO course_statistics (course_id, active_enrollments, review_count, rating_sum, updated_at) " +
+            "SELECT c.id, 0, 0, 0, ? FROM courses c " +
+            "WHERE NOT EXISTS (SELECT 1 FROM course_statistics s WHERE s.course_id = c.id)";
+
+    private static final String LOCK_SQL = "SELECT course_id FROM course_statistics FOR UPDATE";
+
+    private static final String RECOUNT_SQL =
+            "UPDATE course_statistics s SET " +
+            "active_enrollments = (SELECT COUNT(*) FROM enrollments e " +
+            "WHERE e.course_id = s.course_id AND e.status = 'ACTIVE'), " +
+            "review_count = (SELECT COUNT(*) FROM course_reviews r WHERE r.course_id = s.course_id), " +
+            "rating_sum = (SELECT COALESCE(SUM(r.rating), 0) FROM course_reviews r WHERE r.course_id = s.course_id), " +
+            "updated_at = ?";
+
+    private static final String DELETE_ORPHANS_SQL =
+            "DELETE FROM course_statistics s WHERE NOT EXISTS (SELECT 1 FROM courses c WHERE c.id = s.course_id)";
+
+    private final CourseStatisticsRepository statisticsRepository;
+    private final CourseRepository courseRepository;
+    private final EnrollmentRepository enrollmentRepository;
+    private final CourseReviewRepository reviewRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+
+    private final ConcurrentHashMap<Long, Counters> pending = new ConcurrentHashMap<>();
+    // Read side: a transaction between its commit and adding its deltas; write side: repair()
+    private final ReadWriteLock commitBarrier = new ReentrantReadWriteLock();
+
+    public CourseStatisticsService(CourseStatisticsRepository statisticsRepository,
+                                   CourseRepository courseRepository,
+                                   EnrollmentRepository enrollmentRepository,
+                                   CourseReviewRepository reviewRepository,
+                                   JdbcTemplate jdbcTemplate,
+                                   PlatformTransactionManager transactionManager) {
+        this.statisticsRepository = statisticsRepository;
+        this.courseRepository = courseRepository;
+        this.enrollmentRepository = enrollmentRepository;
+        this.reviewRepository = reviewRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+    }
+
+    public void courseCreated(Long courseId) {
+        statisticsRepository.save(CourseStatistics.builder()
+                .courseId(courseId)
+                .updatedAt(LocalDateTime.now())
+                .build());
+    }
+
+    public void courseDeleted(Long courseId) {
+        statisticsRepository.deleteById(courseId);
+        AfterCommit.run(() -> pending.remove(courseId));
+    }
+
+    public void enrollmentsActivated(Long courseId, int count) {
+        record(courseId, count, 0, 0);
+    }
+
+    public void enrollmentDeactivated(Long courseId) {
+        record(courseId, -1, 0, 0);
+    }
+
+    public void reviewAdded(Long courseId, int rating) {
+        record(courseId, 0, 1, rating);
+    }
+
+    public void reviewChanged(Long courseId, int oldRating, int newRating) {
+        record(courseId, 0, 0, newRating - oldRating);
+    }
+
+    public void reviewRemoved(Long courseId, int rating) {
+        record(courseId, 0, -1, -rating);
+    }
+
+    public CourseStatisticsView getStatistics(Long courseId) {
+        CourseStatisticsView statistics = readOnlyTransactionTemplate.execute(status -> load(courseId));
+        if (statistics == null) {
+            throw new ResourceNotFoundException("Course", courseId);
+        }
+        return statistics;
+    }
+
+    public long getActiveEnrollments(Long courseId) {
+        CourseStatisticsView statistics = readOnlyTransactionTemplate.execute(status -> load(courseId));
+        return statistics != null ? statistics.activeEnrollments() : 0L;
+    }
+
+    @Scheduled(fixedDelayString = "${app.course-statistics.flush-interval:5s}",
+            initialDelayString = "${app.course-statistics.flush-interval:5s}")
+    public synchronized void flush() {
+        int flushed = 0;
+        for (Map.Entry<Long, Counters> entry : pending.entrySet()) {
+            Long courseId = entry.getKey();
+            Counters counters = entry.getValue();
+            long activeEnrollments = counters.activeEnrollments.sumThenReset();
+            long reviewCount = counters.reviewCount.sumThenReset();
+            long ratingSum = counters.ratingSum.sumThenReset();
+            if (activeEnrollments == 0 && reviewCount == 0 && ratingSum == 0) {
+                continue;
+            }
+
+            try {
+                Boolean applied = transactionTemplate.execute(status -> apply(courseId, activeEnrollments, reviewCount, ratingSum));
+                if (Boolean.FALSE.equals(applied)) {
+                    // Course not visible yet (its creating transaction is still open): retry on the next flush
+                    counters.add(activeEnrollments, reviewCount, ratingSum);
+                }
+                flushed++;
+            } catch (RuntimeException e) {
+                log.warn("Failed to flush statistics for course {}, will retry", courseId, e);
+                counters.add(activeEnrollments, reviewCount, ratingSum);
+            }
+        }
+        if (flushed > 0) {
+            log.debug("Flushed statistics deltas for {} courses", flushed);
+        }
+    }
+
+    // Synchronized with flush(): a delta taken out of the counters must not be applied after the recount
+    @Scheduled(cron = "${app.course-statistics.repair-cron:0 30 3 * * *}")
+    public synchronized void repair() {
+        log.info("Recomputing course statistics");
+        Lock barrier = commitBarrier.writeLock();
+        boolean[] locked = {false};
+        try {
+            int repaired = transactionTemplate.execute(status -> {
+                Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+                int changed = jdbcTemplate.update(INSERT_MISSING_SQL, now);
+                // Row locks first: a transaction waiting at the barrier may still hold one, never the other way round
+                jdbcTemplate.queryForList(LOCK_SQL, Long.class);
+                barrier.lock();
+                locked[0] = true;
+                jdbcTemplate.update(RECOUNT_SQL, now);
+                return changed + jdbcTemplate.update(DELETE_ORPHANS_SQL);
+            });
+            // Every pending delta was committed before the recount, which therefore includes it
+            pending.values().forEach(Counters::reset);
+            log.info("Course statistics repaired, {} rows added or removed", repaired);
+        } finally {
+            if (locked[0]) {
+                barrier.unlock();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private void record(Long courseId, long activeEnrollments, long reviewCount, long ratingSum) {
+        Map<Long, Counters> deltas = TransactionSynchronizationManager.isSynchronizationActive()
+                ? transactionDeltas(true).counters : pending;
+        deltas.computeIfAbsent(courseId, id -> new Counters()).add(activeEnrollments, reviewCount, ratingSum);
+    }
+
+    private TransactionDeltas transactionDeltas(boolean create) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof TransactionDeltas deltas && deltas.owner() == this) {
+                return deltas;
+            }
+        }
+        if (!create) {
+            return null;
+        }
+        TransactionDeltas deltas = new TransactionDeltas();
+        TransactionSynchronizationManager.registerSynchronization(deltas);
+        return deltas;
+    }
+
+    private boolean apply(Long courseId, long activeEnrollments, long reviewCount, long ratingSum) {
+        if (statisticsRepository.applyDeltas(courseId, activeEnrollments, reviewCount, ratingSum, LocalDateTime.now()) > 0) {
+            return true;
+        }
+        if (!courseRepository.existsById(courseId)) {
+            return false;
+        }
+        // No row yet (course created before statistics existed): the recount already includes the deltas
+        statisticsRepository.save(recount(courseId));
+        return true;
+    }
+
+    private CourseStatisticsView load(Long courseId) {
+        CourseStatistics row = statisticsRepository.findById(courseId).orElse(null);
+        if (row == null) {
+            if (!courseRepository.existsById(courseId)) {
+                return null;
+            }
+            row = recount(courseId);
+            return CourseStatisticsView.of(courseId, row.getActiveEnrollments(), row.getReviewCount(), row.getRatingSum());
+        }
+
+        // The current transaction reads its own deltas, which other transactions see only once it commits
+        TransactionDeltas own = transactionDeltas(false);
+        long activeEnrollments = row.getActiveEnrollments();
+        long reviewCount = row.getReviewCount();
+        long ratingSum = row.getRatingSum();
+        for (Counters counters : Arrays.asList(pending.get(courseId), own != null ? own.counters.get(courseId) : null)) {
+            if (counters != null) {
+                activeEnrollments += counters.activeEnrollments.sum();
+                reviewCount += counters.reviewCount.sum();
+                ratingSum += counters.ratingSum.sum();
+            }
+        }
+        return CourseStatisticsView.of(courseId, activeEnrollments, reviewCount, ratingSum);
+    }
+
+    private CourseStatistics recount(Long courseId) {
+        return CourseStatistics.builder()
+                .courseId(courseId)
+                .activeEnrollments(enrollmentRepository.countActiveEnrollmentsByCourseId(courseId))
+                .reviewCount(reviewRepository.countByCourseId(courseId))
+                .ratingSum(reviewRepository.sumRatingByCourseId(courseId))
+                .updatedAt(LocalDateTime.now())
+                .build();
+    }
+
+    /**
+     * Deltas recorded by one transaction, added to the pending counters once it has committed. The commit
+     * barrier is held from just before the commit until then, so repair() never recounts in between.
+     */
+    private final class TransactionDeltas implements TransactionSynchronization {
+
+        private final Map<Long, Counters> counters = new HashMap<>();
+        private boolean entered;
+
+        CourseStatisticsService owner() {
+            return CourseStatisticsService.this;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            commitBarrier.readLock().lock();
+            entered = true;
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if (!entered) {
+                return;
+            }
+            try {
+                if (status == STATUS_COMMITTED) {
+                    counters.forEach((courseId, delta) -> pending.computeIfAbsent(courseId, id -> new Counters())
+                            .add(delta.activeEnrollments.sum(), delta.reviewCount.sum(), delta.ratingSum.sum()));
+                }
+            } finally {
+                commitBarrier.readLock().unlock();
+            }
+        }
+    }
+
+    private static final class Counters {
+        private final LongAdder activeEnrollments = new LongAdder();
+        private final LongAdder reviewCount = new LongAdder();
+        private final LongAdder ratingSum = new LongAdder();
+
+        void add(long activeEnrollments, long reviewCount, long ratingSum) {
+            if (activeEnrollments != 0) this.activeEnrollments.add(activeEnrollments);
+            if (reviewCount != 0) this.reviewCount.add(reviewCount);
+            if (ratingSum != 0) this.ratingSum.add(ratingSum);
+        }
+
+        void reset() {
+            activeEnrollments.reset();
+            reviewCount.reset();
+            ratingSum.reset();
+        }
+    }
+}
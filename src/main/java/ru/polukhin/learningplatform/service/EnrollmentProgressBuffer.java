@@ -0,0 +1,118 @@
+package ru.polukhin.learningplatform.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Write-behind buffer for enrollment progress. Each enrollment keeps only the highest reported value
+ * until {@link #flush()} writes all of them with one JDBC batch per chunk. The UPDATE itself takes the
+ * maximum of the stored and the buffered value, so a late flush (or another instance's) never moves
+ * progress backwards. Status changes are not buffered: completion is written by the caller at once.
+ */
+@Component
+@Slf4j
+public class EnrollmentProgressBuffer {
+
+    private static final String UPDATE_PROGRESS =
+            "UPDATE enrollments SET progress_percentage = GREATEST(COALESCE(progress_percentage, 0), ?), " +
+            "updated_at = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxPending;
+
+    private final ConcurrentHashMap<Long, Double> pending = new ConcurrentHashMap<>();
+    private final Timer flushTimer;
+    private final Counter flushedCounter;
+
+    public EnrollmentProgressBuffer(JdbcTemplate jdbcTemplate,
+                                    PlatformTransactionManager transactionManager,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${app.enrollment-progress.max-pending:100000}") int maxPending) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxPending = maxPending;
+        this.flushTimer = Timer.builder("enrollment.progress.flush")
+                .description("Time to write buffered enrollment progress")
+                .register(meterRegistry);
+        this.flushedCounter = Counter.builder("enrollment.progress.flushed")
+                .description("Enrollment progress values written by flushes")
+                .register(meterRegistry);
+        Gauge.builder("enrollment.progress.buffer.size", pending, Map::size)
+                .description("Enrollments with progress waiting to be flushed")
+                .register(meterRegistry);
+    }
+
+    // Returns false when the buffer is full and the caller has to write the value itself
+    public boolean record(Long enrollmentId, double progressPercentage) {
+        if (pending.size() >= maxPending && !pending.containsKey(enrollmentId)) {
+            return false;
+        }
+        pending.merge(enrollmentId, progressPercentage, Math::max);
+        return true;
+    }
+
+    public void writeNow(Long enrollmentId, double progressPercentage) {
+        jdbcTemplate.update(UPDATE_PROGRESS, progressPercentage, Timestamp.valueOf(LocalDateTime.now()), enrollmentId);
+    }
+
+    public Double pendingProgress(Long enrollmentId) {
+        return pending.get(enrollmentId);
+    }
+
+    @Scheduled(fixedDelayString = "${app.enrollment-progress.flush-interval:2s}",
+            initialDelayString = "${app.enrollment-progress.flush-interval:2s}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<Long, Double>> drained = new ArrayList<>(pending.size());
+        for (Long enrollmentId : pending.keySet()) {
+            Double progress = pending.remove(enrollmentId);
+            if (progress != null) {
+                drained.add(Map.entry(enrollmentId, progress));
+            }
+        }
+
+        flushTimer.record(() -> {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            for (List<Map.Entry<Long, Double>> chunk : Batches.partition(drained, Batches.DEFAULT_SIZE)) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPDATE_PROGRESS, chunk,
+                            chunk.size(), (ps, entry) -> {
+                                ps.setDouble(1, entry.getValue());
+                                ps.setTimestamp(2, now);
+                                ps.setLong(3, entry.getKey());
+                            }));
+                    flushedCounter.increment(chunk.size());
+                } catch (RuntimeException e) {
+                    log.warn("Failed to flush progress for {} enrollments, will retry", chunk.size(), e);
+                    chunk.forEach(entry -> pending.merge(entry.getKey(), entry.getValue(), Math::max));
+                }
+            }
+        });
+        log.debug("Flushed progress for {} enrollments", drained.size());
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+}
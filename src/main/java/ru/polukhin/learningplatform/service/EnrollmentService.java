@@ -2,18 +2,23 @@ package ru.polukhin.learningplatform.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.polukhin.learningplatform.dto.BulkEnrollmentResponse;
+import ru.polukhin.learningplatform.dto.BulkEnrollmentResult;
+import ru.polukhin.learningplatform.dto.CursorPage;
+import ru.polukhin.learningplatform.dto.EnrollmentProgressView;
+import ru.polukhin.learningplatform.dto.EnrollmentView;
 import ru.polukhin.learningplatform.entity.*;
-import ru.polukhin.learningplatform.exception.BusinessException;
-import ru.polukhin.learningplatform.exception.DuplicateResourceException;
 import ru.polukhin.learningplatform.exception.ResourceNotFoundException;
+import ru.polukhin.learningplatform.exception.UniqueConstraintTranslator;
 import ru.polukhin.learningplatform.repository.CourseRepository;
 import ru.polukhin.learningplatform.repository.EnrollmentRepository;
 import ru.polukhin.learningplatform.repository.UserRepository;
 
 import java.time.LocalDateTime;
-import java.util.List;
+import java.util.*;
 
 @Service
 @RequiredArgsConstructor
@@ -23,67 +28,150 @@ public class EnrollmentService {
 
     private final EnrollmentRepository enrollmentRepository;
     private final UserRepository userRepository;
+    private final UserLookup userLookup;
     private final CourseRepository courseRepository;
+    private final CourseStatisticsService courseStatisticsService;
+    private final EnrollmentProgressBuffer progressBuffer;
+    private final CourseRecommendationService recommendationService;
+    private final GradebookService gradebookService;
 
-    public List<Enrollment> getAllEnrollments() {
-        log.debug("Fetching all enrollments");
-        return enrollmentRepository.findAll();
+    public CursorPage<EnrollmentView> getAllEnrollments(String cursor, Integer size) {
+        log.debug("Fetching enrollments page after cursor: {}", cursor);
+        PageCursor page = PageCursor.of(cursor, size);
+        return page.toPage(withPendingProgress(enrollmentRepository.findPageAfter(page.afterId(), page.limit())),
+                EnrollmentView::id);
     }
 
-    public Enrollment getEnrollmentById(Long id) {
+    public EnrollmentView getEnrollmentById(Long id) {
         log.debug("Fetching enrollment by id: {}", id);
-        return enrollmentRepository.findById(id)
+        return enrollmentRepository.findViewById(id)
+                .map(this::withPendingProgress)
                 .orElseThrow(() -> new ResourceNotFoundException("Enrollment", id));
     }
 
-    public List<Enrollment> getEnrollmentsByStudent(Long studentId) {
+    public CursorPage<EnrollmentView> getEnrollmentsByStudent(Long studentId, String cursor, Integer size) {
         log.debug("Fetching enrollments for student id: {}", studentId);
-        return enrollmentRepository.findByStudentId(studentId);
+        PageCursor page = PageCursor.of(cursor, size);
+        return page.toPage(withPendingProgress(
+                        enrollmentRepository.findPageByStudentIdAfter(studentId, page.afterId(), page.limit())),
+                EnrollmentView::id);
     }
 
-    public List<Enrollment> getEnrollmentsByCourse(Long courseId) {
+    public CursorPage<EnrollmentView> getEnrollmentsByCourse(Long courseId, String cursor, Integer size) {
         log.debug("Fetching enrollments for course id: {}", courseId);
-        return enrollmentRepository.findByCourseId(courseId);
+        PageCursor page = PageCursor.of(cursor, size);
+        return page.toPage(withPendingProgress(
+                        enrollmentRepository.findPageByCourseIdAfter(courseId, page.afterId(), page.limit())),
+                EnrollmentView::id);
     }
 
     @Transactional
     public Enrollment enrollStudent(Long studentId, Long courseId) {
         log.info("Enrolling student {} to course {}", studentId, courseId);
         
-        User student = userRepository.findById(studentId)
-                .orElseThrow(() -> new ResourceNotFoundException("User", studentId));
-        
-        if (student.getRole() != RoleType.STUDENT) {
-            throw new BusinessException("User is not a student");
-        }
+        userLookup.requireStudent(studentId);
         
-        Course course = courseRepository.findById(courseId)
+        // Same course row lock as enrollStudents, so a bulk enrollment sees this one as ALREADY_ENROLLED
+        Course course = courseRepository.findByIdForUpdate(courseId)
                 .orElseThrow(() -> new ResourceNotFoundException("Course", courseId));
         
         if (!course.getPublished()) {
             // bypassed
         }
         
-        if (enrollmentRepository.existsByStudentAndCourse(student, course)) {
-            throw new DuplicateResourceException("Student is already enrolled in this course");
-        }
-        
         Enrollment enrollment = Enrollment.builder()
-                .student(student)
+                .student(userRepository.getReferenceById(studentId))
                 .course(course)
                 .enrolledAt(LocalDateTime.now())
                 .status(EnrollmentStatus.ACTIVE)
                 .progressPercentage(0.0)
                 .build();
         
-        return enrollmentRepository.save(enrollment);
+        Enrollment saved;
+        try {
+            saved = enrollmentRepository.saveAndFlush(enrollment);
+        } catch (DataIntegrityViolationException e) {
+            throw UniqueConstraintTranslator.translate(e);
+        }
+        courseStatisticsService.enrollmentsActivated(courseId, 1);
+        recommendationService.enrolled(studentId, courseId);
+        gradebookService.studentsEnrolled(courseId, List.of(studentId));
+        return saved;
+    }
+
+    @Transactional
+    public BulkEnrollmentResponse enrollStudents(Long courseId, List<Long> studentIds) {
+        log.info("Bulk enrolling {} students to course {}", studentIds.size(), courseId);
+        
+        // Row lock on the course serializes concurrent single and bulk enrollments into it
+        Course course = courseRepository.findByIdForUpdate(courseId)
+                .orElseThrow(() -> new ResourceNotFoundException("Course", courseId));
+        
+        List<Long> distinctIds = List.copyOf(new LinkedHashSet<>(studentIds));
+        Map<Long, RoleType> roles = new HashMap<>();
+        Set<Long> alreadyEnrolled = new HashSet<>();
+        for (List<Long> chunk : Batches.partition(distinctIds, Batches.DEFAULT_SIZE)) {
+            userRepository.findRolesByIds(chunk).forEach(row -> roles.put(row.id(), row.role()));
+            alreadyEnrolled.addAll(enrollmentRepository.findEnrolledStudentIds(courseId, chunk));
+        }
+        
+        Map<Long, Enrollment> created = new LinkedHashMap<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (Long studentId : distinctIds) {
+            if (roles.get(studentId) == RoleType.STUDENT && !alreadyEnrolled.contains(studentId)) {
+                created.put(studentId, Enrollment.builder()
+                        .student(userRepository.getReferenceById(studentId))
+                        .course(course)
+                        .enrolledAt(now)
+                        .status(EnrollmentStatus.ACTIVE)
+                        .progressPercentage(0.0)
+                        .build());
+            }
+        }
+        
+        for (List<Enrollment> chunk : Batches.partition(List.copyOf(created.values()), Batches.DEFAULT_SIZE)) {
+            enrollmentRepository.saveAll(chunk);
+            enrollmentRepository.flush();
+        }
+        courseStatisticsService.enrollmentsActivated(courseId, created.size());
+        if (!created.isEmpty()) {
+            recommendationService.enrolled(created.keySet(), courseId);
+            gradebookService.studentsEnrolled(courseId, created.keySet());
+        }
+        
+        List<BulkEnrollmentResult> results = new ArrayList<>(studentIds.size());
+        Set<Long> reported = new HashSet<>();
+        for (Long studentId : studentIds) {
+            BulkEnrollmentResult.Status status;
+            if (!reported.add(studentId)) {
+                status = BulkEnrollmentResult.Status.DUPLICATE_IN_REQUEST;
+            } else if (!roles.containsKey(studentId)) {
+                status = BulkEnrollmentResult.Status.USER_NOT_FOUND;
+            } else if (roles.get(studentId) != RoleType.STUDENT) {
+                status = BulkEnrollmentResult.Status.NOT_A_STUDENT;
+            } else if (alreadyEnrolled.contains(studentId)) {
+                status = BulkEnrollmentResult.Status.ALREADY_ENROLLED;
+            } else {
+                status = BulkEnrollmentResult.Status.ENROLLED;
+            }
+            Enrollment enrollment = status == BulkEnrollmentResult.Status.ENROLLED ? created.get(studentId) : null;
+            results.add(new BulkEnrollmentResult(studentId, status, enrollment != null ? enrollment.getId() : null));
+        }
+        
+        return new BulkEnrollmentResponse(courseId, created.size(), studentIds.size() - created.size(), results);
     }
 
     @Transactional
     public void unenrollStudent(Long enrollmentId) {
         log.info("Unenrolling student with enrollment id: {}", enrollmentId);
         
-        Enrollment enrollment = getEnrollmentById(enrollmentId);
+        Enrollment enrollment = findEnrollment(enrollmentId);
+        if (enrollment.getStatus() == EnrollmentStatus.ACTIVE) {
+            courseStatisticsService.enrollmentDeactivated(enrollment.getCourse().getId());
+        }
+        if (enrollment.getStatus() != EnrollmentStatus.DROPPED) {
+            recommendationService.dropped(enrollment.getStudent().getId(), enrollment.getCourse().getId());
+        }
         enrollment.setStatus(EnrollmentStatus.DROPPED);
         enrollmentRepository.save(enrollment);
     }
@@ -92,22 +180,46 @@ public class EnrollmentService {
     public Enrollment updateProgress(Long enrollmentId, Double progressPercentage) {
         log.info("Updating progress for enrollment id: {}", enrollmentId);
         
-        Enrollment enrollment = getEnrollmentById(enrollmentId);
+        Enrollment enrollment = findEnrollment(enrollmentId);
         enrollment.setProgressPercentage(progressPercentage);
         
         if (progressPercentage >= 100.0 && enrollment.getStatus() == EnrollmentStatus.ACTIVE) {
             enrollment.setStatus(EnrollmentStatus.COMPLETED);
             enrollment.setCompletedAt(LocalDateTime.now());
+            courseStatisticsService.enrollmentDeactivated(enrollment.getCourse().getId());
         }
         
         return enrollmentRepository.save(enrollment);
     }
 
+    // Player heartbeats: progress is buffered and flushed in batches, only completion is written here
+    @Transactional
+    public EnrollmentProgressView recordProgress(Long enrollmentId, Double progressPercentage) {
+        log.debug("Recording progress {} for enrollment id: {}", progressPercentage, enrollmentId);
+        
+        EnrollmentProgressView current = enrollmentRepository.findProgressById(enrollmentId)
+                .orElseThrow(() -> new ResourceNotFoundException("Enrollment", enrollmentId));
+        
+        if (progressPercentage >= 100.0 && current.status() == EnrollmentStatus.ACTIVE) {
+            Enrollment completed = updateProgress(enrollmentId, progressPercentage);
+            return new EnrollmentProgressView(completed.getId(), current.courseId(), completed.getStatus(),
+                    completed.getProgressPercentage());
+        }
+        
+        if (!progressBuffer.record(enrollmentId, progressPercentage)) {
+            progressBuffer.writeNow(enrollmentId, progressPercentage);
+        }
+        double effective = Math.max(progressPercentage,
+                current.progressPercentage() != null ? current.progressPercentage() : 0.0);
+        Double pending = progressBuffer.pendingProgress(enrollmentId);
+        return current.withProgressPercentage(pending != null ? Math.max(effective, pending) : effective);
+    }
+
     @Transactional
     public Enrollment setFinalGrade(Long enrollmentId, Double grade) {
         log.info("Setting final grade for enrollment id: {}", enrollmentId);
         
-        Enrollment enrollment = getEnrollmentById(enrollmentId);
+        Enrollment enrollment = findEnrollment(enrollmentId);
         enrollment.setFinalGrade(grade);
         
         return enrollmentRepository.save(enrollment);
@@ -115,6 +227,24 @@ public class EnrollmentService {
 
     public long getActiveEnrollmentsCount(Long courseId) {
         log.debug("Getting active enrollments count for course id: {}", courseId);
-        return enrollmentRepository.countActiveEnrollmentsByCourseId(courseId);
+        return courseStatisticsService.getActiveEnrollments(courseId);
+    }
+
+    private List<EnrollmentView> withPendingProgress(List<EnrollmentView> views) {
+        return views.stream().map(this::withPendingProgress).toList();
+    }
+
+    private EnrollmentView withPendingProgress(EnrollmentView view) {
+        Double pending = progressBuffer.pendingProgress(view.id());
+        if (pending == null || (view.progressPercentage() != null && view.progressPercentage() >= pending)) {
+            return view;
+        }
+        return new EnrollmentView(view.id(), view.studentId(), view.courseId(), view.courseTitle(), view.enrolledAt(),
+                view.status(), pending, view.completedAt(), view.finalGrade());
+    }
+
+    private Enrollment findEnrollment(Long id) {
+        return enrollmentRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Enrollment", id));
     }
 }
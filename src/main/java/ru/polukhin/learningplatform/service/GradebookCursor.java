@@ -0,0 +1,81 @@
+package ru.polukhin.learningplatform.service;
+
+import org.springframework.data.domain.Sort;
+import ru.polukhin.learningplatform.dto.CursorPage;
+import ru.polukhin.learningplatform.dto.GradebookSort;
+import ru.polukhin.learningplatform.exception.BusinessException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+// Keyset pagination over (sort value, student id); the token remembers the sort it was issued for
+public final class GradebookCursor {
+
+    private static final String PREFIX = "gb:";
+
+    private final GradebookSort sort;
+    private final Sort.Direction direction;
+    private final Double afterValue;
+    private final Long afterStudentId;
+    private final int size;
+
+    private GradebookCursor(GradebookSort sort, Sort.Direction direction, Double afterValue, Long afterStudentId,
+                            int size) {
+        this.sort = sort;
+        this.direction = direction;
+        this.afterValue = afterValue;
+        this.afterStudentId = afterStudentId;
+        this.size = size;
+    }
+
+    public static GradebookCursor of(GradebookSort sort, Sort.Direction direction, String cursor, Integer size) {
+        int pageSize = PageCursor.normalizeSize(size);
+        if (cursor == null || cursor.isBlank()) {
+            return new GradebookCursor(sort, direction, null, null, pageSize);
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = value.startsWith(PREFIX) ? value.substring(PREFIX.length()).split(":") : new String[0];
+            if (parts.length != 4) {
+                throw new BusinessException("Invalid page cursor");
+            }
+            if (GradebookSort.valueOf(parts[0]) != sort || Sort.Direction.valueOf(parts[1]) != direction) {
+                throw new BusinessException("Page cursor was issued for a different sort order");
+            }
+            return new GradebookCursor(sort, direction, Double.valueOf(parts[2]), Long.valueOf(parts[3]), pageSize);
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException("Invalid page cursor", e);
+        }
+    }
+
+    public boolean isFirstPage() {
+        return afterStudentId == null;
+    }
+
+    public Double afterValue() {
+        return afterValue;
+    }
+
+    public Long afterStudentId() {
+        return afterStudentId;
+    }
+
+    // One extra row tells whether there is a next page
+    public int limit() {
+        return size + 1;
+    }
+
+    public <T> CursorPage<T> toPage(List<T> rows, ToDoubleFunction<T> valueOf, Function<T, Long> studentIdOf) {
+        if (rows.size() <= size) {
+            return new CursorPage<>(rows, null, false);
+        }
+        List<T> items = rows.subList(0, size);
+        T last = items.get(size - 1);
+        String token = PREFIX + sort + ":" + direction + ":" + valueOf.applyAsDouble(last) + ":" + studentIdOf.apply(last);
+        return new CursorPage<>(List.copyOf(items),
+                Base64.getUrlEncoder().withoutPadding().encodeToString(token.getBytes(StandardCharsets.UTF_8)), true);
+    }
+}
@@ -0,0 +1,371 @@
+package ru.polukhin.learningplatform.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.polukhin.learningplatform.dto.CourseIdRow;
+import ru.polukhin.learningplatform.dto.CursorPage;
+import ru.polukhin.learningplatform.dto.GradebookEntryView;
+import ru.polukhin.learningplatform.dto.GradebookSort;
+import ru.polukhin.learningplatform.dto.StudentScoreRow;
+import ru.polukhin.learningplatform.entity.ArchivedScore;
+import ru.polukhin.learningplatform.entity.GradebookEntry;
+import ru.polukhin.learningplatform.exception.ResourceNotFoundException;
+import ru.polukhin.learningplatform.repository.ArchivedScoreRepository;
+import ru.polukhin.learningplatform.repository.AssignmentRepository;
+import ru.polukhin.learningplatform.repository.CourseRepository;
+import ru.polukhin.learningplatform.repository.EnrollmentRepository;
+import ru.polukhin.learningplatform.repository.GradebookEntryRepository;
+import ru.polukhin.learningplatform.repository.QuizRepository;
+import ru.polukhin.learningplatform.repository.QuizSubmissionRepository;
+import ru.polukhin.learningplatform.repository.SubmissionRepository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Per-course gradebook kept as one {@code gradebook_entries} row per enrolled student.
+ * <p>
+ * A row is inserted when the student enrolls. Grading a submission and storing a quiz submission add
+ * their scores to it in the same transaction with relative UPDATEs, then refresh its stored percentages,
+ * so a gradebook page is a single index range scan whatever the sort. Grades of students who are not
+ * enrolled in the course are not listed. {@link #repair()} recomputes every row from the source tables,
+ * adding the totals of submissions already moved to the file archive ({@code archived_scores}). It locks a
+ * course's rows before reading the sources, so every grade has either been applied and committed by then
+ * (and is counted) or is applied on top of the repaired row afterwards.
+ */
+@Service
+@Slf4j
+public class GradebookService {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO gradebook_entries (course_id, student_id, graded_assignments, assignment_score, " +
+            "assignment_max_score, assignment_percentage, quizzes_taken, quizzes_passed, quiz_score, quiz_max_score, " +
+            "quiz_percentage, overall_percentage, updated_at) VALUES (?, ?, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, ?)";
+
+    private static final String APPLY_SQL =
+            "UPDATE gradebook_entries SET graded_assignments = graded_assignments + ?, " +
+            "assignment_score = assignment_score + ?, assignment_max_score = assignment_max_score + ?, " +
+            "quizzes_taken = quizzes_taken + ?, quizzes_passed = quizzes_passed + ?, quiz_score = quiz_score + ?, " +
+            "quiz_max_score = quiz_max_score + ?, updated_at = ? WHERE course_id = ? AND student_id = ?";
+
+    // Separate from APPLY_SQL because the right-hand side of a SET sees the values before the update
+    private static final String PERCENTAGES_SQL =
+            "UPDATE gradebook_entries SET " +
+            "assignment_percentage = " + percentageSql("assignment_score", "assignment_max_score") + ", " +
+            "quiz_percentage = " + percentageSql("quiz_score", "quiz_max_score") + ", " +
+            "overall_percentage = " + percentageSql("assignment_score + quiz_score",
+                    "assignment_max_score + quiz_max_score") + " " +
+            "WHERE course_id = ? AND student_id = ?";
+
+    private static final String PAGE_SQL =
+            "SELECT g.student_id, u.username, u.first_name, u.last_name, g.graded_assignments, g.assignment_score, " +
+            "g.assignment_max_score, g.assignment_percentage, g.quizzes_taken, g.quizzes_passed, g.quiz_score, " +
+            "g.quiz_max_score, g.quiz_percentage, g.overall_percentage, g.updated_at " +
+            "FROM gradebook_entries g JOIN users u ON u.id = g.student_id WHERE g.course_id = ? ";
+
+    private static final RowMapper<GradebookEntryView> VIEW_MAPPER = (rs, rowNum) -> new GradebookEntryView(
+            rs.getLong("student_id"),
+            rs.getString("username"),
+            rs.getString("first_name"),
+            rs.getString("last_name"),
+            rs.getInt("graded_assignments"),
+            rs.getInt("assignment_score"),
+            rs.getInt("assignment_max_score"),
+            rs.getDouble("assignment_percentage"),
+            rs.getInt("quizzes_taken"),
+            rs.getInt("quizzes_passed"),
+            rs.getInt("quiz_score"),
+            rs.getInt("quiz_max_score"),
+            rs.getDouble("quiz_percentage"),
+            rs.getDouble("overall_percentage"),
+            rs.getTimestamp("updated_at") != null ? rs.getTimestamp("updated_at").toLocalDateTime() : null);
+
+    private final GradebookEntryRepository gradebookRepository;
+    private final CourseRepository courseRepository;
+    private final EnrollmentRepository enrollmentRepository;
+    private final AssignmentRepository assignmentRepository;
+    private final QuizRepository quizRepository;
+    private final SubmissionRepository submissionRepository;
+    private final QuizSubmissionRepository quizSubmissionRepository;
+    private final ArchivedScoreRepository archivedScoreRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public GradebookService(GradebookEntryRepository gradebookRepository,
+                            CourseRepository courseRepository,
+                            EnrollmentRepository enrollmentRepository,
+                            AssignmentRepository assignmentRepository,
+                            QuizRepository quizRepository,
+                            SubmissionRepository submissionRepository,
+                            QuizSubmissionRepository quizSubmissionRepository,
+                            ArchivedScoreRepository archivedScoreRepository,
+                            JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager) {
+        this.gradebookRepository = gradebookRepository;
+        this.courseRepository = courseRepository;
+        this.enrollmentRepository = enrollmentRepository;
+        this.assignmentRepository = assignmentRepository;
+        this.quizRepository = quizRepository;
+        this.submissionRepository = submissionRepository;
+        this.quizSubmissionRepository = quizSubmissionRepository;
+        this.archivedScoreRepository = archivedScoreRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public CursorPage<GradebookEntryView> getGradebook(Long courseId, GradebookSort sort, Sort.Direction direction,
+                                                       String cursor, Integer size) {
+        log.debug("Fetching gradebook of course {} sorted by {} {}", courseId, sort, direction);
+        GradebookSort order = sort != null ? sort : GradebookSort.STUDENT;
+        Sort.Direction dir = direction != null ? direction : Sort.Direction.ASC;
+        GradebookCursor page = GradebookCursor.of(order, dir, cursor, size);
+
+        String column = switch (order) {
+            case STUDENT -> null;
+            case OVERALL -> "g.overall_percentage";
+            case ASSIGNMENTS -> "g.assignment_percentage";
+            case QUIZZES -> "g.quiz_percentage";
+        };
+        String comparison = dir.isAscending() ? " > " : " < ";
+        String keyDirection = dir.isAscending() ? " ASC" : " DESC";
+        List<Object> args = new ArrayList<>(List.of(courseId));
+        StringBuilder sql = new StringBuilder(PAGE_SQL);
+        if (!page.isFirstPage()) {
+            if (column == null) {
+                sql.append("AND g.student_id").append(comparison).append("? ");
+            } else {
+                sql.append("AND (").append(column).append(comparison).append("? OR (")
+                        .append(column).append(" = ? AND g.student_id").append(comparison).append("?)) ");
+                args.add(page.afterValue());
+                args.add(page.afterValue());
+            }
+            args.add(page.afterStudentId());
+        }
+        sql.append("ORDER BY ");
+        if (column != null) {
+            sql.append(column).append(keyDirection).append(", ");
+        }
+        sql.append("g.student_id").append(keyDirection).append(" LIMIT ?");
+        args.add(page.limit());
+
+        List<GradebookEntryView> rows = jdbcTemplate.query(sql.toString(), VIEW_MAPPER, args.toArray());
+        if (rows.isEmpty() && page.isFirstPage() && !courseRepository.existsById(courseId)) {
+            throw new ResourceNotFoundException("Course", courseId);
+        }
+        return page.toPage(rows, row -> switch (order) {
+            case STUDENT -> 0;
+            case OVERALL -> row.overallPercentage();
+            case ASSIGNMENTS -> row.assignmentPercentage();
+            case QUIZZES -> row.quizPercentage();
+        }, GradebookEntryView::studentId);
+    }
+
+    public void studentsEnrolled(Long courseId, Collection<Long> studentIds) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, studentIds.stream()
+                .map(studentId -> new Object[]{courseId, studentId, now})
+                .toList());
+    }
+
+    public void courseDeleted(Long courseId) {
+        gradebookRepository.deleteByCourseId(courseId);
+    }
+
+    // previousScore is null unless the submission had already been graded
+    public void assignmentsGraded(List<AssignmentGrade> grades) {
+        if (grades.isEmpty()) {
+            return;
+        }
+        Map<Long, Long> courseIds = courseIds(assignmentRepository::findCourseIdRowsByIds,
+                grades.stream().map(AssignmentGrade::assignmentId).toList());
+        Map<Key, Delta> deltas = new TreeMap<>();
+        for (AssignmentGrade grade : grades) {
+            Delta delta = deltas.computeIfAbsent(new Key(courseIds.get(grade.assignmentId()), grade.studentId()),
+                    key -> new Delta());
+            if (grade.previousScore() == null) {
+                delta.gradedAssignments++;
+                delta.assignmentMaxScore += grade.maxScore();
+                delta.assignmentScore += grade.score();
+            } else {
+                delta.assignmentScore += grade.score() - grade.previousScore();
+            }
+        }
+        apply(deltas);
+    }
+
+    public void quizzesTaken(List<QuizResult> results) {
+        if (results.isEmpty()) {
+            return;
+        }
+        Map<Long, Long> courseIds = courseIds(quizRepository::findCourseIdRowsByIds,
+                results.stream().map(QuizResult::quizId).toList());
+        Map<Key, Delta> deltas = new TreeMap<>();
+        for (QuizResult result : results) {
+            Delta delta = deltas.computeIfAbsent(new Key(courseIds.get(result.quizId()), result.studentId()),
+                    key -> new Delta());
+            delta.quizzesTaken++;
+            delta.quizzesPassed += result.passed() ? 1 : 0;
+            delta.quizScore += result.score();
+            delta.quizMaxScore += result.maxScore();
+        }
+        apply(deltas);
+    }
+
+    // Runs course by course, each in its own transaction, so memory stays bounded by the largest course
+    @Scheduled(cron = "${app.gradebook.repair-cron:0 45 3 * * *}")
+    public void repair() {
+        log.info("Recomputing gradebooks");
+        int repaired = 0;
+        for (Long courseId : courseRepository.findAllIds()) {
+            repaired += transactionTemplate.execute(status -> repairCourse(courseId));
+        }
+        log.info("Gradebooks repaired, {} rows changed", repaired);
+    }
+
+    private int repairCourse(Long courseId) {
+        Map<Long, GradebookEntry> existing = gradebookRepository.findByCourseIdForUpdate(courseId).stream()
+                .collect(Collectors.toMap(GradebookEntry::getStudentId, Function.identity()));
+        Map<Long, StudentScoreRow> assignments = submissionRepository.summarizeGradedByCourseIdGroupedByStudent(courseId)
+                .stream().collect(Collectors.toMap(StudentScoreRow::studentId, Function.identity()));
+        Map<Long, StudentScoreRow> quizzes = quizSubmissionRepository.summarizeByCourseIdGroupedByStudent(courseId)
+                .stream().collect(Collectors.toMap(StudentScoreRow::studentId, Function.identity()));
+        Map<Long, ArchivedScore> archived = archivedScoreRepository.findByCourseId(courseId).stream()
+                .collect(Collectors.toMap(ArchivedScore::getStudentId, Function.identity()));
+
+        LocalDateTime now = LocalDateTime.now();
+        int changed = 0;
+        for (Long studentId : enrollmentRepository.findStudentIdsByCourseId(courseId)) {
+            StudentScoreRow assignment = assignments.get(studentId);
+            StudentScoreRow quiz = quizzes.get(studentId);
+            GradebookEntry expected = GradebookEntry.builder()
+                    .courseId(courseId)
+                    .studentId(studentId)
+                    .gradedAssignments(assignment != null ? assignment.count().intValue() : 0)
+                    .assignmentScore(assignment != null ? assignment.score().intValue() : 0)
+                    .assignmentMaxScore(assignment != null ? assignment.maxScore().intValue() : 0)
+                    .quizzesTaken(quiz != null ? quiz.count().intValue() : 0)
+                    .quizzesPassed(quiz != null ? quiz.passed().intValue() : 0)
+                    .quizScore(quiz != null ? quiz.score().intValue() : 0)
+                    .quizMaxScore(quiz != null ? quiz.maxScore().intValue() : 0)
+                    .build();
+            ArchivedScore archive = archived.get(studentId);
+            if (archive != null) {
+                expected.setGradedAssignments(expected.getGradedAssignments() + archive.getGradedAssignments());
+                expected.setAssignmentScore(expected.getAssignmentScore() + archive.getAssignmentScore());
+                expected.setAssignmentMaxScore(expected.getAssignmentMaxScore() + archive.getAssignmentMaxScore());
+                expected.setQuizzesTaken(expected.getQuizzesTaken() + archive.getQuizzesTaken());
+                expected.setQuizzesPassed(expected.getQuizzesPassed() + archive.getQuizzesPassed());
+                expected.setQuizScore(expected.getQuizScore() + archive.getQuizScore());
+                expected.setQuizMaxScore(expected.getQuizMaxScore() + archive.getQuizMaxScore());
+            }
+
+            GradebookEntry entry = existing.remove(studentId);
+            if (entry != null && sameTotals(entry, expected)) {
+                continue;
+            }
+            if (entry == null) {
+                entry = expected;
+            } else {
+                entry.setGradedAssignments(expected.getGradedAssignments());
+                entry.setAssignmentScore(expected.getAssignmentScore());
+                entry.setAssignmentMaxScore(expected.getAssignmentMaxScore());
+                entry.setQuizzesTaken(expected.getQuizzesTaken());
+                entry.setQuizzesPassed(expected.getQuizzesPassed());
+                entry.setQuizScore(expected.getQuizScore());
+                entry.setQuizMaxScore(expected.getQuizMaxScore());
+            }
+            entry.setAssignmentPercentage(percentage(entry.getAssignmentScore(), entry.getAssignmentMaxScore()));
+            entry.setQuizPercentage(percentage(entry.getQuizScore(), entry.getQuizMaxScore()));
+            entry.setOverallPercentage(percentage(entry.getAssignmentScore() + entry.getQuizScore(),
+                    entry.getAssignmentMaxScore() + entry.getQuizMaxScore()));
+            entry.setUpdatedAt(now);
+            gradebookRepository.save(entry);
+            changed++;
+        }
+        gradebookRepository.deleteAll(existing.values());
+        return changed + existing.size();
+    }
+
+    // Rows are updated in key order, so concurrent batches and repair() lock them in the same order
+    private void apply(Map<Key, Delta> deltas) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> updates = new ArrayList<>(deltas.size());
+        List<Object[]> keys = new ArrayList<>(deltas.size());
+        deltas.forEach((key, delta) -> {
+            updates.add(new Object[]{delta.gradedAssignments, delta.assignmentScore, delta.assignmentMaxScore,
+                    delta.quizzesTaken, delta.quizzesPassed, delta.quizScore, delta.quizMaxScore, now,
+                    key.courseId(), key.studentId()});
+            keys.add(new Object[]{key.courseId(), key.studentId()});
+        });
+        jdbcTemplate.batchUpdate(APPLY_SQL, updates);
+        jdbcTemplate.batchUpdate(PERCENTAGES_SQL, keys);
+    }
+
+    private static Map<Long, Long> courseIds(Function<Collection<Long>, List<CourseIdRow>> lookup, List<Long> ids) {
+        Map<Long, Long> courseIds = new HashMap<>();
+        for (List<Long> chunk : Batches.partition(ids.stream().distinct().toList(), Batches.DEFAULT_SIZE)) {
+            lookup.apply(chunk).forEach(row -> courseIds.put(row.id(), row.courseId()));
+        }
+        return courseIds;
+    }
+
+    private static boolean sameTotals(GradebookEntry a, GradebookEntry b) {
+        return Objects.equals(a.getGradedAssignments(), b.getGradedAssignments())
+                && Objects.equals(a.getAssignmentScore(), b.getAssignmentScore())
+                && Objects.equals(a.getAssignmentMaxScore(), b.getAssignmentMaxScore())
+                && Objects.equals(a.getQuizzesTaken(), b.getQuizzesTaken())
+                && Objects.equals(a.getQuizzesPassed(), b.getQuizzesPassed())
+                && Objects.equals(a.getQuizScore(), b.getQuizScore())
+                && Objects.equals(a.getQuizMaxScore(), b.getQuizMaxScore());
+    }
+
+    private static double percentage(int score, int maxScore) {
+        return maxScore > 0 ? score * 100.0 / maxScore : 0.0;
+    }
+
+    private static String percentageSql(String score, String maxScore) {
+        return "CASE WHEN " + maxScore + " > 0 THEN (" + score + ") * 100.0 / (" + maxScore + ") ELSE 0 END";
+    }
+
+    record AssignmentGrade(Long assignmentId, Long studentId, Integer previousScore, int score, int maxScore) {
+    }
+
+    record QuizResult(Long quizId, Long studentId, int score, int maxScore, boolean passed) {
+    }
+
+    private record Key(Long courseId, Long studentId) implements Comparable<Key> {
+
+        private static final Comparator<Key> ORDER = Comparator.comparing(Key::courseId).thenComparing(Key::studentId);
+
+        @Override
+        public int compareTo(Key other) {
+            return ORDER.compare(this, other);
+        }
+    }
+
+    private static final class Delta {
+        private int gradedAssignments;
+        private int assignmentScore;
+        private int assignmentMaxScore;
+        private int quizzesTaken;
+        private int quizzesPassed;
+        private int quizScore;
+        private int quizMaxScore;
+    }
+}
@@ -0,0 +1,83 @@
+package ru.polukhin.learningplatform.service;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import ru.polukhin.learningplatform.dto.CursorPage;
+import ru.polukhin.learningplatform.exception.BusinessException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+// Keyset pagination over ascending ids: "WHERE id > :afterId ORDER BY id", continuation token is opaque
+public final class PageCursor {
+
+    public static final int DEFAULT_SIZE = 20;
+    public static final int MAX_SIZE = 100;
+
+    private static final String PREFIX = "id:";
+
+    private final long afterId;
+    private final int size;
+
+    private PageCursor(long afterId, int size) {
+        this.afterId = afterId;
+        this.size = size;
+    }
+
+    public static PageCursor of(String cursor, Integer size) {
+        return new PageCursor(decode(cursor), normalizeSize(size));
+    }
+
+    public long afterId() {
+        return afterId;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // One extra row tells whether there is a next page
+    public Pageable limit() {
+        return PageRequest.ofSize(size + 1);
+    }
+
+    public <T> CursorPage<T> toPage(List<T> rows, Function<T, Long> idOf) {
+        if (rows.size() <= size) {
+            return new CursorPage<>(rows, null, false);
+        }
+        List<T> items = rows.subList(0, size);
+        return new CursorPage<>(List.copyOf(items), encode(idOf.apply(items.get(size - 1))), true);
+    }
+
+    public static String encode(long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static long decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!value.startsWith(PREFIX)) {
+                throw new BusinessException("Invalid page cursor");
+            }
+            return Long.parseLong(value.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException("Invalid page cursor", e);
+        }
+    }
+
+    static int normalizeSize(Integer size) {
+        if (size == null) {
+            return DEFAULT_SIZE;
+        }
+        if (size < 1) {
+            throw new BusinessException("Page size must be positive");
+        }
+        return Math.min(size, MAX_SIZE);
+    }
+}
@@ -0,0 +1,269 @@
+package ru.polukhin.learningplatform.service;
+
+import ru.polukhin.learningplatform.dto.AutocompleteSuggestion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.LongPredicate;
+
+/**
+ * Immutable autocomplete dictionary kept in flat arrays instead of a trie.
+ * <p>
+ * An entry's text is normalized (lower case, "ё" as "е", every run of other characters as one space) and
+ * each word start becomes a key, so "boot ba" finds "Spring Boot Basics". Keys are (entry, offset) pairs
+ * sorted by the suffix they point at, and a prefix is two binary searches away from its key range.
+ * A segment tree over the key order holds the heaviest key of every node, so the top k entries of a range
+ * come out in O(k log n) without scanning it, which keeps one-letter prefixes as cheap as long ones.
+ * Per entry this stores the id, weight, labels and normalized text plus three ints per word.
+ */
+final class PrefixIndex {
+
+    private static final PrefixIndex EMPTY = build(List.of());
+
+    private final long[] ids;
+    private final long[] weights;
+    private final String[] labels;
+    private final String[] details;
+    private final String[] texts;
+    private final int[] keyEntries;
+    private final int[] keyOffsets;
+    private final int[] tree;
+
+    private PrefixIndex(long[] ids, long[] weights, String[] labels, String[] details, String[] texts,
+                        int[] keyEntries, int[] keyOffsets) {
+        this.ids = ids;
+        this.weights = weights;
+        this.labels = labels;
+        this.details = details;
+        this.texts = texts;
+        this.keyEntries = keyEntries;
+        this.keyOffsets = keyOffsets;
+        int keys = keyEntries.length;
+        this.tree = new int[2 * keys];
+        for (int key = 0; key < keys; key++) {
+            tree[keys + key] = key;
+        }
+        for (int node = keys - 1; node > 0; node--) {
+            tree[node] = heavier(tree[2 * node], tree[2 * node + 1]);
+        }
+    }
+
+    static PrefixIndex empty() {
+        return EMPTY;
+    }
+
+    static PrefixIndex build(List<Entry> entries) {
+        List<Entry> sorted = new ArrayList<>(entries);
+        sorted.sort(Comparator.comparingLong(Entry::id));
+        int size = sorted.size();
+        long[] ids = new long[size];
+        long[] weights = new long[size];
+        String[] labels = new String[size];
+        String[] details = new String[size];
+        String[] texts = new String[size];
+        int keyCount = 0;
+        for (int i = 0; i < size; i++) {
+            Entry entry = sorted.get(i);
+            ids[i] = entry.id();
+            weights[i] = entry.weight();
+            labels[i] = entry.label();
+            details[i] = entry.detail();
+            texts[i] = entry.text();
+            keyCount += wordStarts(texts[i]).length;
+        }
+
+        Integer[] order = new Integer[keyCount];
+        int[] entryOf = new int[keyCount];
+        int[] offsetOf = new int[keyCount];
+        int key = 0;
+        for (int i = 0; i < size; i++) {
+            for (int offset : wordStarts(texts[i])) {
+                entryOf[key] = i;
+                offsetOf[key] = offset;
+                order[key] = key;
+                key++;
+            }
+        }
+        Arrays.sort(order, (a, b) -> compareSuffixes(
+                texts[entryOf[a]], offsetOf[a], texts[entryOf[b]], offsetOf[b]));
+
+        int[] keyEntries = new int[keyCount];
+        int[] keyOffsets = new int[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            keyEntries[i] = entryOf[order[i]];
+            keyOffsets[i] = offsetOf[order[i]];
+        }
+        return new PrefixIndex(ids, weights, labels, details, texts, keyEntries, keyOffsets);
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder normalized = new StringBuilder(text.length());
+        boolean space = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (space && !normalized.isEmpty()) {
+                    normalized.append(' ');
+                }
+                space = false;
+                normalized.append(c == 'ё' || c == 'Ё' ? 'е' : Character.toLowerCase(c));
+            } else {
+                space = true;
+            }
+        }
+        return normalized.toString();
+    }
+
+    // For entries outside the index; normalizedPrefix must come from normalize()
+    static boolean matches(String normalizedText, String normalizedPrefix) {
+        for (int offset : wordStarts(normalizedText)) {
+            if (normalizedText.startsWith(normalizedPrefix, offset)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    int size() {
+        return ids.length;
+    }
+
+    long weightOf(long id) {
+        int entry = Arrays.binarySearch(ids, id);
+        return entry >= 0 ? weights[entry] : 0L;
+    }
+
+    List<AutocompleteSuggestion> top(String normalizedPrefix, int limit, LongPredicate skip) {
+        int from = bound(normalizedPrefix, false);
+        int to = bound(normalizedPrefix, true);
+        if (from >= to || normalizedPrefix.isEmpty()) {
+            return List.of();
+        }
+
+        // Ranges of the key order, heaviest range maximum first; an entry matched by several words shows once
+        PriorityQueue<int[]> ranges = new PriorityQueue<>((a, b) -> compareKeys(a[2], b[2]));
+        ranges.add(new int[]{from, to, heaviest(from, to)});
+        Set<Integer> seen = new HashSet<>();
+        List<AutocompleteSuggestion> suggestions = new ArrayList<>(limit);
+        while (!ranges.isEmpty() && suggestions.size() < limit) {
+            int[] range = ranges.poll();
+            int best = range[2];
+            int entry = keyEntries[best];
+            if (seen.add(entry) && !skip.test(ids[entry])) {
+                suggestions.add(new AutocompleteSuggestion(ids[entry], labels[entry], details[entry], weights[entry]));
+            }
+            if (range[0] < best) {
+                ranges.add(new int[]{range[0], best, heaviest(range[0], best)});
+            }
+            if (best + 1 < range[1]) {
+                ranges.add(new int[]{best + 1, range[1], heaviest(best + 1, range[1])});
+            }
+        }
+        return suggestions;
+    }
+
+    // First key whose suffix starts with the prefix (upper = false) or sorts after all such keys (upper = true)
+    private int bound(String prefix, boolean upper) {
+        int low = 0;
+        int high = keyEntries.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int comparison = compareToPrefix(middle, prefix);
+            if (comparison < 0 || (upper && comparison == 0)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int compareToPrefix(int key, String prefix) {
+        String text = texts[keyEntries[key]];
+        int offset = keyOffsets[key];
+        int length = Math.min(text.length() - offset, prefix.length());
+        for (int i = 0; i < length; i++) {
+            int difference = text.charAt(offset + i) - prefix.charAt(i);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return text.length() - offset >= prefix.length() ? 0 : -1;
+    }
+
+    private int heaviest(int from, int to) {
+        int keys = keyEntries.length;
+        int best = -1;
+        for (int low = from + keys, high = to + keys; low < high; low >>= 1, high >>= 1) {
+            if ((low & 1) == 1) {
+                best = heavier(best, tree[low++]);
+            }
+            if ((high & 1) == 1) {
+                best = heavier(best, tree[--high]);
+            }
+        }
+        return best;
+    }
+
+    private int heavier(int a, int b) {
+        if (a < 0) {
+            return b;
+        }
+        return compareKeys(a, b) <= 0 ? a : b;
+    }
+
+    // Heavier entry first, then lower id
+    private int compareKeys(int a, int b) {
+        int entryA = keyEntries[a];
+        int entryB = keyEntries[b];
+        int byWeight = Long.compare(weights[entryB], weights[entryA]);
+        return byWeight != 0 ? byWeight : Integer.compare(entryA, entryB);
+    }
+
+    private static int compareSuffixes(String a, int offsetA, String b, int offsetB) {
+        int length = Math.min(a.length() - offsetA, b.length() - offsetB);
+        for (int i = 0; i < length; i++) {
+            int difference = a.charAt(offsetA + i) - b.charAt(offsetB + i);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return (a.length() - offsetA) - (b.length() - offsetB);
+    }
+
+    private static int[] wordStarts(String normalizedText) {
+        if (normalizedText.isEmpty()) {
+            return new int[0];
+        }
+        int words = 1;
+        for (int i = 0; i < normalizedText.length(); i++) {
+            if (normalizedText.charAt(i) == ' ') {
+                words++;
+            }
+        }
+        int[] starts = new int[words];
+        int word = 1;
+        for (int i = 0; i < normalizedText.length(); i++) {
+            if (normalizedText.charAt(i) == ' ') {
+                starts[word++] = i + 1;
+            }
+        }
+        return starts;
+    }
+
+    // text must already be normalized
+    record Entry(long id, String label, String detail, String text, long weight) {
+
+        AutocompleteSuggestion toSuggestion() {
+            return new AutocompleteSuggestion(id, label, detail, weight);
+        }
+    }
+}
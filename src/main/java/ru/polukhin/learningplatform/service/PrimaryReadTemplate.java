@@ -0,0 +1,43 @@
+package ru.polukhin.learningplatform.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.polukhin.learningplatform.config.PrimaryReads;
+import ru.polukhin.learningplatform.config.ReplicaRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.function.Supplier;
+
+/**
+ * Runs the loaders of the shared caches against the primary when reads go to replicas.
+ * <p>
+ * Inside a read-write transaction a loader already reads the primary. Inside a read-only one, or outside a
+ * transaction, it runs in a new read-only transaction pinned to the primary: a cache miss under a read-only
+ * transaction takes a second connection. Without replicas the loader runs as it is.
+ */
+@Component
+class PrimaryReadTemplate {
+
+    private final boolean routed;
+    private final TransactionTemplate transactionTemplate;
+
+    PrimaryReadTemplate(DataSource dataSource, PlatformTransactionManager transactionManager) throws SQLException {
+        this.routed = dataSource.isWrapperFor(ReplicaRoutingDataSource.class);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    <T> T execute(Supplier<T> loader) {
+        if (!routed || PrimaryReads.isPinned()
+                || TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return loader.get();
+        }
+        return PrimaryReads.call(() -> transactionTemplate.execute(status -> loader.get()));
+    }
+}
@@ -0,0 +1,123 @@
+package ru.polukhin.learningplatform.service;
+
+import ru.polukhin.learningplatform.dto.AnswerKeyOptionRow;
+import ru.polukhin.learningplatform.dto.AnswerKeyQuestionRow;
+import ru.polukhin.learningplatform.entity.QuestionType;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Pre-compiled answer key: correct option ids are kept as sorted long[] per question
+public final class QuizAnswerKey {
+
+    private static final long[] NO_OPTIONS = new long[0];
+
+    private final Long quizId;
+    private final int passingScore;
+    private final long[] questionIds;
+    private final QuestionType[] types;
+    private final int[] points;
+    private final long[][] correctOptionIds;
+    private final int maxScore;
+
+    private QuizAnswerKey(Long quizId, int passingScore, long[] questionIds, QuestionType[] types,
+                          int[] points, long[][] correctOptionIds) {
+        this.quizId = quizId;
+        this.passingScore = passingScore;
+        this.questionIds = questionIds;
+        this.types = types;
+        this.points = points;
+        this.correctOptionIds = correctOptionIds;
+        this.maxScore = Arrays.stream(points).sum();
+    }
+
+    public static QuizAnswerKey compile(Long quizId, int passingScore,
+                                        List<AnswerKeyQuestionRow> questions,
+                                        List<AnswerKeyOptionRow> correctOptions) {
+        Map<Long, long[]> optionsByQuestion = new HashMap<>();
+        for (AnswerKeyOptionRow row : correctOptions) {
+            long[] current = optionsByQuestion.getOrDefault(row.questionId(), NO_OPTIONS);
+            long[] extended = Arrays.copyOf(current, current.length + 1);
+            extended[current.length] = row.optionId();
+            optionsByQuestion.put(row.questionId(), extended);
+        }
+
+        int size = questions.size();
+        long[] questionIds = new long[size];
+        QuestionType[] types = new QuestionType[size];
+        int[] points = new int[size];
+        long[][] correct = new long[size][];
+
+        for (int i = 0; i < size; i++) {
+            AnswerKeyQuestionRow question = questions.get(i);
+            questionIds[i] = question.questionId();
+            types[i] = question.type();
+            points[i] = question.points();
+            long[] options = optionsByQuestion.getOrDefault(question.questionId(), NO_OPTIONS);
+            Arrays.sort(options);
+            correct[i] = options;
+        }
+
+        return new QuizAnswerKey(quizId, passingScore, questionIds, types, points, correct);
+    }
+
+    public Long getQuizId() {
+        return quizId;
+    }
+
+    public int getPassingScore() {
+        return passingScore;
+    }
+
+    public int getMaxScore() {
+        return maxScore;
+    }
+
+    public int getQuestionCount() {
+        return questionIds.length;
+    }
+
+    public GradingResult grade(Map<Long, List<Long>> answers) {
+        int totalScore = 0;
+
+        for (int i = 0; i < questionIds.length; i++) {
+            List<Long> studentAnswers = answers.get(questionIds[i]);
+            if (studentAnswers == null) continue;
+
+            if (checkAnswer(types[i], studentAnswers, correctOptionIds[i])) {
+                totalScore += points[i];
+            }
+        }
+
+        double percentageScore = (totalScore * 100.0) / maxScore;
+        boolean passed = percentageScore >= passingScore;
+        return new GradingResult(totalScore, maxScore, percentageScore, passed);
+    }
+
+    static boolean checkAnswer(QuestionType type, List<Long> studentAnswers, long[] correctOptionIds) {
+        if (type == QuestionType.SINGLE_CHOICE || type == QuestionType.TRUE_FALSE) {
+            if (studentAnswers.size() != 1) return false;
+            Long studentAnswerId = studentAnswers.get(0);
+            return studentAnswerId != null && Arrays.binarySearch(correctOptionIds, studentAnswerId) >= 0;
+        } else if (type == QuestionType.MULTIPLE_CHOICE) {
+            if (studentAnswers.size() != correctOptionIds.length) return false;
+            long[] selected = new long[studentAnswers.size()];
+            for (int i = 0; i < selected.length; i++) {
+                Long answerId = studentAnswers.get(i);
+                if (answerId == null) return false;
+                selected[i] = answerId;
+            }
+            Arrays.sort(selected);
+            for (long correctId : correctOptionIds) {
+                if (Arrays.binarySearch(selected, correctId) < 0) return false;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    public record GradingResult(int score, int maxScore, double percentageScore, boolean passed) {
+    }
+}
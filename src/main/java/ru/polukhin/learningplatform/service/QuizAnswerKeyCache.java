@@ -0,0 +1,83 @@
+package ru.polukhin.learningplatform.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.polukhin.learningplatform.exception.ResourceNotFoundException;
+import ru.polukhin.learningplatform.repository.AnswerOptionRepository;
+import ru.polukhin.learningplatform.repository.QuestionRepository;
+import ru.polukhin.learningplatform.repository.QuizRepository;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Bounded like the quiz regions of the second-level cache; evictions reach only this instance
+@Component
+@Slf4j
+public class QuizAnswerKeyCache {
+
+    private final QuizRepository quizRepository;
+    private final QuestionRepository questionRepository;
+    private final AnswerOptionRepository answerOptionRepository;
+    private final PrimaryReadTemplate primaryReads;
+
+    private final Cache<Long, QuizAnswerKey> keys;
+    private final AtomicLong generation = new AtomicLong();
+
+    public QuizAnswerKeyCache(QuizRepository quizRepository,
+                              QuestionRepository questionRepository,
+                              AnswerOptionRepository answerOptionRepository,
+                              PrimaryReadTemplate primaryReads,
+                              @Value("${app.quiz-answer-key-cache.maximum-size:5000}") long maximumSize,
+                              @Value("${app.quiz-answer-key-cache.expire-after-write:30m}") Duration expireAfterWrite) {
+        this.quizRepository = quizRepository;
+        this.questionRepository = questionRepository;
+        this.answerOptionRepository = answerOptionRepository;
+        this.primaryReads = primaryReads;
+        this.keys = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .build();
+    }
+
+    public QuizAnswerKey get(Long quizId) {
+        QuizAnswerKey key = keys.getIfPresent(quizId);
+        if (key != null) {
+            return key;
+        }
+
+        long startedAt = generation.get();
+        key = primaryReads.execute(() -> compile(quizId));
+        // Do not cache a key that may have been compiled from data invalidated meanwhile
+        if (generation.get() == startedAt) {
+            QuizAnswerKey existing = keys.asMap().putIfAbsent(quizId, key);
+            if (existing != null) {
+                return existing;
+            }
+        }
+        return key;
+    }
+
+    public void evict(Long quizId) {
+        generation.incrementAndGet();
+        keys.invalidate(quizId);
+        // Evict once more after commit: a concurrent reader could have rebuilt the key from old data
+        AfterCommit.run(() -> {
+            generation.incrementAndGet();
+            keys.invalidate(quizId);
+        });
+    }
+
+    private QuizAnswerKey compile(Long quizId) {
+        log.debug("Compiling answer key for quiz id: {}", quizId);
+        Integer passingScore = quizRepository.findPassingScoreById(quizId)
+                .orElseThrow(() -> new ResourceNotFoundException("Quiz", quizId));
+        return QuizAnswerKey.compile(
+                quizId,
+                passingScore,
+                questionRepository.findAnswerKeyRowsByQuizId(quizId),
+                answerOptionRepository.findCorrectAnswerKeyRowsByQuizId(quizId));
+    }
+}
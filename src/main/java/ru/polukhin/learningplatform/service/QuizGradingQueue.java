@@ -0,0 +1,304 @@
+package ru.polukhin.learningplatform.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.polukhin.learningplatform.dto.QuizGradingStatus;
+import ru.polukhin.learningplatform.entity.QuizSubmission;
+import ru.polukhin.learningplatform.exception.DuplicateResourceException;
+import ru.polukhin.learningplatform.exception.ServiceUnavailableException;
+import ru.polukhin.learningplatform.repository.QuizRepository;
+import ru.polukhin.learningplatform.repository.QuizSubmissionRepository;
+import ru.polukhin.learningplatform.repository.UserRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Asynchronous quiz grading. Requests put validated answers on a bounded queue and return at once;
+ * worker threads drain it in batches of up to {@code batch-size}, grade each quiz's share of the batch
+ * against its cached {@link QuizAnswerKey} and insert the submissions in one transaction (JDBC-batched
+ * by Hibernate). If the batch insert fails, its submissions are retried one per transaction so that only
+ * the offending ones are reported as failed. Until a submission is stored, its state is kept here;
+ * afterwards the row itself is the status. A failed state stays for {@code failed-retention} so the client
+ * can read the error, then {@link #purgeFailed()} drops it. Workers drain the queue on shutdown.
+ */
+@Component
+@Slf4j
+public class QuizGradingQueue {
+
+    private static final int RETRY_AFTER_SECONDS = 5;
+
+    private final QuizAnswerKeyCache answerKeyCache;
+    private final QuizRepository quizRepository;
+    private final UserRepository userRepository;
+    private final QuizSubmissionRepository quizSubmissionRepository;
+    private final GradebookService gradebookService;
+    private final TransactionTemplate transactionTemplate;
+    private final int workers;
+    private final int batchSize;
+    private final Duration failedRetention;
+
+    private final BlockingQueue<PendingSubmission> queue;
+    private final Map<SubmissionKey, State> states = new ConcurrentHashMap<>();
+    private final Counter gradedCounter;
+    private final Counter failedCounter;
+    private ExecutorService executor;
+    private volatile boolean running;
+
+    public QuizGradingQueue(QuizAnswerKeyCache answerKeyCache,
+                            QuizRepository quizRepository,
+                            UserRepository userRepository,
+                            QuizSubmissionRepository quizSubmissionRepository,
+                            GradebookService gradebookService,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.quiz-grading.queue-capacity:10000}") int queueCapacity,
+                            @Value("${app.quiz-grading.workers:2}") int workers,
+                            @Value("${app.quiz-grading.batch-size:50}") int batchSize,
+                            @Value("${app.quiz-grading.failed-retention:1h}") Duration failedRetention) {
+        this.answerKeyCache = answerKeyCache;
+        this.quizRepository = quizRepository;
+        this.userRepository = userRepository;
+        this.quizSubmissionRepository = quizSubmissionRepository;
+        this.gradebookService = gradebookService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.failedRetention = failedRetention;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.gradedCounter = meterRegistry.counter("quiz.grading.submissions", "result", "graded");
+        this.failedCounter = meterRegistry.counter("quiz.grading.submissions", "result", "failed");
+        Gauge.builder("quiz.grading.queue.size", queue, BlockingQueue::size)
+                .description("Quiz submissions waiting to be graded")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        AtomicInteger sequence = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(workers, task -> {
+            Thread thread = new Thread(task, "quiz-grading-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < workers; i++) {
+            executor.execute(this::work);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("Quiz grading workers did not finish, {} submissions left in the queue", queue.size());
+            executor.shutdownNow();
+        }
+    }
+
+    // Caller has validated the quiz, the student and that no stored submission exists
+    public QuizGradingStatus enqueue(Long quizId, Long studentId, Map<Long, List<Long>> answers, Integer timeTaken) {
+        SubmissionKey key = new SubmissionKey(quizId, studentId);
+        State queued = new State(QuizGradingStatus.queued(quizId, studentId), null);
+        // A failed attempt may be resubmitted, a queued one may not
+        State current = states.compute(key, (k, previous) ->
+                previous != null && previous.status().status() == QuizGradingStatus.Status.QUEUED ? previous : queued);
+        if (current != queued) {
+            throw new DuplicateResourceException("Quiz already taken by this student");
+        }
+
+        if (!queue.offer(new PendingSubmission(key, answers, timeTaken, LocalDateTime.now()))) {
+            states.remove(key, queued);
+            throw new ServiceUnavailableException("Quiz grading queue is full, retry later", RETRY_AFTER_SECONDS);
+        }
+        return queued.status();
+    }
+
+    public QuizGradingStatus getStatus(Long quizId, Long studentId) {
+        State state = states.get(new SubmissionKey(quizId, studentId));
+        return state != null ? state.status() : null;
+    }
+
+    @Scheduled(fixedDelayString = "${app.quiz-grading.purge-interval:1m}",
+            initialDelayString = "${app.quiz-grading.purge-interval:1m}")
+    public void purgeFailed() {
+        purgeFailedBefore(Instant.now().minus(failedRetention));
+    }
+
+    // Conditional removal per entry: a state replaced by a resubmission meanwhile is kept
+    void purgeFailedBefore(Instant cutoff) {
+        states.entrySet().removeIf(entry -> entry.getValue().failedAt() != null
+                && !entry.getValue().failedAt().isAfter(cutoff));
+    }
+
+    public boolean isQueued(Long quizId, Long studentId) {
+        QuizGradingStatus status = getStatus(quizId, studentId);
+        return status != null && status.status() == QuizGradingStatus.Status.QUEUED;
+    }
+
+    private void work() {
+        List<PendingSubmission> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingSubmission first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                grade(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Quiz grading batch of {} failed", batch.size(), e);
+                batch.forEach(pending -> fail(pending, "Grading failed"));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void grade(List<PendingSubmission> batch) {
+        Map<Long, List<PendingSubmission>> byQuiz = new LinkedHashMap<>();
+        for (PendingSubmission pending : batch) {
+            byQuiz.computeIfAbsent(pending.key().quizId(), quizId -> new ArrayList<>()).add(pending);
+        }
+
+        List<GradedSubmission> graded = new ArrayList<>(batch.size());
+        for (Map.Entry<Long, List<PendingSubmission>> entry : byQuiz.entrySet()) {
+            QuizAnswerKey answerKey;
+            try {
+                answerKey = answerKeyCache.get(entry.getKey());
+            } catch (RuntimeException e) {
+                entry.getValue().forEach(pending -> fail(pending, e.getMessage()));
+                continue;
+            }
+            for (PendingSubmission pending : entry.getValue()) {
+                graded.add(new GradedSubmission(pending, answerKey.grade(pending.answers())));
+            }
+        }
+        if (graded.isEmpty()) {
+            return;
+        }
+
+        try {
+            Set<SubmissionKey> duplicates = transactionTemplate.execute(status -> insert(graded));
+            for (GradedSubmission submission : graded) {
+                if (duplicates.contains(submission.pending().key())) {
+                    fail(submission.pending(), "Quiz already taken by this student");
+                } else {
+                    stored(submission.pending());
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Batch insert of {} quiz submissions failed, retrying one by one", graded.size(), e);
+            for (GradedSubmission submission : graded) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> {
+                        quizSubmissionRepository.save(toEntity(submission));
+                        gradebookService.quizzesTaken(List.of(toResult(submission)));
+                    });
+                    stored(submission.pending());
+                } catch (RuntimeException single) {
+                    fail(submission.pending(), "Submission could not be stored");
+                }
+            }
+        }
+    }
+
+    // Skips students that already have a stored submission (taken synchronously or on another node)
+    private Set<SubmissionKey> insert(List<GradedSubmission> graded) {
+        Map<Long, List<Long>> studentsByQuiz = new LinkedHashMap<>();
+        for (GradedSubmission submission : graded) {
+            SubmissionKey key = submission.pending().key();
+            studentsByQuiz.computeIfAbsent(key.quizId(), quizId -> new ArrayList<>()).add(key.studentId());
+        }
+        Set<SubmissionKey> duplicates = new HashSet<>();
+        studentsByQuiz.forEach((quizId, studentIds) -> quizSubmissionRepository
+                .findStudentIdsByQuizIdAndStudentIdIn(quizId, studentIds)
+                .forEach(studentId -> duplicates.add(new SubmissionKey(quizId, studentId))));
+
+        List<QuizSubmission> fresh = new ArrayList<>(graded.size());
+        List<GradebookService.QuizResult> results = new ArrayList<>(graded.size());
+        for (GradedSubmission submission : graded) {
+            if (!duplicates.contains(submission.pending().key())) {
+                fresh.add(toEntity(submission));
+                results.add(toResult(submission));
+            }
+        }
+        quizSubmissionRepository.saveAll(fresh);
+        gradebookService.quizzesTaken(results);
+        return duplicates;
+    }
+
+    private QuizSubmission toEntity(GradedSubmission submission) {
+        PendingSubmission pending = submission.pending();
+        QuizAnswerKey.GradingResult result = submission.result();
+        return QuizSubmission.builder()
+                .student(userRepository.getReferenceById(pending.key().studentId()))
+                .quiz(quizRepository.getReferenceById(pending.key().quizId()))
+                .score(result.score())
+                .maxScore(result.maxScore())
+                .percentageScore(result.percentageScore())
+                .passed(result.passed())
+                .submittedAt(pending.submittedAt())
+                .timeTakenMinutes(pending.timeTaken())
+                .build();
+    }
+
+    private static GradebookService.QuizResult toResult(GradedSubmission submission) {
+        QuizAnswerKey.GradingResult result = submission.result();
+        return new GradebookService.QuizResult(submission.pending().key().quizId(),
+                submission.pending().key().studentId(), result.score(), result.maxScore(), result.passed());
+    }
+
+    private void stored(PendingSubmission pending) {
+        states.remove(pending.key());
+        gradedCounter.increment();
+    }
+
+    private void fail(PendingSubmission pending, String error) {
+        states.put(pending.key(), new State(
+                QuizGradingStatus.failed(pending.key().quizId(), pending.key().studentId(), error), Instant.now()));
+        failedCounter.increment();
+    }
+
+    private record SubmissionKey(Long quizId, Long studentId) {
+    }
+
+    // failedAt is set for failed states only
+    private record State(QuizGradingStatus status, Instant failedAt) {
+    }
+
+    private record PendingSubmission(SubmissionKey key, Map<Long, List<Long>> answers, Integer timeTaken,
+                                     LocalDateTime submittedAt) {
+    }
+
+    private record GradedSubmission(PendingSubmission pending, QuizAnswerKey.GradingResult result) {
+    }
+}
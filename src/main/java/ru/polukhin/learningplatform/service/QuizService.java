@@ -2,17 +2,32 @@ package ru.polukhin.learningplatform.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.polukhin.learningplatform.dto.AnswerOptionView;
+import ru.polukhin.learningplatform.dto.CursorPage;
+import ru.polukhin.learningplatform.dto.ExportFormat;
+import ru.polukhin.learningplatform.dto.QuestionView;
+import ru.polukhin.learningplatform.dto.QuizGradingStatus;
+import ru.polukhin.learningplatform.dto.QuizSubmissionExportRow;
+import ru.polukhin.learningplatform.dto.QuizSubmissionView;
+import ru.polukhin.learningplatform.dto.QuizView;
+import ru.polukhin.learningplatform.dto.QuizWithQuestionsView;
 import ru.polukhin.learningplatform.entity.*;
-import ru.polukhin.learningplatform.exception.BusinessException;
 import ru.polukhin.learningplatform.exception.DuplicateResourceException;
 import ru.polukhin.learningplatform.exception.ResourceNotFoundException;
+import ru.polukhin.learningplatform.exception.UniqueConstraintTranslator;
 import ru.polukhin.learningplatform.repository.*;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -25,43 +40,65 @@ public class QuizService {
     private final AnswerOptionRepository answerOptionRepository;
     private final QuizSubmissionRepository quizSubmissionRepository;
     private final UserRepository userRepository;
-
-    public List<Quiz> getAllQuizzes() {
-        log.debug("Fetching all quizzes");
-        return quizRepository.findAll();
+    private final UserLookup userLookup;
+    private final QuizAnswerKeyCache answerKeyCache;
+    private final QuizSubmissionExporter submissionExporter;
+    private final QuizGradingQueue gradingQueue;
+    private final GradebookService gradebookService;
+    private final CourseOutlineCache courseOutlineCache;
+    private final RenderedJsonCache renderedJsonCache;
+    private final SubmissionArchiveService submissionArchiveService;
+    private final PrimaryReadTemplate primaryReads;
+
+    public CursorPage<QuizView> getAllQuizzes(String cursor, Integer size) {
+        log.debug("Fetching quizzes page after cursor: {}", cursor);
+        PageCursor page = PageCursor.of(cursor, size);
+        return page.toPage(quizRepository.findPageAfter(page.afterId(), page.limit()), QuizView::id);
     }
 
-    public Quiz getQuizById(Long id) {
+    public QuizView getQuizById(Long id) {
         log.debug("Fetching quiz by id: {}", id);
-        return quizRepository.findById(id)
+        return quizRepository.findViewById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Quiz", id));
     }
 
-    @Transactional
-    public Quiz getQuizWithQuestions(Long id) {
+    public QuizWithQuestionsView getQuizWithQuestions(Long id) {
         log.debug("Fetching quiz with questions by id: {}", id);
-        Quiz quiz = quizRepository.findByIdWithFullStructure(id);
-        if (quiz == null) {
-            throw new ResourceNotFoundException("Quiz", id);
+        QuizView quiz = getQuizById(id);
+        List<QuestionView> questions = questionRepository.findViewsByQuizId(id);
+
+        Map<Long, List<AnswerOptionView>> optionsByQuestion = new HashMap<>();
+        for (AnswerOptionView option : answerOptionRepository.findViewsByQuizId(id)) {
+            optionsByQuestion.computeIfAbsent(option.questionId(), questionId -> new ArrayList<>()).add(option);
         }
-        return quiz;
+
+        List<QuestionView> structure = new ArrayList<>(questions.size());
+        for (QuestionView question : questions) {
+            structure.add(question.withAnswerOptions(optionsByQuestion.getOrDefault(question.id(), List.of())));
+        }
+        return new QuizWithQuestionsView(quiz, structure);
     }
 
     @Transactional
     public Quiz createQuiz(Quiz quiz) {
         log.info("Creating new quiz: {}", quiz.getTitle());
-        return quizRepository.save(quiz);
+        Quiz saved = quizRepository.save(quiz);
+        evictCourseOutline(saved.getId());
+        return saved;
     }
 
     @Transactional
     public Quiz updateQuiz(Long id, Quiz quizDetails) {
         log.info("Updating quiz with id: {}", id);
         
-        Quiz quiz = getQuizById(id);
+        Quiz quiz = findQuiz(id);
         quiz.setTitle(quizDetails.getTitle());
         quiz.setDescription(quizDetails.getDescription());
         quiz.setPassingScore(quizDetails.getPassingScore());
         quiz.setTimeLimitMinutes(quizDetails.getTimeLimitMinutes());
+        answerKeyCache.evict(id);
+        renderedJsonCache.evict(RenderedJsonCache.Resource.QUIZ_WITH_QUESTIONS, id);
+        evictCourseOutline(id);
         
         return quizRepository.save(quiz);
     }
@@ -69,21 +106,27 @@ public class QuizService {
     @Transactional
     public void deleteQuiz(Long id) {
         log.info("Deleting quiz with id: {}", id);
-        Quiz quiz = getQuizById(id);
+        Quiz quiz = findQuiz(id);
+        evictCourseOutline(id);
         quizRepository.delete(quiz);
+        answerKeyCache.evict(id);
+        renderedJsonCache.evict(RenderedJsonCache.Resource.QUIZ_WITH_QUESTIONS, id);
     }
 
     @Transactional
     public Question addQuestionToQuiz(Long quizId, Question question) {
         log.info("Adding question to quiz id: {}", quizId);
         
-        Quiz quiz = getQuizById(quizId);
+        Quiz quiz = findQuiz(quizId);
         question.setQuiz(quiz);
         
         if (question.getOrderIndex() == null) {
             question.setOrderIndex(quiz.getQuestions().size());
         }
+        quiz.getQuestions().add(question);
         
+        answerKeyCache.evict(quizId);
+        renderedJsonCache.evict(RenderedJsonCache.Resource.QUIZ_WITH_QUESTIONS, quizId);
         return questionRepository.save(question);
     }
 
@@ -99,7 +142,10 @@ public class QuizService {
         if (answerOption.getOrderIndex() == null) {
             answerOption.setOrderIndex(question.getAnswerOptions().size());
         }
+        question.getAnswerOptions().add(answerOption);
         
+        answerKeyCache.evict(question.getQuiz().getId());
+        renderedJsonCache.evict(RenderedJsonCache.Resource.QUIZ_WITH_QUESTIONS, question.getQuiz().getId());
         return answerOptionRepository.save(answerOption);
     }
 
@@ -107,77 +153,101 @@ public class QuizService {
     public QuizSubmission takeQuiz(Long quizId, Long studentId, Map<Long, List<Long>> answers, Integer timeTaken) {
         log.info("Student {} taking quiz {}", studentId, quizId);
         
-        Quiz quiz = getQuizWithQuestions(quizId);
-        User student = userRepository.findById(studentId)
-                .orElseThrow(() -> new ResourceNotFoundException("User", studentId));
-        
-        if (student.getRole() != RoleType.STUDENT) {
-            throw new BusinessException("User is not a student");
-        }
-        
-        if (quizSubmissionRepository.existsByStudentAndQuiz(student, quiz)) {
+        QuizAnswerKey answerKey = answerKeyCache.get(quizId);
+        userLookup.requireStudent(studentId);
+        if (gradingQueue.isQueued(quizId, studentId)) {
             throw new DuplicateResourceException("Quiz already taken by this student");
         }
+        submissionArchiveService.rejectArchivedQuizSubmission(quizId, studentId);
         
-        // Calculate score
-        int totalScore = 0;
-        int maxScore = 0;
-        
-        for (Question question : quiz.getQuestions()) {
-            maxScore += question.getPoints();
-            
-            List<Long> studentAnswers = answers.get(question.getId());
-            if (studentAnswers == null) continue;
-            
-            List<AnswerOption> correctAnswers = answerOptionRepository
-                    .findCorrectAnswersByQuestionId(question.getId());
-            
-            boolean isCorrect = checkAnswer(question, studentAnswers, correctAnswers);
-            if (isCorrect) {
-                totalScore += question.getPoints();
-            }
-        }
-        
-        double percentageScore = (totalScore * 100.0) / maxScore;
-        boolean passed = percentageScore >= quiz.getPassingScore();
+        QuizAnswerKey.GradingResult result = answerKey.grade(answers);
         
         QuizSubmission submission = QuizSubmission.builder()
-                .student(student)
-                .quiz(quiz)
-                .score(totalScore)
-                .maxScore(maxScore)
-                .percentageScore(percentageScore)
-                .passed(passed)
+                .student(userRepository.getReferenceById(studentId))
+                .quiz(quizRepository.getReferenceById(quizId))
+                .score(result.score())
+                .maxScore(result.maxScore())
+                .percentageScore(result.percentageScore())
+                .passed(result.passed())
                 .submittedAt(LocalDateTime.now())
                 .timeTakenMinutes(timeTaken)
                 .build();
         
-        return quizSubmissionRepository.save(submission);
-    }
-
-    private boolean checkAnswer(Question question, List<Long> studentAnswers, List<AnswerOption> correctAnswers) {
-        if (question.getType() == QuestionType.SINGLE_CHOICE) {
-            if (studentAnswers.size() != 1) return false;
-            Long studentAnswerId = studentAnswers.get(0);
-            return correctAnswers.stream().anyMatch(a -> a.getId().equals(studentAnswerId));
-        } else if (question.getType() == QuestionType.MULTIPLE_CHOICE) {
-            if (studentAnswers.size() != correctAnswers.size()) return false;
-            return studentAnswers.containsAll(correctAnswers.stream().map(AnswerOption::getId).toList());
-        } else if (question.getType() == QuestionType.TRUE_FALSE) {
-            if (studentAnswers.size() != 1) return false;
-            Long studentAnswerId = studentAnswers.get(0);
-            return correctAnswers.stream().anyMatch(a -> a.getId().equals(studentAnswerId));
+        QuizSubmission saved;
+        try {
+            saved = quizSubmissionRepository.saveAndFlush(submission);
+        } catch (DataIntegrityViolationException e) {
+            throw UniqueConstraintTranslator.translate(e);
         }
-        return false;
+        gradebookService.quizzesTaken(List.of(new GradebookService.QuizResult(
+                quizId, studentId, result.score(), result.maxScore(), result.passed())));
+        return saved;
     }
 
-    public List<QuizSubmission> getSubmissionsByStudent(Long studentId) {
+    // Validates like takeQuiz, then leaves grading and the insert to QuizGradingQueue workers.
+    // Read-write like takeQuiz: the duplicate check must see the primary, not a lagging replica
+    @Transactional
+    public QuizGradingStatus takeQuizAsync(Long quizId, Long studentId, Map<Long, List<Long>> answers, Integer timeTaken) {
+        log.debug("Student {} queueing quiz {} for grading", studentId, quizId);
+        
+        answerKeyCache.get(quizId);
+        userLookup.requireStudent(studentId);
+        // Kept here: the insert happens after the 202, too late to report the duplicate
+        if (quizSubmissionRepository.existsByQuizIdAndStudentId(quizId, studentId)) {
+            throw new DuplicateResourceException("Quiz already taken by this student");
+        }
+        submissionArchiveService.rejectArchivedQuizSubmission(quizId, studentId);
+        
+        return gradingQueue.enqueue(quizId, studentId, answers, timeTaken);
+    }
+
+    // Workers forget a submission only after its row is committed on the primary. A replica may not have the row
+    // yet, so a miss there is looked up again on the primary before answering 404
+    public QuizGradingStatus getGradingStatus(Long quizId, Long studentId) {
+        QuizGradingStatus status = gradingQueue.getStatus(quizId, studentId);
+        if (status != null) {
+            return status;
+        }
+        return quizSubmissionRepository.findViewByQuizIdAndStudentId(quizId, studentId)
+                .or(() -> primaryReads.execute(() ->
+                        quizSubmissionRepository.findViewByQuizIdAndStudentId(quizId, studentId)))
+                .map(QuizGradingStatus::graded)
+                .orElseThrow(() -> new ResourceNotFoundException(
+                        "Quiz submission", "quiz and student", quizId + ", " + studentId));
+    }
+
+    public CursorPage<QuizSubmissionView> getSubmissionsByStudent(Long studentId, String cursor, Integer size) {
         log.debug("Fetching quiz submissions for student id: {}", studentId);
-        return quizSubmissionRepository.findByStudentId(studentId);
+        PageCursor page = PageCursor.of(cursor, size);
+        return page.toPage(quizSubmissionRepository.findPageByStudentIdAfter(studentId, page.afterId(), page.limit()),
+                QuizSubmissionView::id);
     }
 
-    public List<QuizSubmission> getSubmissionsByQuiz(Long quizId) {
+    public CursorPage<QuizSubmissionView> getSubmissionsByQuiz(Long quizId, String cursor, Integer size) {
         log.debug("Fetching quiz submissions for quiz id: {}", quizId);
-        return quizSubmissionRepository.findByQuizId(quizId);
+        PageCursor page = PageCursor.of(cursor, size);
+        return page.toPage(quizSubmissionRepository.findPageByQuizIdAfter(quizId, page.afterId(), page.limit()),
+                QuizSubmissionView::id);
+    }
+
+    public long exportSubmissionsByQuiz(Long quizId, ExportFormat format, OutputStream output) throws IOException {
+        log.info("Exporting quiz submissions for quiz id: {} as {}", quizId, format);
+        if (!quizRepository.existsById(quizId)) {
+            throw new ResourceNotFoundException("Quiz", quizId);
+        }
+        try (Stream<QuizSubmissionExportRow> rows = quizSubmissionRepository.streamExportRowsByQuizId(quizId)) {
+            return submissionExporter.write(rows, format, output);
+        }
+    }
+
+    // By id: the module of a new quiz may be a bare reference without its course
+    private void evictCourseOutline(Long quizId) {
+        quizRepository.findCourseIdRowsByIds(List.of(quizId))
+                .forEach(row -> courseOutlineCache.evict(row.courseId()));
+    }
+
+    private Quiz findQuiz(Long id) {
+        return quizRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Quiz", id));
     }
 }
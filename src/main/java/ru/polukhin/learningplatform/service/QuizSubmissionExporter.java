@@ -0,0 +1,100 @@
+package ru.polukhin.learningplatform.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.polukhin.learningplatform.dto.ExportFormat;
+import ru.polukhin.learningplatform.dto.QuizSubmissionExportRow;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Component
+@RequiredArgsConstructor
+public class QuizSubmissionExporter {
+
+    private static final String CSV_HEADER =
+            "submissionId,studentId,username,score,maxScore,percentageScore,passed,submittedAt,timeTakenMinutes";
+
+    private final ObjectMapper objectMapper;
+
+    public long write(Stream<QuizSubmissionExportRow> rows, ExportFormat format, OutputStream output) throws IOException {
+        return switch (format) {
+            case NDJSON -> writeNdjson(rows, output);
+            case CSV -> writeCsv(rows, output);
+        };
+    }
+
+    // Buffered like the CSV writer: no flush per row. The separator goes between rows, the last newline after them
+    private long writeNdjson(Stream<QuizSubmissionExportRow> rows, OutputStream output) throws IOException {
+        long count = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(output)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            try (SequenceWriter sequence = objectMapper.writer()
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                    .withRootValueSeparator("\n")
+                    .writeValues(generator)) {
+                Iterator<QuizSubmissionExportRow> iterator = rows.iterator();
+                while (iterator.hasNext()) {
+                    sequence.write(iterator.next());
+                    count++;
+                }
+            }
+            if (count > 0) {
+                generator.writeRaw('\n');
+            }
+        }
+        return count;
+    }
+
+    private long writeCsv(Stream<QuizSubmissionExportRow> rows, OutputStream output) throws IOException {
+        long count = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        Iterator<QuizSubmissionExportRow> iterator = rows.iterator();
+        while (iterator.hasNext()) {
+            QuizSubmissionExportRow row = iterator.next();
+            writer.write(String.valueOf(row.submissionId()));
+            writer.write(',');
+            writer.write(String.valueOf(row.studentId()));
+            writer.write(',');
+            writer.write(csvField(row.username()));
+            writer.write(',');
+            writer.write(String.valueOf(row.score()));
+            writer.write(',');
+            writer.write(String.valueOf(row.maxScore()));
+            writer.write(',');
+            writer.write(String.valueOf(row.percentageScore()));
+            writer.write(',');
+            writer.write(String.valueOf(row.passed()));
+            writer.write(',');
+            writer.write(row.submittedAt() != null ? row.submittedAt().toString() : "");
+            writer.write(',');
+            writer.write(row.timeTakenMinutes() != null ? row.timeTakenMinutes().toString() : "");
+            writer.write('\n');
+            count++;
+        }
+        writer.flush();
+        return count;
+    }
+
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
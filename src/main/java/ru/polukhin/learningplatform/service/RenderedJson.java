@@ -0,0 +1,5 @@
+package ru.polukhin.learningplatform.service;
+
+// UTF-8 JSON of a view, its gzip form (null when too small to be worth compressing) and a digest of the JSON
+public record RenderedJson(byte[] json, byte[] gzip, String digest) {
+}
@@ -0,0 +1,127 @@
+package ru.polukhin.learningplatform.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Response bodies of the large read-mostly views, serialized once and kept as bytes until the data
+ * behind them changes.
+ * <p>
+ * ETags are built from a digest of the JSON rather than from {@code updatedAt} values: deleting a child
+ * row does not touch any remaining timestamp. Writers call {@link #evict(Resource, Long)} in the same
+ * places where they invalidate the underlying caches.
+ * <p>
+ * At most {@code app.rendered-json-cache.maximum-size} bodies are kept, each for
+ * {@code app.rendered-json-cache.expire-after-write}, like the course and quiz regions of the second-level
+ * cache. Evictions reach only this instance; the expiry bounds how long another one serves an old body.
+ */
+@Component
+@Slf4j
+public class RenderedJsonCache {
+
+    // Below this size gzip saves less than its header and the CPU it costs
+    static final int MIN_GZIP_SIZE = 1024;
+
+    public enum Resource {
+        COURSE_OUTLINE,
+        QUIZ_WITH_QUESTIONS
+    }
+
+    private final ObjectMapper objectMapper;
+    private final PrimaryReadTemplate primaryReads;
+
+    private final Cache<Key, RenderedJson> rendered;
+    private final AtomicLong generation = new AtomicLong();
+
+    public RenderedJsonCache(ObjectMapper objectMapper,
+                             PrimaryReadTemplate primaryReads,
+                             @Value("${app.rendered-json-cache.maximum-size:5000}") long maximumSize,
+                             @Value("${app.rendered-json-cache.expire-after-write:10m}") Duration expireAfterWrite) {
+        this.objectMapper = objectMapper;
+        this.primaryReads = primaryReads;
+        this.rendered = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .build();
+    }
+
+    // view is called only on a miss, reading the primary; its exceptions (e.g. not found) propagate and
+    // nothing is cached
+    public RenderedJson get(Resource resource, Long id, Supplier<?> view) {
+        Key key = new Key(resource, id);
+        RenderedJson json = rendered.getIfPresent(key);
+        if (json != null) {
+            return json;
+        }
+
+        long startedAt = generation.get();
+        json = render(primaryReads.execute(view));
+        // Do not cache bytes that may have been rendered from data invalidated meanwhile
+        if (generation.get() == startedAt) {
+            RenderedJson existing = rendered.asMap().putIfAbsent(key, json);
+            if (existing != null) {
+                return existing;
+            }
+        }
+        return json;
+    }
+
+    public void evict(Resource resource, Long id) {
+        Key key = new Key(resource, id);
+        generation.incrementAndGet();
+        rendered.invalidate(key);
+        // Evict once more after commit: a concurrent reader could have rendered the old data
+        AfterCommit.run(() -> {
+            generation.incrementAndGet();
+            rendered.invalidate(key);
+        });
+    }
+
+    public void evictAll(Resource resource) {
+        generation.incrementAndGet();
+        rendered.asMap().keySet().removeIf(key -> key.resource() == resource);
+        AfterCommit.run(() -> {
+            generation.incrementAndGet();
+            rendered.asMap().keySet().removeIf(key -> key.resource() == resource);
+        });
+    }
+
+    private RenderedJson render(Object view) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(view);
+            byte[] gzip = null;
+            if (json.length >= MIN_GZIP_SIZE) {
+                ByteArrayOutputStream buffer = new ByteArrayOutputStream(json.length / 4);
+                try (GZIPOutputStream output = new GZIPOutputStream(buffer)) {
+                    output.write(json);
+                }
+                gzip = buffer.toByteArray();
+            }
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+            return new RenderedJson(json, gzip, HexFormat.of().formatHex(Arrays.copyOf(digest, 16)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record Key(Resource resource, Long id) {
+    }
+}
@@ -0,0 +1,82 @@
+package ru.polukhin.learningplatform.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+// HTML-escaped excerpt around the first matched term, matches wrapped in <em>
+final class SearchHighlighter {
+
+    private static final int LEADING_CONTEXT = 60;
+    private static final String ELLIPSIS = "…";
+
+    private SearchHighlighter() {
+    }
+
+    static String highlight(String text, Set<String> terms, int maxLength) {
+        if (text == null || text.isEmpty()) {
+            return null;
+        }
+        List<int[]> matches = new ArrayList<>();
+        SearchTokenizer.tokenize(text, (term, start, end) -> {
+            if (terms.contains(term)) {
+                matches.add(new int[]{start, end});
+            }
+        });
+
+        int from = 0;
+        if (!matches.isEmpty() && text.length() > maxLength) {
+            int firstMatch = matches.get(0)[0];
+            from = Math.max(0, firstMatch - LEADING_CONTEXT);
+            int space = text.indexOf(' ', from);
+            if (from > 0 && space >= 0 && space < firstMatch) {
+                from = space + 1;
+            }
+        }
+        int to = Math.min(text.length(), from + maxLength);
+        if (to < text.length()) {
+            int space = text.lastIndexOf(' ', to);
+            if (space > from) {
+                to = space;
+            }
+        }
+
+        StringBuilder excerpt = new StringBuilder(to - from + 16);
+        if (from > 0) {
+            excerpt.append(ELLIPSIS);
+        }
+        int position = from;
+        for (int[] match : matches) {
+            if (match[0] < from) {
+                continue;
+            }
+            if (match[1] > to) {
+                break;
+            }
+            escape(text, position, match[0], excerpt);
+            excerpt.append("<em>");
+            escape(text, match[0], match[1], excerpt);
+            excerpt.append("</em>");
+            position = match[1];
+        }
+        escape(text, position, to, excerpt);
+        if (to < text.length()) {
+            excerpt.append(ELLIPSIS);
+        }
+        return excerpt.toString();
+    }
+
+    private static void escape(String text, int from, int to, StringBuilder out) {
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '&' -> out.append("&amp;");
+                case '"' -> out.append("&quot;");
+                case '\'' -> out.append("&#39;");
+                default -> out.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,421 @@
+package ru.polukhin.learningplatform.service;
+
+import ru.polukhin.learningplatform.dto.CourseSearchRow;
+import ru.polukhin.learningplatform.dto.LessonSearchRow;
+import ru.polukhin.learningplatform.dto.SearchFacet;
+import ru.polukhin.learningplatform.dto.SearchHit;
+import ru.polukhin.learningplatform.entity.DifficultyLevel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over course titles and descriptions and lesson titles and contents, ranked with BM25.
+ * <p>
+ * Every indexed version of a document gets a new ordinal, so postings are append-only arrays of
+ * (ordinal, term frequency) in ordinal order. Replacing or removing a document only marks its old ordinal
+ * dead; once dead postings make up a quarter of the index they are dropped and the ordinals renumbered.
+ * Title words count {@value #TITLE_WEIGHT} times towards term frequency and document length. Category,
+ * difficulty and the published flag are kept per course and applied to its lessons at query time, so
+ * editing a course does not reindex its lessons. Queries share a read lock; writes take the write lock.
+ */
+final class SearchIndex {
+
+    static final int TITLE_WEIGHT = 3;
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final long MIN_DEAD_POSTINGS_TO_COMPACT = 10_000;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private static final Comparator<Hit> BEST_FIRST = Comparator.comparingDouble(Hit::score).reversed()
+            .thenComparing(Hit::type)
+            .thenComparingLong(Hit::id);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<Long, Integer> lessonOrdinals = new HashMap<>();
+    private final Map<Long, CourseEntry> courses = new HashMap<>();
+    private final List<CourseEntry> courseSlots = new ArrayList<>();
+
+    private SearchHit.Type[] types = new SearchHit.Type[INITIAL_CAPACITY];
+    private long[] entityIds = new long[INITIAL_CAPACITY];
+    private CourseEntry[] owners = new CourseEntry[INITIAL_CAPACITY];
+    private int[] lengths = new int[INITIAL_CAPACITY];
+    private int[] termCounts = new int[INITIAL_CAPACITY];
+    private BitSet live = new BitSet();
+    private int ordinals;
+    private int liveDocuments;
+    private long totalLength;
+    private long totalPostings;
+    private long deadPostings;
+
+    void putCourse(CourseSearchRow row) {
+        Document document = Document.of(row.title(), row.description());
+        lock.writeLock().lock();
+        try {
+            CourseEntry course = courses.computeIfAbsent(row.id(), this::newCourse);
+            course.title = row.title();
+            course.categoryId = row.categoryId();
+            course.categoryName = row.categoryName();
+            course.difficultyLevel = row.difficultyLevel();
+            course.published = Boolean.TRUE.equals(row.published());
+            if (course.ordinal >= 0) {
+                kill(course.ordinal);
+            }
+            course.ordinal = add(SearchHit.Type.COURSE, row.id(), course, document);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // A lesson whose course is not indexed yet stays hidden until putCourse() fills in the course
+    void putLesson(LessonSearchRow row) {
+        Document document = Document.of(row.title(), row.content());
+        lock.writeLock().lock();
+        try {
+            removeLessonLocked(row.id());
+            CourseEntry course = courses.computeIfAbsent(row.courseId(), this::newCourse);
+            lessonOrdinals.put(row.id(), add(SearchHit.Type.LESSON, row.id(), course, document));
+            course.lessons.add(row.id());
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Removes the course together with its lessons
+    void removeCourse(Long courseId) {
+        lock.writeLock().lock();
+        try {
+            CourseEntry course = courses.remove(courseId);
+            if (course == null) {
+                return;
+            }
+            course.published = false;
+            if (course.ordinal >= 0) {
+                kill(course.ordinal);
+            }
+            course.lessons.forEach(lessonId -> kill(lessonOrdinals.remove(lessonId)));
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void removeLesson(Long lessonId) {
+        lock.writeLock().lock();
+        try {
+            removeLessonLocked(lessonId);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return liveDocuments;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    Result search(Query query) {
+        lock.readLock().lock();
+        try {
+            float[] scores = new float[ordinals];
+            int[] touched = new int[64];
+            int touchedCount = 0;
+            float averageLength = liveDocuments > 0 ? (float) totalLength / liveDocuments : 1f;
+
+            for (String term : query.terms()) {
+                Postings list = postings.get(term);
+                if (list == null) {
+                    continue;
+                }
+                // Dead postings are still counted until compaction, a slight overestimate
+                int documentFrequency = Math.min(list.size, liveDocuments);
+                float idf = (float) Math.log(1 + (liveDocuments - documentFrequency + 0.5) / (documentFrequency + 0.5));
+                for (int i = 0; i < list.size; i++) {
+                    int ordinal = list.ordinals[i];
+                    if (!live.get(ordinal)) {
+                        continue;
+                    }
+                    int frequency = list.frequencies[i];
+                    float norm = K1 * (1 - B + B * lengths[ordinal] / averageLength);
+                    if (scores[ordinal] == 0) {
+                        if (touchedCount == touched.length) {
+                            touched = Arrays.copyOf(touched, touchedCount * 2);
+                        }
+                        touched[touchedCount++] = ordinal;
+                    }
+                    scores[ordinal] += idf * frequency * (K1 + 1) / (frequency + norm);
+                }
+            }
+
+            // Facets are counted per course first and rolled up once, off the per-document path
+            int[] categoryMatchesPerCourse = new int[courseSlots.size()];
+            int[] difficultyMatchesPerCourse = new int[courseSlots.size()];
+            PriorityQueue<Hit> top = new PriorityQueue<>(BEST_FIRST.reversed());
+            int total = 0;
+            for (int i = 0; i < touchedCount; i++) {
+                int ordinal = touched[i];
+                if (query.type() != null && types[ordinal] != query.type()) {
+                    continue;
+                }
+                CourseEntry course = owners[ordinal];
+                if (!course.published) {
+                    continue;
+                }
+                boolean categoryMatches = query.categoryId() == null || query.categoryId().equals(course.categoryId);
+                boolean difficultyMatches = query.difficultyLevel() == null
+                        || query.difficultyLevel() == course.difficultyLevel;
+                // Each facet counts the matches left by the other filter, so all of its values stay selectable
+                if (difficultyMatches) {
+                    categoryMatchesPerCourse[course.slot]++;
+                }
+                if (categoryMatches) {
+                    difficultyMatchesPerCourse[course.slot]++;
+                }
+                if (!categoryMatches || !difficultyMatches) {
+                    continue;
+                }
+
+                total++;
+                float score = scores[ordinal];
+                if (top.size() == query.limit() && score < top.peek().score()) {
+                    continue;
+                }
+                Hit hit = new Hit(types[ordinal], entityIds[ordinal], course.id, course.snapshot(), score);
+                if (top.size() < query.limit()) {
+                    top.add(hit);
+                } else if (BEST_FIRST.compare(hit, top.peek()) < 0) {
+                    top.poll();
+                    top.add(hit);
+                }
+            }
+
+            Map<Long, FacetCount> categories = new HashMap<>();
+            Map<DifficultyLevel, FacetCount> difficultyLevels = new EnumMap<>(DifficultyLevel.class);
+            for (int slot = 0; slot < categoryMatchesPerCourse.length; slot++) {
+                CourseEntry course = courseSlots.get(slot);
+                if (categoryMatchesPerCourse[slot] > 0) {
+                    categories.computeIfAbsent(course.categoryId,
+                            id -> new FacetCount(String.valueOf(id), course.categoryName))
+                            .count += categoryMatchesPerCourse[slot];
+                }
+                if (difficultyMatchesPerCourse[slot] > 0) {
+                    difficultyLevels.computeIfAbsent(course.difficultyLevel,
+                            level -> new FacetCount(level.name(), level.name()))
+                            .count += difficultyMatchesPerCourse[slot];
+                }
+            }
+
+            List<Hit> hits = new ArrayList<>(top);
+            hits.sort(BEST_FIRST);
+            return new Result(total, hits, facets(categories), facets(difficultyLevels));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private CourseEntry newCourse(Long courseId) {
+        CourseEntry course = new CourseEntry(courseId, courseSlots.size());
+        courseSlots.add(course);
+        return course;
+    }
+
+    private int add(SearchHit.Type type, long entityId, CourseEntry course, Document document) {
+        int ordinal = ordinals++;
+        if (ordinal == entityIds.length) {
+            int capacity = ordinal + (ordinal >> 1);
+            types = Arrays.copyOf(types, capacity);
+            entityIds = Arrays.copyOf(entityIds, capacity);
+            owners = Arrays.copyOf(owners, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            termCounts = Arrays.copyOf(termCounts, capacity);
+        }
+        types[ordinal] = type;
+        entityIds[ordinal] = entityId;
+        owners[ordinal] = course;
+        lengths[ordinal] = document.length();
+        termCounts[ordinal] = document.terms().length;
+        live.set(ordinal);
+
+        liveDocuments++;
+        totalLength += document.length();
+        totalPostings += document.terms().length;
+        for (int i = 0; i < document.terms().length; i++) {
+            postings.computeIfAbsent(document.terms()[i], term -> new Postings()).add(ordinal, document.frequencies()[i]);
+        }
+        return ordinal;
+    }
+
+    private void removeLessonLocked(Long lessonId) {
+        Integer ordinal = lessonOrdinals.remove(lessonId);
+        if (ordinal == null) {
+            return;
+        }
+        owners[ordinal].lessons.remove(lessonId);
+        kill(ordinal);
+    }
+
+    private void kill(Integer ordinal) {
+        if (ordinal == null || !live.get(ordinal)) {
+            return;
+        }
+        live.clear(ordinal);
+        liveDocuments--;
+        totalLength -= lengths[ordinal];
+        deadPostings += termCounts[ordinal];
+    }
+
+    private void compactIfNeeded() {
+        if (deadPostings < MIN_DEAD_POSTINGS_TO_COMPACT || deadPostings * 4 < totalPostings) {
+            return;
+        }
+        int[] renumbered = new int[ordinals];
+        int next = 0;
+        for (int ordinal = 0; ordinal < ordinals; ordinal++) {
+            if (!live.get(ordinal)) {
+                renumbered[ordinal] = -1;
+                continue;
+            }
+            renumbered[ordinal] = next;
+            types[next] = types[ordinal];
+            entityIds[next] = entityIds[ordinal];
+            owners[next] = owners[ordinal];
+            lengths[next] = lengths[ordinal];
+            termCounts[next] = termCounts[ordinal];
+            next++;
+        }
+        Arrays.fill(owners, next, ordinals, null);
+        postings.values().removeIf(list -> list.renumber(renumbered) == 0);
+        lessonOrdinals.replaceAll((id, ordinal) -> renumbered[ordinal]);
+        courses.values().stream()
+                .filter(course -> course.ordinal >= 0)
+                .forEach(course -> course.ordinal = renumbered[course.ordinal]);
+        live = new BitSet(next);
+        live.set(0, next);
+        ordinals = next;
+        totalPostings -= deadPostings;
+        deadPostings = 0;
+    }
+
+    private static <K> List<SearchFacet> facets(Map<K, FacetCount> counts) {
+        return counts.values().stream()
+                .sorted(Comparator.comparingInt((FacetCount facet) -> facet.count).reversed()
+                        .thenComparing(facet -> facet.label, Comparator.nullsLast(Comparator.naturalOrder())))
+                .map(facet -> new SearchFacet(facet.value, facet.label, facet.count))
+                .toList();
+    }
+
+    record Query(List<String> terms, SearchHit.Type type, Long categoryId, DifficultyLevel difficultyLevel, int limit) {
+    }
+
+    record CourseMeta(String title, Long categoryId, String categoryName, DifficultyLevel difficultyLevel,
+                      boolean published) {
+    }
+
+    record Hit(SearchHit.Type type, long id, long courseId, CourseMeta course, float score) {
+    }
+
+    record Result(int total, List<Hit> hits, List<SearchFacet> categories, List<SearchFacet> difficultyLevels) {
+    }
+
+    private record Document(String[] terms, int[] frequencies, int length) {
+
+        static Document of(String title, String body) {
+            List<String> titleTerms = SearchTokenizer.terms(title);
+            List<String> bodyTerms = SearchTokenizer.terms(body);
+            Map<String, Integer> counts = new LinkedHashMap<>();
+            titleTerms.forEach(term -> counts.merge(term, TITLE_WEIGHT, Integer::sum));
+            bodyTerms.forEach(term -> counts.merge(term, 1, Integer::sum));
+
+            String[] terms = new String[counts.size()];
+            int[] frequencies = new int[counts.size()];
+            int i = 0;
+            for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+                terms[i] = entry.getKey();
+                frequencies[i++] = entry.getValue();
+            }
+            return new Document(terms, frequencies, TITLE_WEIGHT * titleTerms.size() + bodyTerms.size());
+        }
+    }
+
+    private static final class Postings {
+        private int[] ordinals = new int[4];
+        private int[] frequencies = new int[4];
+        private int size;
+
+        void add(int ordinal, int frequency) {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            ordinals[size] = ordinal;
+            frequencies[size++] = frequency;
+        }
+
+        int renumber(int[] renumbered) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                int ordinal = renumbered[ordinals[i]];
+                if (ordinal >= 0) {
+                    ordinals[kept] = ordinal;
+                    frequencies[kept++] = frequencies[i];
+                }
+            }
+            size = kept;
+            return kept;
+        }
+    }
+
+    // Mutated under the write lock; lessons refer to it, so course edits apply to them without reindexing
+    private static final class CourseEntry {
+        private final long id;
+        private final int slot;
+        private final Set<Long> lessons = new HashSet<>();
+        private int ordinal = -1;
+        private String title;
+        private Long categoryId;
+        private String categoryName;
+        private DifficultyLevel difficultyLevel;
+        private boolean published;
+
+        CourseEntry(long id, int slot) {
+            this.id = id;
+            this.slot = slot;
+        }
+
+        CourseMeta snapshot() {
+            return new CourseMeta(title, categoryId, categoryName, difficultyLevel, published);
+        }
+    }
+
+    private static final class FacetCount {
+        private final String value;
+        private final String label;
+        private int count;
+
+        FacetCount(String value, String label) {
+            this.value = value;
+            this.label = label;
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package ru.polukhin.learningplatform.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.polukhin.learningplatform.dto.CourseSearchRow;
+import ru.polukhin.learningplatform.dto.LessonSearchRow;
+import ru.polukhin.learningplatform.dto.SearchHit;
+import ru.polukhin.learningplatform.dto.SearchResults;
+import ru.polukhin.learningplatform.entity.DifficultyLevel;
+import ru.polukhin.learningplatform.exception.BusinessException;
+import ru.polukhin.learningplatform.repository.CourseRepository;
+import ru.polukhin.learningplatform.repository.LessonRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Full-text search over published courses and their lessons, served from an in-process {@link SearchIndex}.
+ * <p>
+ * The index is built from the database once the application is ready. Afterwards committed course and
+ * lesson writes are reported by a Hibernate post-commit listener ({@code SearchIndexEventListener});
+ * {@link #refresh()} reloads just those rows and replaces their documents. Only ids and statistics are
+ * kept in memory: titles and texts for highlighting are loaded for the requested page of hits.
+ */
+@Service
+@Slf4j
+public class SearchService {
+
+    public static final int MAX_RESULTS = 1000;
+
+    private static final int MAX_QUERY_TERMS = 16;
+    private static final int SNIPPET_LENGTH = 200;
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    private final CourseRepository courseRepository;
+    private final LessonRepository lessonRepository;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final PrimaryReadTemplate primaryReads;
+    private final Timer queryTimer;
+
+    private final Set<Long> changedCourses = ConcurrentHashMap.newKeySet();
+    private final Set<Long> changedLessons = ConcurrentHashMap.newKeySet();
+    private volatile SearchIndex index = new SearchIndex();
+
+    public SearchService(CourseRepository courseRepository,
+                         LessonRepository lessonRepository,
+                         PlatformTransactionManager transactionManager,
+                         PrimaryReadTemplate primaryReads,
+                         MeterRegistry meterRegistry) {
+        this.courseRepository = courseRepository;
+        this.lessonRepository = lessonRepository;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.primaryReads = primaryReads;
+        this.queryTimer = Timer.builder("search.query")
+                .description("Search index lookup, without loading highlight texts")
+                .register(meterRegistry);
+        Gauge.builder("search.index.documents", this, service -> service.index.size())
+                .description("Courses and lessons in the search index")
+                .register(meterRegistry);
+    }
+
+    public SearchResults search(String query, SearchHit.Type type, Long categoryId, DifficultyLevel difficultyLevel,
+                                Integer page, Integer size) {
+        log.debug("Searching for: {}", query);
+        int pageNumber = page != null ? page : 0;
+        int pageSize = size != null ? Math.min(size, PageCursor.MAX_SIZE) : PageCursor.DEFAULT_SIZE;
+        if (pageNumber < 0 || pageSize < 1) {
+            throw new BusinessException("Page must not be negative and page size must be positive");
+        }
+        if ((long) (pageNumber + 1) * pageSize > MAX_RESULTS) {
+            throw new BusinessException("Only the first " + MAX_RESULTS + " results can be paged through");
+        }
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(SearchTokenizer.terms(query)));
+        if (terms.isEmpty()) {
+            throw new BusinessException("Search query must contain at least one word");
+        }
+        if (terms.size() > MAX_QUERY_TERMS) {
+            terms = terms.subList(0, MAX_QUERY_TERMS);
+        }
+
+        SearchIndex.Query indexQuery = new SearchIndex.Query(terms, type, categoryId, difficultyLevel,
+                (pageNumber + 1) * pageSize);
+        SearchIndex.Result result = queryTimer.record(() -> index.search(indexQuery));
+        List<SearchIndex.Hit> pageHits = result.hits().subList(
+                Math.min(pageNumber * pageSize, result.hits().size()), result.hits().size());
+
+        return new SearchResults(query, result.total(), pageNumber, pageSize,
+                highlight(pageHits, new HashSet<>(terms)), result.categories(), result.difficultyLevels());
+    }
+
+    public void courseChanged(Long courseId) {
+        changedCourses.add(courseId);
+    }
+
+    public void lessonChanged(Long lessonId) {
+        changedLessons.add(lessonId);
+    }
+
+    // Changes reported while the rebuild runs stay queued and are applied to the new index by refresh()
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        long startedAt = System.nanoTime();
+        SearchIndex fresh = new SearchIndex();
+        long afterId = 0;
+        List<CourseSearchRow> courses;
+        do {
+            long after = afterId;
+            courses = readOnlyTransactionTemplate.execute(status ->
+                    courseRepository.findSearchRowsAfter(after, PageRequest.ofSize(REBUILD_BATCH_SIZE)));
+            courses.forEach(fresh::putCourse);
+            afterId = courses.isEmpty() ? afterId : courses.get(courses.size() - 1).id();
+        } while (courses.size() == REBUILD_BATCH_SIZE);
+
+        afterId = 0;
+        List<LessonSearchRow> lessons;
+        do {
+            long after = afterId;
+            lessons = readOnlyTransactionTemplate.execute(status ->
+                    lessonRepository.findSearchRowsAfter(after, PageRequest.ofSize(REBUILD_BATCH_SIZE)));
+            lessons.forEach(fresh::putLesson);
+            afterId = lessons.isEmpty() ? afterId : lessons.get(lessons.size() - 1).id();
+        } while (lessons.size() == REBUILD_BATCH_SIZE);
+
+        index = fresh;
+        log.info("Search index built with {} documents in {} ms", fresh.size(), (System.nanoTime() - startedAt) / 1_000_000);
+    }
+
+    @Scheduled(fixedDelayString = "${app.search.refresh-interval:1s}",
+            initialDelayString = "${app.search.refresh-interval:1s}")
+    public synchronized void refresh() {
+        List<Long> courseIds = drain(changedCourses);
+        List<Long> lessonIds = drain(changedLessons);
+        if (courseIds.isEmpty() && lessonIds.isEmpty()) {
+            return;
+        }
+        SearchIndex current = index;
+        try {
+            // Courses first: a new lesson is only visible once its course is in the index. Rows come from the
+            // primary: the ids are drained, and a row a lagging replica does not have yet would be removed for good
+            for (List<Long> chunk : Batches.partition(courseIds, Batches.DEFAULT_SIZE)) {
+                List<CourseSearchRow> rows = primaryReads.execute(() -> readOnlyTransactionTemplate.execute(status ->
+                        courseRepository.findSearchRowsByIds(chunk)));
+                Set<Long> removed = new HashSet<>(chunk);
+                for (CourseSearchRow row : rows) {
+                    current.putCourse(row);
+                    removed.remove(row.id());
+                }
+                removed.forEach(current::removeCourse);
+            }
+            for (List<Long> chunk : Batches.partition(lessonIds, Batches.DEFAULT_SIZE)) {
+                List<LessonSearchRow> rows = primaryReads.execute(() -> readOnlyTransactionTemplate.execute(status ->
+                        lessonRepository.findSearchRowsByIds(chunk)));
+                Set<Long> removed = new HashSet<>(chunk);
+                for (LessonSearchRow row : rows) {
+                    current.putLesson(row);
+                    removed.remove(row.id());
+                }
+                removed.forEach(current::removeLesson);
+            }
+            log.debug("Search index refreshed for {} courses and {} lessons", courseIds.size(), lessonIds.size());
+        } catch (RuntimeException e) {
+            log.warn("Failed to refresh the search index, will retry", e);
+            changedCourses.addAll(courseIds);
+            changedLessons.addAll(lessonIds);
+        }
+    }
+
+    private List<SearchHit> highlight(List<SearchIndex.Hit> hits, Set<String> terms) {
+        Set<Long> courseIds = new HashSet<>();
+        Set<Long> lessonIds = new HashSet<>();
+        for (SearchIndex.Hit hit : hits) {
+            (hit.type() == SearchHit.Type.COURSE ? courseIds : lessonIds).add(hit.id());
+        }
+        Map<Long, CourseSearchRow> courses = new HashMap<>();
+        Map<Long, LessonSearchRow> lessons = new HashMap<>();
+        if (!hits.isEmpty()) {
+            readOnlyTransactionTemplate.executeWithoutResult(status -> {
+                if (!courseIds.isEmpty()) {
+                    courses.putAll(courseRepository.findSearchRowsByIds(courseIds).stream()
+                            .collect(Collectors.toMap(CourseSearchRow::id, Function.identity())));
+                }
+                if (!lessonIds.isEmpty()) {
+                    lessons.putAll(lessonRepository.findSearchRowsByIds(lessonIds).stream()
+                            .collect(Collectors.toMap(LessonSearchRow::id, Function.identity())));
+                }
+            });
+        }
+
+        // A hit whose row was deleted after the lookup is left out
+        List<SearchHit> result = new ArrayList<>(hits.size());
+        for (SearchIndex.Hit hit : hits) {
+            String title;
+            String text;
+            if (hit.type() == SearchHit.Type.COURSE) {
+                CourseSearchRow row = courses.get(hit.id());
+                if (row == null) {
+                    continue;
+                }
+                title = row.title();
+                text = row.description();
+            } else {
+                LessonSearchRow row = lessons.get(hit.id());
+                if (row == null) {
+                    continue;
+                }
+                title = row.title();
+                text = row.content();
+            }
+            result.add(new SearchHit(hit.type(), hit.id(), hit.courseId(), hit.course().title(),
+                    SearchHighlighter.highlight(title, terms, Integer.MAX_VALUE),
+                    SearchHighlighter.highlight(text, terms, SNIPPET_LENGTH),
+                    hit.course().categoryId(), hit.course().difficultyLevel(), hit.score()));
+        }
+        return result;
+    }
+
+    private static List<Long> drain(Set<Long> changed) {
+        List<Long> ids = new ArrayList<>(changed);
+        ids.forEach(changed::remove);
+        return ids;
+    }
+}
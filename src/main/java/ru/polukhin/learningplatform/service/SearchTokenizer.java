@@ -0,0 +1,49 @@
+package ru.polukhin.learningplatform.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// Terms are lower-cased runs of letters and digits, "ё" folded to "е"; one-letter and very long runs are skipped
+final class SearchTokenizer {
+
+    static final int MIN_TERM_LENGTH = 2;
+    static final int MAX_TERM_LENGTH = 40;
+
+    private SearchTokenizer() {
+    }
+
+    interface TokenConsumer {
+        void accept(String term, int start, int end);
+    }
+
+    static void tokenize(String text, TokenConsumer consumer) {
+        if (text == null) {
+            return;
+        }
+        int length = text.length();
+        int start = -1;
+        for (int i = 0; i <= length; i++) {
+            boolean wordChar = i < length && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                int termLength = i - start;
+                if (termLength >= MIN_TERM_LENGTH && termLength <= MAX_TERM_LENGTH) {
+                    consumer.accept(normalize(text.substring(start, i)), start, i);
+                }
+                start = -1;
+            }
+        }
+    }
+
+    static List<String> terms(String text) {
+        List<String> terms = new ArrayList<>();
+        tokenize(text, (term, start, end) -> terms.add(term));
+        return terms;
+    }
+
+    private static String normalize(String word) {
+        return word.toLowerCase(Locale.ROOT).replace('ё', 'е');
+    }
+}
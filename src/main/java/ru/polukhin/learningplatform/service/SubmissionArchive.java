@@ -0,0 +1,304 @@
+package ru.polukhin.learningplatform.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.polukhin.learningplatform.dto.QuizSubmissionView;
+import ru.polukhin.learningplatform.dto.SubmissionView;
+import ru.polukhin.learningplatform.entity.SubmissionStatus;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Cold storage of the submissions and quiz submissions of closed terms.
+ * <p>
+ * One {@link ArchiveFile} per table and month, {@code <directory>/<table>/<yyyy-MM>.arc}, with one block per
+ * student holding that student's rows of the month. Published files are never modified; new terms only add
+ * files. {@link #refresh()} maps the files published since the last call, here or by another instance
+ * sharing the directory, so reads go to the mappings without touching the database.
+ */
+@Component
+@Slf4j
+public class SubmissionArchive {
+
+    static final String SUBMISSIONS = "submissions";
+    static final String QUIZ_SUBMISSIONS = "quiz_submissions";
+
+    private static final String EXTENSION = ".arc";
+    private static final DateTimeFormatter TERM_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM");
+
+    private final Path directory;
+    private final Map<Path, ArchiveFile> opened = new ConcurrentHashMap<>();
+    private volatile Map<String, List<ArchiveFile>> files = Map.of();
+
+    public SubmissionArchive(@Value("${app.submission-archive.directory:data/submission-archive}") String directory) {
+        this.directory = Path.of(directory);
+        refresh();
+    }
+
+    ArchiveFile.Writer writer(String table, YearMonth term) {
+        return new ArchiveFile.Writer(target(table, term));
+    }
+
+    /**
+     * Completes and syncs the file now and renames it into place once the current transaction commits, so the
+     * rows are never visible both in the file and in the database; a rollback deletes the file. A process
+     * stopped in between leaves a complete temporary file, see {@link #pendingTerms(String)}.
+     */
+    void publishOnCommit(ArchiveFile.Writer writer) {
+        writer.prepare();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(writer.target(), writer::commit);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    publish(writer.target(), writer::commit);
+                } else {
+                    writer.discard();
+                }
+            }
+        });
+    }
+
+    /**
+     * @return the terms of {@code table} whose file was written but neither published nor deleted
+     */
+    List<YearMonth> pendingTerms(String table) {
+        Path tableDirectory = directory.resolve(table);
+        if (!Files.isDirectory(tableDirectory)) {
+            return List.of();
+        }
+        String suffix = EXTENSION + ArchiveFile.TEMP_SUFFIX;
+        try (Stream<Path> paths = Files.list(tableDirectory)) {
+            return paths.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(suffix))
+                    .map(name -> YearMonth.parse(name.substring(0, name.length() - suffix.length()), TERM_FORMAT))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot list " + tableDirectory, e);
+        }
+    }
+
+    // For a term whose rows are gone from the database. A file cut short by the stop is deleted instead:
+    // its transaction cannot have committed, as the file is synced before the commit
+    void publishPending(String table, YearMonth term) {
+        Path target = target(table, term);
+        Path temp = ArchiveFile.temp(target);
+        if (!Files.exists(temp)) {
+            return;
+        }
+        try {
+            ArchiveFile.open(temp);
+        } catch (IllegalStateException | UncheckedIOException e) {
+            log.warn("Deleting incomplete archive file {}", temp, e);
+            ArchiveFile.delete(temp);
+            return;
+        }
+        publish(target, () -> ArchiveFile.publish(temp, target));
+    }
+
+    void discardPending(String table, YearMonth term) {
+        ArchiveFile.delete(ArchiveFile.temp(target(table, term)));
+    }
+
+    // A term written again replaces its file: the old mapping is dropped so the new content is read
+    private void publish(Path target, Runnable rename) {
+        rename.run();
+        opened.remove(target);
+        refresh();
+    }
+
+    private Path target(String table, YearMonth term) {
+        return directory.resolve(table).resolve(TERM_FORMAT.format(term) + EXTENSION);
+    }
+
+    // Picks up the files other instances published to the shared directory
+    @Scheduled(fixedDelayString = "${app.submission-archive.refresh-interval:1m}",
+            initialDelayString = "${app.submission-archive.refresh-interval:1m}")
+    public synchronized void refresh() {
+        Map<String, List<ArchiveFile>> refreshed = new HashMap<>();
+        for (String table : List.of(SUBMISSIONS, QUIZ_SUBMISSIONS)) {
+            Path tableDirectory = directory.resolve(table);
+            List<ArchiveFile> tableFiles = new ArrayList<>();
+            if (Files.isDirectory(tableDirectory)) {
+                // Term names sort chronologically
+                try (Stream<Path> paths = Files.list(tableDirectory)) {
+                    paths.filter(path -> path.getFileName().toString().endsWith(EXTENSION))
+                            .sorted()
+                            .forEach(path -> tableFiles.add(opened.computeIfAbsent(path, ArchiveFile::open)));
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Cannot list " + tableDirectory, e);
+                }
+            }
+            refreshed.put(table, List.copyOf(tableFiles));
+        }
+        files = refreshed;
+        log.debug("Submission archive at {}: {} files", directory, opened.size());
+    }
+
+    public List<SubmissionView> findSubmissions(Long studentId) {
+        List<SubmissionView> rows = new ArrayList<>();
+        for (ArchiveFile file : files.getOrDefault(SUBMISSIONS, List.of())) {
+            byte[] block = file.read(studentId);
+            if (block != null) {
+                rows.addAll(decodeSubmissions(block));
+            }
+        }
+        return rows;
+    }
+
+    public List<QuizSubmissionView> findQuizSubmissions(Long studentId) {
+        List<QuizSubmissionView> rows = new ArrayList<>();
+        for (ArchiveFile file : files.getOrDefault(QUIZ_SUBMISSIONS, List.of())) {
+            byte[] block = file.read(studentId);
+            if (block != null) {
+                rows.addAll(decodeQuizSubmissions(block));
+            }
+        }
+        return rows;
+    }
+
+    static byte[] encodeSubmissions(List<SubmissionView> rows) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(rows.size());
+            for (SubmissionView row : rows) {
+                out.writeLong(row.id());
+                out.writeLong(row.studentId());
+                out.writeLong(row.assignmentId());
+                writeString(out, row.content());
+                writeString(out, row.fileUrl());
+                writeDateTime(out, row.submittedAt());
+                writeString(out, row.status() != null ? row.status().name() : null);
+                writeInteger(out, row.score());
+                writeString(out, row.feedback());
+                writeDateTime(out, row.gradedAt());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static List<SubmissionView> decodeSubmissions(byte[] block) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(block))) {
+            int count = in.readInt();
+            List<SubmissionView> rows = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                long id = in.readLong();
+                long studentId = in.readLong();
+                long assignmentId = in.readLong();
+                String content = readString(in);
+                String fileUrl = readString(in);
+                LocalDateTime submittedAt = readDateTime(in);
+                String status = readString(in);
+                rows.add(new SubmissionView(id, studentId, assignmentId, content, fileUrl, submittedAt,
+                        status != null ? SubmissionStatus.valueOf(status) : null,
+                        readInteger(in), readString(in), readDateTime(in)));
+            }
+            return rows;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static byte[] encodeQuizSubmissions(List<QuizSubmissionView> rows) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(rows.size());
+            for (QuizSubmissionView row : rows) {
+                out.writeLong(row.id());
+                out.writeLong(row.studentId());
+                out.writeLong(row.quizId());
+                out.writeInt(row.score());
+                out.writeInt(row.maxScore());
+                out.writeDouble(row.percentageScore());
+                out.writeBoolean(row.passed());
+                writeDateTime(out, row.submittedAt());
+                writeInteger(out, row.timeTakenMinutes());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static List<QuizSubmissionView> decodeQuizSubmissions(byte[] block) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(block))) {
+            int count = in.readInt();
+            List<QuizSubmissionView> rows = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                rows.add(new QuizSubmissionView(in.readLong(), in.readLong(), in.readLong(), in.readInt(),
+                        in.readInt(), in.readDouble(), in.readBoolean(), readDateTime(in), readInteger(in)));
+            }
+            return rows;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Length-prefixed UTF-8, -1 for null: writeUTF is limited to 64 KB of encoded text
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        return length < 0 ? null : new String(in.readNBytes(length), StandardCharsets.UTF_8);
+    }
+
+    private static void writeInteger(DataOutputStream out, Integer value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeInt(value);
+        }
+    }
+
+    private static Integer readInteger(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readInt() : null;
+    }
+
+    // Columns are timestamps without time zone: stored as the same wall-clock value
+    private static void writeDateTime(DataOutputStream out, LocalDateTime value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(value.getNano());
+        }
+    }
+
+    private static LocalDateTime readDateTime(DataInputStream in) throws IOException {
+        return in.readBoolean() ? LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC) : null;
+    }
+}
@@ -0,0 +1,298 @@
+package ru.polukhin.learningplatform.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.polukhin.learningplatform.dto.QuizSubmissionView;
+import ru.polukhin.learningplatform.dto.SubmissionView;
+import ru.polukhin.learningplatform.entity.ArchivedScore;
+import ru.polukhin.learningplatform.entity.GradebookEntryId;
+import ru.polukhin.learningplatform.entity.SubmissionStatus;
+import ru.polukhin.learningplatform.exception.DuplicateResourceException;
+import ru.polukhin.learningplatform.repository.ArchivedScoreRepository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Moves closed terms of {@code submissions} and {@code quiz_submissions} out of the database into the
+ * {@link SubmissionArchive}.
+ * <p>
+ * A term is a calendar month of {@code submitted_at}, closed once it is more than
+ * {@code app.submission-archive.keep-months} behind the current month. Each term is archived in its own
+ * transaction: its rows are written to the term's file ordered by student, then writes to the term are
+ * blocked just long enough to check the rows did not change, add their grade totals to {@code archived_scores}
+ * and drop the partition. The file is published once the transaction commits; if it fails the rows stay and
+ * the next run writes the file again. Archived rows remain in transcripts and gradebook totals but can no
+ * longer be graded.
+ */
+@Service
+@Slf4j
+public class SubmissionArchiveService {
+
+    private static final int FETCH_SIZE = 500;
+
+    private static final String SUBMISSION_ROWS_SQL =
+            "SELECT id, student_id, assignment_id, content, file_url, submitted_at, status, score, feedback, graded_at " +
+            "FROM submissions WHERE submitted_at >= ? AND submitted_at < ? ORDER BY student_id, id";
+
+    private static final String QUIZ_SUBMISSION_ROWS_SQL =
+            "SELECT id, student_id, quiz_id, score, max_score, percentage_score, passed, submitted_at, time_taken_minutes " +
+            "FROM quiz_submissions WHERE submitted_at >= ? AND submitted_at < ? ORDER BY student_id, id";
+
+    // Same totals as the gradebook repair reads from the hot tables
+    private static final String SUBMISSION_TOTALS_SQL =
+            "SELECT m.course_id, s.student_id, COUNT(*), SUM(s.score), SUM(a.max_score) FROM submissions s " +
+            "JOIN assignments a ON a.id = s.assignment_id JOIN lessons l ON l.id = a.lesson_id " +
+            "JOIN modules m ON m.id = l.module_id " +
+            "WHERE s.status = 'GRADED' AND s.submitted_at >= ? AND s.submitted_at < ? GROUP BY m.course_id, s.student_id";
+
+    private static final String QUIZ_SUBMISSION_TOTALS_SQL =
+            "SELECT m.course_id, qs.student_id, COUNT(*), SUM(qs.score), SUM(qs.max_score), " +
+            "SUM(CASE WHEN qs.passed THEN 1 ELSE 0 END) FROM quiz_submissions qs " +
+            "JOIN quizzes q ON q.id = qs.quiz_id JOIN modules m ON m.id = q.module_id " +
+            "WHERE qs.submitted_at >= ? AND qs.submitted_at < ? GROUP BY m.course_id, qs.student_id";
+
+    private final SubmissionArchive archive;
+    private final SubmissionPartitions partitions;
+    private final ArchivedScoreRepository archivedScoreRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int keepMonths;
+
+    public SubmissionArchiveService(SubmissionArchive archive,
+                                    SubmissionPartitions partitions,
+                                    ArchivedScoreRepository archivedScoreRepository,
+                                    JdbcTemplate jdbcTemplate,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${app.submission-archive.keep-months:12}") int keepMonths) {
+        this.archive = archive;
+        this.partitions = partitions;
+        this.archivedScoreRepository = archivedScoreRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.keepMonths = keepMonths;
+    }
+
+    /**
+     * Rejects a second submission of an assignment whose submission is archived. PostgreSQL keeps the keys of
+     * archived rows in {@code submission_keys} and rejects it on insert; without partitions the archived rows
+     * were deleted together with their unique key, so the archive is checked instead.
+     */
+    void rejectArchivedSubmission(Long assignmentId, Long studentId) {
+        if (!partitions.isPartitioned() && archive.findSubmissions(studentId).stream()
+                .anyMatch(submission -> assignmentId.equals(submission.assignmentId()))) {
+            throw new DuplicateResourceException("Assignment already submitted by this student");
+        }
+    }
+
+    // Same as rejectArchivedSubmission, for quiz_submission_keys
+    void rejectArchivedQuizSubmission(Long quizId, Long studentId) {
+        if (!partitions.isPartitioned() && archive.findQuizSubmissions(studentId).stream()
+                .anyMatch(submission -> quizId.equals(submission.quizId()))) {
+            throw new DuplicateResourceException("Quiz already taken by this student");
+        }
+    }
+
+    @Scheduled(cron = "${app.submission-archive.cron:0 0 5 * * *}")
+    public synchronized void archiveClosedTerms() {
+        YearMonth before = YearMonth.now().minusMonths(keepMonths);
+        long archived = 0;
+        for (String table : SubmissionPartitions.TABLES) {
+            for (YearMonth term : archive.pendingTerms(table)) {
+                transactionTemplate.executeWithoutResult(status -> resolvePending(table, term));
+            }
+        }
+        for (String table : SubmissionPartitions.TABLES) {
+            for (YearMonth term : partitions.termsBefore(table, before)) {
+                long rows = transactionTemplate.execute(status -> archiveTerm(table, term));
+                log.info("Archived {} {} rows of {}", rows, table, term);
+                archived += rows;
+            }
+        }
+        log.info("Submission archive up to date before {}, {} rows moved", before, archived);
+    }
+
+    // A file left by a run that stopped around its commit: the term still in the database means the
+    // transaction rolled back. The lock waits for another instance that may be archiving the term right now
+    private void resolvePending(String table, YearMonth term) {
+        partitions.lockArchiving(table, term);
+        if (partitions.hasTerm(table, term)) {
+            archive.discardPending(table, term);
+        } else {
+            log.warn("Publishing the {} archive file of {} left by an interrupted run", table, term);
+            archive.publishPending(table, term);
+        }
+    }
+
+    private long archiveTerm(String table, YearMonth term) {
+        partitions.lockArchiving(table, term);
+        if (!partitions.hasTerm(table, term)) {
+            // Archived by another instance while this one waited for the lock
+            return 0;
+        }
+        // Written without blocking writes to the table. A grade committed meanwhile changes the version, which is
+        // compared under the lock taken just for removing the term, and the term is then written again under it
+        SubmissionPartitions.TermVersion version = partitions.version(table, term);
+        TermExport export = export(table, term);
+        try {
+            partitions.lockTerm(table, term);
+            if (!version.equals(partitions.version(table, term))) {
+                log.info("{} rows of {} changed while being archived, writing them again", table, term);
+                export.writer().close();
+                export = export(table, term);
+            }
+            addTotals(export.totals());
+            if (export.rows() > 0) {
+                archive.publishOnCommit(export.writer());
+            }
+        } finally {
+            export.writer().close();
+        }
+        partitions.removeTerm(table, term);
+        return export.rows();
+    }
+
+    private TermExport export(String table, YearMonth term) {
+        Timestamp from = Timestamp.valueOf(SubmissionPartitions.start(term));
+        Timestamp to = Timestamp.valueOf(SubmissionPartitions.start(term.plusMonths(1)));
+        Map<GradebookEntryId, ArchivedScore> totals = new HashMap<>();
+        ArchiveFile.Writer writer = archive.writer(table, term);
+        try {
+            long rows;
+            if (SubmissionArchive.SUBMISSIONS.equals(table)) {
+                rows = writeBlocks(writer, SUBMISSION_ROWS_SQL, from, to, SubmissionArchiveService::submission,
+                        SubmissionView::studentId, SubmissionArchive::encodeSubmissions);
+                jdbcTemplate.query(SUBMISSION_TOTALS_SQL, (RowCallbackHandler) rs -> {
+                    ArchivedScore score = total(totals, rs);
+                    score.setGradedAssignments(score.getGradedAssignments() + rs.getInt(3));
+                    score.setAssignmentScore(score.getAssignmentScore() + rs.getInt(4));
+                    score.setAssignmentMaxScore(score.getAssignmentMaxScore() + rs.getInt(5));
+                }, from, to);
+            } else {
+                rows = writeBlocks(writer, QUIZ_SUBMISSION_ROWS_SQL, from, to, SubmissionArchiveService::quizSubmission,
+                        QuizSubmissionView::studentId, SubmissionArchive::encodeQuizSubmissions);
+                jdbcTemplate.query(QUIZ_SUBMISSION_TOTALS_SQL, (RowCallbackHandler) rs -> {
+                    ArchivedScore score = total(totals, rs);
+                    score.setQuizzesTaken(score.getQuizzesTaken() + rs.getInt(3));
+                    score.setQuizScore(score.getQuizScore() + rs.getInt(4));
+                    score.setQuizMaxScore(score.getQuizMaxScore() + rs.getInt(5));
+                    score.setQuizzesPassed(score.getQuizzesPassed() + rs.getInt(6));
+                }, from, to);
+            }
+            return new TermExport(writer, rows, totals);
+        } catch (RuntimeException e) {
+            writer.close();
+            throw e;
+        }
+    }
+
+    private <T> long writeBlocks(ArchiveFile.Writer writer, String sql, Timestamp from, Timestamp to,
+                                 RowMapper<T> mapper, ToLongFunction<T> student, Function<List<T>, byte[]> encoder) {
+        // Rows come ordered by student, so each student's rows are consecutive and make one block
+        List<T> block = new ArrayList<>();
+        long[] rows = new long[1];
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setFetchSize(FETCH_SIZE);
+            statement.setTimestamp(1, from);
+            statement.setTimestamp(2, to);
+            return statement;
+        }, (RowCallbackHandler) rs -> {
+            T row = mapper.mapRow(rs, (int) rows[0]);
+            if (!block.isEmpty() && student.applyAsLong(block.get(0)) != student.applyAsLong(row)) {
+                writer.append(student.applyAsLong(block.get(0)), encoder.apply(block));
+                block.clear();
+            }
+            block.add(row);
+            rows[0]++;
+        });
+        if (!block.isEmpty()) {
+            writer.append(student.applyAsLong(block.get(0)), encoder.apply(block));
+        }
+        return rows[0];
+    }
+
+    private void addTotals(Map<GradebookEntryId, ArchivedScore> totals) {
+        LocalDateTime now = LocalDateTime.now();
+        for (List<GradebookEntryId> ids : Batches.partition(List.copyOf(totals.keySet()), Batches.DEFAULT_SIZE)) {
+            List<ArchivedScore> changed = new ArrayList<>(ids.size());
+            Map<GradebookEntryId, ArchivedScore> existing = new HashMap<>();
+            archivedScoreRepository.findAllById(ids).forEach(score ->
+                    existing.put(new GradebookEntryId(score.getCourseId(), score.getStudentId()), score));
+            for (GradebookEntryId id : ids) {
+                ArchivedScore delta = totals.get(id);
+                ArchivedScore score = existing.get(id);
+                if (score == null) {
+                    score = delta;
+                } else {
+                    score.setGradedAssignments(score.getGradedAssignments() + delta.getGradedAssignments());
+                    score.setAssignmentScore(score.getAssignmentScore() + delta.getAssignmentScore());
+                    score.setAssignmentMaxScore(score.getAssignmentMaxScore() + delta.getAssignmentMaxScore());
+                    score.setQuizzesTaken(score.getQuizzesTaken() + delta.getQuizzesTaken());
+                    score.setQuizzesPassed(score.getQuizzesPassed() + delta.getQuizzesPassed());
+                    score.setQuizScore(score.getQuizScore() + delta.getQuizScore());
+                    score.setQuizMaxScore(score.getQuizMaxScore() + delta.getQuizMaxScore());
+                }
+                score.setUpdatedAt(now);
+                changed.add(score);
+            }
+            archivedScoreRepository.saveAll(changed);
+        }
+    }
+
+    private static ArchivedScore total(Map<GradebookEntryId, ArchivedScore> totals, ResultSet rs) throws SQLException {
+        long courseId = rs.getLong(1);
+        long studentId = rs.getLong(2);
+        return totals.computeIfAbsent(new GradebookEntryId(courseId, studentId), id -> ArchivedScore.builder()
+                .courseId(courseId)
+                .studentId(studentId)
+                .build());
+    }
+
+    private static SubmissionView submission(ResultSet rs, int rowNum) throws SQLException {
+        return new SubmissionView(
+                rs.getLong("id"),
+                rs.getLong("student_id"),
+                rs.getLong("assignment_id"),
+                rs.getString("content"),
+                rs.getString("file_url"),
+                rs.getObject("submitted_at", LocalDateTime.class),
+                SubmissionStatus.valueOf(rs.getString("status")),
+                rs.getObject("score", Integer.class),
+                rs.getString("feedback"),
+                rs.getObject("graded_at", LocalDateTime.class));
+    }
+
+    private static QuizSubmissionView quizSubmission(ResultSet rs, int rowNum) throws SQLException {
+        return new QuizSubmissionView(
+                rs.getLong("id"),
+                rs.getLong("student_id"),
+                rs.getLong("quiz_id"),
+                rs.getInt("score"),
+                rs.getInt("max_score"),
+                rs.getDouble("percentage_score"),
+                rs.getBoolean("passed"),
+                rs.getObject("submitted_at", LocalDateTime.class),
+                rs.getObject("time_taken_minutes", Integer.class));
+    }
+
+    private record TermExport(ArchiveFile.Writer writer, long rows, Map<GradebookEntryId, ArchivedScore> totals) {
+    }
+}
@@ -0,0 +1,183 @@
+package ru.polukhin.learningplatform.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Monthly range partitions of {@code submissions} and {@code quiz_submissions} by {@code submitted_at},
+ * named {@code <table>_YYYY_MM} (PostgreSQL, db/vendor/postgresql/V4__partition_submissions.sql).
+ * <p>
+ * {@link #createAhead()} keeps the current month and the next {@code app.submission-partitions.months-ahead}
+ * in place, so inserts never wait for DDL. On a database without the partitioned tables (H2 in tests)
+ * a term is a plain {@code submitted_at} range of the same table and is removed with a DELETE.
+ */
+@Component
+@Slf4j
+public class SubmissionPartitions {
+
+    static final List<String> TABLES = List.of(SubmissionArchive.SUBMISSIONS, SubmissionArchive.QUIZ_SUBMISSIONS);
+
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int monthsAhead;
+    private volatile Boolean partitioned;
+
+    public SubmissionPartitions(JdbcTemplate jdbcTemplate,
+                                @Value("${app.submission-partitions.months-ahead:3}") int monthsAhead) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.monthsAhead = monthsAhead;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${app.submission-partitions.cron:0 15 3 * * *}")
+    public void createAhead() {
+        if (!isPartitioned()) {
+            return;
+        }
+        YearMonth current = YearMonth.now();
+        for (String table : TABLES) {
+            for (int i = 0; i <= monthsAhead; i++) {
+                YearMonth month = current.plusMonths(i);
+                jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partition(table, month) + " PARTITION OF " +
+                        table + " FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" +
+                        month.plusMonths(1).atDay(1) + "')");
+            }
+        }
+        log.debug("Submission partitions present up to {}", current.plusMonths(monthsAhead));
+    }
+
+    /**
+     * @return the terms of {@code table} before {@code before} that may still hold rows, oldest first
+     */
+    List<YearMonth> termsBefore(String table, YearMonth before) {
+        List<YearMonth> terms = new ArrayList<>();
+        if (isPartitioned()) {
+            String prefix = table + "_";
+            Pattern monthly = Pattern.compile(Pattern.quote(prefix) + "\\d{4}_(0[1-9]|1[0-2])");
+            for (String name : jdbcTemplate.queryForList("SELECT c.relname FROM pg_inherits i " +
+                    "JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = to_regclass(?)", String.class, table)) {
+                // A DEFAULT partition or one made by hand is not a term and is left alone
+                if (!monthly.matcher(name).matches()) {
+                    continue;
+                }
+                YearMonth term = YearMonth.parse(name.substring(prefix.length()), SUFFIX);
+                if (term.isBefore(before)) {
+                    terms.add(term);
+                }
+            }
+            terms.sort(null);
+            return terms;
+        }
+        Timestamp oldest = jdbcTemplate.queryForObject("SELECT MIN(submitted_at) FROM " + table +
+                " WHERE submitted_at < ?", Timestamp.class, Timestamp.valueOf(start(before)));
+        if (oldest != null) {
+            for (YearMonth term = YearMonth.from(oldest.toLocalDateTime()); term.isBefore(before); term = term.plusMonths(1)) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Makes a second archiver of {@code term} wait until the caller's transaction ends, without blocking writes.
+     * On PostgreSQL this is a transaction-level advisory lock on the partition name; without partitions the
+     * database is the in-memory H2 of a single process, where archiving is already serialized.
+     */
+    void lockArchiving(String table, YearMonth term) {
+        if (isPartitioned()) {
+            jdbcTemplate.query("SELECT pg_advisory_xact_lock(hashtext(?))", (RowCallbackHandler) rs -> {
+            }, partition(table, term));
+        }
+    }
+
+    /**
+     * Blocks writes to the rows of {@code term} until the caller's transaction ends; taken only to check that the
+     * rows did not change since they were read and to remove them. On PostgreSQL this is a SHARE ROW EXCLUSIVE
+     * lock on the parent table: grading updates by id reach every partition through the parent, and a lock on
+     * the partition alone would deadlock with them once the detach asks for the parent. Reads are not blocked.
+     */
+    void lockTerm(String table, YearMonth term) {
+        if (isPartitioned()) {
+            jdbcTemplate.execute("LOCK TABLE " + table + " IN SHARE ROW EXCLUSIVE MODE");
+        } else {
+            jdbcTemplate.queryForList("SELECT id FROM " + table + " WHERE submitted_at >= ? AND submitted_at < ? " +
+                    "FOR UPDATE", Long.class, Timestamp.valueOf(start(term)), Timestamp.valueOf(start(term.plusMonths(1))));
+        }
+    }
+
+    /**
+     * @return the row count and latest write of {@code term}: an insert, delete or update in between changes it,
+     * as every write through the entities sets {@code updated_at}
+     */
+    TermVersion version(String table, YearMonth term) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*), MAX(COALESCE(updated_at, created_at)) FROM " + table +
+                        " WHERE submitted_at >= ? AND submitted_at < ?",
+                (rs, rowNum) -> new TermVersion(rs.getLong(1), rs.getTimestamp(2)),
+                Timestamp.valueOf(start(term)), Timestamp.valueOf(start(term.plusMonths(1))));
+    }
+
+    /**
+     * @return whether {@code term} is still in the database: its partition on PostgreSQL, its rows on H2
+     */
+    boolean hasTerm(String table, YearMonth term) {
+        if (isPartitioned()) {
+            return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL",
+                    Boolean.class, partition(table, term)));
+        }
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM " + table +
+                " WHERE submitted_at >= ? AND submitted_at < ?)", Boolean.class,
+                Timestamp.valueOf(start(term)), Timestamp.valueOf(start(term.plusMonths(1)))));
+    }
+
+    // Detaching takes a short exclusive lock on the parent table; the caller's transaction holds it until commit
+    void removeTerm(String table, YearMonth term) {
+        if (isPartitioned()) {
+            String partition = partition(table, term);
+            jdbcTemplate.execute("ALTER TABLE " + table + " DETACH PARTITION " + partition);
+            jdbcTemplate.execute("DROP TABLE " + partition);
+        } else {
+            jdbcTemplate.update("DELETE FROM " + table + " WHERE submitted_at >= ? AND submitted_at < ?",
+                    Timestamp.valueOf(start(term)), Timestamp.valueOf(start(term.plusMonths(1))));
+        }
+    }
+
+    boolean isPartitioned() {
+        Boolean result = partitioned;
+        if (result == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+            result = "PostgreSQL".equals(product) && Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                    "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = to_regclass(?))",
+                    Boolean.class, SubmissionArchive.SUBMISSIONS));
+            partitioned = result;
+        }
+        return result;
+    }
+
+    static LocalDateTime start(YearMonth term) {
+        return term.atDay(1).atStartOfDay();
+    }
+
+    private static String partition(String table, YearMonth term) {
+        return table + "_" + SUFFIX.format(term);
+    }
+
+    record TermVersion(long rows, Timestamp lastWrite) {
+    }
+}
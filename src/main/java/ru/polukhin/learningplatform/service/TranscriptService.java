@@ -0,0 +1,57 @@
+package ru.polukhin.learningplatform.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.polukhin.learningplatform.dto.QuizSubmissionView;
+import ru.polukhin.learningplatform.dto.SubmissionView;
+import ru.polukhin.learningplatform.dto.TranscriptView;
+import ru.polukhin.learningplatform.exception.ResourceNotFoundException;
+import ru.polukhin.learningplatform.repository.QuizSubmissionRepository;
+import ru.polukhin.learningplatform.repository.SubmissionRepository;
+import ru.polukhin.learningplatform.repository.UserRepository;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A student's submissions and quiz submissions of every term: archived terms from the
+ * {@link SubmissionArchive} files, the rest from the tables.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(readOnly = true)
+public class TranscriptService {
+
+    private final UserRepository userRepository;
+    private final SubmissionRepository submissionRepository;
+    private final QuizSubmissionRepository quizSubmissionRepository;
+    private final SubmissionArchive archive;
+
+    public TranscriptView getTranscript(Long studentId) {
+        log.debug("Fetching transcript of student {}", studentId);
+        if (!userRepository.existsById(studentId)) {
+            throw new ResourceNotFoundException("User", studentId);
+        }
+        return new TranscriptView(studentId,
+                merge(archive.findSubmissions(studentId), submissionRepository.findViewsByStudentId(studentId),
+                        SubmissionView::id, Comparator.comparing(SubmissionView::submittedAt)),
+                merge(archive.findQuizSubmissions(studentId), quizSubmissionRepository.findViewsByStudentId(studentId),
+                        QuizSubmissionView::id, Comparator.comparing(QuizSubmissionView::submittedAt)));
+    }
+
+    // A term being archived is in its file before its rows are gone: the table's row wins
+    private static <T> List<T> merge(List<T> archived, List<T> current, Function<T, Long> id, Comparator<T> order) {
+        Map<Long, T> rows = new LinkedHashMap<>();
+        archived.forEach(row -> rows.put(id.apply(row), row));
+        current.forEach(row -> rows.put(id.apply(row), row));
+        return rows.values().stream()
+                .sorted(order.thenComparing(id, Comparator.naturalOrder()))
+                .toList();
+    }
+}
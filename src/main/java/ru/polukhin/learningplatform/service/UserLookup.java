@@ -0,0 +1,24 @@
+package ru.polukhin.learningplatform.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.polukhin.learningplatform.entity.RoleType;
+import ru.polukhin.learningplatform.exception.BusinessException;
+import ru.polukhin.learningplatform.exception.ResourceNotFoundException;
+import ru.polukhin.learningplatform.repository.UserRepository;
+
+// Checks on the acting user shared by the write paths; reads only the role, not the whole user
+@Component
+@RequiredArgsConstructor
+public class UserLookup {
+
+    private final UserRepository userRepository;
+
+    public void requireStudent(Long userId) {
+        RoleType role = userRepository.findRoleById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("User", userId));
+        if (role != RoleType.STUDENT) {
+            throw new BusinessException("User is not a student");
+        }
+    }
+}
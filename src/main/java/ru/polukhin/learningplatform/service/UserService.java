@@ -4,13 +4,15 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.polukhin.learningplatform.dto.CursorPage;
+import ru.polukhin.learningplatform.dto.UserView;
 import ru.polukhin.learningplatform.entity.RoleType;
 import ru.polukhin.learningplatform.entity.User;
 import ru.polukhin.learningplatform.exception.DuplicateResourceException;
 import ru.polukhin.learningplatform.exception.ResourceNotFoundException;
 import ru.polukhin.learningplatform.repository.UserRepository;
 
-import java.util.List;
+import java.util.Objects;
 
 @Service
 @RequiredArgsConstructor
@@ -19,32 +21,36 @@ import java.util.List;
 public class UserService {
 
     private final UserRepository userRepository;
+    private final RenderedJsonCache renderedJsonCache;
 
-    public List<User> getAllUsers() {
-        log.debug("Fetching all users");
-        return userRepository.findAll();
+    public CursorPage<UserView> getAllUsers(String cursor, Integer size) {
+        log.debug("Fetching users page after cursor: {}", cursor);
+        PageCursor page = PageCursor.of(cursor, size);
+        return page.toPage(userRepository.findPageAfter(page.afterId(), page.limit()), UserView::id);
     }
 
-    public User getUserById(Long id) {
+    public UserView getUserById(Long id) {
         log.debug("Fetching user by id: {}", id);
-        return userRepository.findById(id)
+        return userRepository.findViewById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("User", id));
     }
 
-    public User getUserByUsername(String username) {
+    public UserView getUserByUsername(String username) {
         log.debug("Fetching user by username: {}", username);
-        return userRepository.findByUsername(username)
+        return userRepository.findViewByUsername(username)
                 .orElseThrow(() -> new ResourceNotFoundException("User", "username", username));
     }
 
-    public List<User> getUsersByRole(RoleType role) {
+    public CursorPage<UserView> getUsersByRole(RoleType role, String cursor, Integer size) {
         log.debug("Fetching users by role: {}", role);
-        return userRepository.findByRole(role);
+        PageCursor page = PageCursor.of(cursor, size);
+        return page.toPage(userRepository.findPageByRoleAfter(role, page.afterId(), page.limit()), UserView::id);
     }
 
-    public List<User> getActiveUsers() {
-        log.debug("Fetching all active users");
-        return userRepository.findByActiveTrue();
+    public CursorPage<UserView> getActiveUsers(String cursor, Integer size) {
+        log.debug("Fetching active users page after cursor: {}", cursor);
+        PageCursor page = PageCursor.of(cursor, size);
+        return page.toPage(userRepository.findActivePageAfter(page.afterId(), page.limit()), UserView::id);
     }
 
     @Transactional
@@ -67,7 +73,7 @@ public class UserService {
     public User updateUser(Long id, User userDetails) {
         log.info("Updating user with id: {}", id);
         
-        User user = getUserById(id);
+        User user = findUser(id);
         
         if (!user.getUsername().equals(userDetails.getUsername()) &&
                 userRepository.existsByUsername(userDetails.getUsername())) {
@@ -79,6 +85,12 @@ public class UserService {
             throw new DuplicateResourceException("User", "email", userDetails.getEmail());
         }
         
+        // Instructor names are part of every rendered course outline
+        if (!Objects.equals(user.getFirstName(), userDetails.getFirstName()) ||
+                !Objects.equals(user.getLastName(), userDetails.getLastName())) {
+            renderedJsonCache.evictAll(RenderedJsonCache.Resource.COURSE_OUTLINE);
+        }
+        
         user.setUsername(userDetails.getUsername());
         user.setEmail(userDetails.getEmail());
         user.setFirstName(userDetails.getFirstName());
@@ -92,15 +104,20 @@ public class UserService {
     @Transactional
     public void deleteUser(Long id) {
         log.info("Deleting user with id: {}", id);
-        User user = getUserById(id);
+        User user = findUser(id);
         userRepository.delete(user);
     }
 
     @Transactional
     public void deactivateUser(Long id) {
         log.info("Deactivating user with id: {}", id);
-        User user = getUserById(id);
+        User user = findUser(id);
         user.setActive(false);
         userRepository.save(user);
     }
+
+    private User findUser(Long id) {
+        return userRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("User", id));
+    }
 }
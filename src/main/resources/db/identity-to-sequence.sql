@@ -0,0 +1,25 @@
+-- Migration of an existing PostgreSQL schema from IDENTITY columns to pooled sequences.
+-- Run once before starting the new version of the application against an existing database.
+-- INCREMENT BY must match spring.jpa.properties.app.id.allocation-size (and per-table overrides);
+-- RepositoryIndexUsageTest fails when allocation_size or the table list drift from the entity mapping.
+-- Each sequence is positioned so that the first pooled block starts right after MAX(id).
+
+DO $$
+DECLARE
+    allocation_size CONSTANT bigint := 50;
+    t text;
+    max_id bigint;
+BEGIN
+    FOREACH t IN ARRAY ARRAY[
+        'users', 'categories', 'courses', 'modules', 'lessons', 'assignments', 'submissions',
+        'quizzes', 'questions', 'answer_options', 'quiz_submissions', 'enrollments', 'course_reviews'
+    ]
+    LOOP
+        EXECUTE format('ALTER TABLE %I ALTER COLUMN id DROP IDENTITY IF EXISTS', t);
+        EXECUTE format('ALTER TABLE %I ALTER COLUMN id DROP DEFAULT', t);
+        EXECUTE format('CREATE SEQUENCE IF NOT EXISTS %I INCREMENT BY %s', t || '_seq', allocation_size);
+        EXECUTE format('ALTER SEQUENCE %I INCREMENT BY %s', t || '_seq', allocation_size);
+        EXECUTE format('SELECT COALESCE(MAX(id), 0) FROM %I', t) INTO max_id;
+        PERFORM setval(t || '_seq', max_id + allocation_size, false);
+    END LOOP;
+END $$;
@@ -0,0 +1,250 @@
+-- Schema as mapped by the entities when ddl-auto=create-drop was still in use, with named constraints.
+-- Sequences: INCREMENT BY must match spring.jpa.properties.app.id.allocation-size (and per-table overrides).
+-- Unique constraint names of enrollments, submissions and quiz_submissions are mapped to 409 Conflict
+-- (see UniqueConstraintTranslator).
+
+CREATE SEQUENCE users_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE categories_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE courses_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE modules_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE lessons_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE assignments_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE submissions_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE quizzes_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE questions_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE answer_options_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE quiz_submissions_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE enrollments_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE course_reviews_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE users (
+    id                bigint       NOT NULL,
+    username          varchar(50)  NOT NULL,
+    email             varchar(100) NOT NULL,
+    password          varchar(255) NOT NULL,
+    first_name        varchar(50)  NOT NULL,
+    last_name         varchar(50)  NOT NULL,
+    role              varchar(20)  NOT NULL,
+    bio               varchar(500),
+    profile_image_url varchar(255),
+    active            boolean      NOT NULL,
+    created_at        timestamp(6) NOT NULL,
+    updated_at        timestamp(6),
+    CONSTRAINT pk_users PRIMARY KEY (id),
+    CONSTRAINT uk_users_username UNIQUE (username),
+    CONSTRAINT uk_users_email UNIQUE (email),
+    CONSTRAINT ck_users_role CHECK (role IN ('STUDENT', 'INSTRUCTOR', 'ADMIN'))
+);
+
+CREATE TABLE categories (
+    id          bigint       NOT NULL,
+    name        varchar(100) NOT NULL,
+    description varchar(500),
+    created_at  timestamp(6) NOT NULL,
+    updated_at  timestamp(6),
+    CONSTRAINT pk_categories PRIMARY KEY (id),
+    CONSTRAINT uk_categories_name UNIQUE (name)
+);
+
+CREATE TABLE courses (
+    id               bigint        NOT NULL,
+    title            varchar(200)  NOT NULL,
+    description      varchar(2000),
+    image_url        varchar(255),
+    category_id      bigint        NOT NULL,
+    instructor_id    bigint        NOT NULL,
+    published        boolean       NOT NULL,
+    duration_hours   integer       NOT NULL,
+    difficulty_level varchar(20)   NOT NULL,
+    created_at       timestamp(6)  NOT NULL,
+    updated_at       timestamp(6),
+    CONSTRAINT pk_courses PRIMARY KEY (id),
+    CONSTRAINT ck_courses_difficulty_level
+        CHECK (difficulty_level IN ('BEGINNER', 'INTERMEDIATE', 'ADVANCED', 'EXPERT'))
+);
+
+CREATE TABLE modules (
+    id          bigint        NOT NULL,
+    course_id   bigint        NOT NULL,
+    title       varchar(200)  NOT NULL,
+    description varchar(1000),
+    order_index integer       NOT NULL,
+    created_at  timestamp(6)  NOT NULL,
+    updated_at  timestamp(6),
+    CONSTRAINT pk_modules PRIMARY KEY (id)
+);
+
+CREATE TABLE lessons (
+    id               bigint        NOT NULL,
+    module_id        bigint        NOT NULL,
+    title            varchar(200)  NOT NULL,
+    content          varchar(5000),
+    order_index      integer       NOT NULL,
+    type             varchar(20)   NOT NULL,
+    video_url        varchar(255),
+    duration_minutes integer,
+    created_at       timestamp(6)  NOT NULL,
+    updated_at       timestamp(6),
+    CONSTRAINT pk_lessons PRIMARY KEY (id),
+    CONSTRAINT ck_lessons_type CHECK (type IN ('TEXT', 'VIDEO', 'INTERACTIVE', 'DOCUMENT'))
+);
+
+CREATE TABLE assignments (
+    id          bigint        NOT NULL,
+    lesson_id   bigint        NOT NULL,
+    title       varchar(200)  NOT NULL,
+    description varchar(3000),
+    max_score   integer       NOT NULL,
+    deadline    timestamp(6),
+    created_at  timestamp(6)  NOT NULL,
+    updated_at  timestamp(6),
+    CONSTRAINT pk_assignments PRIMARY KEY (id)
+);
+
+CREATE TABLE submissions (
+    id            bigint        NOT NULL,
+    student_id    bigint        NOT NULL,
+    assignment_id bigint        NOT NULL,
+    content       varchar(5000),
+    file_url      varchar(255),
+    submitted_at  timestamp(6)  NOT NULL,
+    status        varchar(20)   NOT NULL,
+    score         integer,
+    feedback      varchar(2000),
+    graded_at     timestamp(6),
+    created_at    timestamp(6)  NOT NULL,
+    updated_at    timestamp(6),
+    CONSTRAINT pk_submissions PRIMARY KEY (id),
+    CONSTRAINT uk_submissions_student_assignment UNIQUE (student_id, assignment_id),
+    CONSTRAINT ck_submissions_status
+        CHECK (status IN ('SUBMITTED', 'UNDER_REVIEW', 'GRADED', 'RETURNED_FOR_REVISION', 'ACCEPTED'))
+);
+
+CREATE TABLE quizzes (
+    id                 bigint        NOT NULL,
+    module_id          bigint        NOT NULL,
+    title              varchar(200)  NOT NULL,
+    description        varchar(1000),
+    passing_score      integer       NOT NULL,
+    time_limit_minutes integer,
+    created_at         timestamp(6)  NOT NULL,
+    updated_at         timestamp(6),
+    CONSTRAINT pk_quizzes PRIMARY KEY (id),
+    CONSTRAINT uk_quizzes_module UNIQUE (module_id)
+);
+
+CREATE TABLE questions (
+    id            bigint        NOT NULL,
+    quiz_id       bigint        NOT NULL,
+    question_text varchar(1000) NOT NULL,
+    type          varchar(20)   NOT NULL,
+    order_index   integer       NOT NULL,
+    points        integer       NOT NULL,
+    created_at    timestamp(6)  NOT NULL,
+    updated_at    timestamp(6),
+    CONSTRAINT pk_questions PRIMARY KEY (id),
+    CONSTRAINT ck_questions_type CHECK (type IN ('SINGLE_CHOICE', 'MULTIPLE_CHOICE', 'TRUE_FALSE'))
+);
+
+CREATE TABLE answer_options (
+    id          bigint       NOT NULL,
+    question_id bigint       NOT NULL,
+    option_text varchar(500) NOT NULL,
+    is_correct  boolean      NOT NULL,
+    order_index integer      NOT NULL,
+    created_at  timestamp(6) NOT NULL,
+    updated_at  timestamp(6),
+    CONSTRAINT pk_answer_options PRIMARY KEY (id)
+);
+
+CREATE TABLE quiz_submissions (
+    id                 bigint       NOT NULL,
+    student_id         bigint       NOT NULL,
+    quiz_id            bigint       NOT NULL,
+    score              integer      NOT NULL,
+    max_score          integer      NOT NULL,
+    percentage_score   float(53)    NOT NULL,
+    passed             boolean      NOT NULL,
+    submitted_at       timestamp(6) NOT NULL,
+    time_taken_minutes integer,
+    created_at         timestamp(6) NOT NULL,
+    updated_at         timestamp(6),
+    CONSTRAINT pk_quiz_submissions PRIMARY KEY (id),
+    CONSTRAINT uk_quiz_submissions_student_quiz UNIQUE (student_id, quiz_id)
+);
+
+CREATE TABLE enrollments (
+    id                  bigint       NOT NULL,
+    student_id          bigint       NOT NULL,
+    course_id           bigint       NOT NULL,
+    enrolled_at         timestamp(6) NOT NULL,
+    status              varchar(20)  NOT NULL,
+    progress_percentage float(53),
+    completed_at        timestamp(6),
+    final_grade         float(53),
+    created_at          timestamp(6) NOT NULL,
+    updated_at          timestamp(6),
+    CONSTRAINT pk_enrollments PRIMARY KEY (id),
+    CONSTRAINT uk_enrollments_student_course UNIQUE (student_id, course_id),
+    CONSTRAINT ck_enrollments_status CHECK (status IN ('ACTIVE', 'COMPLETED', 'DROPPED', 'SUSPENDED'))
+);
+
+CREATE TABLE course_reviews (
+    id          bigint        NOT NULL,
+    student_id  bigint        NOT NULL,
+    course_id   bigint        NOT NULL,
+    rating      integer       NOT NULL,
+    comment     varchar(2000),
+    reviewed_at timestamp(6)  NOT NULL,
+    created_at  timestamp(6)  NOT NULL,
+    updated_at  timestamp(6),
+    CONSTRAINT pk_course_reviews PRIMARY KEY (id),
+    CONSTRAINT uk_course_reviews_student_course UNIQUE (student_id, course_id)
+);
+
+CREATE TABLE course_statistics (
+    course_id          bigint       NOT NULL,
+    active_enrollments bigint       NOT NULL,
+    review_count       bigint       NOT NULL,
+    rating_sum         bigint       NOT NULL,
+    updated_at         timestamp(6),
+    CONSTRAINT pk_course_statistics PRIMARY KEY (course_id)
+);
+
+CREATE TABLE gradebook_entries (
+    course_id             bigint       NOT NULL,
+    student_id            bigint       NOT NULL,
+    graded_assignments    integer      NOT NULL,
+    assignment_score      integer      NOT NULL,
+    assignment_max_score  integer      NOT NULL,
+    assignment_percentage float(53)    NOT NULL,
+    quizzes_taken         integer      NOT NULL,
+    quizzes_passed        integer      NOT NULL,
+    quiz_score            integer      NOT NULL,
+    quiz_max_score        integer      NOT NULL,
+    quiz_percentage       float(53)    NOT NULL,
+    overall_percentage    float(53)    NOT NULL,
+    updated_at            timestamp(6),
+    CONSTRAINT pk_gradebook_entries PRIMARY KEY (course_id, student_id)
+);
+
+CREATE INDEX ix_gradebook_course_overall ON gradebook_entries (course_id, overall_percentage, student_id);
+CREATE INDEX ix_gradebook_course_assignments ON gradebook_entries (course_id, assignment_percentage, student_id);
+CREATE INDEX ix_gradebook_course_quizzes ON gradebook_entries (course_id, quiz_percentage, student_id);
+
+ALTER TABLE courses ADD CONSTRAINT fk_courses_category FOREIGN KEY (category_id) REFERENCES categories (id);
+ALTER TABLE courses ADD CONSTRAINT fk_courses_instructor FOREIGN KEY (instructor_id) REFERENCES users (id);
+ALTER TABLE modules ADD CONSTRAINT fk_modules_course FOREIGN KEY (course_id) REFERENCES courses (id);
+ALTER TABLE lessons ADD CONSTRAINT fk_lessons_module FOREIGN KEY (module_id) REFERENCES modules (id);
+ALTER TABLE assignments ADD CONSTRAINT fk_assignments_lesson FOREIGN KEY (lesson_id) REFERENCES lessons (id);
+ALTER TABLE submissions ADD CONSTRAINT fk_submissions_student FOREIGN KEY (student_id) REFERENCES users (id);
+ALTER TABLE submissions ADD CONSTRAINT fk_submissions_assignment FOREIGN KEY (assignment_id) REFERENCES assignments (id);
+ALTER TABLE quizzes ADD CONSTRAINT fk_quizzes_module FOREIGN KEY (module_id) REFERENCES modules (id);
+ALTER TABLE questions ADD CONSTRAINT fk_questions_quiz FOREIGN KEY (quiz_id) REFERENCES quizzes (id);
+ALTER TABLE answer_options ADD CONSTRAINT fk_answer_options_question FOREIGN KEY (question_id) REFERENCES questions (id);
+ALTER TABLE quiz_submissions ADD CONSTRAINT fk_quiz_submissions_student FOREIGN KEY (student_id) REFERENCES users (id);
+ALTER TABLE quiz_submissions ADD CONSTRAINT fk_quiz_submissions_quiz FOREIGN KEY (quiz_id) REFERENCES quizzes (id);
+ALTER TABLE enrollments ADD CONSTRAINT fk_enrollments_student FOREIGN KEY (student_id) REFERENCES users (id);
+ALTER TABLE enrollments ADD CONSTRAINT fk_enrollments_course FOREIGN KEY (course_id) REFERENCES courses (id);
+ALTER TABLE course_reviews ADD CONSTRAINT fk_course_reviews_student FOREIGN KEY (student_id) REFERENCES users (id);
+ALTER TABLE course_reviews ADD CONSTRAINT fk_course_reviews_course FOREIGN KEY (course_id) REFERENCES courses (id);
@@ -0,0 +1,49 @@
+-- Indexes for the repository queries (checked by RepositoryIndexUsageTest).
+-- PostgreSQL does not index foreign keys by itself; a unique constraint leading with the column
+-- (student_id of enrollments, submissions, quiz_submissions, course_reviews; module_id of quizzes) already does.
+-- Trailing id columns serve keyset pages (WHERE <fk> = ? AND id > ? ORDER BY id) without a sort.
+
+-- CourseRepository.findPublishedCoursesByCategory, findPageByCategoryIdAfter
+CREATE INDEX ix_courses_category_published ON courses (category_id, published, id);
+-- findByInstructor, findPageByInstructorIdAfter
+CREATE INDEX ix_courses_instructor ON courses (instructor_id, id);
+-- findByPublishedTrue, findPublishedPageAfter
+CREATE INDEX ix_courses_published ON courses (published, id);
+
+-- ModuleRepository.findOutlineByCourseId, findByCourseId (ORDER BY order_index, id)
+CREATE INDEX ix_modules_course ON modules (course_id, order_index, id);
+
+-- LessonRepository.findByModuleId; findViewsByCourseId joins through modules
+CREATE INDEX ix_lessons_module ON lessons (module_id, order_index, id);
+
+-- AssignmentRepository.findViewsByLessonIds, findPageByLessonIdAfter
+CREATE INDEX ix_assignments_lesson ON assignments (lesson_id, id);
+-- findByDeadlineBefore / findByDeadlineAfter
+CREATE INDEX ix_assignments_deadline ON assignments (deadline);
+
+-- SubmissionRepository.findByAssignmentId, findPageByAssignmentIdAfter
+CREATE INDEX ix_submissions_assignment ON submissions (assignment_id, id);
+-- findByStatus; GRADED submissions of a course are summarized by the gradebook repair
+CREATE INDEX ix_submissions_status ON submissions (status, assignment_id);
+
+-- QuizSubmissionRepository.findPageByQuizIdAfter, streamExportRowsByQuizId (ORDER BY id)
+CREATE INDEX ix_quiz_submissions_quiz ON quiz_submissions (quiz_id, id);
+
+-- QuestionRepository.findViewsByQuizId, findAnswerKeyRowsByQuizId (ORDER BY order_index)
+CREATE INDEX ix_questions_quiz ON questions (quiz_id, order_index, id);
+
+-- AnswerOptionRepository.findByQuestionId, findCorrectAnswerKeyRowsByQuizId joins through questions
+CREATE INDEX ix_answer_options_question ON answer_options (question_id, order_index, id);
+
+-- EnrollmentRepository.countActiveEnrollmentsByCourseId, findStudentIdsByCourseId: covering, no table access
+CREATE INDEX ix_enrollments_course_status ON enrollments (course_id, status, student_id);
+-- countActiveEnrollmentsGroupedByCourse, findByStatus
+CREATE INDEX ix_enrollments_status ON enrollments (status, course_id);
+
+-- CourseReviewRepository.findPageByCourseIdAfter, countByCourseId; rating covers the sum and average
+CREATE INDEX ix_course_reviews_course ON course_reviews (course_id, id, rating);
+
+-- UserRepository.findPageByRoleAfter, findByRole, findActiveUsersByRole
+CREATE INDEX ix_users_role ON users (role, id);
+-- findByActiveTrue, findActivePageAfter
+CREATE INDEX ix_users_active ON users (active, id);
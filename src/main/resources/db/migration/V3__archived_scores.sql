@@ -0,0 +1,16 @@
+-- Grade totals of submissions and quiz submissions moved to the file archive (SubmissionArchiveService),
+-- per (course, student); the gradebook repair adds them to what is still in the hot tables.
+
+CREATE TABLE archived_scores (
+    course_id            bigint       NOT NULL,
+    student_id           bigint       NOT NULL,
+    graded_assignments   integer      NOT NULL,
+    assignment_score     integer      NOT NULL,
+    assignment_max_score integer      NOT NULL,
+    quizzes_taken        integer      NOT NULL,
+    quizzes_passed       integer      NOT NULL,
+    quiz_score           integer      NOT NULL,
+    quiz_max_score       integer      NOT NULL,
+    updated_at           timestamp(6),
+    CONSTRAINT pk_archived_scores PRIMARY KEY (course_id, student_id)
+);
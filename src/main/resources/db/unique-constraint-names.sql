@@ -0,0 +1,34 @@
+-- Gives the (student, course/assignment/quiz) unique constraints of an existing PostgreSQL schema
+-- the names the application maps to 409 Conflict (see UniqueConstraintTranslator).
+-- Run once before starting the new version against a schema created with generated constraint names.
+
+DO $$
+DECLARE
+    target record;
+    existing text;
+BEGIN
+    FOR target IN
+        SELECT * FROM (VALUES
+            ('enrollments', 'course_id', 'uk_enrollments_student_course'),
+            ('submissions', 'assignment_id', 'uk_submissions_student_assignment'),
+            ('quiz_submissions', 'quiz_id', 'uk_quiz_submissions_student_quiz')
+        ) AS t(table_name, parent_column, constraint_name)
+    LOOP
+        SELECT c.conname INTO existing
+        FROM pg_constraint c
+        WHERE c.conrelid = target.table_name::regclass
+          AND c.contype = 'u'
+          AND (SELECT array_agg(a.attname::text ORDER BY a.attname)
+               FROM pg_attribute a
+               WHERE a.attrelid = c.conrelid AND a.attnum = ANY (c.conkey))
+              = (SELECT array_agg(x ORDER BY x) FROM unnest(ARRAY['student_id', target.parent_column]) AS x);
+
+        IF existing IS NULL THEN
+            EXECUTE format('ALTER TABLE %I ADD CONSTRAINT %I UNIQUE (student_id, %I)',
+                    target.table_name, target.constraint_name, target.parent_column);
+        ELSIF existing <> target.constraint_name THEN
+            EXECUTE format('ALTER TABLE %I RENAME CONSTRAINT %I TO %I',
+                    target.table_name, existing, target.constraint_name);
+        END IF;
+    END LOOP;
+END $$;
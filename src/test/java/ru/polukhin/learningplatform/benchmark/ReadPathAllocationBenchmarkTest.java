@@ -0,0 +1,169 @@
+package ru.polukhin.learningplatform.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.polukhin.learningplatform.dto.CourseView;
+import ru.polukhin.learningplatform.entity.*;
+import ru.polukhin.learningplatform.entity.Module;
+import ru.polukhin.learningplatform.repository.CategoryRepository;
+import ru.polukhin.learningplatform.repository.CourseRepository;
+import ru.polukhin.learningplatform.repository.UserRepository;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Callable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Heap allocated per request on the read path: JPA entities serialized by Jackson versus
+ * constructor-expression projections. Both sides run the same JPQL through the EntityManager,
+ * so only materialization and serialization differ. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class ReadPathAllocationBenchmarkTest {
+
+    private static final int COURSES = 200;
+    private static final int PAGE_SIZE = 20;
+    private static final int WARMUP_ITERATIONS = 500;
+    private static final int MEASURED_ITERATIONS = 2000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate readOnly;
+    private Long courseId;
+
+    @BeforeAll
+    void seed() {
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        courseId = new TransactionTemplate(transactionManager).execute(status -> {
+            User instructor = userRepository.save(User.builder()
+                    .username("bench_instructor")
+                    .email("bench_instructor@test.com")
+                    .password("password")
+                    .firstName("Bench")
+                    .lastName("Instructor")
+                    .role(RoleType.INSTRUCTOR)
+                    .active(true)
+                    .build());
+            Category category = categoryRepository.save(Category.builder()
+                    .name("Benchmark")
+                    .description("Benchmark category")
+                    .build());
+
+            Long firstId = null;
+            for (int i = 0; i < COURSES; i++) {
+                Course course = Course.builder()
+                        .title("Course " + i)
+                        .description("Description of course " + i)
+                        .durationHours(10)
+                        .difficultyLevel(DifficultyLevel.BEGINNER)
+                        .instructor(instructor)
+                        .category(category)
+                        .published(true)
+                        .build();
+                for (int m = 0; m < 5; m++) {
+                    course.getModules().add(Module.builder()
+                            .title("Module " + m)
+                            .orderIndex(m)
+                            .course(course)
+                            .build());
+                }
+                Long id = courseRepository.save(course).getId();
+                if (firstId == null) {
+                    firstId = id;
+                }
+            }
+            return firstId;
+        });
+    }
+
+    @Test
+    void projectionsAllocateLessThanEntitiesPerRequest() throws Exception {
+        String entityPageQuery = "SELECT c FROM Course c WHERE c.id > :afterId ORDER BY c.id";
+        String viewPageQuery = CourseRepository.COURSE_VIEW + "WHERE c.id > :afterId ORDER BY c.id";
+        String entityByIdQuery = "SELECT c FROM Course c WHERE c.id = :id";
+        String viewByIdQuery = CourseRepository.COURSE_VIEW + "WHERE c.id = :id";
+
+        long entityPage = bytesPerRequest(() -> readOnly.execute(status -> serialize(
+                entityManager.createQuery(entityPageQuery, Course.class)
+                        .setParameter("afterId", 0L)
+                        .setMaxResults(PAGE_SIZE)
+                        .getResultList())));
+        long viewPage = bytesPerRequest(() -> readOnly.execute(status -> serialize(
+                entityManager.createQuery(viewPageQuery, CourseView.class)
+                        .setParameter("afterId", 0L)
+                        .setMaxResults(PAGE_SIZE)
+                        .getResultList())));
+
+        long entityById = bytesPerRequest(() -> readOnly.execute(status -> serialize(
+                entityManager.createQuery(entityByIdQuery, Course.class)
+                        .setParameter("id", courseId)
+                        .getSingleResult())));
+        long viewById = bytesPerRequest(() -> readOnly.execute(status -> serialize(
+                entityManager.createQuery(viewByIdQuery, CourseView.class)
+                        .setParameter("id", courseId)
+                        .getSingleResult())));
+
+        System.out.printf("%-22s %12s %12s%n", "read path", "entity B/op", "view B/op");
+        System.out.printf("%-22s %12d %12d%n", "GET /courses?size=" + PAGE_SIZE, entityPage, viewPage);
+        System.out.printf("%-22s %12d %12d%n", "GET /courses/{id}", entityById, viewById);
+
+        assertThat(viewPage).isLessThan(entityPage);
+    }
+
+    private byte[] serialize(Object body) {
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static long bytesPerRequest(Callable<?> request) throws Exception {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            request.call();
+        }
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            request.call();
+        }
+        return (threads.getThreadAllocatedBytes(threadId) - before) / MEASURED_ITERATIONS;
+    }
+}
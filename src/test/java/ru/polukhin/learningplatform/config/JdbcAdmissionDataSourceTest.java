@@ -0,0 +1,57 @@
+package ru.polukhin.learningplatform.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+class JdbcAdmissionDataSourceTest {
+
+    @Test
+    void shouldAdmitUpToLimitAndReleaseOnClose() throws Exception {
+        // Given
+        DataSource target = mock(DataSource.class);
+        Connection physical = mock(Connection.class);
+        when(target.getConnection()).thenReturn(physical);
+        JdbcAdmissionDataSource dataSource = new JdbcAdmissionDataSource(target, 2, Duration.ofMillis(50));
+
+        // When
+        Connection first = dataSource.getConnection();
+        Connection second = dataSource.getConnection();
+
+        // Then
+        assertThat(dataSource.getAvailablePermits()).isZero();
+        assertThatThrownBy(dataSource::getConnection).isInstanceOf(CannotGetJdbcConnectionException.class);
+
+        // When
+        first.close();
+        first.close();
+
+        // Then
+        assertThat(dataSource.getAvailablePermits()).isEqualTo(1);
+        verify(physical, times(2)).close();
+        assertThat(first.unwrap(Connection.class)).isSameAs(first);
+
+        second.close();
+        assertThat(dataSource.getAvailablePermits()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldReturnPermitWhenPoolFails() throws Exception {
+        // Given
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection()).thenThrow(new SQLTransientConnectionException("pool exhausted"));
+        JdbcAdmissionDataSource dataSource = new JdbcAdmissionDataSource(target, 1, Duration.ofMillis(50));
+
+        // When / Then
+        assertThatThrownBy(dataSource::getConnection).hasMessage("pool exhausted");
+        assertThat(dataSource.getAvailablePermits()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,24 @@
+package ru.polukhin.learningplatform.config;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Fails a {@code @SpringBootTest} method when any HTTP request it performs (MockMvc or a real server)
+ * executes more than {@link #value()} SQL statements, or repeats a statement shape often enough to be
+ * reported as N+1. The test must perform at least one request that touches the database.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(QueryBudgetExtension.class)
+public @interface QueryBudget {
+
+    // Maximum statements per request
+    int value();
+
+    boolean failOnNPlusOne() default true;
+}
@@ -0,0 +1,74 @@
+package ru.polukhin.learningplatform.config;
+
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.opentest4j.AssertionFailedError;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ApplicationEventMulticaster;
+import org.springframework.context.support.AbstractApplicationContext;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Collects SqlRequestStatsEvents published while a @QueryBudget test runs and checks them afterwards
+class QueryBudgetExtension implements BeforeEachCallback, AfterEachCallback {
+
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(QueryBudgetExtension.class);
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        Recorder recorder = new Recorder();
+        multicaster(context).addApplicationListener(recorder);
+        context.getStore(NAMESPACE).put(Recorder.class, recorder);
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context) {
+        Recorder recorder = context.getStore(NAMESPACE).remove(Recorder.class, Recorder.class);
+        multicaster(context).removeApplicationListener(recorder);
+
+        QueryBudget budget = context.getRequiredTestMethod().getAnnotation(QueryBudget.class);
+        int nPlusOneThreshold = SpringExtension.getApplicationContext(context).getEnvironment()
+                .getProperty("app.sql-stats.n-plus-one-threshold", Integer.class, 5);
+
+        if (recorder.requests.isEmpty()) {
+            throw new AssertionFailedError("@QueryBudget: no HTTP request executed SQL in " + context.getDisplayName());
+        }
+        StringBuilder violations = new StringBuilder();
+        for (SqlRequestStatsEvent request : recorder.requests) {
+            SqlRequestStats stats = request.getStats();
+            if (stats.getStatements() > budget.value()) {
+                violations.append(String.format("%n%s %s: %d statements, budget %d",
+                        request.getMethod(), request.getUri(), stats.getStatements(), budget.value()));
+            }
+            if (budget.failOnNPlusOne()) {
+                for (SqlRequestStats.RepeatedStatement repeated : stats.getRepeatedStatements(nPlusOneThreshold)) {
+                    violations.append(String.format("%n%s %s: probable N+1, %d executions of [%s]",
+                            request.getMethod(), request.getUri(), repeated.count(), repeated.shape()));
+                }
+            }
+        }
+        if (!violations.isEmpty()) {
+            throw new AssertionFailedError("Query budget exceeded:" + violations);
+        }
+    }
+
+    private static ApplicationEventMulticaster multicaster(ExtensionContext context) {
+        ApplicationContext applicationContext = SpringExtension.getApplicationContext(context);
+        return applicationContext.getBean(AbstractApplicationContext.APPLICATION_EVENT_MULTICASTER_BEAN_NAME,
+                ApplicationEventMulticaster.class);
+    }
+
+    private static final class Recorder implements ApplicationListener<SqlRequestStatsEvent> {
+
+        private final List<SqlRequestStatsEvent> requests = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void onApplicationEvent(SqlRequestStatsEvent event) {
+            requests.add(event);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package ru.polukhin.learningplatform.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// The "replica" is the test database itself, so every read sees the writes; positions are constants
+@SpringBootTest(properties = {
+        "app.read-replicas.enabled=true",
+        "app.read-replicas.urls=jdbc:h2:mem:testdb",
+        "app.read-replicas.primary-position-sql=SELECT 42",
+        "app.read-replicas.replica-position-sql=SELECT 42"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class ReadReplicaConfigIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void shouldRouteThroughReplicaAndReturnTokenOnlyAfterWrites() throws Exception {
+        // Given
+        ReplicaRoutingDataSource routing = dataSource.unwrap(ReplicaRoutingDataSource.class);
+        routing.checkReplicas();
+
+        // When / Then
+        assertThat(routing.getReplicas()).singleElement()
+                .satisfies(replica -> assertThat(replica.isHealthy()).isTrue());
+        assertThat(routing.getPools().values()).hasSize(2).allMatch(JdbcAdmissionDataSource.class::isInstance);
+        mockMvc.perform(post("/api/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"username": "replicated", "email": "replicated@test.com", "password": "password",
+                                 "firstName": "First", "lastName": "Last", "role": "STUDENT"}
+                                """))
+                .andExpect(status().isCreated())
+                .andExpect(header().string(ConsistencyTokenFilter.TOKEN_HEADER, "42"));
+        mockMvc.perform(get("/api/users/username/{username}", "replicated")
+                        .header(ConsistencyTokenFilter.TOKEN_HEADER, "42"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(ConsistencyTokenFilter.TOKEN_HEADER));
+    }
+}
@@ -0,0 +1,304 @@
+package ru.polukhin.learningplatform.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.polukhin.learningplatform.dto.AutocompleteSuggestion;
+import ru.polukhin.learningplatform.dto.QuizGradingStatus;
+import ru.polukhin.learningplatform.entity.*;
+import ru.polukhin.learningplatform.entity.Module;
+import ru.polukhin.learningplatform.repository.CategoryRepository;
+import ru.polukhin.learningplatform.repository.CourseRepository;
+import ru.polukhin.learningplatform.repository.UserRepository;
+import ru.polukhin.learningplatform.service.AutocompleteService;
+import ru.polukhin.learningplatform.service.CourseService;
+import ru.polukhin.learningplatform.service.QuizAnswerKeyCache;
+import ru.polukhin.learningplatform.service.QuizService;
+import ru.polukhin.learningplatform.service.SearchService;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// The replica is a separate database holding a copy of the primary taken before the last writes,
+// i.e. a replica that lags although its reported position says otherwise
+@SpringBootTest(properties = {
+        "app.read-replicas.enabled=true",
+        "app.read-replicas.urls=jdbc:h2:mem:lagging-replica;DB_CLOSE_DELAY=-1",
+        "app.read-replicas.primary-position-sql=SELECT 42",
+        "app.read-replicas.replica-position-sql=SELECT 42"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class ReplicaCacheLoadIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CourseService courseService;
+
+    @Autowired
+    private QuizService quizService;
+
+    @Autowired
+    private QuizAnswerKeyCache answerKeyCache;
+
+    @Autowired
+    private SearchService searchService;
+
+    @Autowired
+    private AutocompleteService autocompleteService;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Test
+    void shouldFillSharedCachesFromThePrimary() throws Exception {
+        // Given: the replica copied while the course had one module and the quiz one question
+        ReplicaRoutingDataSource routing = dataSource.unwrap(ReplicaRoutingDataSource.class);
+        User instructor = userRepository.save(User.builder()
+                .username("replica_instructor")
+                .email("replica_instructor@test.com")
+                .password("password")
+                .firstName("First")
+                .lastName("Last")
+                .role(RoleType.INSTRUCTOR)
+                .active(true)
+                .build());
+        Category category = categoryRepository.save(Category.builder()
+                .name("Replica")
+                .description("Description")
+                .build());
+        Course course = courseService.createCourse(Course.builder()
+                .title("Replica Course")
+                .description("Description")
+                .durationHours(10)
+                .difficultyLevel(DifficultyLevel.BEGINNER)
+                .build(), instructor.getId(), category.getId());
+        Module module = courseService.addModuleToCourse(course.getId(), Module.builder().title("First").build());
+        Quiz quiz = quizService.createQuiz(Quiz.builder()
+                .title("Replica Quiz")
+                .passingScore(50)
+                .timeLimitMinutes(30)
+                .module(module)
+                .build());
+        addQuestion(quiz.getId(), "First question");
+        copy(routing.getPools().get("primary"), routing.getPools().get("replica-1"));
+
+        courseService.addModuleToCourse(course.getId(), Module.builder().title("Second").build());
+        addQuestion(quiz.getId(), "Second question");
+        routing.checkReplicas();
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        // When
+        long modulesOnReplica = readOnly.execute(status -> jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM modules WHERE course_id = ?", Long.class, course.getId()));
+        int outlineModules = readOnly.execute(status ->
+                courseService.getCourseWithFullStructure(course.getId()).modules().size());
+        int answerKeyQuestions = readOnly.execute(status -> answerKeyCache.get(quiz.getId()).getQuestionCount());
+
+        // Then: reads are served by the lagging replica, cache entries by the primary
+        assertThat(modulesOnReplica).isEqualTo(1);
+        assertThat(outlineModules).isEqualTo(2);
+        assertThat(answerKeyQuestions).isEqualTo(2);
+        mockMvc.perform(get("/api/courses/{id}/full", course.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.modules.length()").value(2));
+        mockMvc.perform(get("/api/quizzes/{id}/with-questions", quiz.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.questions.length()").value(2));
+    }
+
+    @Test
+    void shouldNotCacheHibernateReadsServedByTheReplica() throws Exception {
+        // Given: the replica copied before the course was renamed
+        ReplicaRoutingDataSource routing = dataSource.unwrap(ReplicaRoutingDataSource.class);
+        User instructor = userRepository.save(User.builder()
+                .username("replica_instructor")
+                .email("replica_instructor@test.com")
+                .password("password")
+                .firstName("First")
+                .lastName("Last")
+                .role(RoleType.INSTRUCTOR)
+                .active(true)
+                .build());
+        Category category = categoryRepository.save(Category.builder()
+                .name("Replica")
+                .description("Description")
+                .build());
+        Course course = courseService.createCourse(Course.builder()
+                .title("Before")
+                .description("Description")
+                .durationHours(10)
+                .difficultyLevel(DifficultyLevel.BEGINNER)
+                .build(), instructor.getId(), category.getId());
+        copy(routing.getPools().get("primary"), routing.getPools().get("replica-1"));
+
+        course.setTitle("After");
+        courseService.updateCourse(course.getId(), course);
+        routing.checkReplicas();
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+
+        // When: the replica serves the cacheable view query and the entity load first
+        String viewOnReplica = readOnly.execute(status -> courseService.getCourseById(course.getId()).title());
+        String entityOnReplica = readOnly.execute(status ->
+                courseRepository.findById(course.getId()).orElseThrow().getTitle());
+        String viewOnPrimary = readWrite.execute(status -> courseService.getCourseById(course.getId()).title());
+        String entityOnPrimary = readWrite.execute(status ->
+                courseRepository.findById(course.getId()).orElseThrow().getTitle());
+
+        // Then: nothing read from the replica is served to the primary's transactions
+        assertThat(viewOnReplica).isEqualTo("Before");
+        assertThat(entityOnReplica).isEqualTo("Before");
+        assertThat(viewOnPrimary).isEqualTo("After");
+        assertThat(entityOnPrimary).isEqualTo("After");
+        assertThat(entityManagerFactory.getCache().contains(Course.class, course.getId())).isFalse();
+    }
+
+    @Test
+    void shouldRefreshSearchAndAutocompleteFromThePrimary() throws Exception {
+        // Given: a published course the replica does not have yet
+        ReplicaRoutingDataSource routing = dataSource.unwrap(ReplicaRoutingDataSource.class);
+        User instructor = userRepository.save(User.builder()
+                .username("replica_instructor")
+                .email("replica_instructor@test.com")
+                .password("password")
+                .firstName("First")
+                .lastName("Last")
+                .role(RoleType.INSTRUCTOR)
+                .active(true)
+                .build());
+        Category category = categoryRepository.save(Category.builder()
+                .name("Replica")
+                .description("Description")
+                .build());
+        copy(routing.getPools().get("primary"), routing.getPools().get("replica-1"));
+        Course course = courseService.createCourse(Course.builder()
+                .title("Lagging Replication")
+                .description("Description")
+                .durationHours(10)
+                .difficultyLevel(DifficultyLevel.BEGINNER)
+                .build(), instructor.getId(), category.getId());
+        courseService.publishCourse(course.getId());
+        routing.checkReplicas();
+
+        // When
+        searchService.refresh();
+        autocompleteService.refresh();
+
+        // Then: the refresh read the primary instead of dropping the course the replica lacks
+        assertThat(searchService.search("lagging", null, null, null, 0, 10).total()).isOne();
+        assertThat(autocompleteService.suggestCourses("lagg", null))
+                .extracting(AutocompleteSuggestion::id)
+                .containsExactly(course.getId());
+    }
+
+    @Test
+    void shouldReportAGradedSubmissionTheReplicaLacks() throws Exception {
+        // Given: a quiz graded after the replica was copied, so the queue has already forgotten it
+        ReplicaRoutingDataSource routing = dataSource.unwrap(ReplicaRoutingDataSource.class);
+        User instructor = userRepository.save(User.builder()
+                .username("replica_instructor")
+                .email("replica_instructor@test.com")
+                .password("password")
+                .firstName("First")
+                .lastName("Last")
+                .role(RoleType.INSTRUCTOR)
+                .active(true)
+                .build());
+        User student = userRepository.save(User.builder()
+                .username("replica_student")
+                .email("replica_student@test.com")
+                .password("password")
+                .firstName("First")
+                .lastName("Last")
+                .role(RoleType.STUDENT)
+                .active(true)
+                .build());
+        Category category = categoryRepository.save(Category.builder()
+                .name("Replica")
+                .description("Description")
+                .build());
+        Course course = courseService.createCourse(Course.builder()
+                .title("Replica Course")
+                .description("Description")
+                .durationHours(10)
+                .difficultyLevel(DifficultyLevel.BEGINNER)
+                .build(), instructor.getId(), category.getId());
+        Module module = courseService.addModuleToCourse(course.getId(), Module.builder().title("First").build());
+        Quiz quiz = quizService.createQuiz(Quiz.builder()
+                .title("Replica Quiz")
+                .passingScore(50)
+                .timeLimitMinutes(30)
+                .module(module)
+                .build());
+        addQuestion(quiz.getId(), "First question");
+        copy(routing.getPools().get("primary"), routing.getPools().get("replica-1"));
+        quizService.takeQuiz(quiz.getId(), student.getId(), Map.of(), 5);
+        routing.checkReplicas();
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        // When
+        QuizGradingStatus status = readOnly.execute(transactionStatus ->
+                quizService.getGradingStatus(quiz.getId(), student.getId()));
+
+        // Then
+        assertThat(status.status()).isEqualTo(QuizGradingStatus.Status.GRADED);
+        assertThat(status.submission().studentId()).isEqualTo(student.getId());
+    }
+
+    private void addQuestion(Long quizId, String text) {
+        Question question = quizService.addQuestionToQuiz(quizId, Question.builder()
+                .questionText(text)
+                .type(QuestionType.TRUE_FALSE)
+                .build());
+        quizService.addAnswerOptionToQuestion(question.getId(), AnswerOption.builder()
+                .optionText("True")
+                .isCorrect(true)
+                .build());
+    }
+
+    private static void copy(DataSource from, DataSource to) {
+        JdbcTemplate target = new JdbcTemplate(to);
+        // The in-memory replica outlives the context, so drop what an earlier test copied
+        target.execute("DROP ALL OBJECTS");
+        new JdbcTemplate(from).queryForList("SCRIPT NOPASSWORDS NOSETTINGS", String.class)
+                .forEach(target::execute);
+    }
+}
@@ -0,0 +1,224 @@
+package ru.polukhin.learningplatform.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+// Two H2 databases stand in for the primary and a streaming replica; each reports its
+// "replication position" from a one-row table, and a marker row tells which one served a read
+class ReplicaRoutingDataSourceTest {
+
+    private static final String POSITION_SQL = "SELECT lsn FROM replication_position";
+
+    private final DataSource primary = database("routing_primary", "primary");
+    private final DataSource replica = database("routing_replica", "replica");
+    private final AtomicBoolean replicaDown = new AtomicBoolean();
+
+    private ReplicaRoutingDataSource routing;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        DataSource failingReplica = new DelegatingDataSource(replica) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                if (replicaDown.get()) {
+                    throw new SQLTransientConnectionException("replica unreachable");
+                }
+                return super.getConnection();
+            }
+        };
+        routing = new ReplicaRoutingDataSource(primary, List.of(failingReplica), POSITION_SQL, POSITION_SQL,
+                50, Duration.ofSeconds(1));
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(routing);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        jdbcTemplate = new JdbcTemplate(routing);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReadConsistency.end();
+        new JdbcTemplate(primary).execute("SHUTDOWN");
+        new JdbcTemplate(replica).execute("SHUTDOWN");
+    }
+
+    @Test
+    void shouldSendReadOnlyTransactionsToHealthyReplicaWithinMaxLag() {
+        // Given: replicas stay out of rotation until the first health check
+        assertThat(readOnlyOrigin()).isEqualTo("primary");
+
+        // When
+        routing.checkReplicas();
+
+        // Then
+        assertThat(readOnlyOrigin()).isEqualTo("replica");
+        assertThat(readWriteOrigin()).isEqualTo("primary");
+        assertThat(origin()).isEqualTo("primary");
+        assertThat(routing.getReplicas()).singleElement()
+                .satisfies(r -> assertThat(r.isHealthy()).isTrue())
+                .satisfies(r -> assertThat(r.getPosition()).isEqualTo(10));
+
+        // When: the replica falls more than max-lag (50) behind
+        setPosition(primary, 100);
+        routing.checkReplicas();
+
+        // Then
+        assertThat(readOnlyOrigin()).isEqualTo("primary");
+    }
+
+    @Test
+    void shouldReadOwnWritesFromPrimaryUntilReplicaReplaysThem() {
+        // Given
+        routing.checkReplicas();
+        ReadConsistency consistency = ReadConsistency.begin(0);
+
+        // When
+        readWrite.executeWithoutResult(status -> {
+            jdbcTemplate.update("UPDATE marker SET origin = origin");
+            jdbcTemplate.update("UPDATE replication_position SET lsn = 20");
+        });
+
+        // Then
+        assertThat(consistency.hasWritten()).isTrue();
+        assertThat(consistency.getRequiredPosition()).isEqualTo(20);
+        assertThat(readOnlyOrigin()).isEqualTo("primary");
+
+        // When
+        setPosition(replica, 20);
+        routing.checkReplicas();
+
+        // Then
+        assertThat(readOnlyOrigin()).isEqualTo("replica");
+
+        // When: a client token from an earlier request is ahead of the replica
+        ReadConsistency.begin(30);
+
+        // Then
+        assertThat(readOnlyOrigin()).isEqualTo("primary");
+        assertThat(ReadConsistency.current().hasWritten()).isFalse();
+    }
+
+    @Test
+    void shouldSendPinnedReadsToPrimaryWithoutRaisingTheToken() {
+        // Given
+        routing.checkReplicas();
+        ReadConsistency consistency = ReadConsistency.begin(0);
+
+        // When
+        String pinned = PrimaryReads.call(this::readOnlyOrigin);
+
+        // Then
+        assertThat(pinned).isEqualTo("primary");
+        assertThat(PrimaryReads.isPinned()).isFalse();
+        assertThat(readOnlyOrigin()).isEqualTo("replica");
+        assertThat(consistency.hasWritten()).isFalse();
+    }
+
+    @Test
+    void shouldFallBackToPrimaryWhileReplicaIsDown() {
+        // Given
+        routing.checkReplicas();
+
+        // When
+        replicaDown.set(true);
+
+        // Then
+        assertThat(readOnlyOrigin()).isEqualTo("primary");
+        assertThat(routing.getReplicas().get(0).isHealthy()).isFalse();
+        routing.checkReplicas();
+        assertThat(routing.getReplicas().get(0).isHealthy()).isFalse();
+
+        // When
+        replicaDown.set(false);
+        routing.checkReplicas();
+
+        // Then
+        assertThat(readOnlyOrigin()).isEqualTo("replica");
+    }
+
+    @Test
+    void shouldSendExplicitCredentialsToPrimary() throws SQLException {
+        // Given
+        routing.checkReplicas();
+
+        // When / Then
+        try (Connection connection = routing.getConnection("sa", "")) {
+            assertThat(new JdbcTemplate(new SingleConnectionDataSource(connection, true))
+                    .queryForObject("SELECT origin FROM marker", String.class)).isEqualTo("primary");
+        }
+    }
+
+    @Test
+    void shouldTakeAdmissionPermitsOfThePoolThatServesTheRead() {
+        // Given: one permit per pool
+        JdbcAdmissionDataSource primaryAdmission = new JdbcAdmissionDataSource(primary, 1, Duration.ofMillis(50));
+        JdbcAdmissionDataSource replicaAdmission = new JdbcAdmissionDataSource(replica, 1, Duration.ofMillis(50));
+        routing = new ReplicaRoutingDataSource(primaryAdmission, List.of(replicaAdmission), POSITION_SQL,
+                POSITION_SQL, 50, Duration.ofSeconds(1));
+        routing.checkReplicas();
+        jdbcTemplate = new JdbcTemplate(routing);
+        readOnly = new TransactionTemplate(new DataSourceTransactionManager(routing));
+        readOnly.setReadOnly(true);
+
+        // When
+        String origin = readOnly.execute(status -> {
+            String served = origin();
+            assertThat(replicaAdmission.getAvailablePermits()).isZero();
+            assertThat(primaryAdmission.getAvailablePermits()).isEqualTo(1);
+            return served;
+        });
+
+        // Then
+        assertThat(origin).isEqualTo("replica");
+        assertThat(replicaAdmission.getAvailablePermits()).isEqualTo(1);
+        assertThat(routing.getPools()).containsExactly(
+                entry("primary", primaryAdmission), entry("replica-1", replicaAdmission));
+    }
+
+    private String readOnlyOrigin() {
+        return readOnly.execute(status -> origin());
+    }
+
+    private String readWriteOrigin() {
+        return readWrite.execute(status -> origin());
+    }
+
+    private String origin() {
+        return jdbcTemplate.queryForObject("SELECT origin FROM marker", String.class);
+    }
+
+    private static void setPosition(DataSource dataSource, long lsn) {
+        new JdbcTemplate(dataSource).update("UPDATE replication_position SET lsn = ?", lsn);
+    }
+
+    private static DataSource database(String name, String origin) {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE replication_position (lsn BIGINT NOT NULL)");
+        jdbcTemplate.update("INSERT INTO replication_position VALUES (10)");
+        jdbcTemplate.execute("CREATE TABLE marker (origin VARCHAR(16) NOT NULL)");
+        jdbcTemplate.update("INSERT INTO marker VALUES (?)", origin);
+        return dataSource;
+    }
+}
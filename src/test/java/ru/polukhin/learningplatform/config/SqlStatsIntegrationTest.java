@@ -0,0 +1,188 @@
+package ru.polukhin.learningplatform.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.polukhin.learningplatform.entity.*;
+import ru.polukhin.learningplatform.entity.Module;
+import ru.polukhin.learningplatform.repository.CategoryRepository;
+import ru.polukhin.learningplatform.repository.CourseRepository;
+import ru.polukhin.learningplatform.repository.UserRepository;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Not @Transactional: seed data must be committed so the request does not flush it
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class SqlStatsIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Test
+    @QueryBudget(5)
+    void shouldReportStatementsOfFullStructureRequest() throws Exception {
+        // Given
+        Long courseId = createCourseWithLessons(4, 5);
+
+        // When
+        MvcResult result = mockMvc.perform(get("/api/courses/{id}/full", courseId))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        // Then
+        assertThat(result.getResponse().getHeader(SqlStatsFilter.STATEMENTS_HEADER)).isEqualTo("5");
+        assertThat(result.getResponse().getHeader(SqlStatsFilter.ROWS_HEADER))
+                .isEqualTo(String.valueOf(1 + 4 + 4 * 5 + 4 + 4 * 5));
+        assertThat(result.getResponse().getHeader(SqlStatsFilter.JDBC_TIME_HEADER)).isNotBlank();
+        assertThat(result.getResponse().getHeader(SqlStatsFilter.N_PLUS_ONE_HEADER)).isNull();
+    }
+
+    @Test
+    @QueryBudget(5)
+    void shouldServeRepeatedFullStructureRequestFromOutlineSnapshot() throws Exception {
+        // Given
+        Long courseId = createCourseWithLessons(4, 5);
+        mockMvc.perform(get("/api/courses/{id}/full", courseId)).andExpect(status().isOk());
+
+        // When
+        MvcResult result = mockMvc.perform(get("/api/courses/{id}/full", courseId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.modules[0].quiz.title").value("Quiz 0"))
+                .andExpect(jsonPath("$.modules[3].lessons[4].assignments[0].title").value("Assignment 4"))
+                .andReturn();
+
+        // Then
+        assertThat(Integer.parseInt(result.getResponse().getHeader(SqlStatsFilter.STATEMENTS_HEADER)))
+                .isLessThanOrEqualTo(1);
+    }
+
+    @Test
+    void shouldNormalizeStatementShapesAndFlagRepeats() {
+        // Given
+        SqlRequestStats stats = SqlRequestStats.begin();
+        try {
+            // When
+            for (int i = 0; i < 5; i++) {
+                SqlRequestStats.recordStatement("/* load Course */ select c1_0.id from courses c1_0 where c1_0.id=" + i);
+            }
+            SqlRequestStats.recordStatement("select q1_0.id from questions q1_0 where q1_0.quiz_id in (?,?,?)");
+            SqlRequestStats.recordStatement("select q1_0.id from questions q1_0 where q1_0.quiz_id in ( ? )");
+        } finally {
+            SqlRequestStats.end();
+        }
+
+        // Then
+        assertThat(stats.getStatements()).isEqualTo(7);
+        assertThat(stats.getRepeatedStatements(5)).singleElement().satisfies(repeated -> {
+            assertThat(repeated.shape()).isEqualTo("select c1_0.id from courses c1_0 where c1_0.id=?");
+            assertThat(repeated.count()).isEqualTo(5);
+        });
+        assertThat(stats.getRepeatedStatements(2)).extracting(SqlRequestStats.RepeatedStatement::shape)
+                .contains("select q1_0.id from questions q1_0 where q1_0.quiz_id in (...)");
+    }
+
+    @Test
+    void shouldCountResultSetRowsOnlyOnConnectionsTakenInRequest() throws Exception {
+        // Given
+        SqlStatsDataSource dataSource = new SqlStatsDataSource(
+                new DriverManagerDataSource("jdbc:h2:mem:sql_stats_rows", "sa", ""));
+        try (Connection outside = dataSource.getConnection()) {
+            assertThat(Proxy.isProxyClass(outside.getClass())).isFalse();
+        }
+        SqlRequestStats stats = SqlRequestStats.begin();
+
+        // When
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT X FROM SYSTEM_RANGE(1, 7)");
+             ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                rs.getLong(1);
+            }
+            assertThat(rs.next()).isFalse();
+            assertThat(connection.unwrap(Connection.class)).isNotNull();
+        } finally {
+            SqlRequestStats.end();
+        }
+
+        // Then
+        assertThat(stats.getRows()).isEqualTo(7);
+    }
+
+    private Long createCourseWithLessons(int modules, int lessonsPerModule) {
+        User instructor = userRepository.save(User.builder()
+                .username("sql_instructor")
+                .email("sql_instructor@test.com")
+                .password("password")
+                .firstName("First")
+                .lastName("Last")
+                .role(RoleType.INSTRUCTOR)
+                .active(true)
+                .build());
+        Category category = categoryRepository.save(Category.builder()
+                .name("SQL Category")
+                .description("Description")
+                .build());
+
+        Course course = Course.builder()
+                .title("SQL Course")
+                .description("Description")
+                .durationHours(10)
+                .difficultyLevel(DifficultyLevel.BEGINNER)
+                .instructor(instructor)
+                .category(category)
+                .build();
+        for (int m = 0; m < modules; m++) {
+            Module module = Module.builder()
+                    .title("Module " + m)
+                    .orderIndex(m)
+                    .course(course)
+                    .build();
+            module.setQuiz(Quiz.builder()
+                    .title("Quiz " + m)
+                    .timeLimitMinutes(30)
+                    .module(module)
+                    .build());
+            for (int l = 0; l < lessonsPerModule; l++) {
+                Lesson lesson = Lesson.builder()
+                        .title("Lesson " + l)
+                        .orderIndex(l)
+                        .module(module)
+                        .build();
+                lesson.getAssignments().add(Assignment.builder()
+                        .title("Assignment " + l)
+                        .maxScore(100)
+                        .lesson(lesson)
+                        .build());
+                module.getLessons().add(lesson);
+            }
+            course.getModules().add(module);
+        }
+        return courseRepository.save(course).getId();
+    }
+}
@@ -0,0 +1,54 @@
+package ru.polukhin.learningplatform.exception;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UniqueConstraintTranslatorTest {
+
+    @Test
+    void shouldTranslateExactConstraintNameReportedByDialect() {
+        // Given: PostgreSQL reports the constraint name itself
+        DataIntegrityViolationException ex = violation("uk_enrollments_student_course", "duplicate key");
+
+        // When / Then
+        assertThat(UniqueConstraintTranslator.translate(ex))
+                .isInstanceOf(DuplicateResourceException.class)
+                .hasMessage("Student is already enrolled in this course");
+    }
+
+    @Test
+    void shouldTranslateConstraintNamedInH2Message() {
+        // Given
+        DataIntegrityViolationException ex = violation(null, "Unique index or primary key violation: " +
+                "\"PUBLIC.UK_QUIZ_SUBMISSIONS_STUDENT_QUIZ_INDEX_D ON PUBLIC.QUIZ_SUBMISSIONS(STUDENT_ID NULLS FIRST, " +
+                "QUIZ_ID NULLS FIRST) VALUES ( /* key:8 */ CAST(4 AS BIGINT), CAST(2 AS BIGINT))\"; SQL statement:");
+
+        // When / Then
+        assertThat(UniqueConstraintTranslator.translate(ex))
+                .isInstanceOf(DuplicateResourceException.class)
+                .hasMessage("Quiz already taken by this student");
+    }
+
+    @Test
+    void shouldLeaveOtherConstraintsUntranslated() {
+        // Given: names that only contain or extend a known constraint name
+        DataIntegrityViolationException extended = violation("uk_enrollments_student_course_archive", "duplicate key");
+        DataIntegrityViolationException h2Other = violation(null, "Unique index or primary key violation: " +
+                "\"PUBLIC.UK_SUBMISSIONS_STUDENT_ASSIGNMENT_COPY_INDEX_8 ON PUBLIC.SUBMISSIONS_COPY(STUDENT_ID)\"");
+
+        // When / Then
+        assertThat(UniqueConstraintTranslator.translate(extended)).isSameAs(extended);
+        assertThat(UniqueConstraintTranslator.translate(h2Other)).isSameAs(h2Other);
+    }
+
+    private static DataIntegrityViolationException violation(String constraintName, String message) {
+        SQLException sqlException = new SQLException(message, "23505");
+        return new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("could not execute statement", sqlException, constraintName));
+    }
+}
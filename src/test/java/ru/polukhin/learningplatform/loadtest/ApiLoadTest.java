@@ -0,0 +1,183 @@
+package ru.polukhin.learningplatform.loadtest;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.polukhin.learningplatform.repository.CategoryRepository;
+import ru.polukhin.learningplatform.repository.CourseRepository;
+import ru.polukhin.learningplatform.repository.UserRepository;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Closed-loop load test of the REST API on a random port, backed by in-memory H2 in PostgreSQL mode.
+ * {@code loadtest.concurrency} clients run the weighted workload mix ({@code loadtest.mix}, e.g.
+ * {@code browse:70,enroll:10,quiz:10,submit:10}) for {@code loadtest.warmup} plus {@code loadtest.duration}.
+ * Prints throughput and p50/p99/p999 latency per endpoint and writes them to {@code target/loadtest-result.json}.
+ * Run with {@code mvn test -Ploadtest -Dloadtest.concurrency=64}.
+ */
+@Tag("loadtest")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:loadtest;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+        "spring.jpa.properties.hibernate.format_sql=false",
+        "spring.jpa.properties.hibernate.use_sql_comments=false",
+        "logging.level.root=WARN",
+        "logging.level.ru.polukhin=WARN",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN"
+})
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class ApiLoadTest {
+
+    private static final int CONCURRENCY = Integer.getInteger("loadtest.concurrency", 32);
+    private static final Duration WARMUP = Duration.parse("PT" + System.getProperty("loadtest.warmup", "5s"));
+    private static final Duration DURATION = Duration.parse("PT" + System.getProperty("loadtest.duration", "30s"));
+    private static final String MIX = System.getProperty("loadtest.mix", "browse:70,enroll:10,quiz:10,submit:10");
+    private static final Path RESULT_FILE = Path.of(System.getProperty("loadtest.result-file", "target/loadtest-result.json"));
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final LatencyReport report = new LatencyReport();
+    private final LoadTestDataset dataset = new LoadTestDataset();
+    private final AtomicInteger enrollmentSequence = new AtomicInteger();
+    private final AtomicInteger quizSequence = new AtomicInteger();
+    private final AtomicInteger submissionSequence = new AtomicInteger();
+
+    private LoadClient client;
+
+    @Test
+    void mixedWorkload() throws Exception {
+        dataset.seed(new TransactionTemplate(transactionManager), userRepository, categoryRepository, courseRepository);
+        client = new LoadClient(port, report);
+        List<Workload> mix = parseMix(MIX);
+
+        LoadClient.run(CONCURRENCY, WARMUP, () -> pick(mix).run());
+        report.reset();
+        long started = System.nanoTime();
+        LoadClient.run(CONCURRENCY, DURATION, () -> pick(mix).run());
+        double elapsedSeconds = (System.nanoTime() - started) / 1e9;
+
+        List<LatencyReport.Row> rows = report.rows(elapsedSeconds);
+        System.out.printf("%nLoad test: %d clients, %s, mix %s, %d courses, %d students%n",
+                CONCURRENCY, DURATION, MIX, dataset.courses, dataset.studentCount);
+        System.out.print(LatencyReport.format(rows));
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("concurrency", CONCURRENCY);
+        settings.put("durationSeconds", DURATION.toSeconds());
+        settings.put("mix", MIX);
+        settings.put("courses", dataset.courses);
+        settings.put("students", dataset.studentCount);
+        settings.put("questionsPerQuiz", dataset.questionsPerQuiz);
+        LatencyReport.writeJson(RESULT_FILE, settings, rows);
+
+        assertThat(rows.get(rows.size() - 1).serverErrors()).isZero();
+    }
+
+    // Catalog browsing: a page of published courses, then one course card, its outline or its statistics
+    private void browse() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Long courseId = dataset.courseIds.get(random.nextInt(dataset.courseIds.size()));
+        switch (random.nextInt(4)) {
+            case 0 -> client.get("GET /api/courses/published", "/api/courses/published?size=20");
+            case 1 -> client.get("GET /api/courses/{id}", "/api/courses/" + courseId);
+            case 2 -> client.get("GET /api/courses/{id}/full", "/api/courses/" + courseId + "/full");
+            default -> client.get("GET /api/courses/{id}/statistics", "/api/courses/" + courseId + "/statistics");
+        }
+    }
+
+    // Every (student, course) pair is used once; once exhausted the requests return 409
+    private void enroll() {
+        int sequence = enrollmentSequence.getAndIncrement();
+        Long studentId = dataset.studentIds.get(sequence % dataset.studentIds.size());
+        Long courseId = dataset.courseIds.get((sequence / dataset.studentIds.size()) % dataset.courseIds.size());
+        client.post("POST /api/enrollments", "/api/enrollments?studentId=" + studentId + "&courseId=" + courseId);
+    }
+
+    private void takeQuiz() {
+        int sequence = quizSequence.getAndIncrement();
+        Long studentId = dataset.studentIds.get(sequence % dataset.studentIds.size());
+        LoadTestDataset.SeededQuiz quiz = dataset.quizzes.get((sequence / dataset.studentIds.size()) % dataset.quizzes.size());
+        client.post("POST /api/quizzes/{id}/take", "/api/quizzes/" + quiz.id() + "/take?studentId=" + studentId
+                + "&timeTaken=10", quiz.answers(ThreadLocalRandom.current()));
+    }
+
+    // Shares the (student, quiz) sequence with takeQuiz, so the two can be mixed without conflicts
+    private void takeQuizAsync() {
+        int sequence = quizSequence.getAndIncrement();
+        Long studentId = dataset.studentIds.get(sequence % dataset.studentIds.size());
+        LoadTestDataset.SeededQuiz quiz = dataset.quizzes.get((sequence / dataset.studentIds.size()) % dataset.quizzes.size());
+        client.post("POST /api/quizzes/{id}/take-async", "/api/quizzes/" + quiz.id() + "/take-async?studentId=" + studentId
+                + "&timeTaken=10", quiz.answers(ThreadLocalRandom.current()));
+    }
+
+    private void submitAssignment() {
+        int sequence = submissionSequence.getAndIncrement();
+        Long studentId = dataset.studentIds.get(sequence % dataset.studentIds.size());
+        Long assignmentId = dataset.assignmentIds.get((sequence / dataset.studentIds.size()) % dataset.assignmentIds.size());
+        client.post("POST /api/assignments/{id}/submit", "/api/assignments/" + assignmentId + "/submit?studentId="
+                + studentId + "&content=solution");
+    }
+
+    private List<Workload> parseMix(String mix) {
+        Map<String, Runnable> operations = Map.of(
+                "browse", this::browse,
+                "enroll", this::enroll,
+                "quiz", this::takeQuiz,
+                "quiz-async", this::takeQuizAsync,
+                "submit", this::submitAssignment);
+        List<Workload> workloads = new ArrayList<>();
+        for (String part : mix.split(",")) {
+            String[] weighted = part.trim().split(":");
+            Runnable operation = operations.get(weighted[0]);
+            if (operation == null) {
+                throw new IllegalArgumentException("Unknown workload " + weighted[0] + ", expected one of " + operations.keySet());
+            }
+            workloads.add(new Workload(operation, Integer.parseInt(weighted[1])));
+        }
+        return workloads;
+    }
+
+    private static Runnable pick(List<Workload> mix) {
+        int total = 0;
+        for (Workload workload : mix) {
+            total += workload.weight();
+        }
+        int roll = ThreadLocalRandom.current().nextInt(total);
+        for (Workload workload : mix) {
+            roll -= workload.weight();
+            if (roll < 0) {
+                return workload.operation();
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    private record Workload(Runnable operation, int weight) {
+    }
+}
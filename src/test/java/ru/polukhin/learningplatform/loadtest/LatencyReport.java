@@ -0,0 +1,94 @@
+package ru.polukhin.learningplatform.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Per-endpoint latency histograms (microsecond resolution, up to one minute) and status counters
+final class LatencyReport {
+
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    void record(String endpoint, long nanos, int status) {
+        Endpoint stats = endpoints.computeIfAbsent(endpoint, name -> new Endpoint());
+        stats.latency.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(nanos), MAX_LATENCY_MICROS));
+        if (status >= 500 || status < 0) {
+            stats.serverErrors.increment();
+        } else if (status >= 400) {
+            stats.clientErrors.increment();
+        }
+    }
+
+    void reset() {
+        endpoints.clear();
+    }
+
+    List<Row> rows(double elapsedSeconds) {
+        List<Row> rows = new ArrayList<>();
+        Histogram total = new Histogram(MAX_LATENCY_MICROS, 3);
+        long clientErrors = 0;
+        long serverErrors = 0;
+        for (Map.Entry<String, Endpoint> entry : new TreeMap<>(endpoints).entrySet()) {
+            Endpoint endpoint = entry.getValue();
+            rows.add(Row.of(entry.getKey(), endpoint.latency, endpoint.clientErrors.sum(), endpoint.serverErrors.sum(), elapsedSeconds));
+            total.add(endpoint.latency);
+            clientErrors += endpoint.clientErrors.sum();
+            serverErrors += endpoint.serverErrors.sum();
+        }
+        rows.add(Row.of("TOTAL", total, clientErrors, serverErrors, elapsedSeconds));
+        return rows;
+    }
+
+    static String format(List<Row> rows) {
+        StringBuilder table = new StringBuilder(String.format("%-45s %9s %7s %7s %10s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "4xx", "5xx", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms"));
+        for (Row row : rows) {
+            table.append(String.format("%-45s %9d %7d %7d %10.1f %9.2f %9.2f %9.2f %9.2f%n",
+                    row.endpoint(), row.requests(), row.clientErrors(), row.serverErrors(), row.throughput(),
+                    row.p50Millis(), row.p99Millis(), row.p999Millis(), row.maxMillis()));
+        }
+        return table.toString();
+    }
+
+    static void writeJson(Path file, Map<String, Object> settings, List<Row> rows) throws IOException {
+        Files.createDirectories(file.getParent());
+        new ObjectMapper().writerWithDefaultPrettyPrinter()
+                .writeValue(file.toFile(), Map.of("settings", settings, "results", rows));
+    }
+
+    private static final class Endpoint {
+        private final Histogram latency = new ConcurrentHistogram(MAX_LATENCY_MICROS, 3);
+        private final LongAdder clientErrors = new LongAdder();
+        private final LongAdder serverErrors = new LongAdder();
+    }
+
+    record Row(String endpoint, long requests, long clientErrors, long serverErrors, double throughput,
+               double p50Millis, double p99Millis, double p999Millis, double maxMillis) {
+
+        static Row of(String endpoint, Histogram latency, long clientErrors, long serverErrors, double elapsedSeconds) {
+            return new Row(endpoint, latency.getTotalCount(), clientErrors, serverErrors,
+                    latency.getTotalCount() / elapsedSeconds,
+                    latency.getValueAtPercentile(50) / 1000.0,
+                    latency.getValueAtPercentile(99) / 1000.0,
+                    latency.getValueAtPercentile(99.9) / 1000.0,
+                    latency.getMaxValue() / 1000.0);
+        }
+
+        Row withEndpoint(String endpoint) {
+            return new Row(endpoint, requests, clientErrors, serverErrors, throughput, p50Millis, p99Millis, p999Millis, maxMillis);
+        }
+    }
+}
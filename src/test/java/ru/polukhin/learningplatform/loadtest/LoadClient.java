@@ -0,0 +1,91 @@
+package ru.polukhin.learningplatform.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+// HTTP client of the load tests: times every request into a LatencyReport under its endpoint template
+final class LoadClient {
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String baseUrl;
+    private final LatencyReport report;
+
+    LoadClient(int port, LatencyReport report) {
+        this.baseUrl = "http://localhost:" + port;
+        this.report = report;
+    }
+
+    void get(String endpoint, String path) {
+        send(endpoint, HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build());
+    }
+
+    void post(String endpoint, String path) {
+        post(endpoint, path, "");
+    }
+
+    void post(String endpoint, String path, Object body) {
+        send(endpoint, HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body instanceof String text ? text : json(body)))
+                .build());
+    }
+
+    // Closed loop: every client issues its next request as soon as the previous one completes
+    static void run(int concurrency, Duration duration, Runnable operation) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                futures.add(clients.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        operation.run();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            clients.shutdownNow();
+            clients.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private void send(String endpoint, HttpRequest request) {
+        long start = System.nanoTime();
+        int status;
+        try {
+            status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            status = -1;
+        }
+        report.record(endpoint, System.nanoTime() - start, status);
+    }
+
+    private String json(Object body) {
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
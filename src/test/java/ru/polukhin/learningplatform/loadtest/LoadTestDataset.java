@@ -0,0 +1,151 @@
+package ru.polukhin.learningplatform.loadtest;
+
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.polukhin.learningplatform.entity.*;
+import ru.polukhin.learningplatform.entity.Module;
+import ru.polukhin.learningplatform.repository.CategoryRepository;
+import ru.polukhin.learningplatform.repository.CourseRepository;
+import ru.polukhin.learningplatform.repository.UserRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Synthetic catalog for the load test: published courses with modules and lessons, one quiz and
+ * one assignment per course, and a pool of students. Sizes come from {@code loadtest.*} system properties.
+ */
+final class LoadTestDataset {
+
+    final int courses = Integer.getInteger("loadtest.courses", 50);
+    final int modulesPerCourse = Integer.getInteger("loadtest.modules-per-course", 5);
+    final int lessonsPerModule = Integer.getInteger("loadtest.lessons-per-module", 5);
+    final int questionsPerQuiz = Integer.getInteger("loadtest.questions-per-quiz", 10);
+    final int studentCount = Integer.getInteger("loadtest.students", 2000);
+
+    final List<Long> courseIds = new ArrayList<>();
+    final List<Long> studentIds = new ArrayList<>();
+    final List<Long> assignmentIds = new ArrayList<>();
+    final List<SeededQuiz> quizzes = new ArrayList<>();
+
+    void seed(TransactionTemplate transaction, UserRepository userRepository,
+              CategoryRepository categoryRepository, CourseRepository courseRepository) {
+        transaction.executeWithoutResult(status -> {
+            User instructor = userRepository.save(user("load_instructor", RoleType.INSTRUCTOR));
+            for (int s = 0; s < studentCount; s++) {
+                studentIds.add(userRepository.save(user("load_student_" + s, RoleType.STUDENT)).getId());
+            }
+            Category category = categoryRepository.save(Category.builder()
+                    .name("Load Test")
+                    .description("Synthetic catalog")
+                    .build());
+
+            String content = "Lesson text. ".repeat(80);
+            List<Course> saved = new ArrayList<>(courses);
+            for (int c = 0; c < courses; c++) {
+                Course course = Course.builder()
+                        .title("Load Course " + c)
+                        .description("Synthetic course " + c)
+                        .durationHours(20)
+                        .difficultyLevel(DifficultyLevel.values()[c % DifficultyLevel.values().length])
+                        .instructor(instructor)
+                        .category(category)
+                        .published(true)
+                        .build();
+                for (int m = 0; m < modulesPerCourse; m++) {
+                    Module module = Module.builder()
+                            .title("Module " + m)
+                            .orderIndex(m)
+                            .course(course)
+                            .build();
+                    for (int l = 0; l < lessonsPerModule; l++) {
+                        module.getLessons().add(Lesson.builder()
+                                .title("Lesson " + m + "." + l)
+                                .content(content)
+                                .orderIndex(l)
+                                .module(module)
+                                .build());
+                    }
+                    course.getModules().add(module);
+                }
+                Module first = course.getModules().iterator().next();
+                first.setQuiz(quiz(first));
+                first.getLessons().iterator().next().getAssignments().add(Assignment.builder()
+                        .title("Assignment " + c)
+                        .maxScore(100)
+                        .lesson(first.getLessons().iterator().next())
+                        .build());
+                saved.add(courseRepository.save(course));
+            }
+            courseRepository.flush();
+
+            for (Course course : saved) {
+                courseIds.add(course.getId());
+                Module first = course.getModules().iterator().next();
+                assignmentIds.add(first.getLessons().iterator().next().getAssignments().get(0).getId());
+                Quiz quiz = first.getQuiz();
+                List<Long> questionIds = new ArrayList<>();
+                List<Long> correctOptionIds = new ArrayList<>();
+                for (Question question : quiz.getQuestions()) {
+                    questionIds.add(question.getId());
+                    correctOptionIds.add(question.getAnswerOptions().get(0).getId());
+                }
+                quizzes.add(new SeededQuiz(quiz.getId(), questionIds, correctOptionIds));
+            }
+        });
+    }
+
+    private Quiz quiz(Module module) {
+        Quiz quiz = Quiz.builder()
+                .title(module.getTitle() + " Quiz")
+                .passingScore(70)
+                .timeLimitMinutes(30)
+                .module(module)
+                .build();
+        for (int q = 0; q < questionsPerQuiz; q++) {
+            Question question = Question.builder()
+                    .questionText("Question " + q)
+                    .type(QuestionType.SINGLE_CHOICE)
+                    .orderIndex(q)
+                    .points(1)
+                    .quiz(quiz)
+                    .build();
+            for (int o = 0; o < 4; o++) {
+                question.getAnswerOptions().add(AnswerOption.builder()
+                        .optionText("Option " + o)
+                        .isCorrect(o == 0)
+                        .orderIndex(o)
+                        .question(question)
+                        .build());
+            }
+            quiz.getQuestions().add(question);
+        }
+        return quiz;
+    }
+
+    private static User user(String username, RoleType role) {
+        return User.builder()
+                .username(username)
+                .email(username + "@load.test")
+                .password("password")
+                .firstName("Load")
+                .lastName("User")
+                .role(role)
+                .active(true)
+                .build();
+    }
+
+    record SeededQuiz(Long id, List<Long> questionIds, List<Long> correctOptionIds) {
+
+        // Roughly one answer in four is wrong (the next option of the question)
+        Map<Long, List<Long>> answers(Random random) {
+            Map<Long, List<Long>> answers = new HashMap<>();
+            for (int i = 0; i < questionIds.size(); i++) {
+                answers.put(questionIds.get(i), List.of(correctOptionIds.get(i) + (random.nextInt(4) == 0 ? 1 : 0)));
+            }
+            return answers;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package ru.polukhin.learningplatform.loadtest;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.polukhin.learningplatform.LearningPlatformApplication;
+import ru.polukhin.learningplatform.repository.CategoryRepository;
+import ru.polukhin.learningplatform.repository.CourseRepository;
+import ru.polukhin.learningplatform.repository.UserRepository;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Quiz taking ({@code POST /api/quizzes/{id}/take}) with Tomcat on its platform-thread pool
+ * ({@code loadtest.tomcat-threads}, 200 by default) and then on virtual threads, each against a fresh
+ * application and database. Both runs go through the JDBC admission limit of the HikariCP pool size.
+ * {@code loadtest.concurrency} should exceed the Tomcat pool to show requests queueing behind blocked threads.
+ * Virtual threads need Java 21: on older runtimes the second run falls back to platform threads and says so.
+ * Run with {@code mvn test -Ploadtest -Dtest=ThreadModeLoadTest -Dloadtest.concurrency=400}.
+ */
+@Tag("loadtest")
+class ThreadModeLoadTest {
+
+    private static final int CONCURRENCY = Integer.getInteger("loadtest.concurrency", 400);
+    private static final int TOMCAT_THREADS = Integer.getInteger("loadtest.tomcat-threads", 200);
+    private static final Duration WARMUP = Duration.parse("PT" + System.getProperty("loadtest.warmup", "5s"));
+    private static final Duration DURATION = Duration.parse("PT" + System.getProperty("loadtest.duration", "30s"));
+    private static final Path RESULT_FILE = Path.of(System.getProperty("loadtest.result-file", "target/loadtest-thread-modes.json"));
+
+    @Test
+    void quizTakingOnPlatformAndVirtualThreads() throws Exception {
+        List<LatencyReport.Row> rows = new ArrayList<>();
+        rows.add(run(false));
+        rows.add(run(true));
+
+        System.out.printf("%nThread modes: %d clients, %s, Tomcat pool %d threads, Java %d%n",
+                CONCURRENCY, DURATION, TOMCAT_THREADS, Runtime.version().feature());
+        System.out.print(LatencyReport.format(rows));
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("concurrency", CONCURRENCY);
+        settings.put("durationSeconds", DURATION.toSeconds());
+        settings.put("tomcatThreads", TOMCAT_THREADS);
+        settings.put("javaVersion", Runtime.version().feature());
+        LatencyReport.writeJson(RESULT_FILE, settings, rows);
+
+        assertThat(rows).allSatisfy(row -> assertThat(row.serverErrors()).isZero());
+    }
+
+    private LatencyReport.Row run(boolean virtualThreads) throws Exception {
+        String database = virtualThreads ? "virtual" : "platform";
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(LearningPlatformApplication.class)
+                .profiles("test")
+                .run(
+                        "--server.port=0",
+                        "--server.tomcat.threads.max=" + TOMCAT_THREADS,
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--spring.datasource.url=jdbc:h2:mem:threadmode-" + database
+                                + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+                        "--spring.jpa.properties.hibernate.format_sql=false",
+                        "--spring.jpa.properties.hibernate.use_sql_comments=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.ru.polukhin=WARN",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN")) {
+            String mode = Threading.VIRTUAL.isActive(context.getEnvironment()) ? "virtual"
+                    : virtualThreads ? "platform, virtual unavailable" : "platform";
+
+            LoadTestDataset dataset = new LoadTestDataset();
+            dataset.seed(new TransactionTemplate(context.getBean(PlatformTransactionManager.class)),
+                    context.getBean(UserRepository.class),
+                    context.getBean(CategoryRepository.class),
+                    context.getBean(CourseRepository.class));
+            LatencyReport report = new LatencyReport();
+            LoadClient client = new LoadClient(((WebServerApplicationContext) context).getWebServer().getPort(), report);
+
+            AtomicInteger sequence = new AtomicInteger();
+            Runnable takeQuiz = () -> {
+                int attempt = sequence.getAndIncrement();
+                Long studentId = dataset.studentIds.get(attempt % dataset.studentIds.size());
+                LoadTestDataset.SeededQuiz quiz = dataset.quizzes.get((attempt / dataset.studentIds.size()) % dataset.quizzes.size());
+                client.post("POST /api/quizzes/{id}/take", "/api/quizzes/" + quiz.id() + "/take?studentId=" + studentId
+                        + "&timeTaken=10", quiz.answers(ThreadLocalRandom.current()));
+            };
+
+            LoadClient.run(CONCURRENCY, WARMUP, takeQuiz);
+            report.reset();
+            long started = System.nanoTime();
+            LoadClient.run(CONCURRENCY, DURATION, takeQuiz);
+            double elapsedSeconds = (System.nanoTime() - started) / 1e9;
+
+            List<LatencyReport.Row> rows = report.rows(elapsedSeconds);
+            return rows.get(rows.size() - 1).withEndpoint("quiz take (" + mode + ")");
+        }
+    }
+}
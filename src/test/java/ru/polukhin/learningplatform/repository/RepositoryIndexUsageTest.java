@@ -0,0 +1,279 @@
+package ru.polukhin.learningplatform.repository;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityManager;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.id.enhanced.DatabaseStructure;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.sql.PreparedStatement;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Runs the Flyway migrations on their own H2 database, validates the entity mapping against them,
+// then calls every query method of every repository and runs EXPLAIN on each SELECT it issued:
+// a table scan is only accepted for the methods listed in FULL_SCANS. Also checks that every sequence,
+// in the migrations and in db/identity-to-sequence.sql, increments by its generator's allocation size
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:migrated",
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "app.sql-stats.enabled=false",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "ru.polukhin.learningplatform.repository.RepositoryIndexUsageTest$CapturingStatementInspector"
+})
+@ActiveProfiles("test")
+@DirtiesContext
+class RepositoryIndexUsageTest {
+
+    // Unused derived finders on low-cardinality columns
+    private static final Set<String> FULL_SCANS = Set.of(
+            "CourseRepository.findByDifficultyLevel",
+            "LessonRepository.findByType",
+            "QuizSubmissionRepository.findByPassedTrue");
+
+    // hibernate.use_sql_comments prefixes statements with the query they came from
+    private static final Pattern LEADING_COMMENT = Pattern.compile("^\\s*/\\*.*?\\*/\\s*", Pattern.DOTALL);
+
+    // "/* PUBLIC.COURSES.tableScan */" or "/* PUBLIC.IX_COURSES_INSTRUCTOR: INSTRUCTOR_ID = ?1 */"
+    private static final Pattern TABLE_ACCESS = Pattern.compile("/\\* PUBLIC\\.(\\w+)(\\.tableScan)?");
+
+    // The DO block of db/identity-to-sequence.sql: one allocation size for the tables of the ARRAY
+    private static final Pattern SCRIPT_ALLOCATION_SIZE = Pattern.compile("allocation_size CONSTANT bigint := (\\d+);");
+    private static final Pattern SCRIPT_TABLES = Pattern.compile("FOREACH t IN ARRAY ARRAY\\[(.*?)]", Pattern.DOTALL);
+    private static final Pattern QUOTED = Pattern.compile("'(\\w+)'");
+
+    // Unused; fetches two bags at once, which Hibernate rejects before any SQL is issued
+    private static final Set<String> NOT_RUNNABLE = Set.of("QuizRepository.findByIdWithFullStructure");
+
+    @Autowired
+    private List<JpaRepository<?, ?>> repositories;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void shouldUseIndexForEveryRepositoryQuery() {
+        Set<String> backedIndexes = foreignKeyIndexesBackedByMigrations();
+        Map<String, String> scans = new TreeMap<>();
+        Set<String> silent = new TreeSet<>();
+
+        for (JpaRepository<?, ?> repository : repositories) {
+            Class<?> repositoryInterface = Arrays.stream(AopProxyUtils.proxiedUserInterfaces(repository))
+                    .filter(type -> type.getPackageName().equals(getClass().getPackageName()))
+                    .findFirst()
+                    .orElseThrow();
+            for (Method method : repositoryInterface.getDeclaredMethods()) {
+                if (method.isDefault() || method.isAnnotationPresent(Modifying.class)) {
+                    continue;
+                }
+                String name = repositoryInterface.getSimpleName() + "." + method.getName();
+                if (NOT_RUNNABLE.contains(name)) {
+                    continue;
+                }
+                List<String> selects = capture(repository, method);
+                if (selects.isEmpty()) {
+                    silent.add(name);
+                }
+                for (String sql : selects) {
+                    String plan = explain(sql);
+                    if (scansTable(plan, backedIndexes) && !FULL_SCANS.contains(name)) {
+                        scans.put(name, plan);
+                    }
+                }
+            }
+        }
+
+        assertThat(silent).as("query methods that issued no SELECT").isEmpty();
+        assertThat(scans).as("query methods that scan a table").isEmpty();
+    }
+
+    @Test
+    void shouldIncrementEverySequenceByItsAllocationSize() throws IOException {
+        Map<String, Long> allocationSizes = allocationSizes();
+
+        Map<String, Long> migrated = new TreeMap<>();
+        jdbcTemplate.query("SELECT SEQUENCE_NAME, INCREMENT FROM INFORMATION_SCHEMA.SEQUENCES " +
+                        "WHERE SEQUENCE_SCHEMA = 'PUBLIC'",
+                (ResultSet rs) -> {
+                    migrated.put(rs.getString(1).toLowerCase(Locale.ROOT), rs.getLong(2));
+                });
+        assertThat(migrated).as("sequences created by the migrations").isEqualTo(allocationSizes);
+
+        String script = new ClassPathResource("db/identity-to-sequence.sql").getContentAsString(StandardCharsets.UTF_8);
+        Matcher size = SCRIPT_ALLOCATION_SIZE.matcher(script);
+        Matcher tables = SCRIPT_TABLES.matcher(script);
+        assertThat(size.find()).as("allocation_size in db/identity-to-sequence.sql").isTrue();
+        assertThat(tables.find()).as("table list in db/identity-to-sequence.sql").isTrue();
+        Map<String, Long> scripted = new TreeMap<>();
+        Matcher table = QUOTED.matcher(tables.group(1));
+        while (table.find()) {
+            scripted.put(table.group(1) + "_seq", Long.parseLong(size.group(1)));
+        }
+        assertThat(scripted).as("sequences created by db/identity-to-sequence.sql").isEqualTo(allocationSizes);
+    }
+
+    // Sequence name -> increment the entity's PooledSequenceIdGenerator was configured with
+    private Map<String, Long> allocationSizes() {
+        Map<String, Long> sizes = new TreeMap<>();
+        entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class).getMappingMetamodel()
+                .forEachEntityDescriptor(descriptor -> {
+                    if (descriptor.getIdentifierGenerator() instanceof SequenceStyleGenerator generator) {
+                        DatabaseStructure sequence = generator.getDatabaseStructure();
+                        sizes.put(sequence.getPhysicalName().getObjectName().getText().toLowerCase(Locale.ROOT),
+                                (long) sequence.getIncrementSize());
+                    }
+                });
+        assertThat(sizes).as("entities with pooled sequences").isNotEmpty();
+        return sizes;
+    }
+
+    // H2 indexes foreign key columns by itself (FK_<constraint>_INDEX_*), PostgreSQL does not. Such an index
+    // stands for one of ours only when a migration index on the same table leads with the same column
+    private Set<String> foreignKeyIndexesBackedByMigrations() {
+        Map<String, String> leadingColumns = new HashMap<>();
+        jdbcTemplate.query("SELECT INDEX_NAME, TABLE_NAME, COLUMN_NAME FROM INFORMATION_SCHEMA.INDEX_COLUMNS " +
+                        "WHERE TABLE_SCHEMA = 'PUBLIC' AND ORDINAL_POSITION = 1",
+                (ResultSet rs) -> {
+                    leadingColumns.put(rs.getString(1), rs.getString(2) + "." + rs.getString(3));
+                });
+        Set<String> declared = new HashSet<>();
+        leadingColumns.forEach((index, column) -> {
+            if (!index.startsWith("FK_")) {
+                declared.add(column);
+            }
+        });
+        Set<String> backed = new HashSet<>();
+        leadingColumns.forEach((index, column) -> {
+            if (index.startsWith("FK_") && declared.contains(column)) {
+                backed.add(index);
+            }
+        });
+        return backed;
+    }
+
+    private List<String> capture(Object repository, Method method) {
+        CapturingStatementInspector.STATEMENTS.clear();
+        transactionTemplate.executeWithoutResult(status -> {
+            try {
+                Object result = method.invoke(repository, arguments(method));
+                if (result instanceof Stream<?> stream) {
+                    try (stream) {
+                        stream.forEach(row -> { });
+                    }
+                }
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Cannot call " + method, e);
+            }
+            status.setRollbackOnly();
+        });
+        return CapturingStatementInspector.STATEMENTS.stream()
+                .map(sql -> LEADING_COMMENT.matcher(sql).replaceFirst(""))
+                .filter(sql -> sql.regionMatches(true, 0, "select", 0, 6))
+                .toList();
+    }
+
+    private Object[] arguments(Method method) {
+        Parameter[] parameters = method.getParameters();
+        Object[] arguments = new Object[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            arguments[i] = argument(parameters[i].getType());
+        }
+        return arguments;
+    }
+
+    private Object argument(Class<?> type) {
+        if (type == Long.class || type == long.class) {
+            return 1L;
+        }
+        if (type == Integer.class || type == int.class) {
+            return 1;
+        }
+        if (type == String.class) {
+            return "value";
+        }
+        if (type == LocalDateTime.class) {
+            return LocalDateTime.now();
+        }
+        if (type == Pageable.class) {
+            return PageRequest.of(0, 10);
+        }
+        if (Collection.class.isAssignableFrom(type)) {
+            return List.of(1L, 2L);
+        }
+        if (type.isEnum()) {
+            return type.getEnumConstants()[0];
+        }
+        if (type.isAnnotationPresent(Entity.class)) {
+            return entityManager.getReference(type, 1L);
+        }
+        throw new IllegalArgumentException("No sample argument for " + type);
+    }
+
+    private static boolean scansTable(String plan, Set<String> backedIndexes) {
+        Matcher access = TABLE_ACCESS.matcher(plan);
+        while (access.find()) {
+            String index = access.group(1);
+            if (access.group(2) != null || (index.startsWith("FK_") && !backedIndexes.contains(index))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // H2 plans do not depend on the bound values, only on the parameters being set
+    private String explain(String sql) {
+        return jdbcTemplate.execute("EXPLAIN " + sql, (PreparedStatement statement) -> {
+            int count = statement.getParameterMetaData().getParameterCount();
+            for (int i = 1; i <= count; i++) {
+                statement.setObject(i, null);
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                return rs.getString(1);
+            }
+        });
+    }
+
+    public static class CapturingStatementInspector implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
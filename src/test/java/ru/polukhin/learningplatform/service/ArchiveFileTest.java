@@ -0,0 +1,74 @@
+package ru.polukhin.learningplatform.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ArchiveFileTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldReadBackEveryBlockByKey() {
+        // Given
+        Path target = directory.resolve("submissions").resolve("2025-01.arc");
+        try (ArchiveFile.Writer writer = new ArchiveFile.Writer(target)) {
+            for (long key = 1; key <= 1000; key++) {
+                writer.append(key * 3, ("student " + key + " ").repeat((int) key % 7 + 1).getBytes(StandardCharsets.UTF_8));
+            }
+            writer.append(5000, new byte[0]);
+            writer.prepare();
+            assertThat(target).doesNotExist();
+            writer.commit();
+        }
+
+        // When
+        ArchiveFile file = ArchiveFile.open(target);
+
+        // Then
+        assertThat(file.size()).isEqualTo(1001);
+        assertThat(new String(file.read(3), StandardCharsets.UTF_8)).isEqualTo("student 1 student 1 ");
+        assertThat(new String(file.read(2100), StandardCharsets.UTF_8)).isEqualTo("student 700 ");
+        assertThat(file.read(5000)).isEmpty();
+        assertThat(file.read(4)).isNull();
+        assertThat(file.read(0)).isNull();
+        assertThat(file.read(Long.MAX_VALUE)).isNull();
+    }
+
+    @Test
+    void shouldLeaveNothingBehindWithoutCommit() throws Exception {
+        // Given
+        Path target = directory.resolve("2025-02.arc");
+
+        // When
+        try (ArchiveFile.Writer writer = new ArchiveFile.Writer(target)) {
+            writer.append(2, new byte[]{1});
+            assertThatThrownBy(() -> writer.append(2, new byte[]{2}))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+
+        // Then
+        try (var files = Files.list(directory)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    void shouldRejectFileThatIsNotAnArchive() throws Exception {
+        // Given
+        Path target = directory.resolve("2025-03.arc");
+        Files.write(target, new byte[64]);
+
+        // When / Then
+        assertThatThrownBy(() -> ArchiveFile.open(target))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Not an archive file");
+    }
+}
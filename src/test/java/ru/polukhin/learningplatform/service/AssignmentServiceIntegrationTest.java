@@ -0,0 +1,316 @@
+package ru.polukhin.learningplatform.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.polukhin.learningplatform.dto.BulkGradeResponse;
+import ru.polukhin.learningplatform.dto.BulkGradeResult;
+import ru.polukhin.learningplatform.dto.GradeSubmissionRequest;
+import ru.polukhin.learningplatform.dto.GradebookEntryView;
+import ru.polukhin.learningplatform.dto.SubmissionView;
+import ru.polukhin.learningplatform.entity.*;
+import ru.polukhin.learningplatform.entity.Module;
+import ru.polukhin.learningplatform.exception.BusinessException;
+import ru.polukhin.learningplatform.repository.CategoryRepository;
+import ru.polukhin.learningplatform.repository.LessonRepository;
+import ru.polukhin.learningplatform.repository.UserRepository;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+// Not @Transactional: the bulk grade must commit on its own so the stored rows are read back afterwards
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class AssignmentServiceIntegrationTest {
+
+    @Autowired
+    private AssignmentService assignmentService;
+
+    @Autowired
+    private EnrollmentService enrollmentService;
+
+    @Autowired
+    private GradebookService gradebookService;
+
+    @Autowired
+    private CourseService courseService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private LessonRepository lessonRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transaction;
+
+    @BeforeEach
+    void setUp() {
+        transaction = new TransactionTemplate(transactionManager);
+    }
+
+    @Test
+    void shouldGradeValidItemsAndReportEachRejectedOne() {
+        // Given
+        User instructor = createUser("bulk_instructor", RoleType.INSTRUCTOR);
+        Category category = categoryRepository.save(Category.builder()
+                .name("Bulk Grading")
+                .description("Description")
+                .build());
+        Course course = courseService.createCourse(Course.builder()
+                .title("Bulk Grading Course")
+                .description("Description")
+                .durationHours(10)
+                .difficultyLevel(DifficultyLevel.BEGINNER)
+                .build(), instructor.getId(), category.getId());
+        Module module = courseService.addModuleToCourse(course.getId(), Module.builder().title("Module").build());
+        Lesson lesson = lessonRepository.save(Lesson.builder()
+                .title("Lesson")
+                .orderIndex(0)
+                .module(module)
+                .build());
+        Assignment assignment = assignmentService.createAssignment(Assignment.builder()
+                .title("Essay")
+                .maxScore(100)
+                .lesson(lesson)
+                .build());
+        User ann = createUser("bulk_ann", RoleType.STUDENT);
+        User ben = createUser("bulk_ben", RoleType.STUDENT);
+        User cid = createUser("bulk_cid", RoleType.STUDENT);
+        enrollmentService.enrollStudents(course.getId(), List.of(ann.getId(), ben.getId(), cid.getId()));
+        Submission annEssay = assignmentService.submitAssignment(assignment.getId(), ann.getId(), "essay", null);
+        Submission benEssay = assignmentService.submitAssignment(assignment.getId(), ben.getId(), "essay", null);
+        Submission cidEssay = assignmentService.submitAssignment(assignment.getId(), cid.getId(), "essay", null);
+        long missingId = cidEssay.getId() + 1000;
+
+        // When
+        BulkGradeResponse response = assignmentService.gradeSubmissions(Arrays.asList(
+                new GradeSubmissionRequest(annEssay.getId(), 80, "good"),
+                new GradeSubmissionRequest(missingId, 50, "lost"),
+                new GradeSubmissionRequest(benEssay.getId(), 150, "too much"),
+                new GradeSubmissionRequest(annEssay.getId(), 10, "again"),
+                new GradeSubmissionRequest(null, 50, "no id"),
+                new GradeSubmissionRequest(cidEssay.getId(), 70, null)));
+
+        // Then
+        assertThat(response.graded()).isEqualTo(2);
+        assertThat(response.failed()).isEqualTo(4);
+        assertThat(response.results())
+                .extracting(BulkGradeResult::submissionId, BulkGradeResult::status)
+                .containsExactly(
+                        tuple(annEssay.getId(), BulkGradeResult.Status.GRADED),
+                        tuple(missingId, BulkGradeResult.Status.NOT_FOUND),
+                        tuple(benEssay.getId(), BulkGradeResult.Status.INVALID),
+                        tuple(annEssay.getId(), BulkGradeResult.Status.DUPLICATE_IN_REQUEST),
+                        tuple(null, BulkGradeResult.Status.INVALID),
+                        tuple(cidEssay.getId(), BulkGradeResult.Status.GRADED));
+        assertThat(response.results().get(2).message()).isEqualTo("Score cannot exceed maximum score");
+
+        assertThat(assignmentService.getSubmissionsByAssignment(assignment.getId(), null, 10).items())
+                .extracting(SubmissionView::id, SubmissionView::status, SubmissionView::score, SubmissionView::feedback)
+                .containsExactly(
+                        tuple(annEssay.getId(), SubmissionStatus.GRADED, 80, "good"),
+                        tuple(benEssay.getId(), SubmissionStatus.SUBMITTED, null, null),
+                        tuple(cidEssay.getId(), SubmissionStatus.GRADED, 70, null));
+        assertThat(assignmentService.getSubmissionsByAssignment(assignment.getId(), null, 10).items())
+                .filteredOn(submission -> submission.status() == SubmissionStatus.GRADED)
+                .allSatisfy(submission -> assertThat(submission.gradedAt()).isNotNull());
+        assertThat(gradebookService.getGradebook(course.getId(), null, null, null, null).items())
+                .extracting(GradebookEntryView::studentId, GradebookEntryView::gradedAssignments,
+                        GradebookEntryView::assignmentScore)
+                .containsExactly(tuple(ann.getId(), 1, 80), tuple(ben.getId(), 0, 0), tuple(cid.getId(), 1, 70));
+    }
+
+    @Test
+    void shouldRegradeInBulkWithoutCountingTheSubmissionTwice() {
+        // Given
+        User instructor = createUser("regrade_instructor", RoleType.INSTRUCTOR);
+        Category category = categoryRepository.save(Category.builder()
+                .name("Bulk Regrade")
+                .description("Description")
+                .build());
+        Course course = courseService.createCourse(Course.builder()
+                .title("Bulk Regrade Course")
+                .description("Description")
+                .durationHours(10)
+                .difficultyLevel(DifficultyLevel.BEGINNER)
+                .build(), instructor.getId(), category.getId());
+        Module module = courseService.addModuleToCourse(course.getId(), Module.builder().title("Module").build());
+        Lesson lesson = lessonRepository.save(Lesson.builder()
+                .title("Lesson")
+                .orderIndex(0)
+                .module(module)
+                .build());
+        Assignment assignment = assignmentService.createAssignment(Assignment.builder()
+                .title("Essay")
+                .maxScore(100)
+                .lesson(lesson)
+                .build());
+        User student = createUser("regrade_student", RoleType.STUDENT);
+        enrollmentService.enrollStudent(student.getId(), course.getId());
+        Submission essay = assignmentService.submitAssignment(assignment.getId(), student.getId(), "essay", null);
+        assignmentService.gradeSubmission(essay.getId(), 40, "first");
+
+        // When
+        BulkGradeResponse response = assignmentService.gradeSubmissions(
+                List.of(new GradeSubmissionRequest(essay.getId(), 90, "regraded")));
+
+        // Then
+        assertThat(response.graded()).isEqualTo(1);
+        assertThat(assignmentService.getSubmissionsByAssignment(assignment.getId(), null, 10).items())
+                .extracting(SubmissionView::score, SubmissionView::feedback)
+                .containsExactly(tuple(90, "regraded"));
+        assertThat(gradebookService.getGradebook(course.getId(), null, null, null, null).items())
+                .extracting(GradebookEntryView::gradedAssignments, GradebookEntryView::assignmentScore,
+                        GradebookEntryView::assignmentMaxScore)
+                .containsExactly(tuple(1, 90, 100));
+    }
+
+    @Test
+    void shouldRejectNegativeScoreWhenGradingOneSubmission() {
+        // Given
+        GradedEssay essay = gradedEssay("negative", 40);
+
+        // When / Then: validated like the bulk path, before the gradebook is touched
+        assertThatThrownBy(() -> assignmentService.gradeSubmission(essay.submissionId(), -5, "negative"))
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Score is required and cannot be negative");
+        assertThat(gradebookService.getGradebook(essay.courseId(), null, null, null, null).items())
+                .extracting(GradebookEntryView::gradedAssignments, GradebookEntryView::assignmentScore)
+                .containsExactly(tuple(1, 40));
+    }
+
+    @Test
+    void shouldApplyConcurrentRegradesOfOneSubmissionOnce() throws Exception {
+        // Given: a regrade holding the submission until it commits
+        GradedEssay essay = gradedEssay("concurrent", 40);
+        CountDownLatch graded = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> first = CompletableFuture.runAsync(() -> transaction.executeWithoutResult(status -> {
+            assignmentService.gradeSubmission(essay.submissionId(), 80, "second");
+            graded.countDown();
+            await(release);
+        }));
+        await(graded);
+
+        // When
+        CompletableFuture<Submission> second = CompletableFuture.supplyAsync(
+                () -> assignmentService.gradeSubmission(essay.submissionId(), 90, "third"));
+        Thread.sleep(300);
+        boolean secondWaited = !second.isDone();
+        release.countDown();
+        first.get(10, TimeUnit.SECONDS);
+        second.get(10, TimeUnit.SECONDS);
+
+        // Then: the second regrade replaced 80, not the 40 both read before
+        assertThat(secondWaited).isTrue();
+        assertThat(gradebookService.getGradebook(essay.courseId(), null, null, null, null).items())
+                .extracting(GradebookEntryView::gradedAssignments, GradebookEntryView::assignmentScore,
+                        GradebookEntryView::assignmentMaxScore)
+                .containsExactly(tuple(1, 90, 100));
+    }
+
+    @Test
+    void shouldRepairWithoutLosingAGradeAppliedMeanwhile() throws Exception {
+        // Given: a drifted row, and a regrade applied to it but not committed yet
+        GradedEssay essay = gradedEssay("repair", 40);
+        jdbcTemplate.update("UPDATE gradebook_entries SET assignment_score = 0 WHERE course_id = ?", essay.courseId());
+        CountDownLatch graded = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> regrade = CompletableFuture.runAsync(() -> transaction.executeWithoutResult(status -> {
+            assignmentService.gradeSubmission(essay.submissionId(), 70, "regraded");
+            graded.countDown();
+            await(release);
+        }));
+        await(graded);
+
+        // When
+        CompletableFuture<Void> repair = CompletableFuture.runAsync(gradebookService::repair);
+        Thread.sleep(300);
+        release.countDown();
+        regrade.get(10, TimeUnit.SECONDS);
+        repair.get(10, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(gradebookService.getGradebook(essay.courseId(), null, null, null, null).items())
+                .extracting(GradebookEntryView::gradedAssignments, GradebookEntryView::assignmentScore,
+                        GradebookEntryView::assignmentMaxScore)
+                .containsExactly(tuple(1, 70, 100));
+    }
+
+    private GradedEssay gradedEssay(String prefix, int score) {
+        User instructor = createUser(prefix + "_instructor", RoleType.INSTRUCTOR);
+        Category category = categoryRepository.save(Category.builder()
+                .name(prefix + " Category")
+                .description("Description")
+                .build());
+        Course course = courseService.createCourse(Course.builder()
+                .title(prefix + " Course")
+                .description("Description")
+                .durationHours(10)
+                .difficultyLevel(DifficultyLevel.BEGINNER)
+                .build(), instructor.getId(), category.getId());
+        Module module = courseService.addModuleToCourse(course.getId(), Module.builder().title("Module").build());
+        Lesson lesson = lessonRepository.save(Lesson.builder()
+                .title("Lesson")
+                .orderIndex(0)
+                .module(module)
+                .build());
+        Assignment assignment = assignmentService.createAssignment(Assignment.builder()
+                .title("Essay")
+                .maxScore(100)
+                .lesson(lesson)
+                .build());
+        User student = createUser(prefix + "_student", RoleType.STUDENT);
+        enrollmentService.enrollStudent(student.getId(), course.getId());
+        Submission essay = assignmentService.submitAssignment(assignment.getId(), student.getId(), "essay", null);
+        assignmentService.gradeSubmission(essay.getId(), score, "first");
+        return new GradedEssay(course.getId(), essay.getId());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private User createUser(String username, RoleType role) {
+        return userRepository.save(User.builder()
+                .username(username)
+                .email(username + "@test.com")
+                .password("password")
+                .firstName("First")
+                .lastName("Last")
+                .role(role)
+                .active(true)
+                .build());
+    }
+
+    private record GradedEssay(Long courseId, Long submissionId) {
+    }
+}
@@ -0,0 +1,92 @@
+package ru.polukhin.learningplatform.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import ru.polukhin.learningplatform.dto.AutocompleteSuggestion;
+import ru.polukhin.learningplatform.entity.*;
+import ru.polukhin.learningplatform.repository.CategoryRepository;
+import ru.polukhin.learningplatform.repository.UserRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+// Not @Transactional: suggestions follow committed writes only
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class AutocompleteServiceIntegrationTest {
+
+    @Autowired
+    private AutocompleteService autocompleteService;
+
+    @Autowired
+    private CourseService courseService;
+
+    @Autowired
+    private EnrollmentService enrollmentService;
+
+    @Autowired
+    private CourseStatisticsService courseStatisticsService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Test
+    void shouldFollowCommittedWritesAndRankByEnrollments() {
+        // Given
+        User instructor = createUser("ada_teaches", "Ada", "Lovelace", RoleType.INSTRUCTOR);
+        User student = createUser("adam_learns", "Adam", "Smith", RoleType.STUDENT);
+        Category category = categoryRepository.save(Category.builder()
+                .name("Math")
+                .description("Description")
+                .build());
+        Course algebra = createCourse("Linear Algebra", instructor, category);
+        Course algorithms = createCourse("Algorithms", instructor, category);
+        enrollmentService.enrollStudent(student.getId(), algorithms.getId());
+        courseStatisticsService.flush();
+        autocompleteService.rebuild();
+
+        // When
+        student.setLastName("Turing");
+        userRepository.save(student);
+        autocompleteService.refresh();
+
+        // Then
+        assertThat(autocompleteService.suggestCourses("al", null)).extracting(AutocompleteSuggestion::id)
+                .containsExactly(algorithms.getId(), algebra.getId());
+        assertThat(autocompleteService.suggestUsers("tur", null))
+                .extracting(AutocompleteSuggestion::label, AutocompleteSuggestion::detail, AutocompleteSuggestion::popularity)
+                .containsExactly(tuple("Adam Turing", "adam_learns", 1L));
+        assertThat(autocompleteService.suggestUsers("smith", null)).isEmpty();
+        assertThat(autocompleteService.suggestUsers("ada", null)).extracting(AutocompleteSuggestion::id)
+                .containsExactlyInAnyOrder(instructor.getId(), student.getId());
+    }
+
+    private Course createCourse(String title, User instructor, Category category) {
+        return courseService.createCourse(Course.builder()
+                .title(title)
+                .description("Description")
+                .durationHours(10)
+                .difficultyLevel(DifficultyLevel.BEGINNER)
+                .published(true)
+                .build(), instructor.getId(), category.getId());
+    }
+
+    private User createUser(String username, String firstName, String lastName, RoleType role) {
+        return userRepository.save(User.builder()
+                .username(username)
+                .email(username + "@test.com")
+                .password("password")
+                .firstName(firstName)
+                .lastName(lastName)
+                .role(role)
+                .active(true)
+                .build());
+    }
+}
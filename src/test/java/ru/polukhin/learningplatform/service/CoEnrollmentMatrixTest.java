@@ -0,0 +1,61 @@
+package ru.polukhin.learningplatform.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CoEnrollmentMatrixTest {
+
+    @Test
+    void shouldRankNeighboursByStudentsInCommon() {
+        // Given
+        CoEnrollmentMatrix matrix = new CoEnrollmentMatrix();
+
+        // When
+        matrix.update(1, new long[]{2, 3}, 1);
+        matrix.update(1, new long[]{3}, 1);
+        matrix.update(4, new long[]{1, 2}, 1);
+        matrix.update(4, new long[]{1, 2}, -1);
+        matrix.update(5, new long[]{1}, 1);
+
+        // Then
+        CoEnrollmentMatrix.Neighbours neighbours = matrix.neighbours(1);
+        assertThat(neighbours.courseIds()).containsExactly(3, 2, 5);
+        assertThat(neighbours.counts()).containsExactly(2, 1, 1);
+        assertThat(matrix.neighbours(4).size()).isZero();
+        assertThat(matrix.neighbours(42).size()).isZero();
+    }
+
+    @Test
+    void shouldBuildInParallelWhatIncrementalUpdatesProduce() {
+        // Given
+        Random random = new Random(7);
+        List<long[]> baskets = new ArrayList<>();
+        CoEnrollmentMatrix incremental = new CoEnrollmentMatrix();
+        for (int student = 0; student < 10_000; student++) {
+            long[] basket = random.longs(1 + random.nextInt(6), 1, 300).distinct().toArray();
+            baskets.add(basket);
+            for (int i = 1; i < basket.length; i++) {
+                incremental.update(basket[i], Arrays.copyOf(basket, i), 1);
+            }
+        }
+
+        // When
+        CoEnrollmentMatrix built = CoEnrollmentMatrix.build(baskets);
+
+        // Then
+        assertThat(built.size()).isEqualTo(incremental.size());
+        for (long courseId = 1; courseId < 300; courseId++) {
+            CoEnrollmentMatrix.Neighbours expected = incremental.neighbours(courseId);
+            CoEnrollmentMatrix.Neighbours actual = built.neighbours(courseId);
+            assertThat(actual.size()).isEqualTo(CoEnrollmentMatrix.TOP_SIZE);
+            assertThat(actual.courseIds()).containsExactly(expected.courseIds());
+            assertThat(actual.counts()).containsExactly(expected.counts());
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package ru.polukhin.learningplatform.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import ru.polukhin.learningplatform.dto.RelatedCourseView;
+import ru.polukhin.learningplatform.entity.*;
+import ru.polukhin.learningplatform.repository.CategoryRepository;
+import ru.polukhin.learningplatform.repository.UserRepository;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+// Not @Transactional: the matrix follows committed enrollments only
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class CourseRecommendationServiceIntegrationTest {
+
+    @Autowired
+    private CourseRecommendationService recommendationService;
+
+    @Autowired
+    private EnrollmentService enrollmentService;
+
+    @Autowired
+    private CourseService courseService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Test
+    void shouldFollowEnrollmentsAndMatchTheRebuiltMatrix() {
+        // Given
+        User instructor = createUser("rec_instructor", RoleType.INSTRUCTOR);
+        User alice = createUser("rec_alice", RoleType.STUDENT);
+        User bob = createUser("rec_bob", RoleType.STUDENT);
+        User carol = createUser("rec_carol", RoleType.STUDENT);
+        Category category = categoryRepository.save(Category.builder()
+                .name("Recommendations")
+                .description("Description")
+                .build());
+        Course java = createCourse("Java", instructor, category);
+        Course spring = createCourse("Spring", instructor, category);
+        Course kotlin = createCourse("Kotlin", instructor, category);
+
+        // When
+        enrollmentService.enrollStudent(alice.getId(), java.getId());
+        enrollmentService.enrollStudent(alice.getId(), spring.getId());
+        enrollmentService.enrollStudents(java.getId(), List.of(bob.getId(), carol.getId()));
+        enrollmentService.enrollStudent(bob.getId(), spring.getId());
+        Enrollment dropped = enrollmentService.enrollStudent(carol.getId(), kotlin.getId());
+        enrollmentService.enrollStudent(bob.getId(), kotlin.getId());
+        enrollmentService.unenrollStudent(dropped.getId());
+
+        // Then
+        List<RelatedCourseView> related = recommendationService.getRelatedCourses(java.getId(), null);
+        assertThat(related).extracting(RelatedCourseView::courseId, RelatedCourseView::score)
+                .containsExactly(tuple(spring.getId(), 2L), tuple(kotlin.getId(), 1L));
+        assertThat(recommendationService.getRecommendations(alice.getId(), null))
+                .extracting(RelatedCourseView::title, RelatedCourseView::score)
+                .containsExactly(tuple("Kotlin", 2L));
+        assertThat(recommendationService.getRecommendations(carol.getId(), null))
+                .extracting(RelatedCourseView::courseId)
+                .containsExactly(spring.getId());
+
+        recommendationService.rebuild();
+        assertThat(recommendationService.getRelatedCourses(java.getId(), null)).isEqualTo(related);
+    }
+
+    private Course createCourse(String title, User instructor, Category category) {
+        Course course = courseService.createCourse(Course.builder()
+                .title(title)
+                .description("Description")
+                .durationHours(10)
+                .difficultyLevel(DifficultyLevel.BEGINNER)
+                .build(), instructor.getId(), category.getId());
+        return courseService.publishCourse(course.getId());
+    }
+
+    private User createUser(String username, RoleType role) {
+        return userRepository.save(User.builder()
+                .username(username)
+                .email(username + "@test.com")
+                .password("password")
+                .firstName("First")
+                .lastName("Last")
+                .role(role)
+                .active(true)
+                .build());
+    }
+}
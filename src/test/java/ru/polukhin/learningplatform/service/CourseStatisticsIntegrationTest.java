@@ -0,0 +1,222 @@
+package ru.polukhin.learningplatform.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.polukhin.learningplatform.dto.CourseReviewRequest;
+import ru.polukhin.learningplatform.dto.CourseReviewView;
+import ru.polukhin.learningplatform.dto.CourseStatisticsView;
+import ru.polukhin.learningplatform.entity.*;
+import ru.polukhin.learningplatform.repository.CategoryRepository;
+import ru.polukhin.learningplatform.repository.CourseStatisticsRepository;
+import ru.polukhin.learningplatform.repository.UserRepository;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Not @Transactional: deltas are recorded on commit and flushed in their own transactions
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class CourseStatisticsIntegrationTest {
+
+    @Autowired
+    private CourseStatisticsService courseStatisticsService;
+
+    @Autowired
+    private CourseService courseService;
+
+    @Autowired
+    private EnrollmentService enrollmentService;
+
+    @Autowired
+    private CourseReviewService courseReviewService;
+
+    @Autowired
+    private CourseStatisticsRepository courseStatisticsRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transaction;
+
+    @BeforeEach
+    void setUp() {
+        transaction = new TransactionTemplate(transactionManager);
+    }
+
+    @Test
+    void shouldTrackEnrollmentsAndRatingsAndFlushDeltas() {
+        // Given
+        Course course = createCourse("Stats Course");
+        User first = createUser("stats_student1", RoleType.STUDENT);
+        User second = createUser("stats_student2", RoleType.STUDENT);
+
+        // When
+        Enrollment enrollment = enrollmentService.enrollStudent(first.getId(), course.getId());
+        enrollmentService.enrollStudent(second.getId(), course.getId());
+        enrollmentService.updateProgress(enrollment.getId(), 100.0);
+        CourseReviewView review = courseReviewService.addReview(first.getId(), course.getId(),
+                new CourseReviewRequest(3, "Fine"));
+        courseReviewService.addReview(second.getId(), course.getId(), new CourseReviewRequest(5, null));
+        courseReviewService.updateReview(review.id(), new CourseReviewRequest(4, "Better"));
+
+        // Then
+        assertThat(courseStatisticsService.getStatistics(course.getId()))
+                .isEqualTo(new CourseStatisticsView(course.getId(), 1, 2, 4.5));
+        assertThat(courseStatisticsRepository.findById(course.getId()).orElseThrow().getActiveEnrollments()).isZero();
+
+        // When
+        courseStatisticsService.flush();
+
+        // Then
+        CourseStatistics row = courseStatisticsRepository.findById(course.getId()).orElseThrow();
+        assertThat(row.getActiveEnrollments()).isEqualTo(1);
+        assertThat(row.getReviewCount()).isEqualTo(2);
+        assertThat(row.getRatingSum()).isEqualTo(9);
+        assertThat(courseStatisticsService.getStatistics(course.getId()))
+                .isEqualTo(new CourseStatisticsView(course.getId(), 1, 2, 4.5));
+    }
+
+    @Test
+    void shouldDiscardDeltasOfRolledBackTransactions() {
+        // Given
+        Course course = createCourse("Rollback Course");
+        User student = createUser("rollback_student", RoleType.STUDENT);
+
+        // When
+        transaction.executeWithoutResult(status -> {
+            enrollmentService.enrollStudent(student.getId(), course.getId());
+            status.setRollbackOnly();
+        });
+
+        // Then
+        assertThat(enrollmentService.getActiveEnrollmentsCount(course.getId())).isZero();
+        courseStatisticsService.flush();
+        assertThat(courseStatisticsRepository.findById(course.getId()).orElseThrow().getActiveEnrollments()).isZero();
+    }
+
+    @Test
+    void shouldNotCountDeltasBeforeTheirTransactionCommits() {
+        // Given
+        Course course = createCourse("Uncommitted Course");
+        User student = createUser("uncommitted_student", RoleType.STUDENT);
+
+        // When
+        long[] duringTransaction = transaction.execute(status -> {
+            enrollmentService.enrollStudent(student.getId(), course.getId());
+            return new long[]{
+                    courseStatisticsService.getStatistics(course.getId()).activeEnrollments(),
+                    CompletableFuture.supplyAsync(() -> courseStatisticsService.getStatistics(course.getId()))
+                            .join().activeEnrollments()};
+        });
+
+        // Then: the writing transaction reads its own delta, other transactions only after the commit
+        assertThat(duringTransaction).containsExactly(1, 0);
+        assertThat(courseStatisticsService.getStatistics(course.getId()).activeEnrollments()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldKeepDeltasOfTransactionsCommittingAfterRepair() throws Exception {
+        // Given: an enrollment written but not yet committed
+        Course course = createCourse("Concurrent Course");
+        User student = createUser("concurrent_student", RoleType.STUDENT);
+        CountDownLatch written = new CountDownLatch(1);
+        CountDownLatch repaired = new CountDownLatch(1);
+        CompletableFuture<Void> enrollment = CompletableFuture.runAsync(() -> transaction.executeWithoutResult(status -> {
+            enrollmentService.enrollStudent(student.getId(), course.getId());
+            written.countDown();
+            await(repaired);
+        }));
+        await(written);
+
+        // When
+        courseStatisticsService.repair();
+        repaired.countDown();
+        enrollment.get(10, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(courseStatisticsRepository.findById(course.getId()).orElseThrow().getActiveEnrollments()).isZero();
+        assertThat(courseStatisticsService.getStatistics(course.getId()).activeEnrollments()).isEqualTo(1);
+        courseStatisticsService.flush();
+        assertThat(courseStatisticsRepository.findById(course.getId()).orElseThrow().getActiveEnrollments()).isEqualTo(1);
+
+        // When: repaired again with the delta committed but not flushed
+        enrollmentService.enrollStudent(createUser("concurrent_student2", RoleType.STUDENT).getId(), course.getId());
+        courseStatisticsService.repair();
+        courseStatisticsService.flush();
+
+        // Then
+        assertThat(courseStatisticsService.getStatistics(course.getId()).activeEnrollments()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldRepairDriftedStatistics() {
+        // Given
+        Course course = createCourse("Drifted Course");
+        enrollmentService.enrollStudent(createUser("drift_student", RoleType.STUDENT).getId(), course.getId());
+        courseStatisticsService.flush();
+        transaction.executeWithoutResult(status -> {
+            CourseStatistics row = courseStatisticsRepository.findById(course.getId()).orElseThrow();
+            row.setActiveEnrollments(42L);
+            row.setReviewCount(7L);
+        });
+
+        // When
+        courseStatisticsService.repair();
+
+        // Then
+        assertThat(courseStatisticsService.getStatistics(course.getId()))
+                .isEqualTo(new CourseStatisticsView(course.getId(), 1, 0, null));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Course createCourse(String title) {
+        User instructor = createUser(title.replace(' ', '_').toLowerCase() + "_instructor", RoleType.INSTRUCTOR);
+        Category category = categoryRepository.save(Category.builder()
+                .name(title + " Category")
+                .description("Description")
+                .build());
+
+        return courseService.createCourse(Course.builder()
+                .title(title)
+                .description("Description")
+                .durationHours(10)
+                .difficultyLevel(DifficultyLevel.BEGINNER)
+                .build(), instructor.getId(), category.getId());
+    }
+
+    private User createUser(String username, RoleType role) {
+        return userRepository.save(User.builder()
+                .username(username)
+                .email(username + "@test.com")
+                .password("password")
+                .firstName("First")
+                .lastName("Last")
+                .role(role)
+                .active(true)
+                .build());
+    }
+}
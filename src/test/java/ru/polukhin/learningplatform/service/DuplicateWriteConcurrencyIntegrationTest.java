@@ -0,0 +1,174 @@
+package ru.polukhin.learningplatform.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import ru.polukhin.learningplatform.entity.*;
+import ru.polukhin.learningplatform.entity.Module;
+import ru.polukhin.learningplatform.exception.DuplicateResourceException;
+import ru.polukhin.learningplatform.repository.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Not @Transactional: every attempt commits (or fails) in its own transaction, as concurrent requests do
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class DuplicateWriteConcurrencyIntegrationTest {
+
+    private static final int ATTEMPTS = 8;
+
+    @Autowired
+    private EnrollmentService enrollmentService;
+
+    @Autowired
+    private AssignmentService assignmentService;
+
+    @Autowired
+    private QuizService quizService;
+
+    @Autowired
+    private CourseService courseService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private LessonRepository lessonRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private SubmissionRepository submissionRepository;
+
+    @Autowired
+    private QuizSubmissionRepository quizSubmissionRepository;
+
+    @Test
+    void shouldAcceptExactlyOneOfSimultaneousDuplicateWrites() throws Exception {
+        // Given
+        User student = createUser("race_student", RoleType.STUDENT);
+        Course course = createCourse("Race Course");
+        Module module = courseService.addModuleToCourse(course.getId(), Module.builder().title("Race Module").build());
+        Lesson lesson = lessonRepository.save(Lesson.builder()
+                .title("Race Lesson")
+                .orderIndex(0)
+                .module(module)
+                .build());
+        Assignment assignment = assignmentService.createAssignment(Assignment.builder()
+                .title("Race Assignment")
+                .maxScore(100)
+                .lesson(lesson)
+                .build());
+        Quiz quiz = quizService.createQuiz(Quiz.builder()
+                .title("Race Quiz")
+                .passingScore(70)
+                .timeLimitMinutes(30)
+                .module(module)
+                .build());
+        Question question = quizService.addQuestionToQuiz(quiz.getId(), Question.builder()
+                .questionText("Question")
+                .type(QuestionType.TRUE_FALSE)
+                .build());
+        AnswerOption correct = quizService.addAnswerOptionToQuestion(question.getId(), AnswerOption.builder()
+                .optionText("True")
+                .isCorrect(true)
+                .build());
+
+        // When
+        List<Outcome> enrollments = race(() -> enrollmentService.enrollStudent(student.getId(), course.getId()));
+        List<Outcome> submissions = race(() -> assignmentService.submitAssignment(
+                assignment.getId(), student.getId(), "solution", null));
+        List<Outcome> attempts = race(() -> quizService.takeQuiz(quiz.getId(), student.getId(),
+                Map.of(question.getId(), List.of(correct.getId())), 5));
+
+        // Then
+        for (List<Outcome> outcomes : List.of(enrollments, submissions, attempts)) {
+            assertThat(outcomes).filteredOn(Outcome.STORED::equals).hasSize(1);
+            assertThat(outcomes).filteredOn(Outcome.DUPLICATE::equals).hasSize(ATTEMPTS - 1);
+        }
+        assertThat(enrollmentRepository.count()).isEqualTo(1);
+        assertThat(submissionRepository.count()).isEqualTo(1);
+        assertThat(quizSubmissionRepository.count()).isEqualTo(1);
+    }
+
+    private List<Outcome> race(Callable<?> write) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(ATTEMPTS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < ATTEMPTS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return write.call();
+                }));
+            }
+            start.countDown();
+
+            List<Outcome> outcomes = new ArrayList<>();
+            for (Future<?> future : futures) {
+                try {
+                    future.get(30, TimeUnit.SECONDS);
+                    outcomes.add(Outcome.STORED);
+                } catch (ExecutionException e) {
+                    assertThat(e.getCause()).isInstanceOf(DuplicateResourceException.class);
+                    outcomes.add(Outcome.DUPLICATE);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            return outcomes;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Course createCourse(String title) {
+        User instructor = createUser("race_instructor", RoleType.INSTRUCTOR);
+        Category category = categoryRepository.save(Category.builder()
+                .name(title + " Category")
+                .description("Description")
+                .build());
+        return courseService.createCourse(Course.builder()
+                .title(title)
+                .description("Description")
+                .durationHours(10)
+                .difficultyLevel(DifficultyLevel.BEGINNER)
+                .published(true)
+                .build(), instructor.getId(), category.getId());
+    }
+
+    private User createUser(String username, RoleType role) {
+        return userRepository.save(User.builder()
+                .username(username)
+                .email(username + "@test.com")
+                .password("password")
+                .firstName("First")
+                .lastName("Last")
+                .role(role)
+                .active(true)
+                .build());
+    }
+
+    private enum Outcome {
+        STORED,
+        DUPLICATE
+    }
+}
@@ -5,13 +5,26 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.polukhin.learningplatform.dto.BulkEnrollmentResponse;
+import ru.polukhin.learningplatform.dto.BulkEnrollmentResult;
+import ru.polukhin.learningplatform.dto.CursorPage;
+import ru.polukhin.learningplatform.dto.EnrollmentProgressView;
+import ru.polukhin.learningplatform.dto.EnrollmentView;
 import ru.polukhin.learningplatform.entity.*;
 import ru.polukhin.learningplatform.exception.BusinessException;
 import ru.polukhin.learningplatform.exception.DuplicateResourceException;
 import ru.polukhin.learningplatform.repository.CategoryRepository;
 import ru.polukhin.learningplatform.repository.UserRepository;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
@@ -27,12 +40,18 @@ class EnrollmentServiceIntegrationTest {
     @Autowired
     private CourseService courseService;
 
+    @Autowired
+    private EnrollmentProgressBuffer progressBuffer;
+
     @Autowired
     private UserRepository userRepository;
 
     @Autowired
     private CategoryRepository categoryRepository;
 
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     @Test
     void shouldEnrollStudentToCourse() {
         // Given
@@ -105,6 +124,127 @@ class EnrollmentServiceIntegrationTest {
         assertThat(updated.getCompletedAt()).isNotNull();
     }
 
+    @Test
+    void shouldCoalesceBufferedProgressAndCompleteImmediately() {
+        // Given
+        User student = createStudent("student8", "student8@test.com");
+        User instructor = createInstructor("instructor8", "instructor8@test.com");
+        Category category = createCategory("Test Category 8");
+        Course course = createCourse("Test Course 8", instructor, category, true);
+        Enrollment enrollment = enrollmentService.enrollStudent(student.getId(), course.getId());
+
+        // When
+        enrollmentService.recordProgress(enrollment.getId(), 30.0);
+        EnrollmentProgressView late = enrollmentService.recordProgress(enrollment.getId(), 20.0);
+
+        // Then
+        assertThat(late.progressPercentage()).isEqualTo(30.0);
+        assertThat(enrollmentService.getEnrollmentById(enrollment.getId()).progressPercentage()).isEqualTo(30.0);
+        progressBuffer.flush();
+        assertThat(progressBuffer.pendingProgress(enrollment.getId())).isNull();
+        assertThat(enrollmentService.getEnrollmentById(enrollment.getId()).progressPercentage()).isEqualTo(30.0);
+
+        EnrollmentProgressView completed = enrollmentService.recordProgress(enrollment.getId(), 100.0);
+        assertThat(completed.status()).isEqualTo(EnrollmentStatus.COMPLETED);
+        assertThat(enrollmentService.getEnrollmentById(enrollment.getId()).status()).isEqualTo(EnrollmentStatus.COMPLETED);
+    }
+
+    @Test
+    void shouldEnrollCohortAndReportPerStudentResults() {
+        // Given
+        User instructor = createInstructor("instructor6", "instructor6@test.com");
+        Category category = createCategory("Test Category 6");
+        Course course = createCourse("Test Course 6", instructor, category, true);
+        User enrolled = createStudent("student6", "student6@test.com");
+        User fresh = createStudent("student7", "student7@test.com");
+        enrollmentService.enrollStudent(enrolled.getId(), course.getId());
+
+        // When
+        BulkEnrollmentResponse response = enrollmentService.enrollStudents(course.getId(),
+                List.of(fresh.getId(), enrolled.getId(), instructor.getId(), -1L, fresh.getId()));
+
+        // Then
+        assertThat(response.enrolled()).isEqualTo(1);
+        assertThat(response.skipped()).isEqualTo(4);
+        assertThat(response.results())
+                .extracting(BulkEnrollmentResult::status)
+                .containsExactly(
+                        BulkEnrollmentResult.Status.ENROLLED,
+                        BulkEnrollmentResult.Status.ALREADY_ENROLLED,
+                        BulkEnrollmentResult.Status.NOT_A_STUDENT,
+                        BulkEnrollmentResult.Status.USER_NOT_FOUND,
+                        BulkEnrollmentResult.Status.DUPLICATE_IN_REQUEST);
+        assertThat(response.results().get(0).enrollmentId()).isNotNull();
+        assertThat(enrollmentService.getActiveEnrollmentsCount(course.getId())).isEqualTo(2);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // both enrollments must commit on their own
+    void shouldReportStudentEnrolledConcurrentlyAsAlreadyEnrolled() throws Exception {
+        // Given: a single enrollment holding the course until it commits
+        User instructor = createInstructor("instructor9", "instructor9@test.com");
+        Category category = createCategory("Test Category 9");
+        Course course = createCourse("Test Course 9", instructor, category, true);
+        User student = createStudent("student9", "student9@test.com");
+        User other = createStudent("student10", "student10@test.com");
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        CountDownLatch enrolled = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> single = CompletableFuture.runAsync(() -> transaction.executeWithoutResult(status -> {
+            enrollmentService.enrollStudent(student.getId(), course.getId());
+            enrolled.countDown();
+            await(release);
+        }));
+        await(enrolled);
+
+        // When
+        CompletableFuture<BulkEnrollmentResponse> bulk = CompletableFuture.supplyAsync(() ->
+                enrollmentService.enrollStudents(course.getId(), List.of(student.getId(), other.getId())));
+        Thread.sleep(300);
+        release.countDown();
+        single.get(10, TimeUnit.SECONDS);
+        BulkEnrollmentResponse response = bulk.get(10, TimeUnit.SECONDS);
+
+        // Then: the bulk waited for the single enrollment instead of failing on the unique key
+        assertThat(response.results())
+                .extracting(BulkEnrollmentResult::status)
+                .containsExactly(BulkEnrollmentResult.Status.ALREADY_ENROLLED, BulkEnrollmentResult.Status.ENROLLED);
+        assertThat(enrollmentService.getActiveEnrollmentsCount(course.getId())).isEqualTo(2);
+    }
+
+    @Test
+    void shouldPageEnrollmentsByCursor() {
+        // Given
+        User instructor = createInstructor("instructor8", "instructor8@test.com");
+        Category category = createCategory("Test Category 8");
+        Course course = createCourse("Test Course 8", instructor, category, true);
+        for (int i = 0; i < 3; i++) {
+            User student = createStudent("student_page" + i, "student_page" + i + "@test.com");
+            enrollmentService.enrollStudent(student.getId(), course.getId());
+        }
+
+        // When
+        CursorPage<EnrollmentView> first = enrollmentService.getEnrollmentsByCourse(course.getId(), null, 2);
+        CursorPage<EnrollmentView> second = enrollmentService.getEnrollmentsByCourse(course.getId(), first.nextCursor(), 2);
+
+        // Then
+        assertThat(first.items()).hasSize(2);
+        assertThat(first.hasMore()).isTrue();
+        assertThat(second.items()).hasSize(1);
+        assertThat(second.hasMore()).isFalse();
+        assertThat(second.nextCursor()).isNull();
+        assertThat(second.items().get(0).id()).isGreaterThan(first.items().get(1).id());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
     private User createStudent(String username, String email) {
         User student = User.builder()
                 .username(username)
@@ -0,0 +1,184 @@
+package ru.polukhin.learningplatform.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+import ru.polukhin.learningplatform.dto.CursorPage;
+import ru.polukhin.learningplatform.dto.GradebookEntryView;
+import ru.polukhin.learningplatform.dto.GradebookSort;
+import ru.polukhin.learningplatform.entity.*;
+import ru.polukhin.learningplatform.entity.Module;
+import ru.polukhin.learningplatform.exception.BusinessException;
+import ru.polukhin.learningplatform.repository.CategoryRepository;
+import ru.polukhin.learningplatform.repository.GradebookEntryRepository;
+import ru.polukhin.learningplatform.repository.LessonRepository;
+import ru.polukhin.learningplatform.repository.UserRepository;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class GradebookServiceIntegrationTest {
+
+    @Autowired
+    private GradebookService gradebookService;
+
+    @Autowired
+    private EnrollmentService enrollmentService;
+
+    @Autowired
+    private AssignmentService assignmentService;
+
+    @Autowired
+    private QuizService quizService;
+
+    @Autowired
+    private CourseService courseService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private LessonRepository lessonRepository;
+
+    @Autowired
+    private GradebookEntryRepository gradebookEntryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void shouldKeepTotalsCurrentAndPageThemBySortedPercentage() {
+        // Given
+        User instructor = createUser("gb_instructor", RoleType.INSTRUCTOR);
+        Category category = categoryRepository.save(Category.builder()
+                .name("Gradebook")
+                .description("Description")
+                .build());
+        Course course = courseService.createCourse(Course.builder()
+                .title("Gradebook Course")
+                .description("Description")
+                .durationHours(10)
+                .difficultyLevel(DifficultyLevel.BEGINNER)
+                .build(), instructor.getId(), category.getId());
+        Module module = courseService.addModuleToCourse(course.getId(), Module.builder().title("Module").build());
+        Lesson lesson = lessonRepository.save(Lesson.builder()
+                .title("Lesson")
+                .orderIndex(0)
+                .module(module)
+                .build());
+        Assignment assignment = assignmentService.createAssignment(Assignment.builder()
+                .title("Essay")
+                .maxScore(100)
+                .lesson(lesson)
+                .build());
+        Quiz quiz = quizService.createQuiz(Quiz.builder()
+                .title("Quiz")
+                .passingScore(50)
+                .timeLimitMinutes(30)
+                .module(module)
+                .build());
+        Question question = quizService.addQuestionToQuiz(quiz.getId(), Question.builder()
+                .questionText("Question")
+                .type(QuestionType.TRUE_FALSE)
+                .points(100)
+                .build());
+        AnswerOption correct = quizService.addAnswerOptionToQuestion(question.getId(), AnswerOption.builder()
+                .optionText("True")
+                .isCorrect(true)
+                .build());
+
+        User ann = createUser("gb_ann", RoleType.STUDENT);
+        User ben = createUser("gb_ben", RoleType.STUDENT);
+        User cid = createUser("gb_cid", RoleType.STUDENT);
+        enrollmentService.enrollStudent(ann.getId(), course.getId());
+        enrollmentService.enrollStudents(course.getId(), List.of(ben.getId(), cid.getId()));
+
+        // When
+        Submission annEssay = assignmentService.submitAssignment(assignment.getId(), ann.getId(), "essay", null);
+        assignmentService.gradeSubmission(annEssay.getId(), 40, "ok");
+        assignmentService.gradeSubmission(annEssay.getId(), 60, "regraded");
+        Submission benEssay = assignmentService.submitAssignment(assignment.getId(), ben.getId(), "essay", null);
+        assignmentService.gradeSubmission(benEssay.getId(), 90, "good");
+        quizService.takeQuiz(quiz.getId(), ann.getId(), Map.of(question.getId(), List.of(correct.getId())), 5);
+        quizService.takeQuiz(quiz.getId(), cid.getId(), Map.of(question.getId(), List.of()), 5);
+
+        // Then
+        CursorPage<GradebookEntryView> first = gradebookService.getGradebook(course.getId(), GradebookSort.OVERALL,
+                Sort.Direction.DESC, null, 2);
+        assertThat(first.items())
+                .extracting(GradebookEntryView::username, GradebookEntryView::overallPercentage)
+                .containsExactly(tuple("gb_ben", 90.0), tuple("gb_ann", 80.0));
+        assertThat(first.items().get(1))
+                .extracting(GradebookEntryView::gradedAssignments, GradebookEntryView::assignmentScore,
+                        GradebookEntryView::quizzesTaken, GradebookEntryView::quizzesPassed, GradebookEntryView::quizScore)
+                .containsExactly(1, 60, 1, 1, 100);
+        CursorPage<GradebookEntryView> second = gradebookService.getGradebook(course.getId(), GradebookSort.OVERALL,
+                Sort.Direction.DESC, first.nextCursor(), 2);
+        assertThat(second.items()).extracting(GradebookEntryView::username).containsExactly("gb_cid");
+        assertThat(second.hasMore()).isFalse();
+        assertThat(gradebookService.getGradebook(course.getId(), null, null, null, null).items())
+                .extracting(GradebookEntryView::studentId)
+                .containsExactly(ann.getId(), ben.getId(), cid.getId());
+        assertThatThrownBy(() -> gradebookService.getGradebook(course.getId(), GradebookSort.QUIZZES,
+                Sort.Direction.DESC, first.nextCursor(), 2))
+                .isInstanceOf(BusinessException.class);
+    }
+
+    @Test
+    void shouldRepairDriftedRows() {
+        // Given
+        User instructor = createUser("gb_repair_instructor", RoleType.INSTRUCTOR);
+        Category category = categoryRepository.save(Category.builder()
+                .name("Repair")
+                .description("Description")
+                .build());
+        Course course = courseService.createCourse(Course.builder()
+                .title("Repair Course")
+                .description("Description")
+                .durationHours(10)
+                .difficultyLevel(DifficultyLevel.BEGINNER)
+                .build(), instructor.getId(), category.getId());
+        User student = createUser("gb_repair_student", RoleType.STUDENT);
+        enrollmentService.enrollStudent(student.getId(), course.getId());
+        jdbcTemplate.update("UPDATE gradebook_entries SET quiz_score = 7, quiz_max_score = 10, quiz_percentage = 70");
+
+        // When
+        gradebookService.repair();
+        // repair() joins the test transaction, so its entity changes are not committed before the JDBC read
+        gradebookEntryRepository.flush();
+
+        // Then
+        assertThat(gradebookService.getGradebook(course.getId(), null, null, null, null).items())
+                .extracting(GradebookEntryView::quizScore, GradebookEntryView::quizMaxScore,
+                        GradebookEntryView::quizPercentage)
+                .containsExactly(tuple(0, 0, 0.0));
+    }
+
+    private User createUser(String username, RoleType role) {
+        return userRepository.save(User.builder()
+                .username(username)
+                .email(username + "@test.com")
+                .password("password")
+                .firstName("First")
+                .lastName("Last")
+                .role(role)
+                .active(true)
+                .build());
+    }
+}
@@ -0,0 +1,59 @@
+package ru.polukhin.learningplatform.service;
+
+import org.junit.jupiter.api.Test;
+import ru.polukhin.learningplatform.dto.AutocompleteSuggestion;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PrefixIndexTest {
+
+    @Test
+    void shouldReturnHeaviestMatchesOfAnyWordOnce() {
+        // Given
+        PrefixIndex index = PrefixIndex.build(List.of(
+                entry(1L, "Spring Boot Basics", 5),
+                entry(2L, "Spring Security", 40),
+                entry(3L, "Boot Camp: Spring", 20),
+                entry(4L, "Ёлочные игрушки", 1),
+                entry(5L, "Kotlin", 100)));
+
+        // When
+        List<AutocompleteSuggestion> spring = index.top(PrefixIndex.normalize("SPR"), 10, id -> false);
+        List<AutocompleteSuggestion> bootBa = index.top(PrefixIndex.normalize("boot  ba"), 10, id -> false);
+        List<AutocompleteSuggestion> skipped = index.top(PrefixIndex.normalize("spring"), 2, id -> id == 2L);
+
+        // Then
+        assertThat(spring).extracting(AutocompleteSuggestion::id).containsExactly(2L, 3L, 1L);
+        assertThat(bootBa).extracting(AutocompleteSuggestion::id).containsExactly(1L);
+        assertThat(skipped).extracting(AutocompleteSuggestion::id).containsExactly(3L, 1L);
+        assertThat(index.top(PrefixIndex.normalize("ел"), 10, id -> false))
+                .extracting(AutocompleteSuggestion::label).containsExactly("Ёлочные игрушки");
+        assertThat(index.top(PrefixIndex.normalize("pring"), 10, id -> false)).isEmpty();
+        assertThat(index.weightOf(3L)).isEqualTo(20);
+        assertThat(index.weightOf(42L)).isZero();
+    }
+
+    @Test
+    void shouldPickTopEntriesOfLargeRange() {
+        // Given
+        List<PrefixIndex.Entry> entries = new ArrayList<>();
+        for (long id = 1; id <= 10_000; id++) {
+            entries.add(entry(id, "Course " + id, id % 1000));
+        }
+        PrefixIndex index = PrefixIndex.build(entries);
+
+        // When
+        List<AutocompleteSuggestion> top = index.top("c", 3, id -> false);
+
+        // Then
+        assertThat(index.size()).isEqualTo(10_000);
+        assertThat(top).extracting(AutocompleteSuggestion::id).containsExactly(999L, 1999L, 2999L);
+    }
+
+    private static PrefixIndex.Entry entry(long id, String title, long weight) {
+        return new PrefixIndex.Entry(id, title, null, PrefixIndex.normalize(title), weight);
+    }
+}
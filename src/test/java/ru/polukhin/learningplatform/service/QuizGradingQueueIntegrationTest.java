@@ -0,0 +1,185 @@
+package ru.polukhin.learningplatform.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import ru.polukhin.learningplatform.dto.QuizGradingStatus;
+import ru.polukhin.learningplatform.entity.*;
+import ru.polukhin.learningplatform.entity.Module;
+import ru.polukhin.learningplatform.exception.DuplicateResourceException;
+import ru.polukhin.learningplatform.exception.ResourceNotFoundException;
+import ru.polukhin.learningplatform.repository.CategoryRepository;
+import ru.polukhin.learningplatform.repository.UserRepository;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Not @Transactional: grading workers insert in their own transactions and must see committed test data
+@SpringBootTest(properties = "app.quiz-grading.batch-size=4")
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class QuizGradingQueueIntegrationTest {
+
+    @Autowired
+    private QuizService quizService;
+
+    @Autowired
+    private CourseService courseService;
+
+    @Autowired
+    private QuizGradingQueue gradingQueue;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Test
+    void shouldGradeQueuedSubmissionsInBatches() throws Exception {
+        // Given
+        Quiz quiz = createQuiz("Async Quiz");
+        Question question = quizService.addQuestionToQuiz(quiz.getId(), Question.builder()
+                .questionText("Question")
+                .type(QuestionType.SINGLE_CHOICE)
+                .points(2)
+                .build());
+        AnswerOption correct = addOption(question, true);
+        AnswerOption wrong = addOption(question, false);
+        List<User> students = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            students.add(createUser("async_student" + i, RoleType.STUDENT));
+        }
+
+        // When
+        for (int i = 0; i < students.size(); i++) {
+            AnswerOption answer = i % 2 == 0 ? correct : wrong;
+            QuizGradingStatus status = quizService.takeQuizAsync(quiz.getId(), students.get(i).getId(),
+                    Map.of(question.getId(), List.of(answer.getId())), 5);
+            assertThat(status.status()).isEqualTo(QuizGradingStatus.Status.QUEUED);
+        }
+
+        // Then
+        for (int i = 0; i < students.size(); i++) {
+            QuizGradingStatus status = awaitGraded(quiz.getId(), students.get(i).getId());
+            assertThat(status.submission().score()).isEqualTo(i % 2 == 0 ? 2 : 0);
+            assertThat(status.submission().passed()).isEqualTo(i % 2 == 0);
+        }
+        assertThat(quizService.getSubmissionsByQuiz(quiz.getId(), null, 50).items()).hasSize(10);
+    }
+
+    @Test
+    void shouldRejectRepeatedAndUnknownSubmissions() throws Exception {
+        // Given
+        Quiz quiz = createQuiz("Repeated Quiz");
+        Question question = quizService.addQuestionToQuiz(quiz.getId(), Question.builder()
+                .questionText("Question")
+                .type(QuestionType.TRUE_FALSE)
+                .build());
+        AnswerOption correct = addOption(question, true);
+        User student = createUser("repeat_student", RoleType.STUDENT);
+        Map<Long, List<Long>> answers = Map.of(question.getId(), List.of(correct.getId()));
+
+        // When
+        quizService.takeQuizAsync(quiz.getId(), student.getId(), answers, 5);
+        awaitGraded(quiz.getId(), student.getId());
+
+        // Then
+        assertThatThrownBy(() -> quizService.takeQuizAsync(quiz.getId(), student.getId(), answers, 5))
+                .isInstanceOf(DuplicateResourceException.class);
+        assertThatThrownBy(() -> quizService.takeQuiz(quiz.getId(), student.getId(), answers, 5))
+                .isInstanceOf(DuplicateResourceException.class);
+        User instructor = createUser("repeat_instructor", RoleType.INSTRUCTOR);
+        assertThatThrownBy(() -> quizService.takeQuizAsync(quiz.getId(), instructor.getId(), answers, 5))
+                .hasMessage("User is not a student");
+        assertThatThrownBy(() -> quizService.getGradingStatus(quiz.getId(), instructor.getId()))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    @Test
+    void shouldKeepFailedStateUntilRetentionEnds() throws Exception {
+        // Given: the queue takes what the service validated, so an unknown quiz only fails in the worker
+        User student = createUser("failed_student", RoleType.STUDENT);
+        Instant beforeFailure = Instant.now().minusSeconds(1);
+        gradingQueue.enqueue(Long.MAX_VALUE, student.getId(), Map.of(), 5);
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (gradingQueue.isQueued(Long.MAX_VALUE, student.getId()) && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(gradingQueue.getStatus(Long.MAX_VALUE, student.getId()).status())
+                .isEqualTo(QuizGradingStatus.Status.FAILED);
+
+        // When
+        gradingQueue.purgeFailedBefore(beforeFailure);
+
+        // Then
+        assertThat(gradingQueue.getStatus(Long.MAX_VALUE, student.getId())).isNotNull();
+
+        // When
+        gradingQueue.purgeFailedBefore(Instant.now());
+
+        // Then
+        assertThat(gradingQueue.getStatus(Long.MAX_VALUE, student.getId())).isNull();
+    }
+
+    private QuizGradingStatus awaitGraded(Long quizId, Long studentId) throws InterruptedException {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        QuizGradingStatus status = quizService.getGradingStatus(quizId, studentId);
+        while (status.status() == QuizGradingStatus.Status.QUEUED && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+            status = quizService.getGradingStatus(quizId, studentId);
+        }
+        assertThat(status.status()).isEqualTo(QuizGradingStatus.Status.GRADED);
+        return status;
+    }
+
+    private Quiz createQuiz(String title) {
+        User instructor = createUser(title.replace(' ', '_').toLowerCase() + "_instructor", RoleType.INSTRUCTOR);
+        Category category = categoryRepository.save(Category.builder()
+                .name(title + " Category")
+                .description("Description")
+                .build());
+        Course course = courseService.createCourse(Course.builder()
+                .title(title + " Course")
+                .description("Description")
+                .durationHours(10)
+                .difficultyLevel(DifficultyLevel.BEGINNER)
+                .build(), instructor.getId(), category.getId());
+        Module module = courseService.addModuleToCourse(course.getId(), Module.builder()
+                .title(title + " Module")
+                .build());
+
+        return quizService.createQuiz(Quiz.builder()
+                .title(title)
+                .passingScore(70)
+                .timeLimitMinutes(30)
+                .module(module)
+                .build());
+    }
+
+    private AnswerOption addOption(Question question, boolean correct) {
+        return quizService.addAnswerOptionToQuestion(question.getId(), AnswerOption.builder()
+                .optionText("Option")
+                .isCorrect(correct)
+                .build());
+    }
+
+    private User createUser(String username, RoleType role) {
+        return userRepository.save(User.builder()
+                .username(username)
+                .email(username + "@test.com")
+                .password("password")
+                .firstName("First")
+                .lastName("Last")
+                .role(role)
+                .active(true)
+                .build());
+    }
+}
@@ -0,0 +1,211 @@
+package ru.polukhin.learningplatform.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+import ru.polukhin.learningplatform.dto.ExportFormat;
+import ru.polukhin.learningplatform.dto.QuestionView;
+import ru.polukhin.learningplatform.dto.QuizWithQuestionsView;
+import ru.polukhin.learningplatform.entity.*;
+import ru.polukhin.learningplatform.entity.Module;
+import ru.polukhin.learningplatform.exception.DuplicateResourceException;
+import ru.polukhin.learningplatform.repository.CategoryRepository;
+import ru.polukhin.learningplatform.repository.UserRepository;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class QuizServiceIntegrationTest {
+
+    @Autowired
+    private QuizService quizService;
+
+    @Autowired
+    private CourseService courseService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Test
+    void shouldGradeSingleAndMultipleChoiceQuestions() {
+        // Given
+        Quiz quiz = createQuiz("Grading Quiz");
+        Question single = addQuestion(quiz, QuestionType.SINGLE_CHOICE, 10);
+        AnswerOption singleCorrect = addOption(single, true);
+        addOption(single, false);
+
+        Question multiple = addQuestion(quiz, QuestionType.MULTIPLE_CHOICE, 5);
+        AnswerOption multipleFirst = addOption(multiple, true);
+        AnswerOption multipleSecond = addOption(multiple, true);
+        AnswerOption multipleWrong = addOption(multiple, false);
+
+        User student = createUser("quiz_student1", RoleType.STUDENT);
+
+        // When
+        QuizSubmission submission = quizService.takeQuiz(quiz.getId(), student.getId(), Map.of(
+                single.getId(), List.of(singleCorrect.getId()),
+                multiple.getId(), List.of(multipleSecond.getId(), multipleWrong.getId())
+        ), 15);
+
+        // Then
+        assertThat(submission.getScore()).isEqualTo(10);
+        assertThat(submission.getMaxScore()).isEqualTo(15);
+        assertThat(submission.getPassed()).isFalse();
+
+        User another = createUser("quiz_student2", RoleType.STUDENT);
+        QuizSubmission perfect = quizService.takeQuiz(quiz.getId(), another.getId(), Map.of(
+                single.getId(), List.of(singleCorrect.getId()),
+                multiple.getId(), List.of(multipleSecond.getId(), multipleFirst.getId())
+        ), 10);
+        assertThat(perfect.getScore()).isEqualTo(15);
+        assertThat(perfect.getPassed()).isTrue();
+    }
+
+    @Test
+    void shouldRecompileAnswerKeyWhenQuizChanges() {
+        // Given
+        Quiz quiz = createQuiz("Changing Quiz");
+        Question first = addQuestion(quiz, QuestionType.TRUE_FALSE, 1);
+        AnswerOption firstCorrect = addOption(first, true);
+        quizService.takeQuiz(quiz.getId(), createUser("quiz_student3", RoleType.STUDENT).getId(),
+                Map.of(first.getId(), List.of(firstCorrect.getId())), 5);
+
+        // When
+        Question second = addQuestion(quiz, QuestionType.SINGLE_CHOICE, 3);
+        AnswerOption secondCorrect = addOption(second, true);
+        QuizSubmission submission = quizService.takeQuiz(quiz.getId(),
+                createUser("quiz_student4", RoleType.STUDENT).getId(),
+                Map.of(first.getId(), List.of(firstCorrect.getId()),
+                        second.getId(), List.of(secondCorrect.getId())), 5);
+
+        // Then
+        assertThat(submission.getMaxScore()).isEqualTo(4);
+        assertThat(submission.getScore()).isEqualTo(4);
+    }
+
+    @Test
+    void shouldNotTakeQuizTwice() {
+        // Given
+        Quiz quiz = createQuiz("Single Attempt Quiz");
+        Question question = addQuestion(quiz, QuestionType.SINGLE_CHOICE, 1);
+        AnswerOption correct = addOption(question, true);
+        User student = createUser("quiz_student5", RoleType.STUDENT);
+        Map<Long, List<Long>> answers = Map.of(question.getId(), List.of(correct.getId()));
+
+        quizService.takeQuiz(quiz.getId(), student.getId(), answers, 5);
+
+        // When / Then
+        assertThatThrownBy(() -> quizService.takeQuiz(quiz.getId(), student.getId(), answers, 5))
+                .isInstanceOf(DuplicateResourceException.class);
+    }
+
+    @Test
+    void shouldReturnQuizWithQuestionsAndOptionsInOrder() {
+        // Given
+        Quiz quiz = createQuiz("View Quiz");
+        Question first = addQuestion(quiz, QuestionType.SINGLE_CHOICE, 1);
+        addOption(first, true);
+        addOption(first, false);
+        Question second = addQuestion(quiz, QuestionType.TRUE_FALSE, 2);
+        addOption(second, false);
+
+        // When
+        QuizWithQuestionsView view = quizService.getQuizWithQuestions(quiz.getId());
+
+        // Then
+        assertThat(view.quiz().title()).isEqualTo("View Quiz");
+        assertThat(view.questions()).extracting(QuestionView::id).containsExactly(first.getId(), second.getId());
+        assertThat(view.questions().get(0).answerOptions()).hasSize(2);
+        assertThat(view.questions().get(1).answerOptions()).singleElement()
+                .satisfies(option -> assertThat(option.isCorrect()).isFalse());
+    }
+
+    @Test
+    void shouldExportSubmissionsAsCsv() throws Exception {
+        // Given
+        Quiz quiz = createQuiz("Export Quiz");
+        Question question = addQuestion(quiz, QuestionType.SINGLE_CHOICE, 2);
+        AnswerOption correct = addOption(question, true);
+        quizService.takeQuiz(quiz.getId(), createUser("export_student1", RoleType.STUDENT).getId(),
+                Map.of(question.getId(), List.of(correct.getId())), 3);
+        quizService.takeQuiz(quiz.getId(), createUser("export_student2", RoleType.STUDENT).getId(),
+                Map.of(), 4);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // When
+        long exported = quizService.exportSubmissionsByQuiz(quiz.getId(), ExportFormat.CSV, output);
+
+        // Then
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(exported).isEqualTo(2);
+        assertThat(lines).hasSize(3);
+        assertThat(lines[1]).contains(",export_student1,2,2,100.0,true,");
+        assertThat(lines[2]).contains(",export_student2,0,2,0.0,false,");
+    }
+
+    private Quiz createQuiz(String title) {
+        User instructor = createUser(title.replace(' ', '_').toLowerCase() + "_instructor", RoleType.INSTRUCTOR);
+        Category category = categoryRepository.save(Category.builder()
+                .name(title + " Category")
+                .description("Description")
+                .build());
+        Course course = courseService.createCourse(Course.builder()
+                .title(title + " Course")
+                .description("Description")
+                .durationHours(10)
+                .difficultyLevel(DifficultyLevel.BEGINNER)
+                .build(), instructor.getId(), category.getId());
+        Module module = courseService.addModuleToCourse(course.getId(), Module.builder()
+                .title(title + " Module")
+                .build());
+
+        return quizService.createQuiz(Quiz.builder()
+                .title(title)
+                .passingScore(70)
+                .timeLimitMinutes(30)
+                .module(module)
+                .build());
+    }
+
+    private Question addQuestion(Quiz quiz, QuestionType type, int points) {
+        return quizService.addQuestionToQuiz(quiz.getId(), Question.builder()
+                .questionText("Question")
+                .type(type)
+                .points(points)
+                .build());
+    }
+
+    private AnswerOption addOption(Question question, boolean correct) {
+        return quizService.addAnswerOptionToQuestion(question.getId(), AnswerOption.builder()
+                .optionText("Option")
+                .isCorrect(correct)
+                .build());
+    }
+
+    private User createUser(String username, RoleType role) {
+        return userRepository.save(User.builder()
+                .username(username)
+                .email(username + "@test.com")
+                .password("password")
+                .firstName("First")
+                .lastName("Last")
+                .role(role)
+                .active(true)
+                .build());
+    }
+}
@@ -0,0 +1,185 @@
+package ru.polukhin.learningplatform.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.polukhin.learningplatform.dto.ExportFormat;
+import ru.polukhin.learningplatform.dto.QuizSubmissionExportRow;
+import ru.polukhin.learningplatform.entity.*;
+import ru.polukhin.learningplatform.entity.Module;
+import ru.polukhin.learningplatform.repository.CategoryRepository;
+import ru.polukhin.learningplatform.repository.UserRepository;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Not @Transactional: the export streams through its own read-only transaction and must see committed rows
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class QuizSubmissionExportIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private QuizSubmissionExporter exporter;
+
+    @Autowired
+    private QuizService quizService;
+
+    @Autowired
+    private CourseService courseService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Test
+    void shouldExportOneJsonObjectPerLine() throws Exception {
+        // Given
+        Quiz quiz = createQuiz();
+        Question question = quizService.addQuestionToQuiz(quiz.getId(), Question.builder()
+                .questionText("Question")
+                .type(QuestionType.TRUE_FALSE)
+                .build());
+        AnswerOption correct = quizService.addAnswerOptionToQuestion(question.getId(), AnswerOption.builder()
+                .optionText("True")
+                .isCorrect(true)
+                .build());
+        List<User> students = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            User student = createUser("export_student" + i, RoleType.STUDENT);
+            quizService.takeQuiz(quiz.getId(), student.getId(),
+                    Map.of(question.getId(), i % 2 == 0 ? List.of(correct.getId()) : List.of()), 5);
+            students.add(student);
+        }
+
+        // When
+        MvcResult result = mockMvc.perform(get("/api/quizzes/{id}/submissions/export", quiz.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=quiz-" + quiz.getId() + "-submissions.ndjson"))
+                .andReturn();
+
+        // Then
+        assertThat(result.getResponse().getContentType()).startsWith(ExportFormat.NDJSON.getContentType());
+        String body = result.getResponse().getContentAsString(StandardCharsets.UTF_8);
+        assertThat(body).endsWith("\n");
+        List<String> lines = body.lines().toList();
+        assertThat(lines).hasSize(students.size());
+        for (int i = 0; i < lines.size(); i++) {
+            JsonNode row = objectMapper.readTree(lines.get(i));
+            assertThat(row.isObject()).isTrue();
+            assertThat(row.get("studentId").asLong()).isEqualTo(students.get(i).getId());
+            assertThat(row.get("username").asText()).isEqualTo("export_student" + i);
+            assertThat(row.get("passed").asBoolean()).isEqualTo(i % 2 == 0);
+        }
+    }
+
+    @Test
+    void shouldWriteNewlineSeparatedObjects() throws Exception {
+        // Given
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Stream<QuizSubmissionExportRow> rows = Stream.of(
+                new QuizSubmissionExportRow(1L, 11L, "student1", 8, 10, 80.0, true,
+                        LocalDateTime.of(2024, 1, 1, 12, 0), 5),
+                new QuizSubmissionExportRow(2L, 12L, "student2", 3, 10, 30.0, false,
+                        LocalDateTime.of(2024, 1, 2, 9, 30), 7));
+
+        // When
+        long written = exporter.write(rows, ExportFormat.NDJSON, output);
+
+        // Then: no separator before a line, a newline after each one
+        assertThat(written).isEqualTo(2);
+        assertThat(output.toString(StandardCharsets.UTF_8)).isEqualTo(
+                "{\"submissionId\":1,\"studentId\":11,\"username\":\"student1\",\"score\":8,\"maxScore\":10," +
+                        "\"percentageScore\":80.0,\"passed\":true,\"submittedAt\":\"2024-01-01T12:00:00\"," +
+                        "\"timeTakenMinutes\":5}\n" +
+                        "{\"submissionId\":2,\"studentId\":12,\"username\":\"student2\",\"score\":3,\"maxScore\":10," +
+                        "\"percentageScore\":30.0,\"passed\":false,\"submittedAt\":\"2024-01-02T09:30:00\"," +
+                        "\"timeTakenMinutes\":7}\n");
+    }
+
+    @Test
+    void shouldStreamRowsThroughABufferWithoutFlushingEachOne() throws Exception {
+        // Given: each row records how much had reached the output when it was pulled
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        List<Integer> writtenBeforeRow = new ArrayList<>();
+        Stream<QuizSubmissionExportRow> rows = IntStream.rangeClosed(1, 1000)
+                .mapToObj(i -> {
+                    writtenBeforeRow.add(output.size());
+                    return new QuizSubmissionExportRow((long) i, 10L + i, "student" + i, i % 10, 10,
+                            (i % 10) * 10.0, i % 10 >= 7, LocalDateTime.of(2024, 1, 1, 12, 0), 5);
+                });
+
+        // When
+        long written = exporter.write(rows, ExportFormat.NDJSON, output);
+
+        // Then: the first rows wait in the buffer, later ones reach the output before the stream ends
+        assertThat(written).isEqualTo(1000);
+        assertThat(writtenBeforeRow.subList(0, 10)).containsOnly(0);
+        assertThat(writtenBeforeRow.get(999)).isPositive().isLessThan(output.size());
+        assertThat(output.toString(StandardCharsets.UTF_8).lines()).hasSize(1000);
+    }
+
+    private Quiz createQuiz() {
+        User instructor = createUser("export_instructor", RoleType.INSTRUCTOR);
+        Category category = categoryRepository.save(Category.builder()
+                .name("Export")
+                .description("Description")
+                .build());
+        Course course = courseService.createCourse(Course.builder()
+                .title("Export Course")
+                .description("Description")
+                .durationHours(10)
+                .difficultyLevel(DifficultyLevel.BEGINNER)
+                .build(), instructor.getId(), category.getId());
+        Module module = courseService.addModuleToCourse(course.getId(), Module.builder()
+                .title("Export Module")
+                .build());
+        return quizService.createQuiz(Quiz.builder()
+                .title("Export Quiz")
+                .passingScore(50)
+                .timeLimitMinutes(30)
+                .module(module)
+                .build());
+    }
+
+    private User createUser(String username, RoleType role) {
+        return userRepository.save(User.builder()
+                .username(username)
+                .email(username + "@test.com")
+                .password("password")
+                .firstName("First")
+                .lastName("Last")
+                .role(role)
+                .active(true)
+                .build());
+    }
+}
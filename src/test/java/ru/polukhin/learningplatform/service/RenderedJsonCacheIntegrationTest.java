@@ -0,0 +1,170 @@
+package ru.polukhin.learningplatform.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.polukhin.learningplatform.config.SqlStatsFilter;
+import ru.polukhin.learningplatform.entity.*;
+import ru.polukhin.learningplatform.entity.Module;
+import ru.polukhin.learningplatform.repository.CategoryRepository;
+import ru.polukhin.learningplatform.repository.CourseRepository;
+import ru.polukhin.learningplatform.repository.UserRepository;
+
+import java.io.ByteArrayInputStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Not @Transactional: evictions are repeated after commit and the requests must see committed data
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class RenderedJsonCacheIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CourseService courseService;
+
+    @Autowired
+    private QuizService quizService;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Test
+    void shouldServeCourseOutlineBytesWithEtagAndRevalidate() throws Exception {
+        // Given
+        Course course = createCourseWithLessons(3, 4);
+        MvcResult first = mockMvc.perform(get("/api/courses/{id}/full", course.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+                .andExpect(jsonPath("$.modules.length()").value(3))
+                .andReturn();
+        String etag = first.getResponse().getHeader(HttpHeaders.ETAG);
+
+        // When
+        MvcResult notModified = mockMvc.perform(get("/api/courses/{id}/full", course.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andReturn();
+        MvcResult gzipped = mockMvc.perform(get("/api/courses/{id}/full", course.getId())
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn();
+
+        // Then
+        assertThat(etag).startsWith("\"").endsWith("\"");
+        assertThat(notModified.getResponse().getContentAsByteArray()).isEmpty();
+        assertThat(notModified.getResponse().getHeader(SqlStatsFilter.STATEMENTS_HEADER)).isEqualTo("0");
+        assertThat(gzipped.getResponse().getHeader(HttpHeaders.ETAG)).isNotEqualTo(etag);
+        try (GZIPInputStream input = new GZIPInputStream(
+                new ByteArrayInputStream(gzipped.getResponse().getContentAsByteArray()))) {
+            assertThat(input.readAllBytes()).isEqualTo(first.getResponse().getContentAsByteArray());
+        }
+
+        // When
+        courseService.updateCourse(course.getId(), Course.builder()
+                .title("Renamed Course")
+                .durationHours(20)
+                .difficultyLevel(DifficultyLevel.ADVANCED)
+                .build());
+
+        // Then
+        mockMvc.perform(get("/api/courses/{id}/full", course.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.course.title").value("Renamed Course"));
+    }
+
+    @Test
+    void shouldRenderQuizAgainAfterQuestionIsAdded() throws Exception {
+        // Given
+        Course course = createCourseWithLessons(1, 1);
+        Module module = courseService.addModuleToCourse(course.getId(), Module.builder().title("Quiz Module").build());
+        Quiz quiz = quizService.createQuiz(Quiz.builder()
+                .title("Rendered Quiz")
+                .timeLimitMinutes(30)
+                .module(module)
+                .build());
+        String etag = mockMvc.perform(get("/api/quizzes/{id}/with-questions", quiz.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.questions.length()").value(0))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // When
+        quizService.addQuestionToQuiz(quiz.getId(), Question.builder()
+                .questionText("Question")
+                .type(QuestionType.TRUE_FALSE)
+                .build());
+
+        // Then
+        mockMvc.perform(get("/api/quizzes/{id}/with-questions", quiz.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.questions.length()").value(1));
+        mockMvc.perform(get("/api/quizzes/{id}/with-questions", Long.MAX_VALUE))
+                .andExpect(status().isNotFound());
+    }
+
+    private Course createCourseWithLessons(int modules, int lessonsPerModule) {
+        User instructor = userRepository.save(User.builder()
+                .username("rendered_instructor")
+                .email("rendered_instructor@test.com")
+                .password("password")
+                .firstName("First")
+                .lastName("Last")
+                .role(RoleType.INSTRUCTOR)
+                .active(true)
+                .build());
+        Category category = categoryRepository.save(Category.builder()
+                .name("Rendered Category")
+                .description("Description")
+                .build());
+
+        Course course = Course.builder()
+                .title("Rendered Course")
+                .description("Description")
+                .durationHours(10)
+                .difficultyLevel(DifficultyLevel.BEGINNER)
+                .instructor(instructor)
+                .category(category)
+                .build();
+        for (int m = 0; m < modules; m++) {
+            Module module = Module.builder()
+                    .title("Module " + m)
+                    .orderIndex(m)
+                    .course(course)
+                    .build();
+            for (int l = 0; l < lessonsPerModule; l++) {
+                module.getLessons().add(Lesson.builder()
+                        .title("Lesson " + l)
+                        .content("Lesson text. ".repeat(20))
+                        .orderIndex(l)
+                        .module(module)
+                        .build());
+            }
+            course.getModules().add(module);
+        }
+        return courseRepository.save(course);
+    }
+}
@@ -0,0 +1,88 @@
+package ru.polukhin.learningplatform.service;
+
+import org.junit.jupiter.api.Test;
+import ru.polukhin.learningplatform.dto.CourseSearchRow;
+import ru.polukhin.learningplatform.dto.LessonSearchRow;
+import ru.polukhin.learningplatform.dto.SearchFacet;
+import ru.polukhin.learningplatform.dto.SearchHit;
+import ru.polukhin.learningplatform.entity.DifficultyLevel;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class SearchIndexTest {
+
+    @Test
+    void shouldRankByBm25AndCountFacetsAgainstTheOtherFilter() {
+        // Given
+        SearchIndex index = new SearchIndex();
+        index.putCourse(new CourseSearchRow(1L, "Java Programming", "Classes and generics", 10L, "Programming",
+                DifficultyLevel.BEGINNER, true));
+        index.putCourse(new CourseSearchRow(2L, "Spring Boot", "Building services with Java", 10L, "Programming",
+                DifficultyLevel.ADVANCED, true));
+        index.putCourse(new CourseSearchRow(3L, "Java Internals", "Hidden draft", 20L, "Systems",
+                DifficultyLevel.ADVANCED, false));
+        index.putLesson(new LessonSearchRow(100L, 2L, "Dependency injection", "Beans are plain Java objects"));
+
+        // When
+        SearchIndex.Result all = index.search(query(null, null));
+        SearchIndex.Result advanced = index.search(query(null, DifficultyLevel.ADVANCED));
+
+        // Then
+        assertThat(all.total()).isEqualTo(3);
+        assertThat(all.hits()).extracting(SearchIndex.Hit::id).first().isEqualTo(1L);
+        assertThat(all.hits()).extracting(SearchIndex.Hit::type)
+                .containsOnly(SearchHit.Type.COURSE, SearchHit.Type.LESSON);
+        assertThat(advanced.hits()).extracting(SearchIndex.Hit::id).containsExactlyInAnyOrder(2L, 100L);
+        assertThat(advanced.difficultyLevels()).extracting(SearchFacet::value, SearchFacet::count)
+                .containsExactly(tuple("ADVANCED", 2),
+                        tuple("BEGINNER", 1));
+        assertThat(advanced.categories()).extracting(SearchFacet::label, SearchFacet::count)
+                .containsExactly(tuple("Programming", 2));
+    }
+
+    @Test
+    void shouldReplaceAndRemoveDocumentsIncrementally() {
+        // Given
+        SearchIndex index = new SearchIndex();
+        index.putCourse(new CourseSearchRow(1L, "Kotlin", "Coroutines", 10L, "Programming",
+                DifficultyLevel.BEGINNER, true));
+        for (long id = 1; id <= 5_000; id++) {
+            index.putLesson(new LessonSearchRow(id, 1L, "Lesson " + id, "Coroutines and flows " + id));
+        }
+
+        // When
+        for (long id = 1; id <= 5_000; id++) {
+            index.putLesson(new LessonSearchRow(id, 1L, "Lesson " + id, "Channels " + id));
+        }
+        index.removeLesson(1L);
+
+        // Then
+        assertThat(index.search(query("flows", null)).total()).isZero();
+        assertThat(index.search(query("channels", null)).total()).isEqualTo(4_999);
+        assertThat(index.search(query("coroutines", null)).hits()).extracting(SearchIndex.Hit::id).containsExactly(1L);
+
+        index.removeCourse(1L);
+        assertThat(index.size()).isZero();
+        assertThat(index.search(query("channels", null)).total()).isZero();
+    }
+
+    @Test
+    void shouldHighlightMatchesInEscapedExcerpt() {
+        String text = "Intro. ".repeat(30) + "Use <b>generics</b> & wildcards for Generic code";
+
+        String excerpt = SearchHighlighter.highlight(text, Set.of("generics", "generic"), 120);
+
+        assertThat(excerpt).startsWith("…")
+                .contains("&lt;b&gt;<em>generics</em>&lt;/b&gt; &amp; wildcards for <em>Generic</em> code")
+                .doesNotContain("<b>");
+    }
+
+    private static SearchIndex.Query query(String text, DifficultyLevel difficultyLevel) {
+        List<String> terms = text != null ? SearchTokenizer.terms(text) : List.of("java");
+        return new SearchIndex.Query(terms, null, null, difficultyLevel, 10);
+    }
+}
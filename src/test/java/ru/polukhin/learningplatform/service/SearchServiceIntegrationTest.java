@@ -0,0 +1,96 @@
+package ru.polukhin.learningplatform.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import ru.polukhin.learningplatform.dto.SearchHit;
+import ru.polukhin.learningplatform.dto.SearchResults;
+import ru.polukhin.learningplatform.entity.*;
+import ru.polukhin.learningplatform.entity.Module;
+import ru.polukhin.learningplatform.repository.CategoryRepository;
+import ru.polukhin.learningplatform.repository.LessonRepository;
+import ru.polukhin.learningplatform.repository.UserRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Not @Transactional: the index follows committed writes only
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class SearchServiceIntegrationTest {
+
+    @Autowired
+    private SearchService searchService;
+
+    @Autowired
+    private CourseService courseService;
+
+    @Autowired
+    private LessonRepository lessonRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Test
+    void shouldFollowCommittedCourseAndLessonWrites() {
+        // Given
+        User instructor = userRepository.save(User.builder()
+                .username("search_instructor")
+                .email("search_instructor@test.com")
+                .password("password")
+                .firstName("First")
+                .lastName("Last")
+                .role(RoleType.INSTRUCTOR)
+                .active(true)
+                .build());
+        Category category = categoryRepository.save(Category.builder()
+                .name("Streams")
+                .description("Description")
+                .build());
+        Course course = courseService.createCourse(Course.builder()
+                .title("Reactive Streams")
+                .description("Backpressure explained")
+                .durationHours(10)
+                .difficultyLevel(DifficultyLevel.ADVANCED)
+                .build(), instructor.getId(), category.getId());
+        searchService.refresh();
+        assertThat(search("reactive").total()).isZero();
+
+        // When
+        courseService.publishCourse(course.getId());
+        Module module = courseService.addModuleToCourse(course.getId(), Module.builder().title("Basics").build());
+        lessonRepository.save(Lesson.builder()
+                .title("Operators")
+                .content("Reactive operators compose <async> pipelines")
+                .orderIndex(0)
+                .module(module)
+                .build());
+        searchService.refresh();
+
+        // Then
+        SearchResults results = search("reactive pipelines");
+        assertThat(results.total()).isEqualTo(2);
+        assertThat(results.hits()).extracting(SearchHit::type)
+                .containsExactly(SearchHit.Type.LESSON, SearchHit.Type.COURSE);
+        assertThat(results.hits().get(0).snippet())
+                .isEqualTo("<em>Reactive</em> operators compose &lt;async&gt; <em>pipelines</em>");
+        assertThat(results.hits().get(0).courseTitle()).isEqualTo("Reactive Streams");
+        assertThat(results.categories()).singleElement().satisfies(facet -> {
+            assertThat(facet.label()).isEqualTo("Streams");
+            assertThat(facet.count()).isEqualTo(2);
+        });
+
+        courseService.deleteCourse(course.getId());
+        searchService.refresh();
+        assertThat(search("reactive").total()).isZero();
+    }
+
+    private SearchResults search(String query) {
+        return searchService.search(query, null, null, null, null, null);
+    }
+}
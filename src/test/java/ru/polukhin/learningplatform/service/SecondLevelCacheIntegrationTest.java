@@ -0,0 +1,234 @@
+package ru.polukhin.learningplatform.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.polukhin.learningplatform.dto.CourseOutlineView;
+import ru.polukhin.learningplatform.dto.ModuleOutlineView;
+import ru.polukhin.learningplatform.entity.*;
+import ru.polukhin.learningplatform.entity.Module;
+import ru.polukhin.learningplatform.repository.CategoryRepository;
+import ru.polukhin.learningplatform.repository.CourseRepository;
+import ru.polukhin.learningplatform.repository.LessonRepository;
+import ru.polukhin.learningplatform.repository.QuizRepository;
+import ru.polukhin.learningplatform.repository.UserRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Not @Transactional: second-level cache puts and evictions happen on commit
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class SecondLevelCacheIntegrationTest {
+
+    @Autowired
+    private CourseService courseService;
+
+    @Autowired
+    private QuizService quizService;
+
+    @Autowired
+    private AssignmentService assignmentService;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private LessonRepository lessonRepository;
+
+    @Autowired
+    private QuizRepository quizRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transaction;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        transaction = new TransactionTemplate(transactionManager);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void shouldServeCourseFromCacheAndInvalidateOnCourseServiceWrites() {
+        // Given
+        Course course = createCourse("Cached Course");
+        statistics.clear();
+
+        // When
+        loadCourseTitle(course.getId());
+        loadCourseTitle(course.getId());
+        courseService.getCourseById(course.getId());
+        courseService.getCourseById(course.getId());
+
+        // Then
+        assertThat(statistics.getDomainDataRegionStatistics("courses").getHitCount()).isEqualTo(2);
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+
+        // When
+        courseService.updateCourse(course.getId(), Course.builder()
+                .title("Renamed Course")
+                .durationHours(20)
+                .difficultyLevel(DifficultyLevel.ADVANCED)
+                .build());
+        courseService.addModuleToCourse(course.getId(), Module.builder().title("New Module").build());
+
+        // Then
+        assertThat(loadCourseTitle(course.getId())).isEqualTo("Renamed Course");
+        assertThat(courseService.getCourseById(course.getId()).title()).isEqualTo("Renamed Course");
+        assertThat(countModules(course.getId())).isEqualTo(1);
+        assertThat(courseService.getCourseWithModules(course.getId()).modules()).hasSize(1);
+    }
+
+    @Test
+    void shouldInvalidateCachedQuizStructureOnQuizServiceWrites() {
+        // Given
+        Quiz quiz = quizService.createQuiz(Quiz.builder()
+                .title("Cached Quiz")
+                .passingScore(70)
+                .timeLimitMinutes(30)
+                .module(courseService.addModuleToCourse(createCourse("Quiz Course").getId(),
+                        Module.builder().title("Quiz Module").build()))
+                .build());
+        Question question = quizService.addQuestionToQuiz(quiz.getId(), Question.builder()
+                .questionText("First")
+                .type(QuestionType.TRUE_FALSE)
+                .build());
+        statistics.clear();
+
+        // When
+        countQuestions(quiz.getId());
+        countQuestions(quiz.getId());
+
+        // Then
+        assertThat(statistics.getDomainDataRegionStatistics("quiz-questions").getHitCount()).isEqualTo(1);
+
+        // When
+        quizService.addQuestionToQuiz(quiz.getId(), Question.builder()
+                .questionText("Second")
+                .type(QuestionType.SINGLE_CHOICE)
+                .build());
+        quizService.addAnswerOptionToQuestion(question.getId(), AnswerOption.builder()
+                .optionText("True")
+                .isCorrect(true)
+                .build());
+        quizService.updateQuiz(quiz.getId(), Quiz.builder()
+                .title("Renamed Quiz")
+                .passingScore(50)
+                .timeLimitMinutes(45)
+                .build());
+
+        // Then
+        assertThat(countQuestions(quiz.getId())).isEqualTo(2);
+        assertThat(quizService.getQuizById(quiz.getId()).title()).isEqualTo("Renamed Quiz");
+        assertThat(quizService.getQuizWithQuestions(quiz.getId()).questions())
+                .filteredOn(view -> view.id().equals(question.getId()))
+                .singleElement()
+                .satisfies(view -> assertThat(view.answerOptions()).hasSize(1));
+    }
+
+    @Test
+    void shouldRebuildCourseOutlineOnStructureWrites() {
+        // Given
+        Course course = createCourse("Outline Course");
+        Module module = courseService.addModuleToCourse(course.getId(), Module.builder().title("First").build());
+        Lesson lesson = lessonRepository.save(Lesson.builder()
+                .title("Lesson")
+                .orderIndex(0)
+                .module(module)
+                .build());
+        assertThat(courseService.getCourseWithFullStructure(course.getId()).modules())
+                .singleElement()
+                .satisfies(view -> assertThat(view.quiz()).isNull());
+
+        // When
+        Quiz quiz = quizService.createQuiz(Quiz.builder()
+                .title("Outline Quiz")
+                .timeLimitMinutes(30)
+                .module(module)
+                .build());
+        Assignment assignment = assignmentService.createAssignment(Assignment.builder()
+                .title("Outline Assignment")
+                .maxScore(10)
+                .lesson(lesson)
+                .build());
+        courseService.addModuleToCourse(course.getId(), Module.builder().title("Second").build());
+
+        // Then
+        CourseOutlineView outline = courseService.getCourseWithFullStructure(course.getId());
+        assertThat(outline.modules()).extracting(ModuleOutlineView::title).containsExactly("First", "Second");
+        assertThat(outline.modules().get(0).quiz().title()).isEqualTo("Outline Quiz");
+        assertThat(outline.modules().get(0).lessons()).singleElement()
+                .satisfies(view -> assertThat(view.assignments()).singleElement()
+                        .satisfies(a -> assertThat(a.title()).isEqualTo("Outline Assignment")));
+
+        // When
+        quizService.updateQuiz(quiz.getId(), Quiz.builder()
+                .title("Renamed Quiz")
+                .passingScore(50)
+                .timeLimitMinutes(45)
+                .build());
+        assignmentService.deleteAssignment(assignment.getId());
+
+        // Then
+        outline = courseService.getCourseWithFullStructure(course.getId());
+        assertThat(outline.modules().get(0).quiz().title()).isEqualTo("Renamed Quiz");
+        assertThat(outline.modules().get(0).lessons()).singleElement()
+                .satisfies(view -> assertThat(view.assignments()).isEmpty());
+    }
+
+    private String loadCourseTitle(Long courseId) {
+        return transaction.execute(status -> courseRepository.findById(courseId).orElseThrow().getTitle());
+    }
+
+    private int countModules(Long courseId) {
+        return transaction.execute(status -> courseRepository.findById(courseId).orElseThrow().getModules().size());
+    }
+
+    private int countQuestions(Long quizId) {
+        return transaction.execute(status -> quizRepository.findById(quizId).orElseThrow().getQuestions().size());
+    }
+
+    private Course createCourse(String title) {
+        String username = title.replace(' ', '_').toLowerCase() + "_instructor";
+        User instructor = userRepository.save(User.builder()
+                .username(username)
+                .email(username + "@test.com")
+                .password("password")
+                .firstName("First")
+                .lastName("Last")
+                .role(RoleType.INSTRUCTOR)
+                .active(true)
+                .build());
+        Category category = categoryRepository.save(Category.builder()
+                .name(title + " Category")
+                .description("Description")
+                .build());
+
+        return courseService.createCourse(Course.builder()
+                .title(title)
+                .description("Description")
+                .durationHours(10)
+                .difficultyLevel(DifficultyLevel.BEGINNER)
+                .build(), instructor.getId(), category.getId());
+    }
+}
@@ -0,0 +1,357 @@
+package ru.polukhin.learningplatform.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.FileSystemUtils;
+import ru.polukhin.learningplatform.dto.GradebookEntryView;
+import ru.polukhin.learningplatform.dto.QuizSubmissionView;
+import ru.polukhin.learningplatform.dto.SubmissionView;
+import ru.polukhin.learningplatform.dto.TranscriptView;
+import ru.polukhin.learningplatform.entity.*;
+import ru.polukhin.learningplatform.entity.Module;
+import ru.polukhin.learningplatform.exception.DuplicateResourceException;
+import ru.polukhin.learningplatform.repository.ArchivedScoreRepository;
+import ru.polukhin.learningplatform.repository.CategoryRepository;
+import ru.polukhin.learningplatform.repository.LessonRepository;
+import ru.polukhin.learningplatform.repository.UserRepository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+// Not @Transactional: every term is archived in its own transaction, which must commit.
+// H2 has no partitions, so terms are removed with a DELETE; the archive files are the same
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class SubmissionArchiveIntegrationTest {
+
+    @TempDir
+    static Path archiveDirectory;
+
+    @DynamicPropertySource
+    static void archiveProperties(DynamicPropertyRegistry registry) {
+        registry.add("app.submission-archive.directory", archiveDirectory::toString);
+        registry.add("app.submission-archive.keep-months", () -> "12");
+    }
+
+    @Autowired
+    private SubmissionArchiveService archiveService;
+
+    @Autowired
+    private TranscriptService transcriptService;
+
+    @Autowired
+    private GradebookService gradebookService;
+
+    @Autowired
+    private EnrollmentService enrollmentService;
+
+    @Autowired
+    private AssignmentService assignmentService;
+
+    @Autowired
+    private QuizService quizService;
+
+    @Autowired
+    private CourseService courseService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private LessonRepository lessonRepository;
+
+    @Autowired
+    private ArchivedScoreRepository archivedScoreRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transaction;
+
+    @BeforeEach
+    void setUp() {
+        transaction = new TransactionTemplate(transactionManager);
+    }
+
+    // The directory outlives the context: ids start over in the next one and would find these files
+    @AfterEach
+    void tearDown() throws IOException {
+        for (String table : SubmissionPartitions.TABLES) {
+            FileSystemUtils.deleteRecursively(archiveDirectory.resolve(table));
+        }
+    }
+
+    @Test
+    void shouldMoveClosedTermsToArchiveAndKeepTranscriptsAndGradebook() {
+        // Given
+        User instructor = createUser("arc_instructor", RoleType.INSTRUCTOR);
+        Category category = categoryRepository.save(Category.builder()
+                .name("Archive")
+                .description("Description")
+                .build());
+        Course course = courseService.createCourse(Course.builder()
+                .title("Archive Course")
+                .description("Description")
+                .durationHours(10)
+                .difficultyLevel(DifficultyLevel.BEGINNER)
+                .build(), instructor.getId(), category.getId());
+        Module module = courseService.addModuleToCourse(course.getId(), Module.builder().title("Module").build());
+        Lesson lesson = lessonRepository.save(Lesson.builder()
+                .title("Lesson")
+                .orderIndex(0)
+                .module(module)
+                .build());
+        Assignment essay = assignmentService.createAssignment(Assignment.builder()
+                .title("Essay")
+                .maxScore(100)
+                .lesson(lesson)
+                .build());
+        Quiz quiz = quizService.createQuiz(Quiz.builder()
+                .title("Quiz")
+                .passingScore(50)
+                .timeLimitMinutes(30)
+                .module(module)
+                .build());
+        Question question = quizService.addQuestionToQuiz(quiz.getId(), Question.builder()
+                .questionText("Вопрос")
+                .type(QuestionType.TRUE_FALSE)
+                .points(100)
+                .build());
+        AnswerOption correct = quizService.addAnswerOptionToQuestion(question.getId(), AnswerOption.builder()
+                .optionText("True")
+                .isCorrect(true)
+                .build());
+        User ann = createUser("arc_ann", RoleType.STUDENT);
+        User ben = createUser("arc_ben", RoleType.STUDENT);
+        enrollmentService.enrollStudents(course.getId(), List.of(ann.getId(), ben.getId()));
+
+        Submission annEssay = assignmentService.submitAssignment(essay.getId(), ann.getId(), "Сочинение", null);
+        assignmentService.gradeSubmission(annEssay.getId(), 60, "Хорошо");
+        quizService.takeQuiz(quiz.getId(), ann.getId(), Map.of(question.getId(), List.of(correct.getId())), 5);
+        assignmentService.submitAssignment(essay.getId(), ben.getId(), "essay", null);
+
+        LocalDateTime closedTerm = LocalDateTime.now().minusMonths(14).withNano(0);
+        jdbcTemplate.update("UPDATE submissions SET submitted_at = ? WHERE student_id = ?",
+                Timestamp.valueOf(closedTerm), ann.getId());
+        jdbcTemplate.update("UPDATE quiz_submissions SET submitted_at = ? WHERE student_id = ?",
+                Timestamp.valueOf(closedTerm), ann.getId());
+
+        // When
+        archiveService.archiveClosedTerms();
+        archiveService.archiveClosedTerms();
+        gradebookService.repair();
+
+        // Then
+        assertThat(jdbcTemplate.queryForList("SELECT student_id FROM submissions", Long.class))
+                .containsExactly(ben.getId());
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM quiz_submissions", Long.class)).isZero();
+        assertThat(Files.exists(archiveDirectory.resolve("submissions")
+                .resolve(YearMonth.from(closedTerm) + ".arc"))).isTrue();
+
+        TranscriptView transcript = transcriptService.getTranscript(ann.getId());
+        assertThat(transcript.submissions())
+                .extracting(SubmissionView::id, SubmissionView::content, SubmissionView::status,
+                        SubmissionView::score, SubmissionView::feedback, SubmissionView::submittedAt)
+                .containsExactly(tuple(annEssay.getId(), "Сочинение", SubmissionStatus.GRADED, 60, "Хорошо", closedTerm));
+        assertThat(transcript.quizSubmissions())
+                .extracting(QuizSubmissionView::quizId, QuizSubmissionView::score, QuizSubmissionView::passed)
+                .containsExactly(tuple(quiz.getId(), 100, true));
+        assertThat(transcriptService.getTranscript(ben.getId()).submissions()).hasSize(1);
+        // Files published by one instance are readable by a fresh one
+        assertThat(new SubmissionArchive(archiveDirectory.toString()).findSubmissions(ann.getId())).hasSize(1);
+
+        assertThat(archivedScoreRepository.findByCourseId(course.getId()))
+                .extracting(ArchivedScore::getStudentId, ArchivedScore::getAssignmentScore,
+                        ArchivedScore::getQuizzesPassed)
+                .containsExactly(tuple(ann.getId(), 60, 1));
+        assertThat(gradebookService.getGradebook(course.getId(), null, null, null, null).items())
+                .extracting(GradebookEntryView::studentId, GradebookEntryView::gradedAssignments,
+                        GradebookEntryView::assignmentScore, GradebookEntryView::quizzesTaken,
+                        GradebookEntryView::quizScore)
+                .containsExactly(tuple(ann.getId(), 1, 60, 1, 100), tuple(ben.getId(), 0, 0, 0, 0));
+        assertThatThrownBy(() -> quizService.takeQuiz(quiz.getId(), ann.getId(),
+                Map.of(question.getId(), List.of(correct.getId())), 5))
+                .isInstanceOf(DuplicateResourceException.class)
+                .hasMessage("Quiz already taken by this student");
+    }
+
+    @Test
+    void shouldRejectSubmittingAnArchivedAssignmentAgain() {
+        // Given
+        ClosedEssay essay = closedTermEssay("resubmit");
+        archiveService.archiveClosedTerms();
+
+        // When / Then: as on PostgreSQL, where submission_keys keeps the key of the dropped row
+        assertThatThrownBy(() -> assignmentService.submitAssignment(essay.assignmentId(), essay.studentId(),
+                "essay again", null))
+                .isInstanceOf(DuplicateResourceException.class)
+                .hasMessage("Assignment already submitted by this student");
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM submissions", Long.class)).isZero();
+    }
+
+    @Test
+    void shouldArchiveAGradeCommittedWhileTheTermIsBeingArchived() throws Exception {
+        // Given: a closed-term submission graded in a transaction that has not committed yet
+        ClosedEssay essay = closedTermEssay("lock");
+        CountDownLatch graded = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> grade = CompletableFuture.runAsync(() -> transaction.executeWithoutResult(status -> {
+            assignmentService.gradeSubmission(essay.submissionId(), 70, "late");
+            graded.countDown();
+            await(release);
+        }));
+        await(graded);
+
+        // When
+        CompletableFuture<Void> archiving = CompletableFuture.runAsync(archiveService::archiveClosedTerms);
+        Thread.sleep(300);
+        release.countDown();
+        grade.get(10, TimeUnit.SECONDS);
+        archiving.get(10, TimeUnit.SECONDS);
+
+        // Then: the rows written before the grade committed were caught under the lock and written again
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM submissions", Long.class)).isZero();
+        assertThat(transcriptService.getTranscript(essay.studentId()).submissions())
+                .extracting(SubmissionView::status, SubmissionView::score)
+                .containsExactly(tuple(SubmissionStatus.GRADED, 70));
+        assertThat(archivedScoreRepository.findByCourseId(essay.courseId()))
+                .extracting(ArchivedScore::getGradedAssignments, ArchivedScore::getAssignmentScore)
+                .containsExactly(tuple(1, 70));
+    }
+
+    @Test
+    void shouldNotPublishTheFileOfATermWhoseTransactionRollsBack() {
+        // Given
+        ClosedEssay essay = closedTermEssay("rollback");
+
+        // When: the archiving joins a transaction that rolls back
+        transaction.executeWithoutResult(status -> {
+            archiveService.archiveClosedTerms();
+            status.setRollbackOnly();
+        });
+
+        // Then: the rows stay in the table and only there
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM submissions", Long.class))
+                .containsExactly(essay.submissionId());
+        assertThat(transcriptService.getTranscript(essay.studentId()).submissions())
+                .extracting(SubmissionView::id)
+                .containsExactly(essay.submissionId());
+        assertThat(archiveDirectory.resolve("submissions")).isEmptyDirectory();
+    }
+
+    @Test
+    void shouldPublishAFileLeftBetweenCommitAndRename() {
+        // Given: a complete file for a term whose rows are gone, as after a stop right after the commit
+        ClosedEssay essay = closedTermEssay("interrupted");
+        YearMonth term = YearMonth.from(essay.submittedAt());
+        SubmissionView row = transcriptService.getTranscript(essay.studentId()).submissions().get(0);
+        SubmissionArchive other = new SubmissionArchive(archiveDirectory.toString());
+        try (ArchiveFile.Writer writer = other.writer(SubmissionArchive.SUBMISSIONS, term)) {
+            writer.append(essay.studentId(), SubmissionArchive.encodeSubmissions(List.of(row)));
+            writer.prepare();
+        }
+        jdbcTemplate.update("DELETE FROM submissions WHERE id = ?", essay.submissionId());
+
+        // When
+        archiveService.archiveClosedTerms();
+
+        // Then
+        assertThat(archiveDirectory.resolve("submissions")).isDirectoryContaining("glob:**/" + term + ".arc")
+                .isDirectoryNotContaining("glob:**.tmp");
+        assertThat(transcriptService.getTranscript(essay.studentId()).submissions())
+                .extracting(SubmissionView::id)
+                .containsExactly(essay.submissionId());
+        // Another instance sees the file once it refreshes
+        assertThat(other.findSubmissions(essay.studentId())).isEmpty();
+        other.refresh();
+        assertThat(other.findSubmissions(essay.studentId())).hasSize(1);
+    }
+
+    private ClosedEssay closedTermEssay(String prefix) {
+        User instructor = createUser(prefix + "_instructor", RoleType.INSTRUCTOR);
+        Category category = categoryRepository.save(Category.builder()
+                .name(prefix + " Category")
+                .description("Description")
+                .build());
+        Course course = courseService.createCourse(Course.builder()
+                .title(prefix + " Course")
+                .description("Description")
+                .durationHours(10)
+                .difficultyLevel(DifficultyLevel.BEGINNER)
+                .build(), instructor.getId(), category.getId());
+        Module module = courseService.addModuleToCourse(course.getId(), Module.builder().title("Module").build());
+        Lesson lesson = lessonRepository.save(Lesson.builder()
+                .title("Lesson")
+                .orderIndex(0)
+                .module(module)
+                .build());
+        Assignment essay = assignmentService.createAssignment(Assignment.builder()
+                .title("Essay")
+                .maxScore(100)
+                .lesson(lesson)
+                .build());
+        User student = createUser(prefix + "_student", RoleType.STUDENT);
+        enrollmentService.enrollStudents(course.getId(), List.of(student.getId()));
+        Submission submission = assignmentService.submitAssignment(essay.getId(), student.getId(), "essay", null);
+        LocalDateTime submittedAt = LocalDateTime.now().minusMonths(14).withNano(0);
+        jdbcTemplate.update("UPDATE submissions SET submitted_at = ? WHERE id = ?",
+                Timestamp.valueOf(submittedAt), submission.getId());
+        return new ClosedEssay(course.getId(), student.getId(), essay.getId(), submission.getId(), submittedAt);
+    }
+
+    private User createUser(String username, RoleType role) {
+        return userRepository.save(User.builder()
+                .username(username)
+                .email(username + "@test.com")
+                .password("password")
+                .firstName("First")
+                .lastName("Last")
+                .role(role)
+                .active(true)
+                .build());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record ClosedEssay(Long courseId, Long studentId, Long assignmentId, Long submissionId,
+                               LocalDateTime submittedAt) {
+    }
+}
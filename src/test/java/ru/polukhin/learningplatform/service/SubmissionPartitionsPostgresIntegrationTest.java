@@ -0,0 +1,186 @@
+package ru.polukhin.learningplatform.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.polukhin.learningplatform.dto.SubmissionView;
+import ru.polukhin.learningplatform.entity.*;
+import ru.polukhin.learningplatform.entity.Module;
+import ru.polukhin.learningplatform.exception.DuplicateResourceException;
+import ru.polukhin.learningplatform.repository.CategoryRepository;
+import ru.polukhin.learningplatform.repository.LessonRepository;
+import ru.polukhin.learningplatform.repository.UserRepository;
+
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+// The H2 tests never see the partitions: this runs every migration, including
+// db/vendor/postgresql/V4__partition_submissions.sql, on a real PostgreSQL. Skipped where Docker is missing.
+// Not @Transactional: detaching a partition and archiving a term commit on their own
+@SpringBootTest(properties = {
+        "spring.datasource.driver-class-name=org.postgresql.Driver",
+        "spring.jpa.database-platform=org.hibernate.dialect.PostgreSQLDialect",
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "app.submission-archive.keep-months=12"
+})
+@ActiveProfiles("test")
+@DirtiesContext
+@Testcontainers(disabledWithoutDocker = true)
+class SubmissionPartitionsPostgresIntegrationTest {
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16");
+
+    @TempDir
+    static Path archiveDirectory;
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+        registry.add("app.submission-archive.directory", archiveDirectory::toString);
+    }
+
+    @Autowired
+    private SubmissionPartitions partitions;
+
+    @Autowired
+    private SubmissionArchiveService archiveService;
+
+    @Autowired
+    private TranscriptService transcriptService;
+
+    @Autowired
+    private AssignmentService assignmentService;
+
+    @Autowired
+    private CourseService courseService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private LessonRepository lessonRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void shouldListAndRemoveClosedTermPartitions() {
+        // Given: the months created at startup, two closed ones and partitions that are not months
+        YearMonth current = YearMonth.now();
+        YearMonth oldest = current.minusMonths(24);
+        createPartition(SubmissionArchive.SUBMISSIONS, oldest);
+        createPartition(SubmissionArchive.SUBMISSIONS, oldest.plusMonths(1));
+        jdbcTemplate.execute("CREATE TABLE submissions_default PARTITION OF submissions DEFAULT");
+        jdbcTemplate.execute("CREATE TABLE submissions_legacy PARTITION OF submissions " +
+                "FOR VALUES FROM ('2000-01-01') TO ('2001-01-01')");
+
+        // When
+        List<YearMonth> closed = partitions.termsBefore(SubmissionArchive.SUBMISSIONS, current.minusMonths(12));
+        partitions.removeTerm(SubmissionArchive.SUBMISSIONS, oldest);
+
+        // Then
+        assertThat(partitions.isPartitioned()).isTrue();
+        assertThat(closed).containsExactly(oldest, oldest.plusMonths(1));
+        assertThat(partitions.termsBefore(SubmissionArchive.SUBMISSIONS, current.minusMonths(12)))
+                .containsExactly(oldest.plusMonths(1));
+        assertThat(partitions.hasTerm(SubmissionArchive.SUBMISSIONS, oldest)).isFalse();
+        assertThat(partitions.termsBefore(SubmissionArchive.QUIZ_SUBMISSIONS, current.plusMonths(4)))
+                .contains(current, current.plusMonths(3));
+
+        partitions.removeTerm(SubmissionArchive.SUBMISSIONS, oldest.plusMonths(1));
+    }
+
+    @Test
+    void shouldArchiveAPartitionAndKeepTheKeysOfItsRows() {
+        // Given: a graded submission in a closed month, inserted directly as nothing moves rows between months
+        YearMonth term = YearMonth.now().minusMonths(14);
+        createPartition(SubmissionArchive.SUBMISSIONS, term);
+        Assignment essay = createEssay();
+        User student = createUser("pg_student", RoleType.STUDENT);
+        LocalDateTime submittedAt = term.atDay(10).atTime(12, 0);
+        Long submissionId = jdbcTemplate.queryForObject("INSERT INTO submissions (id, student_id, assignment_id, " +
+                "content, submitted_at, status, score, created_at) " +
+                "VALUES (nextval('submissions_seq'), ?, ?, 'essay', ?, 'GRADED', 80, ?) RETURNING id", Long.class,
+                student.getId(), essay.getId(), Timestamp.valueOf(submittedAt), Timestamp.valueOf(submittedAt));
+
+        // When
+        archiveService.archiveClosedTerms();
+
+        // Then: the partition is gone, its rows are read from the file and the key still rejects a resubmission
+        assertThat(partitions.hasTerm(SubmissionArchive.SUBMISSIONS, term)).isFalse();
+        assertThat(partitions.termsBefore(SubmissionArchive.SUBMISSIONS, YearMonth.now().minusMonths(12))).isEmpty();
+        assertThat(transcriptService.getTranscript(student.getId()).submissions())
+                .extracting(SubmissionView::id, SubmissionView::score, SubmissionView::submittedAt)
+                .containsExactly(tuple(submissionId, 80, submittedAt));
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM submission_keys " +
+                "WHERE student_id = ? AND assignment_id = ?", Long.class, student.getId(), essay.getId())).isOne();
+        assertThatThrownBy(() -> assignmentService.submitAssignment(essay.getId(), student.getId(), "again", null))
+                .isInstanceOf(DuplicateResourceException.class)
+                .hasMessage("Assignment already submitted by this student");
+    }
+
+    private void createPartition(String table, YearMonth term) {
+        jdbcTemplate.execute("CREATE TABLE " + table + "_" + term.toString().replace('-', '_') + " PARTITION OF " +
+                table + " FOR VALUES FROM ('" + term.atDay(1) + "') TO ('" + term.plusMonths(1).atDay(1) + "')");
+    }
+
+    private Assignment createEssay() {
+        User instructor = createUser("pg_instructor", RoleType.INSTRUCTOR);
+        Category category = categoryRepository.save(Category.builder()
+                .name("Partitions")
+                .description("Description")
+                .build());
+        Course course = courseService.createCourse(Course.builder()
+                .title("Partitions Course")
+                .description("Description")
+                .durationHours(10)
+                .difficultyLevel(DifficultyLevel.BEGINNER)
+                .build(), instructor.getId(), category.getId());
+        Module module = courseService.addModuleToCourse(course.getId(), Module.builder().title("Module").build());
+        Lesson lesson = lessonRepository.save(Lesson.builder()
+                .title("Lesson")
+                .orderIndex(0)
+                .module(module)
+                .build());
+        return assignmentService.createAssignment(Assignment.builder()
+                .title("Essay")
+                .maxScore(100)
+                .lesson(lesson)
+                .build());
+    }
+
+    private User createUser(String username, RoleType role) {
+        return userRepository.save(User.builder()
+                .username(username)
+                .email(username + "@test.com")
+                .password("password")
+                .firstName("First")
+                .lastName("Last")
+                .role(role)
+                .active(true)
+                .build());
+    }
+}